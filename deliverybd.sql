@@ -85,10 +85,24 @@ CREATE TABLE pedido (
     tiempo_estimado INT CHECK (tiempo_estimado > 0),
     costo_delivery DECIMAL(6,2) DEFAULT 5.00,
     metodo_pago ENUM('EFECTIVO', 'TARJETA', 'TRANSFERENCIA', 'YAPE', 'PLIN') DEFAULT 'EFECTIVO',
+    descuento DECIMAL(10,2) NOT NULL DEFAULT 0 CHECK (descuento >= 0),
+    promocion_id BIGINT,
+    cupo_promocion_id BIGINT,
     FOREIGN KEY (cliente_id) REFERENCES cliente(id) ON DELETE CASCADE,
     FOREIGN KEY (restaurante_id) REFERENCES restaurante(id) ON DELETE CASCADE
 );
 
+DROP TABLE IF EXISTS venta_diaria;
+CREATE TABLE venta_diaria (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    restaurante_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    cantidad_pedidos BIGINT NOT NULL DEFAULT 0,
+    total DECIMAL(12,2) NOT NULL DEFAULT 0,
+    CONSTRAINT uk_venta_diaria_restaurante_fecha UNIQUE (restaurante_id, fecha),
+    FOREIGN KEY (restaurante_id) REFERENCES restaurante(id) ON DELETE CASCADE
+);
+
 DROP TABLE IF EXISTS detalle_pedido;
 CREATE TABLE detalle_pedido (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -130,6 +144,51 @@ CREATE TABLE entrega (
     FOREIGN KEY (repartidor_id) REFERENCES repartidor(id) ON DELETE RESTRICT
 );
 
+-- Archivo de pedidos finalizados: mismas columnas que las tablas activas, sin claves foráneas
+DROP TABLE IF EXISTS pedido_historico;
+CREATE TABLE pedido_historico (
+    id BIGINT PRIMARY KEY,
+    cliente_id BIGINT NOT NULL,
+    restaurante_id BIGINT NOT NULL,
+    direccion_entrega VARCHAR(255) NOT NULL,
+    notas VARCHAR(500),
+    tiempo_estimado INT,
+    costo_delivery DECIMAL(10,2),
+    metodo_pago VARCHAR(20) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    fecha_pedido DATETIME NOT NULL,
+    fecha_actualizacion DATETIME,
+    total DECIMAL(10,2) NOT NULL,
+    descuento DECIMAL(10,2) NOT NULL DEFAULT 0,
+    promocion_id BIGINT,
+    fecha_archivado DATETIME NOT NULL
+);
+
+DROP TABLE IF EXISTS detalle_pedido_historico;
+CREATE TABLE detalle_pedido_historico (
+    id BIGINT PRIMARY KEY,
+    pedido_id BIGINT NOT NULL,
+    menu_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    precio_unitario DECIMAL(10,2) NOT NULL,
+    subtotal DECIMAL(10,2) NOT NULL
+);
+
+DROP TABLE IF EXISTS entrega_historico;
+CREATE TABLE entrega_historico (
+    id BIGINT PRIMARY KEY,
+    pedido_id BIGINT NOT NULL UNIQUE,
+    repartidor_id BIGINT NOT NULL,
+    latitud DECIMAL(10,8),
+    longitud DECIMAL(11,8),
+    estado_entrega VARCHAR(20) NOT NULL,
+    fecha_inicio DATETIME NOT NULL,
+    fecha_actualizacion DATETIME,
+    fecha_entrega DATETIME,
+    comentarios VARCHAR(500),
+    fecha_asignacion DATETIME NOT NULL
+);
+
 DROP TABLE IF EXISTS calificacion;
 CREATE TABLE calificacion (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -159,6 +218,7 @@ CREATE TABLE promocion (
     activo BOOLEAN DEFAULT TRUE,
     usos_maximos INT DEFAULT NULL,
     usos_actuales INT DEFAULT 0,
+    usos_reservados INT NOT NULL DEFAULT 0,
     FOREIGN KEY (restaurante_id) REFERENCES restaurante(id) ON DELETE CASCADE,
     CHECK (fecha_fin > fecha_inicio),
     CHECK (
@@ -168,6 +228,22 @@ CREATE TABLE promocion (
     )
 );
 
+-- Bloques de usos de promociones reservados por cada nodo de la aplicación
+DROP TABLE IF EXISTS promocion_cupo;
+CREATE TABLE promocion_cupo (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    promocion_id BIGINT NOT NULL,
+    nodo VARCHAR(36) NOT NULL,
+    cantidad INT NOT NULL,
+    usados INT NOT NULL DEFAULT 0,
+    expira DATETIME NOT NULL,
+    fecha_creacion DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (promocion_id) REFERENCES promocion(id) ON DELETE CASCADE
+);
+
+-- pedido se crea antes que promocion, así que la clave foránea se agrega aquí
+ALTER TABLE pedido ADD CONSTRAINT fk_pedido_promocion FOREIGN KEY (promocion_id) REFERENCES promocion(id) ON DELETE SET NULL;
+
 DROP TABLE IF EXISTS configuracion;
 CREATE TABLE configuracion (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -312,6 +388,9 @@ CREATE INDEX idx_pedido_metodo_pago ON pedido(metodo_pago);
 CREATE INDEX idx_pedido_cliente_fecha ON pedido(cliente_id, fecha_pedido);
 CREATE INDEX idx_pedido_restaurante_fecha ON pedido(restaurante_id, fecha_pedido);
 CREATE INDEX idx_pedido_restaurante_estado ON pedido(restaurante_id, estado);
+CREATE INDEX idx_pedido_estado_fecha ON pedido(estado, fecha_pedido);
+CREATE INDEX idx_pedido_fecha_actualizacion ON pedido(fecha_actualizacion);
+CREATE INDEX idx_venta_diaria_fecha ON venta_diaria(fecha);
 CREATE INDEX idx_detalle_pedido ON detalle_pedido(pedido_id);
 CREATE INDEX idx_detalle_menu ON detalle_pedido(menu_id);
 CREATE INDEX idx_repartidor_cliente ON repartidor(cliente_id);
@@ -323,15 +402,23 @@ CREATE INDEX idx_entrega_estado ON entrega(estado);
 CREATE INDEX idx_entrega_fecha_asignacion ON entrega(fecha_asignacion);
 CREATE INDEX idx_entrega_fecha_entrega ON entrega(fecha_entrega);
 CREATE INDEX idx_entrega_repartidor_estado ON entrega(repartidor_id, estado);
+CREATE INDEX idx_entrega_repartidor_fecha ON entrega(repartidor_id, fecha_asignacion);
+CREATE INDEX idx_pedido_historico_cliente_fecha ON pedido_historico(cliente_id, fecha_pedido);
+CREATE INDEX idx_pedido_historico_restaurante_fecha ON pedido_historico(restaurante_id, fecha_pedido);
+CREATE INDEX idx_detalle_pedido_historico_pedido ON detalle_pedido_historico(pedido_id);
+CREATE INDEX idx_entrega_historico_repartidor ON entrega_historico(repartidor_id);
 CREATE INDEX idx_calificacion_pedido ON calificacion(pedido_id);
 CREATE INDEX idx_calificacion_cliente ON calificacion(cliente_id);
 CREATE INDEX idx_calificacion_restaurante ON calificacion(restaurante_id);
 CREATE INDEX idx_calificacion_puntuacion ON calificacion(puntuacion);
 CREATE INDEX idx_calificacion_restaurante_puntuacion ON calificacion(restaurante_id, puntuacion);
+CREATE INDEX idx_calificacion_restaurante_fecha ON calificacion(restaurante_id, fecha);
 CREATE INDEX idx_cliente_rol_cliente ON cliente_rol(cliente_id);
 CREATE INDEX idx_cliente_rol_rol ON cliente_rol(rol_id);
 CREATE INDEX idx_promocion_restaurante ON promocion(restaurante_id);
 CREATE INDEX idx_promocion_codigo ON promocion(codigo);
 CREATE INDEX idx_promocion_activo ON promocion(activo);
+CREATE INDEX idx_promocion_cupo_expira ON promocion_cupo(expira);
+CREATE INDEX idx_pedido_cupo_promocion ON pedido(cupo_promocion_id);
 CREATE INDEX idx_promocion_fechas ON promocion(fecha_inicio, fecha_fin, activo);
 CREATE INDEX idx_configuracion_clave ON configuracion(clave);
\ No newline at end of file
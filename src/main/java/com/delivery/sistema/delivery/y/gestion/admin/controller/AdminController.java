@@ -1,13 +1,26 @@
 package com.delivery.sistema.delivery.y.gestion.admin.controller;
 
+import com.delivery.sistema.delivery.y.gestion.admin.dto.DashboardDto;
+import com.delivery.sistema.delivery.y.gestion.admin.service.DashboardService;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.EstadisticasPedidosDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.ReporteVentasDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.AnaliticaPedidosService;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.ExportacionPedidoService;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.VentaDiariaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.Map;
-import java.util.HashMap;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -22,52 +35,70 @@ public class AdminController {
     // private final ClienteService clienteService;
     // private final RepartidorService repartidorService;
 
+    private final VentaDiariaService ventaDiariaService;
+    private final ExportacionPedidoService exportacionPedidoService;
+    private final DashboardService dashboardService;
+    private final AnaliticaPedidosService analiticaPedidosService;
+
+    // Foto precalculada: ver generadoEn para saber su antigüedad
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> dashboard() {
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        // TODO: Implementar métricas reales
-        dashboard.put("totalRestaurantes", 0);
-        dashboard.put("totalClientes", 0);
-        dashboard.put("totalRepartidores", 0);
-        dashboard.put("pedidosHoy", 0);
-        dashboard.put("ventasHoy", 0.0);
-        dashboard.put("pedidosPendientes", 0);
-        
-        return ResponseEntity.ok(dashboard);
+    public ResponseEntity<DashboardDto> dashboard() {
+        return ResponseEntity.ok(dashboardService.obtener());
     }
 
+    // Calculadas en memoria sobre la foto de AnaliticaPedidosService, sin consultas agrupadas
     @GetMapping("/estadisticas")
-    public ResponseEntity<Map<String, Object>> estadisticasGenerales() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // TODO: Implementar estadísticas reales
-        stats.put("pedidosPorMes", new HashMap<>());
-        stats.put("ventasPorMes", new HashMap<>());
-        stats.put("restaurantesMasVentas", new HashMap<>());
-        stats.put("clientesMasActivos", new HashMap<>());
-        
-        return ResponseEntity.ok(stats);
+    public ResponseEntity<EstadisticasPedidosDto> estadisticasGenerales(
+            @RequestParam(defaultValue = "12") int meses,
+            @RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(analiticaPedidosService.estadisticas(meses, top));
     }
 
     @GetMapping("/reportes/ventas")
-    public ResponseEntity<?> reporteVentas(
-            @RequestParam(required = false) String fechaInicio,
-            @RequestParam(required = false) String fechaFin,
+    public ResponseEntity<ReporteVentasDto> reporteVentas(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
             @RequestParam(required = false) Long restauranteId) {
-        
-        // TODO: Implementar reporte de ventas
-        return ResponseEntity.ok(Map.of("mensaje", "Reporte de ventas pendiente de implementar"));
+
+        // Por defecto, los últimos 30 días incluyendo hoy
+        LocalDate fin = fechaFin != null ? fechaFin : LocalDate.now();
+        LocalDate inicio = fechaInicio != null ? fechaInicio : fin.minusDays(29);
+        return ResponseEntity.ok(ventaDiariaService.reporte(restauranteId, inicio, fin));
     }
 
+    @PostMapping("/reportes/ventas/reconstruir")
+    public ResponseEntity<?> reconstruirVentas(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        ventaDiariaService.reconstruir(fechaInicio, fechaFin);
+        return ResponseEntity.ok(Map.of("mensaje", "Ventas diarias recalculadas"));
+    }
+
+    // Descarga en streaming: las filas se escriben según se leen, sin cargar el rango en memoria
     @GetMapping("/reportes/pedidos")
-    public ResponseEntity<?> reportePedidos(
-            @RequestParam(required = false) String fechaInicio,
-            @RequestParam(required = false) String fechaFin,
-            @RequestParam(required = false) String estado) {
-        
-        // TODO: Implementar reporte de pedidos
-        return ResponseEntity.ok(Map.of("mensaje", "Reporte de pedidos pendiente de implementar"));
+    public ResponseEntity<StreamingResponseBody> reportePedidos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) EstadoPedido estado,
+            @RequestParam(required = false) Long restauranteId,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        LocalDate fin = fechaFin != null ? fechaFin : LocalDate.now();
+        LocalDate inicio = fechaInicio != null ? fechaInicio : fin.minusDays(29);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        ExportacionPedidoService.Formato tipo = ExportacionPedidoService.Formato.desde(formato);
+
+        String archivo = "pedidos_" + inicio + "_" + fin + "." + tipo.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody cuerpo = salida ->
+                exportacionPedidoService.exportar(inicio, fin, restauranteId, estado, tipo, gzip, salida);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : tipo.getTipoContenido() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(archivo).build().toString())
+                .body(cuerpo);
     }
 
     @GetMapping("/sistema/configuracion")
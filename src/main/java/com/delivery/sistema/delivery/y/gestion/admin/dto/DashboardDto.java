@@ -0,0 +1,18 @@
+package com.delivery.sistema.delivery.y.gestion.admin.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Foto inmutable de las métricas del panel de administración.
+ * generadoEn indica cuándo se calculó: los valores pueden tener hasta app.dashboard.intervalo-ms de antigüedad.
+ */
+public record DashboardDto(
+        long totalRestaurantes,
+        long totalClientes,
+        long totalRepartidores,
+        long pedidosHoy,
+        BigDecimal ventasHoy,
+        long pedidosPendientes,
+        LocalDateTime generadoEn) {
+}
@@ -0,0 +1,59 @@
+package com.delivery.sistema.delivery.y.gestion.admin.service;
+
+import com.delivery.sistema.delivery.y.gestion.admin.dto.DashboardDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.service.ContadorEstadosService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Métricas del panel de administración precalculadas cada app.dashboard.intervalo-ms.
+ * Se publican como una foto inmutable en un campo volatile, así que cada petición la lee de memoria
+ * sin consultas y siempre ve un conjunto de valores coherente entre sí.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private final PedidoRepository pedidoRepository;
+    private final ContadorEstadosService contadorEstadosService;
+
+    private volatile DashboardDto actual;
+
+    public DashboardDto obtener() {
+        DashboardDto foto = actual;
+        if (foto == null) {
+            // Primera petición antes de la primera pasada programada
+            recalcular();
+            foto = actual;
+        }
+        return foto;
+    }
+
+    @Scheduled(initialDelayString = "${app.dashboard.intervalo-ms:30000}",
+               fixedDelayString = "${app.dashboard.intervalo-ms:30000}")
+    public void recalcular() {
+        LocalDateTime generadoEn = LocalDateTime.now();
+        // Una sola consulta para los totales y los pedidos del día; repartidores y pendientes salen de los contadores en memoria
+        Object[] resumen = pedidoRepository.resumenDashboard(LocalDate.now().atStartOfDay()).get(0);
+
+        DashboardDto foto = new DashboardDto(
+                ((Number) resumen[2]).longValue(),
+                ((Number) resumen[3]).longValue(),
+                contadorEstadosService.totalRepartidores(),
+                ((Number) resumen[0]).longValue(),
+                resumen[1] != null ? new BigDecimal(resumen[1].toString()) : BigDecimal.ZERO,
+                contadorEstadosService.pedidosPorEstado().getOrDefault(EstadoPedido.PENDIENTE.name(), 0L),
+                generadoEn);
+        actual = foto;
+        log.debug("Dashboard recalculado: {}", foto);
+    }
+}
@@ -1,16 +1,27 @@
 package com.delivery.sistema.delivery.y.gestion.delivery.controller;
 
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.CambioEstadoEntregasDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.MetricasDespachoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.MetricasTrackDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.PuntoUbicacionDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.ResultadoDespachoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.service.DespachoService;
 import com.delivery.sistema.delivery.y.gestion.delivery.service.EntregaService;
+import com.delivery.sistema.delivery.y.gestion.delivery.service.TrackEntregaService;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.ResultadoCambioEstadoDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,6 +31,8 @@ import java.util.Map;
 public class EntregaController {
 
     private final EntregaService entregaService;
+    private final TrackEntregaService trackEntregaService;
+    private final DespachoService despachoService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -38,6 +51,16 @@ public class EntregaController {
         return ResponseEntity.ok(entregaService.listarEntregas(pageable));
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaginaCursorDto<EntregaDto>> listarEntregasPorCursor(
+            @RequestParam(required = false) EstadoEntrega estado,
+            @RequestParam(required = false) Long repartidorId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(entregaService.listarEntregasPorCursor(repartidorId, estado, after, size));
+    }
+
     @GetMapping("/activas")
     @PreAuthorize("hasRole('ADMIN') or hasRole('REPARTIDOR')")
     public ResponseEntity<Page<EntregaDto>> entregasActivas(Pageable pageable) {
@@ -86,6 +109,13 @@ public class EntregaController {
         return ResponseEntity.ok(entregaService.cambiarEstado(id, estado));
     }
 
+    @PatchMapping("/estado")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('REPARTIDOR')")
+    public ResponseEntity<List<ResultadoCambioEstadoDto>> cambiarEstadoEnLote(
+            @Valid @RequestBody CambioEstadoEntregasDto cambio) {
+        return ResponseEntity.ok(entregaService.cambiarEstadoEnLote(cambio.getIds(), cambio.getEstado()));
+    }
+
     @PatchMapping("/{id}/iniciar")
     @PreAuthorize("hasRole('REPARTIDOR') and @entregaService.esOwnerDeLaEntrega(#id, authentication.name)")
     public ResponseEntity<EntregaDto> iniciarEntrega(@PathVariable Long id) {
@@ -100,6 +130,41 @@ public class EntregaController {
         return ResponseEntity.ok(entregaService.finalizarEntrega(id, comentarios));
     }
 
+    // Cada punto es [latitud, longitud, instante en ms]
+    @PostMapping("/{id}/track")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('REPARTIDOR') and @entregaService.esOwnerDeLaEntrega(#id, authentication.name))")
+    public ResponseEntity<Map<String, Integer>> registrarRecorrido(
+            @PathVariable Long id,
+            @RequestBody List<PuntoUbicacionDto> puntos) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(Map.of("aceptados", trackEntregaService.registrar(id, puntos)));
+    }
+
+    @GetMapping("/{id}/track")
+    @PreAuthorize("hasRole('ADMIN') or @entregaService.esOwnerDeLaEntrega(#id, authentication.name)")
+    public ResponseEntity<List<PuntoUbicacionDto>> obtenerRecorrido(@PathVariable Long id) {
+        return ResponseEntity.ok(trackEntregaService.recorrido(id));
+    }
+
+    @GetMapping("/track/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MetricasTrackDto> obtenerMetricasRecorrido() {
+        return ResponseEntity.ok(trackEntregaService.metricas());
+    }
+
+    // Ejecuta una ronda del despacho por lotes sin esperar a la programada
+    @PostMapping("/despacho")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResultadoDespachoDto> despachar() {
+        return ResponseEntity.ok(despachoService.despachar());
+    }
+
+    @GetMapping("/despacho/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MetricasDespachoDto> obtenerMetricasDespacho() {
+        return ResponseEntity.ok(despachoService.metricas());
+    }
+
     @GetMapping("/estadisticas")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> obtenerEstadisticas() {
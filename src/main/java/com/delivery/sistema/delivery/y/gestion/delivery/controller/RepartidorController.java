@@ -1,7 +1,9 @@
 package com.delivery.sistema.delivery.y.gestion.delivery.controller;
 
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorCercanoDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.service.RepartidorService;
+import com.delivery.sistema.delivery.y.gestion.delivery.service.UbicacionRepartidorService;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -11,6 +13,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,6 +23,7 @@ import java.util.Map;
 public class RepartidorController {
 
     private final RepartidorService repartidorService;
+    private final UbicacionRepartidorService ubicacionRepartidorService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -44,6 +48,16 @@ public class RepartidorController {
         return ResponseEntity.ok(repartidorService.listarRepartidoresDisponibles(pageable));
     }
 
+    @GetMapping("/cercanos")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RepartidorCercanoDto>> repartidoresCercanos(
+            @RequestParam double latitud,
+            @RequestParam double longitud,
+            @RequestParam(defaultValue = "5") double radioKm,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(ubicacionRepartidorService.cercanos(latitud, longitud, radioKm, limite));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('REPARTIDOR') and @repartidorService.esOwner(#id, authentication.name))")
     public ResponseEntity<RepartidorDto> obtenerRepartidor(@PathVariable Long id) {
@@ -72,6 +86,16 @@ public class RepartidorController {
         return ResponseEntity.ok(repartidorService.cambiarDisponibilidad(id, disponible));
     }
 
+    @PutMapping("/{id}/ubicacion")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('REPARTIDOR') and @repartidorService.esOwner(#id, authentication.name))")
+    public ResponseEntity<Void> actualizarUbicacion(
+            @PathVariable Long id,
+            @RequestParam double latitud,
+            @RequestParam double longitud) {
+        ubicacionRepartidorService.actualizar(id, latitud, longitud);
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{id}/estado")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('REPARTIDOR') and @repartidorService.esOwner(#id, authentication.name))")
     public ResponseEntity<RepartidorDto> cambiarEstado(
@@ -0,0 +1,24 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoEntregasDto {
+
+    @NotEmpty(message = "Debe indicar al menos una entrega")
+    @Size(max = 200, message = "No se pueden cambiar más de 200 entregas a la vez")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "El estado es obligatorio")
+    private EstadoEntrega estado;
+}
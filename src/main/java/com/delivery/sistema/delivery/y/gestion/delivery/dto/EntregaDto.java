@@ -20,7 +20,7 @@ public class EntregaDto {
     @NotNull(message = "El pedido es obligatorio")
     private Long pedidoId;
     
-    @NotNull(message = "El repartidor es obligatorio")
+    // Opcional al crear: sin repartidor se asigna el libre más cercano al restaurante
     private Long repartidorId;
     
     private String repartidorNombre;
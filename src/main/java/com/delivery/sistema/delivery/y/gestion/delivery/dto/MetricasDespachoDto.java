@@ -0,0 +1,14 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+/**
+ * Acumulados del despacho por lotes desde el arranque y el resultado de la última ronda con trabajo.
+ * descartadosAlConfirmar: propuestas que no se pudieron confirmar porque el pedido o el repartidor ya no estaban
+ * libres.
+ */
+public record MetricasDespachoDto(
+        long rondas,
+        long asignados,
+        long descartadosAlConfirmar,
+        double maxResolucionMs,
+        ResultadoDespachoDto ultima) {
+}
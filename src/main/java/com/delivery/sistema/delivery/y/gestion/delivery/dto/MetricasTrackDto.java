@@ -0,0 +1,22 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+/**
+ * Estado de la ingesta de ubicaciones desde el arranque. Los contadores son acumulados; pendientes es lo que
+ * espera en memoria la próxima descarga.
+ * descartadosPorDesborde: puntos más antiguos pisados porque el buffer de su entrega estaba lleno.
+ * rechazadosPorLimite: puntos no aceptados porque se alcanzó el máximo de pendientes en memoria.
+ * ultimoRetrasoMs / maxRetrasoMs: desde que llegó el punto más antiguo de una descarga hasta que se escribió.
+ */
+public record MetricasTrackDto(
+        long recibidos,
+        long descartadosPorDesborde,
+        long rechazadosPorLimite,
+        long persistidos,
+        long perdidosPorError,
+        long pendientes,
+        int entregasEnCamino,
+        long descargas,
+        long ultimoRetrasoMs,
+        long maxRetrasoMs,
+        long ultimaDescargaMs) {
+}
@@ -0,0 +1,13 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Punto GPS en forma compacta: se lee y se escribe como arreglo [latitud, longitud, instante], con instante en
+ * milisegundos desde la época tal como lo registró el dispositivo.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"latitud", "longitud", "instante"})
+public record PuntoUbicacionDto(double latitud, double longitud, long instante) {
+}
@@ -0,0 +1,10 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repartidor disponible cerca de un punto, con su última ubicación informada y la distancia en línea recta.
+ */
+public record RepartidorCercanoDto(Long repartidorId, double latitud, double longitud, double distanciaKm,
+                                   LocalDateTime ubicacionActualizadaEn) {
+}
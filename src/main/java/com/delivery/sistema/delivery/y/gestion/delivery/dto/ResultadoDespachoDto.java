@@ -0,0 +1,28 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de una ronda del despacho por lotes.
+ * algoritmo: HUNGARO o GREEDY según el tamaño del lote.
+ * propuestas: asignaciones que devolvió el algoritmo; asignados: las que se confirmaron. La diferencia son pedidos
+ * o repartidores que cambiaron de estado entre la lectura y la confirmación.
+ * costoTotal: suma de costos de las propuestas, en km equivalentes. costoGreedy: lo que habría costado la
+ * asignación greedy sobre la misma matriz, solo cuando se usó el húngaro (puede cubrir menos pedidos).
+ * esperaMaxSinAsignarSegundos: espera del pedido listo más antiguo que quedó para la ronda siguiente.
+ */
+public record ResultadoDespachoDto(
+        LocalDateTime ejecutadoEn,
+        String algoritmo,
+        int pedidosPendientes,
+        int repartidoresLibres,
+        int propuestas,
+        int asignados,
+        double costoTotal,
+        Double costoGreedy,
+        double distanciaMediaKm,
+        double distanciaMaxKm,
+        long esperaMaxSinAsignarSegundos,
+        double resolucionMs,
+        long confirmacionMs) {
+}
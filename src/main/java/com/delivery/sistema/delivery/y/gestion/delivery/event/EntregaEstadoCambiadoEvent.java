@@ -0,0 +1,10 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.event;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+
+/**
+ * Se publica dentro de la transacción que cambia el estado de una entrega.
+ * estadoAnterior es null cuando la entrega se crea y estadoNuevo es null cuando se elimina.
+ */
+public record EntregaEstadoCambiadoEvent(Long entregaId, EstadoEntrega estadoAnterior, EstadoEntrega estadoNuevo) {
+}
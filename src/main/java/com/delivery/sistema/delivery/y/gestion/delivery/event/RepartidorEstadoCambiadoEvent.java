@@ -0,0 +1,12 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.event;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+
+/**
+ * Se publica dentro de la transacción que cambia el estado o la disponibilidad de un repartidor.
+ * Los valores anteriores son null al crearlo y los nuevos son null al eliminarlo.
+ */
+public record RepartidorEstadoCambiadoEvent(Long repartidorId,
+                                            EstadoRepartidor estadoAnterior, EstadoRepartidor estadoNuevo,
+                                            Boolean disponibleAnterior, Boolean disponibleNuevo) {
+}
@@ -0,0 +1,52 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entrega de un pedido archivado (ver PedidoHistorico).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "entrega_historico")
+public class EntregaHistorico {
+
+    @Id
+    private Long id;
+
+    @Column(name = "pedido_id", nullable = false, unique = true)
+    private Long pedidoId;
+
+    @Column(name = "repartidor_id", nullable = false)
+    private Long repartidorId;
+
+    @Column(precision = 10, scale = 8)
+    private BigDecimal latitud;
+
+    @Column(precision = 11, scale = 8)
+    private BigDecimal longitud;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_entrega", nullable = false)
+    private EstadoEntrega estadoEntrega;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "fecha_entrega")
+    private LocalDateTime fechaEntrega;
+
+    @Column(name = "comentarios", length = 500)
+    private String comentarios;
+
+    @Column(name = "fecha_asignacion", nullable = false)
+    private LocalDateTime fechaAsignacion;
+}
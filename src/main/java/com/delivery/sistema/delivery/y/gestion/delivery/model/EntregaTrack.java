@@ -0,0 +1,38 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Punto del recorrido de una entrega en camino, tal como lo informó el repartidor. Solo se agregan filas,
+ * en lotes, desde TrackEntregaService. entrega_id no es clave foránea: al archivar el pedido la entrega pasa a
+ * entrega_historico con el mismo id y su recorrido queda aquí.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "entrega_track",
+       indexes = @Index(name = "idx_entrega_track_entrega", columnList = "entrega_id, registrado_en"))
+public class EntregaTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entrega_id", nullable = false)
+    private Long entregaId;
+
+    @Column(precision = 10, scale = 8, nullable = false)
+    private BigDecimal latitud;
+
+    @Column(precision = 11, scale = 8, nullable = false)
+    private BigDecimal longitud;
+
+    // Instante informado por el dispositivo, no el de llegada al servidor
+    @Column(name = "registrado_en", nullable = false)
+    private LocalDateTime registradoEn;
+}
@@ -1,5 +1,21 @@
 package com.delivery.sistema.delivery.y.gestion.delivery.model;
 
+import java.util.Set;
+
 public enum EstadoEntrega {
-    ASIGNADO, EN_CAMINO, ENTREGADO, FALLIDO
+    ASIGNADO, EN_CAMINO, ENTREGADO, FALLIDO;
+
+    // Tabla de transiciones: estados desde los que una entrega puede pasar a este estado
+    public Set<EstadoEntrega> getEstadosOrigen() {
+        return switch (this) {
+            case ASIGNADO -> Set.of(ASIGNADO, FALLIDO); // reasignación de repartidor
+            case EN_CAMINO -> Set.of(ASIGNADO);
+            case ENTREGADO -> Set.of(EN_CAMINO);
+            case FALLIDO -> Set.of(ASIGNADO, EN_CAMINO);
+        };
+    }
+
+    public boolean puedeCambiarA(EstadoEntrega nuevoEstado) {
+        return nuevoEstado.getEstadosOrigen().contains(this);
+    }
 }
@@ -0,0 +1,15 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EntregaHistorico;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EntregaHistoricoRepository extends JpaRepository<EntregaHistorico, Long> {
+
+    @Query("SELECT e.estadoEntrega, COUNT(e) FROM EntregaHistorico e GROUP BY e.estadoEntrega")
+    List<Object[]> contarAgrupadoPorEstado();
+}
@@ -1,20 +1,35 @@
 package com.delivery.sistema.delivery.y.gestion.delivery.repository;
 
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.Entrega;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 @Repository
-public interface EntregaRepository extends JpaRepository<Entrega, Long> {
+public interface EntregaRepository extends JpaRepository<Entrega, Long>, EntregaRepositoryCustom {
+
+    // Proyección directa a DTO para listados: una sola consulta y sin entidades gestionadas
+    String PROYECCION_DTO = "SELECT new com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto("
+            + "e.id, e.pedido.id, r.id, c.nombre, r.vehiculo, e.latitud, e.longitud, e.estadoEntrega, "
+            + "e.fechaAsignacion, e.fechaActualizacion, e.fechaEntrega, e.comentarios) "
+            + "FROM Entrega e JOIN e.repartidor r JOIN r.cliente c";
 
     Optional<Entrega> findByPedidoId(Long pedidoId);
 
@@ -75,4 +90,97 @@ public interface EntregaRepository extends JpaRepository<Entrega, Long> {
     
     @Query("SELECT e FROM Entrega e LEFT JOIN FETCH e.pedido LEFT JOIN FETCH e.repartidor WHERE e.id = :entregaId")
     Optional<Entrega> findByIdWithPedidoAndRepartidor(@Param("entregaId") Long entregaId);
-}
\ No newline at end of file
+
+    // Transiciones de estado atómicas: el UPDATE solo aplica si el estado actual está entre los permitidos
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entrega e SET e.estadoEntrega = :nuevoEstado, e.fechaActualizacion = :ahora WHERE e.id = :entregaId AND e.estadoEntrega IN :estadosOrigen")
+    int actualizarEstadoSiPermitido(@Param("entregaId") Long entregaId, @Param("nuevoEstado") EstadoEntrega nuevoEstado, @Param("estadosOrigen") Collection<EstadoEntrega> estadosOrigen, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entrega e SET e.estadoEntrega = :nuevoEstado, e.comentarios = :comentarios, e.fechaActualizacion = :ahora WHERE e.id = :entregaId AND e.estadoEntrega IN :estadosOrigen")
+    int actualizarEstadoYComentariosSiPermitido(@Param("entregaId") Long entregaId, @Param("nuevoEstado") EstadoEntrega nuevoEstado, @Param("estadosOrigen") Collection<EstadoEntrega> estadosOrigen, @Param("comentarios") String comentarios, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entrega e SET e.estadoEntrega = 'ENTREGADO', e.comentarios = :comentarios, e.fechaEntrega = :ahora, e.fechaActualizacion = :ahora WHERE e.id = :entregaId AND e.estadoEntrega IN :estadosOrigen")
+    int marcarEntregadaSiPermitido(@Param("entregaId") Long entregaId, @Param("estadosOrigen") Collection<EstadoEntrega> estadosOrigen, @Param("comentarios") String comentarios, @Param("ahora") LocalDateTime ahora);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Entrega e WHERE e.id = :id")
+    Optional<Entrega> bloquearPorId(@Param("id") Long id);
+
+    @Query("SELECT e.estadoEntrega FROM Entrega e WHERE e.id = :entregaId")
+    Optional<EstadoEntrega> findEstadoById(@Param("entregaId") Long entregaId);
+
+    @Query("SELECT e.repartidor.id FROM Entrega e WHERE e.id = :entregaId")
+    Optional<Long> findRepartidorIdById(@Param("entregaId") Long entregaId);
+
+    @Query("SELECT e.pedido.id FROM Entrega e WHERE e.id = :entregaId")
+    Optional<Long> findPedidoIdById(@Param("entregaId") Long entregaId);
+
+    // Filas (id, repartidor.id) de las entregas en camino, las únicas que reciben ubicaciones
+    @Query("SELECT e.id, e.repartidor.id FROM Entrega e WHERE e.estadoEntrega = 'EN_CAMINO'")
+    List<Object[]> findRepartidoresEnCamino();
+
+    boolean existsByIdAndRepartidorClienteEmail(Long id, String email);
+
+    // Fila (pedido.id, restaurante.id, fechaPedido, repartidor.id) de la entrega para la estimación de tiempo
+    @Query("SELECT p.id, p.restaurante.id, p.fechaPedido, e.repartidor.id FROM Entrega e JOIN e.pedido p WHERE e.id = :entregaId")
+    List<Object[]> findPedidoYRepartidorById(@Param("entregaId") Long entregaId);
+
+    // Filas (id, pedido.id, restaurante.id, fechaPedido, repartidor.id) de varias entregas, para las estimaciones
+    // de una misma transacción
+    @Query("SELECT e.id, p.id, p.restaurante.id, p.fechaPedido, e.repartidor.id FROM Entrega e JOIN e.pedido p "
+            + "WHERE e.id IN :entregaIds")
+    List<Object[]> findPedidoYRepartidorByIdIn(@Param("entregaIds") Collection<Long> entregaIds);
+
+    // Filas (restaurante.id, fechaPedido, repartidor.id, fechaAsignacion, fechaEntrega) de las entregas completadas
+    // desde una fecha, en orden de entrega; se recorren una vez al arrancar sin cargarlas enteras en memoria
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.restaurante.id, p.fechaPedido, e.repartidor.id, e.fechaAsignacion, e.fechaEntrega FROM Entrega e JOIN e.pedido p "
+            + "WHERE e.estadoEntrega = 'ENTREGADO' AND e.fechaEntrega >= :desde ORDER BY e.fechaEntrega")
+    Stream<Object[]> recorrerTiemposEntregadas(@Param("desde") LocalDateTime desde);
+
+    // Cambios masivos: bloquea cada entrega junto con su pedido, que también cambia de estado
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e.id, e.estadoEntrega, p.id, p.estado, e.repartidor.id FROM Entrega e JOIN e.pedido p WHERE e.id IN :entregaIds ORDER BY e.id")
+    List<Object[]> bloquearEstadosConPedido(@Param("entregaIds") Collection<Long> entregaIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entrega e SET e.estadoEntrega = :nuevoEstado, e.fechaActualizacion = :ahora WHERE e.id IN :entregaIds AND e.estadoEntrega IN :estadosOrigen")
+    int actualizarEstadoEnLoteSiPermitido(@Param("entregaIds") Collection<Long> entregaIds, @Param("nuevoEstado") EstadoEntrega nuevoEstado, @Param("estadosOrigen") Collection<EstadoEntrega> estadosOrigen, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Entrega e SET e.estadoEntrega = 'ENTREGADO', e.fechaEntrega = :ahora, e.fechaActualizacion = :ahora WHERE e.id IN :entregaIds AND e.estadoEntrega IN :estadosOrigen")
+    int marcarEntregadasEnLoteSiPermitido(@Param("entregaIds") Collection<Long> entregaIds, @Param("estadosOrigen") Collection<EstadoEntrega> estadosOrigen, @Param("ahora") LocalDateTime ahora);
+
+    // Listados paginados proyectados a EntregaDto
+    @Query(value = PROYECCION_DTO, countQuery = "SELECT COUNT(e) FROM Entrega e")
+    Page<EntregaDto> findAllDto(Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE e.estadoEntrega = :estado",
+            countQuery = "SELECT COUNT(e) FROM Entrega e WHERE e.estadoEntrega = :estado")
+    Page<EntregaDto> findDtoByEstadoEntrega(@Param("estado") EstadoEntrega estado, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :repartidorId",
+            countQuery = "SELECT COUNT(e) FROM Entrega e WHERE e.repartidor.id = :repartidorId")
+    Page<EntregaDto> findDtoByRepartidorId(@Param("repartidorId") Long repartidorId, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :repartidorId AND e.estadoEntrega = :estado",
+            countQuery = "SELECT COUNT(e) FROM Entrega e WHERE e.repartidor.id = :repartidorId AND e.estadoEntrega = :estado")
+    Page<EntregaDto> findDtoByRepartidorIdAndEstadoEntrega(@Param("repartidorId") Long repartidorId, @Param("estado") EstadoEntrega estado, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE e.estadoEntrega IN ('ASIGNADO', 'EN_CAMINO')",
+            countQuery = "SELECT COUNT(e) FROM Entrega e WHERE e.estadoEntrega IN ('ASIGNADO', 'EN_CAMINO')")
+    Page<EntregaDto> findDtoActivas(Pageable pageable);
+
+    // Semilla y reconciliación de los contadores en memoria por estado
+    @Query("SELECT e.estadoEntrega, COUNT(e) FROM Entrega e GROUP BY e.estadoEntrega")
+    List<Object[]> contarAgrupadoPorEstado();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Entrega e WHERE e.pedido.id IN :pedidoIds ORDER BY e.id")
+    List<Entrega> bloquearPorPedidoIds(@Param("pedidoIds") Collection<Long> pedidoIds);
+}
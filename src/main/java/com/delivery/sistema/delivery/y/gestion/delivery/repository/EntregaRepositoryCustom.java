@@ -0,0 +1,16 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+
+import java.util.List;
+
+public interface EntregaRepositoryCustom {
+
+    /**
+     * Paginación por cursor sobre (fecha_asignacion, id) descendente, sin consulta COUNT.
+     * Devuelve directamente la proyección EntregaRepository.PROYECCION_DTO.
+     */
+    List<EntregaDto> buscarDespuesDe(Long repartidorId, EstadoEntrega estado, Cursor cursor, int limite);
+}
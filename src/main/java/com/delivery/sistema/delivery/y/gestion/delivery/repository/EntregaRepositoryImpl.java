@@ -0,0 +1,41 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+public class EntregaRepositoryImpl implements EntregaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EntregaDto> buscarDespuesDe(Long repartidorId, EstadoEntrega estado, Cursor cursor, int limite) {
+        StringBuilder jpql = new StringBuilder(EntregaRepository.PROYECCION_DTO + " WHERE "
+                + "(e.fechaAsignacion < :fecha OR (e.fechaAsignacion = :fecha AND e.id < :id))");
+        if (repartidorId != null) {
+            jpql.append(" AND r.id = :repartidorId");
+        }
+        if (estado != null) {
+            jpql.append(" AND e.estadoEntrega = :estado");
+        }
+        jpql.append(" ORDER BY e.fechaAsignacion DESC, e.id DESC");
+
+        TypedQuery<EntregaDto> query = entityManager.createQuery(jpql.toString(), EntregaDto.class)
+                .setParameter("fecha", cursor.fecha())
+                .setParameter("id", cursor.id())
+                .setMaxResults(limite);
+        if (repartidorId != null) {
+            query.setParameter("repartidorId", repartidorId);
+        }
+        if (estado != null) {
+            query.setParameter("estado", estado);
+        }
+        return query.getResultList();
+    }
+}
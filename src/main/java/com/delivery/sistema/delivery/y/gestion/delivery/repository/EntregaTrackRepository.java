@@ -0,0 +1,13 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EntregaTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EntregaTrackRepository extends JpaRepository<EntregaTrack, Long>, EntregaTrackRepositoryCustom {
+
+    List<EntregaTrack> findByEntregaIdOrderByRegistradoEnAscIdAsc(Long entregaId);
+}
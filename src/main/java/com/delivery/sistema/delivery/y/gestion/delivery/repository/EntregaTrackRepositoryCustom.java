@@ -0,0 +1,20 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import java.util.List;
+
+public interface EntregaTrackRepositoryCustom {
+
+    // instante en milisegundos desde la época, como lo informa el dispositivo
+    record PuntoTrack(long entregaId, double latitud, double longitud, long instante) {
+    }
+
+    /**
+     * Agrega los puntos a entrega_track con INSERT por lotes de JDBC de hasta tamanoLote filas.
+     */
+    void insertarEnLote(List<PuntoTrack> puntos, int tamanoLote);
+
+    /**
+     * Deja en entrega.latitud/longitud el último punto de cada entrega, con un UPDATE por lotes.
+     */
+    void actualizarUltimasUbicaciones(List<PuntoTrack> ultimos);
+}
@@ -0,0 +1,56 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EntregaTrackRepositoryImpl implements EntregaTrackRepositoryCustom {
+
+    private static final String INSERT_PUNTO =
+            "INSERT INTO entrega_track (entrega_id, latitud, longitud, registrado_en) VALUES (?, ?, ?, ?)";
+
+    private static final String ACTUALIZAR_UBICACION =
+            "UPDATE entrega SET latitud = ?, longitud = ?, fecha_actualizacion = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarEnLote(List<PuntoTrack> puntos, int tamanoLote) {
+        if (puntos.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PUNTO, puntos, tamanoLote, (ps, punto) -> {
+            ps.setLong(1, punto.entregaId());
+            ps.setBigDecimal(2, coordenada(punto.latitud()));
+            ps.setBigDecimal(3, coordenada(punto.longitud()));
+            ps.setTimestamp(4, new Timestamp(punto.instante()));
+        });
+    }
+
+    @Override
+    public void actualizarUltimasUbicaciones(List<PuntoTrack> ultimos) {
+        if (ultimos.isEmpty()) {
+            return;
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(ACTUALIZAR_UBICACION, ultimos, ultimos.size(), (ps, punto) -> {
+            ps.setBigDecimal(1, coordenada(punto.latitud()));
+            ps.setBigDecimal(2, coordenada(punto.longitud()));
+            ps.setTimestamp(3, ahora);
+            ps.setLong(4, punto.entregaId());
+        });
+    }
+
+    // La misma escala que las columnas DECIMAL de latitud y longitud
+    private static BigDecimal coordenada(double valor) {
+        return BigDecimal.valueOf(valor).setScale(8, RoundingMode.HALF_UP);
+    }
+}
@@ -1,8 +1,11 @@
 package com.delivery.sistema.delivery.y.gestion.delivery.repository;
 
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.Repartidor;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,6 +19,11 @@ import org.springframework.data.domain.Pageable;
 @Repository
 public interface RepartidorRepository extends JpaRepository<Repartidor, Long> {
 
+    // Proyección directa a DTO para listados: una sola consulta y sin entidades gestionadas
+    String PROYECCION_DTO = "SELECT new com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorDto("
+            + "r.id, c.id, c.nombre, c.email, r.telefono, r.vehiculo, r.disponible, r.estado, r.fechaRegistro, r.fechaActualizacion) "
+            + "FROM Repartidor r JOIN r.cliente c";
+
     List<Repartidor> findByEstado(EstadoRepartidor estado);
     
     Page<Repartidor> findByEstado(EstadoRepartidor estado, Pageable pageable);
@@ -76,4 +84,53 @@ public interface RepartidorRepository extends JpaRepository<Repartidor, Long> {
 
     @Query("SELECT COUNT(e) FROM Entrega e WHERE e.repartidor.id = :repartidorId AND e.estadoEntrega = 'FALLIDO' AND e.fechaAsignacion BETWEEN :fechaInicio AND :fechaFin")
     Long countEntregasFallidasByRepartidorAndFechas(@Param("repartidorId") Long repartidorId, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
-}
\ No newline at end of file
+
+    // Listados paginados proyectados a RepartidorDto
+    @Query(value = PROYECCION_DTO, countQuery = "SELECT COUNT(r) FROM Repartidor r")
+    Page<RepartidorDto> findAllDto(Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.estado = :estado",
+            countQuery = "SELECT COUNT(r) FROM Repartidor r WHERE r.estado = :estado")
+    Page<RepartidorDto> findDtoByEstado(@Param("estado") EstadoRepartidor estado, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.disponible = true",
+            countQuery = "SELECT COUNT(r) FROM Repartidor r WHERE r.disponible = true")
+    Page<RepartidorDto> findDtoByDisponibleTrue(Pageable pageable);
+
+    // Semilla y reconciliación de los contadores en memoria por estado y disponibilidad
+    @Query("SELECT r.estado, r.disponible, COUNT(r) FROM Repartidor r GROUP BY r.estado, r.disponible")
+    List<Object[]> contarAgrupadoPorEstadoYDisponible();
+
+    // Filas (id, disponible para asignar) para la carga y reconciliación del índice de ubicaciones
+    @Query("SELECT r.id, CASE WHEN r.disponible = true AND r.estado = 'LIBRE' THEN true ELSE false END FROM Repartidor r")
+    List<Object[]> findDisponibilidades();
+
+    // Libres y disponibles sin entregas activas, del registrado hace más tiempo al más reciente
+    @Query("SELECT r FROM Repartidor r WHERE r.disponible = true AND r.estado = 'LIBRE' AND NOT EXISTS "
+            + "(SELECT e FROM Entrega e WHERE e.repartidor = r AND e.estadoEntrega IN ('ASIGNADO', 'EN_CAMINO')) "
+            + "ORDER BY r.fechaRegistro ASC")
+    List<Repartidor> findLibresSinEntregas(Pageable pageable);
+
+    boolean existsByIdAndClienteEmail(Long id, String email);
+
+    // Ids de los libres y disponibles para el despacho por lotes, del registrado hace más tiempo al más reciente
+    @Query("SELECT r.id FROM Repartidor r WHERE r.disponible = true AND r.estado = 'LIBRE' ORDER BY r.fechaRegistro ASC")
+    List<Long> findIdsLibres(Limit limite);
+
+    // Toma al repartidor solo si sigue libre y disponible: entre asignaciones concurrentes, aunque corran en nodos
+    // distintos, una sola consigue actualizar la fila
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Repartidor r SET r.estado = 'OCUPADO', r.fechaActualizacion = :ahora "
+            + "WHERE r.id = :repartidorId AND r.estado = 'LIBRE' AND r.disponible = true")
+    int ocuparSiLibre(@Param("repartidorId") Long repartidorId, @Param("ahora") LocalDateTime ahora);
+
+    // Devuelve a LIBRE al repartidor ocupado que ya no tiene entregas activas
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Repartidor r SET r.estado = 'LIBRE', r.fechaActualizacion = :ahora "
+            + "WHERE r.id = :repartidorId AND r.estado = 'OCUPADO' AND NOT EXISTS "
+            + "(SELECT e FROM Entrega e WHERE e.repartidor.id = :repartidorId AND e.estadoEntrega IN ('ASIGNADO', 'EN_CAMINO'))")
+    int liberarSiSinEntregas(@Param("repartidorId") Long repartidorId, @Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT r.disponible FROM Repartidor r WHERE r.id = :repartidorId")
+    Optional<Boolean> findDisponibleById(@Param("repartidorId") Long repartidorId);
+}
@@ -0,0 +1,90 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaTrackRepositoryCustom.PuntoTrack;
+
+import java.util.List;
+
+/**
+ * Buffer circular de capacidad fija con los puntos de una entrega que aún no se escribieron. Con el buffer lleno,
+ * cada punto nuevo pisa al más antiguo. Guarda aparte el punto más reciente (por instante) para escribir una sola
+ * actualización de entrega.latitud/longitud por descarga, sin importar cuántos puntos llegaron.
+ * Lo usan a la vez los hilos que reciben puntos y el de la descarga, por eso todos sus métodos son synchronized.
+ */
+final class BufferTrack {
+
+    // Resultado de agregar en un buffer ya cerrado: hay que pedir uno nuevo
+    static final int CERRADO = -1;
+
+    private final long entregaId;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] instantes;
+    private int inicio;
+    private int tamano;
+    // Cuándo llegó el punto más antiguo que sigue pendiente, para medir el retraso de escritura
+    private long recibidoDesde;
+
+    private PuntoTrack ultimo;
+    private boolean ultimoPendiente;
+    private boolean cerrado;
+
+    BufferTrack(long entregaId, int capacidad) {
+        this.entregaId = entregaId;
+        this.latitudes = new double[capacidad];
+        this.longitudes = new double[capacidad];
+        this.instantes = new long[capacidad];
+    }
+
+    /**
+     * Agrega el punto y devuelve cuántos puntos pendientes pisó (0 o 1), o CERRADO.
+     */
+    synchronized int agregar(double latitud, double longitud, long instante, long ahora) {
+        if (cerrado) {
+            return CERRADO;
+        }
+        if (ultimo == null || instante >= ultimo.instante()) {
+            ultimo = new PuntoTrack(entregaId, latitud, longitud, instante);
+            ultimoPendiente = true;
+        }
+        if (tamano == 0) {
+            recibidoDesde = ahora;
+        }
+        int posicion = (inicio + tamano) % instantes.length;
+        latitudes[posicion] = latitud;
+        longitudes[posicion] = longitud;
+        instantes[posicion] = instante;
+        if (tamano < instantes.length) {
+            tamano++;
+            return 0;
+        }
+        inicio = (inicio + 1) % instantes.length;
+        return 1;
+    }
+
+    /**
+     * Pasa los puntos pendientes a `puntos`, en orden de llegada, y devuelve el último punto si cambió desde la
+     * descarga anterior. Devuelve en recibidoDesde[0] la llegada del más antiguo, o Long.MAX_VALUE si no había.
+     */
+    synchronized PuntoTrack drenar(List<PuntoTrack> puntos, long[] recibidoDesde) {
+        for (int i = 0; i < tamano; i++) {
+            int posicion = (inicio + i) % instantes.length;
+            puntos.add(new PuntoTrack(entregaId, latitudes[posicion], longitudes[posicion], instantes[posicion]));
+        }
+        recibidoDesde[0] = tamano == 0 ? Long.MAX_VALUE : this.recibidoDesde;
+        inicio = 0;
+        tamano = 0;
+        PuntoTrack pendiente = ultimoPendiente ? ultimo : null;
+        ultimoPendiente = false;
+        return pendiente;
+    }
+
+    /**
+     * Cierra el buffer si no le queda nada por escribir; a partir de ahí agregar devuelve CERRADO.
+     */
+    synchronized boolean cerrarSiVacio() {
+        if (tamano == 0 && !ultimoPendiente) {
+            cerrado = true;
+        }
+        return cerrado;
+    }
+}
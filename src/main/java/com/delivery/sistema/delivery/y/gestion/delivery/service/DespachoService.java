@@ -0,0 +1,253 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.MetricasDespachoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.ResultadoDespachoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.Entrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.TransicionPedidoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Despacho por lotes: cada app.despacho.intervalo-ms toma los pedidos LISTO sin entrega (o con la entrega fallida,
+ * que se reutiliza con el nuevo repartidor) y los repartidores libres y disponibles, y los asigna de forma global en
+ * lugar de uno por uno.
+ * El costo de un par repartidor/pedido está en km equivalentes:
+ * distancia del repartidor al restaurante - app.despacho.bonus-espera-km-por-minuto por cada minuto que el pedido
+ * lleva listo (hasta app.despacho.max-espera-minutos). Un repartidor LIBRE no tiene entregas activas, así que no
+ * hay término de carga. Sin ubicación en vivo o sin coordenadas del restaurante se asume
+ * app.repartidores.radio-asignacion-km, y más lejos que ese radio el par no es posible.
+ * Cuando sobran pedidos, el bonus de espera hace que queden para la ronda siguiente los más recientes.
+ * Hasta app.despacho.max-hungaro filas/columnas se resuelve exacto con el algoritmo húngaro; por encima, greedy.
+ * Las asignaciones se confirman todas en una transacción: los pedidos se revalidan con bloqueo y cada repartidor
+ * se toma con un UPDATE condicional, así que dos nodos despachando a la vez no asignan dos veces al mismo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DespachoService {
+
+    private final PedidoRepository pedidoRepository;
+    private final RepartidorRepository repartidorRepository;
+    private final EntregaRepository entregaRepository;
+    private final UbicacionRepartidorService ubicacionRepartidorService;
+    private final TransicionPedidoService transicionPedidoService;
+    private final TransicionRepartidorService transicionRepartidorService;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.despacho.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.despacho.max-pedidos:500}")
+    private int maxPedidos;
+
+    @Value("${app.despacho.max-repartidores:500}")
+    private int maxRepartidores;
+
+    @Value("${app.despacho.max-hungaro:300}")
+    private int maxHungaro;
+
+    @Value("${app.despacho.bonus-espera-km-por-minuto:0.5}")
+    private double bonusEsperaKmPorMinuto;
+
+    @Value("${app.despacho.max-espera-minutos:30}")
+    private double maxEsperaMinutos;
+
+    @Value("${app.repartidores.radio-asignacion-km:15}")
+    private double radioAsignacionKm;
+
+    private final LongAdder rondas = new LongAdder();
+    private final LongAdder asignados = new LongAdder();
+    private final LongAdder descartadosAlConfirmar = new LongAdder();
+    private volatile double maxResolucionMs;
+    private volatile ResultadoDespachoDto ultima;
+
+    private record PedidoListo(long id, BigDecimal latitud, BigDecimal longitud, LocalDateTime listoDesde) {
+    }
+
+    @Scheduled(initialDelayString = "${app.despacho.intervalo-ms:5000}",
+               fixedDelayString = "${app.despacho.intervalo-ms:5000}")
+    public void programado() {
+        if (habilitado) {
+            despachar();
+        }
+    }
+
+    public synchronized ResultadoDespachoDto despachar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        List<PedidoListo> pedidos = new ArrayList<>();
+        List<Long> repartidores = new ArrayList<>();
+        lectura.executeWithoutResult(status -> {
+            for (Object[] fila : pedidoRepository.findListosParaDespacho(Limit.of(maxPedidos))) {
+                pedidos.add(new PedidoListo((Long) fila[0], (BigDecimal) fila[1], (BigDecimal) fila[2], (LocalDateTime) fila[3]));
+            }
+            if (!pedidos.isEmpty()) {
+                repartidores.addAll(repartidorRepository.findIdsLibres(Limit.of(maxRepartidores)));
+            }
+        });
+        rondas.increment();
+        if (pedidos.isEmpty() || repartidores.isEmpty()) {
+            return new ResultadoDespachoDto(ahora, null, pedidos.size(), repartidores.size(), 0, 0, 0, null, 0, 0,
+                    pedidos.isEmpty() ? 0 : espera(pedidos.get(0), ahora).toSeconds(), 0, 0);
+        }
+
+        double[][] distancias = distancias(repartidores, pedidos);
+        double[][] costos = new double[repartidores.size()][pedidos.size()];
+        for (int i = 0; i < repartidores.size(); i++) {
+            for (int j = 0; j < pedidos.size(); j++) {
+                double distancia = distancias[i][j];
+                costos[i][j] = distancia > radioAsignacionKm ? Double.POSITIVE_INFINITY
+                        : distancia
+                          - Math.min(espera(pedidos.get(j), ahora).toSeconds() / 60.0, maxEsperaMinutos) * bonusEsperaKmPorMinuto;
+            }
+        }
+
+        long inicio = System.nanoTime();
+        boolean exacto = Math.min(repartidores.size(), pedidos.size()) <= maxHungaro;
+        OptimizadorAsignacion.Solucion solucion = exacto
+                ? OptimizadorAsignacion.hungaro(costos, pedidos.size())
+                : OptimizadorAsignacion.greedy(costos, pedidos.size());
+        double resolucionMs = (System.nanoTime() - inicio) / 1_000_000.0;
+        Double costoGreedy = exacto ? OptimizadorAsignacion.greedy(costos, pedidos.size()).costoTotal() : null;
+
+        Map<Long, Long> repartidorPorPedido = new LinkedHashMap<>();
+        Set<Integer> pedidosPropuestos = new HashSet<>();
+        double distanciaTotal = 0;
+        double distanciaMax = 0;
+        int[] columnaPorFila = solucion.columnaPorFila();
+        for (int i = 0; i < columnaPorFila.length; i++) {
+            int j = columnaPorFila[i];
+            if (j >= 0) {
+                repartidorPorPedido.put(pedidos.get(j).id(), repartidores.get(i));
+                pedidosPropuestos.add(j);
+                distanciaTotal += distancias[i][j];
+                distanciaMax = Math.max(distanciaMax, distancias[i][j]);
+            }
+        }
+
+        long inicioConfirmacion = System.currentTimeMillis();
+        int confirmados = repartidorPorPedido.isEmpty() ? 0
+                : new TransactionTemplate(transactionManager).execute(status -> confirmar(repartidorPorPedido));
+        long confirmacionMs = System.currentTimeMillis() - inicioConfirmacion;
+
+        long esperaMaxSinAsignar = 0;
+        for (int j = 0; j < pedidos.size(); j++) {
+            if (!pedidosPropuestos.contains(j)) {
+                esperaMaxSinAsignar = Math.max(esperaMaxSinAsignar, espera(pedidos.get(j), ahora).toSeconds());
+            }
+        }
+
+        ResultadoDespachoDto resultado = new ResultadoDespachoDto(ahora, exacto ? "HUNGARO" : "GREEDY",
+                pedidos.size(), repartidores.size(), solucion.asignados(), confirmados, solucion.costoTotal(), costoGreedy,
+                solucion.asignados() == 0 ? 0 : distanciaTotal / solucion.asignados(), distanciaMax,
+                esperaMaxSinAsignar, resolucionMs, confirmacionMs);
+        asignados.add(confirmados);
+        descartadosAlConfirmar.add(solucion.asignados() - confirmados);
+        maxResolucionMs = Math.max(maxResolucionMs, resolucionMs);
+        ultima = resultado;
+        log.debug("Despacho: {} pedidos, {} repartidores, {} asignados de {} propuestos con {} en {} ms",
+                pedidos.size(), repartidores.size(), confirmados, solucion.asignados(), resultado.algoritmo(), resolucionMs);
+        return resultado;
+    }
+
+    public MetricasDespachoDto metricas() {
+        return new MetricasDespachoDto(rondas.sum(), asignados.sum(), descartadosAlConfirmar.sum(), maxResolucionMs, ultima);
+    }
+
+    // Bloquea y revalida los pedidos, toma a cada repartidor, crea las entregas y pasa los pedidos a EN_TRANSITO.
+    // Lo que cambió desde la lectura se descarta y vuelve a evaluarse en la ronda siguiente
+    private int confirmar(Map<Long, Long> repartidorPorPedido) {
+        Set<Long> listos = new HashSet<>();
+        for (Object[] fila : pedidoRepository.bloquearEstados(repartidorPorPedido.keySet())) {
+            if (fila[1] == EstadoPedido.LISTO) {
+                listos.add((Long) fila[0]);
+            }
+        }
+        // Con los pedidos ya bloqueados: una entrega creada antes de tomar el bloqueo tiene que verse aquí.
+        // Una entrega fallida se reutiliza; cualquier otra significa que el pedido ya está asignado
+        Map<Long, Entrega> fallidas = new HashMap<>();
+        if (!listos.isEmpty()) {
+            for (Entrega existente : entregaRepository.bloquearPorPedidoIds(listos)) {
+                Long pedidoId = existente.getPedido().getId();
+                if (existente.getEstadoEntrega() == EstadoEntrega.FALLIDO) {
+                    fallidas.put(pedidoId, existente);
+                } else {
+                    listos.remove(pedidoId);
+                }
+            }
+        }
+        Map<Long, EstadoPedido> aplicables = new LinkedHashMap<>();
+        List<Entrega> entregas = new ArrayList<>();
+        repartidorPorPedido.forEach((pedidoId, repartidorId) -> {
+            if (!listos.contains(pedidoId) || !transicionRepartidorService.ocupar(repartidorId)) {
+                return;
+            }
+            Entrega entrega = fallidas.get(pedidoId);
+            if (entrega == null) {
+                entrega = new Entrega();
+                entrega.setPedido(pedidoRepository.getReferenceById(pedidoId));
+            } else {
+                entrega.setComentarios(null);
+            }
+            entrega.setRepartidor(repartidorRepository.getReferenceById(repartidorId));
+            entrega.setEstadoEntrega(EstadoEntrega.ASIGNADO);
+            entregas.add(entrega);
+            aplicables.put(pedidoId, EstadoPedido.LISTO);
+        });
+
+        transicionPedidoService.aplicarEnLote(aplicables, EstadoPedido.EN_TRANSITO);
+        // ocupar vacía el contexto de persistencia: las entregas fallidas se guardan con merge, no por dirty checking
+        for (Entrega entrega : entregaRepository.saveAll(entregas)) {
+            EstadoEntrega anterior = fallidas.containsKey(entrega.getPedido().getId()) ? EstadoEntrega.FALLIDO : null;
+            eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(entrega.getId(), anterior, EstadoEntrega.ASIGNADO));
+        }
+        return entregas.size();
+    }
+
+    private double[][] distancias(List<Long> repartidores, List<PedidoListo> pedidos) {
+        Map<Long, double[]> ubicaciones = ubicacionRepartidorService.ubicaciones(repartidores);
+        double[][] distancias = new double[repartidores.size()][pedidos.size()];
+        for (int i = 0; i < repartidores.size(); i++) {
+            double[] ubicacion = ubicaciones.get(repartidores.get(i));
+            for (int j = 0; j < pedidos.size(); j++) {
+                PedidoListo pedido = pedidos.get(j);
+                distancias[i][j] = ubicacion == null || pedido.latitud() == null || pedido.longitud() == null
+                        ? radioAsignacionKm
+                        : IndiceUbicaciones.distanciaKm(ubicacion[0], ubicacion[1],
+                                pedido.latitud().doubleValue(), pedido.longitud().doubleValue());
+            }
+        }
+        return distancias;
+    }
+
+    private static Duration espera(PedidoListo pedido, LocalDateTime ahora) {
+        return pedido.listoDesde() == null ? Duration.ZERO : Duration.between(pedido.listoDesde(), ahora);
+    }
+}
@@ -2,16 +2,21 @@ package com.delivery.sistema.delivery.y.gestion.delivery.service;
 
 import com.delivery.sistema.delivery.y.gestion.delivery.model.Entrega;
 import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
-import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
-import com.delivery.sistema.delivery.y.gestion.delivery.model.Repartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.PuntoUbicacionDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
-import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
 import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
 import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
 import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.TransicionPedidoService;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.ResultadoCambioEstadoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.service.ContadorEstadosService;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,10 +24,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +42,13 @@ public class EntregaService {
     private final EntregaRepository entregaRepository;
     private final PedidoRepository pedidoRepository;
     private final RepartidorRepository repartidorRepository;
+    private final RepartidorService repartidorService;
+    private final TrackEntregaService trackEntregaService;
+    private final TransicionEntregaService transicionEntregaService;
+    private final TransicionRepartidorService transicionRepartidorService;
+    private final TransicionPedidoService transicionPedidoService;
+    private final ContadorEstadosService contadorEstadosService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Entrega> listarTodas() {
         return entregaRepository.findAll();
@@ -75,106 +92,69 @@ public class EntregaService {
     }
 
     public Entrega crearEntrega(Long pedidoId, Long repartidorId) {
-        // Validar pedido
-        Pedido pedido = pedidoRepository.findById(pedidoId)
-                .orElseThrow(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + pedidoId));
+        verificarSinEntrega(pedidoId);
 
-        // Validar que el pedido esté listo para entrega
-        if (pedido.getEstado() != EstadoPedido.LISTO) {
-            throw new IllegalStateException("Solo se pueden crear entregas para pedidos listos");
-        }
+        // Tomar al repartidor; falla si no está libre o si otra asignación lo tomó antes
+        transicionRepartidorService.ocuparElegido(repartidorId);
+
+        return registrarEntrega(pedidoId, repartidorId);
+    }
 
-        // Verificar que no tenga entrega asignada
+    private void verificarSinEntrega(Long pedidoId) {
         if (entregaRepository.existsByPedidoId(pedidoId)) {
             throw new IllegalStateException("El pedido ya tiene una entrega asignada");
         }
+    }
 
-        // Validar repartidor
-        Repartidor repartidor = repartidorRepository.findById(repartidorId)
-                .orElseThrow(() -> new EntityNotFoundException("Repartidor no encontrado con ID: " + repartidorId));
-
-        // Validar que el repartidor esté disponible
-        if (repartidor.getEstado() != EstadoRepartidor.LIBRE) {
-            throw new IllegalStateException("El repartidor no está disponible");
-        }
+    // El repartidor ya fue tomado en la transacción actual
+    private Entrega registrarEntrega(Long pedidoId, Long repartidorId) {
+        // Pasar el pedido de LISTO a EN_TRANSITO; falla si no estaba listo o si otra petición lo tomó antes
+        transicionPedidoService.transicionar(pedidoId, EstadoPedido.EN_TRANSITO);
 
-        // Crear entrega
         Entrega entrega = new Entrega();
-        entrega.setPedido(pedido);
-        entrega.setRepartidor(repartidor);
+        entrega.setPedido(pedidoRepository.getReferenceById(pedidoId));
+        entrega.setRepartidor(repartidorRepository.getReferenceById(repartidorId));
         entrega.setEstadoEntrega(EstadoEntrega.ASIGNADO);
 
         Entrega entregaGuardada = entregaRepository.save(entrega);
-
-        // Actualizar estado del pedido
-        pedido.setEstado(EstadoPedido.EN_TRANSITO);
-        pedidoRepository.save(pedido);
-
+        eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(entregaGuardada.getId(), null, EstadoEntrega.ASIGNADO));
         return entregaGuardada;
     }
 
     public Entrega marcarEnCamino(Long id) {
-        Entrega entrega = obtenerPorId(id);
-
-        if (entrega.getEstadoEntrega() != EstadoEntrega.ASIGNADO) {
-            throw new IllegalStateException("Solo se pueden marcar en camino entregas asignadas");
-        }
-
-        entrega.setEstadoEntrega(EstadoEntrega.EN_CAMINO);
-        return entregaRepository.save(entrega);
+        transicionEntregaService.transicionar(id, EstadoEntrega.EN_CAMINO);
+        return obtenerPorId(id);
     }
 
     public Entrega marcarEntregada(Long id, String comentarios) {
+        transicionEntregaService.transicionar(id, EstadoEntrega.ENTREGADO, comentarios);
         Entrega entrega = obtenerPorId(id);
+        Long repartidorId = entrega.getRepartidor().getId();
 
-        if (entrega.getEstadoEntrega() != EstadoEntrega.EN_CAMINO) {
-            throw new IllegalStateException("Solo se pueden entregar pedidos en camino");
-        }
-
-        entrega.setEstadoEntrega(EstadoEntrega.ENTREGADO);
-        entrega.setComentarios(comentarios);
-
-        Entrega entregaActualizada = entregaRepository.save(entrega);
+        // Actualizar estado del pedido y liberar al repartidor si no tiene otras entregas
+        transicionPedidoService.transicionar(entrega.getPedido().getId(), EstadoPedido.ENTREGADO);
+        transicionRepartidorService.liberarSiSinEntregas(repartidorId);
 
-        // Actualizar estado del pedido
-        Pedido pedido = entrega.getPedido();
-        pedido.setEstado(EstadoPedido.ENTREGADO);
-        pedidoRepository.save(pedido);
-
-        return entregaActualizada;
+        // Las transiciones vacían el contexto de persistencia: se devuelve la entrega recién leída
+        return obtenerPorId(id);
     }
 
     public Entrega marcarFallida(Long id, String motivoFallo) {
+        transicionEntregaService.transicionar(id, EstadoEntrega.FALLIDO, motivoFallo);
         Entrega entrega = obtenerPorId(id);
+        Long repartidorId = entrega.getRepartidor().getId();
 
-        if (entrega.getEstadoEntrega() == EstadoEntrega.ENTREGADO) {
-            throw new IllegalStateException("No se puede marcar como fallida una entrega ya completada");
-        }
-
-        entrega.setEstadoEntrega(EstadoEntrega.FALLIDO);
-        entrega.setComentarios(motivoFallo);
+        // Volver a listo para reasignar
+        transicionPedidoService.transicionar(entrega.getPedido().getId(), EstadoPedido.LISTO);
+        transicionRepartidorService.liberarSiSinEntregas(repartidorId);
 
-        Entrega entregaActualizada = entregaRepository.save(entrega);
-
-        // Actualizar estado del pedido
-        Pedido pedido = entrega.getPedido();
-        pedido.setEstado(EstadoPedido.LISTO); // Volver a listo para reasignar
-        pedidoRepository.save(pedido);
-
-        return entregaActualizada;
+        return obtenerPorId(id);
     }
 
-    public Entrega actualizarUbicacion(Long id, BigDecimal latitud, BigDecimal longitud) {
-        Entrega entrega = obtenerPorId(id);
-
-        if (entrega.getEstadoEntrega() != EstadoEntrega.EN_CAMINO) {
-            throw new IllegalStateException("Solo se puede actualizar ubicación de entregas en camino");
-        }
-
-        entrega.setLatitud(latitud);
-        entrega.setLongitud(longitud);
-
-        return entregaRepository.save(entrega);
+    // Se encola como un punto más del recorrido; la posición de la entrega se escribe en la próxima descarga
+    public void actualizarUbicacion(Long id, BigDecimal latitud, BigDecimal longitud) {
+        trackEntregaService.registrar(id, List.of(
+                new PuntoUbicacionDto(latitud.doubleValue(), longitud.doubleValue(), System.currentTimeMillis())));
     }
 
     public Entrega actualizarComentarios(Long id, String comentarios) {
@@ -192,11 +172,21 @@ public class EntregaService {
             throw new IllegalStateException("No se pueden eliminar entregas en progreso o completadas");
         }
 
+        Long repartidorId = entrega.getRepartidor().getId();
         entregaRepository.delete(entrega);
+        transicionRepartidorService.liberarSiSinEntregas(repartidorId);
+        eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(id, entrega.getEstadoEntrega(), null));
     }
 
     public Entrega reasignarRepartidor(Long entregaId, Long nuevoRepartidorId) {
-        Entrega entrega = obtenerPorId(entregaId);
+        // Bloquear la fila: dos reasignaciones simultáneas tomarían cada una un repartidor y solo una
+        // quedaría en la entrega, dejando al otro ocupado sin entregas. Antes se bloquea el pedido, en el
+        // mismo orden que el despacho por lotes, que también reutiliza las entregas fallidas
+        Long pedidoId = entregaRepository.findPedidoIdById(entregaId)
+                .orElseThrow(() -> new EntityNotFoundException("Entrega no encontrada con ID: " + entregaId));
+        pedidoRepository.bloquearEstados(List.of(pedidoId));
+        Entrega entrega = entregaRepository.bloquearPorId(entregaId)
+                .orElseThrow(() -> new EntityNotFoundException("Entrega no encontrada con ID: " + entregaId));
 
         // Solo permitir reasignar entregas asignadas o fallidas
         if (entrega.getEstadoEntrega() != EstadoEntrega.ASIGNADO && 
@@ -204,19 +194,25 @@ public class EntregaService {
             throw new IllegalStateException("Solo se pueden reasignar entregas asignadas o fallidas");
         }
 
-        // Validar nuevo repartidor
-        Repartidor nuevoRepartidor = repartidorRepository.findById(nuevoRepartidorId)
-                .orElseThrow(() -> new EntityNotFoundException("Repartidor no encontrado con ID: " + nuevoRepartidorId));
-
-        if (nuevoRepartidor.getEstado() != EstadoRepartidor.LIBRE) {
-            throw new IllegalStateException("El nuevo repartidor no está disponible");
+        // Tomar al nuevo repartidor antes de soltar al anterior
+        Long repartidorAnteriorId = entrega.getRepartidor().getId();
+        EstadoEntrega estadoAnterior = entrega.getEstadoEntrega();
+        transicionRepartidorService.ocuparElegido(nuevoRepartidorId);
+        if (estadoAnterior == EstadoEntrega.FALLIDO) {
+            // Tras fallar, el pedido volvió a LISTO; falla si entretanto se canceló
+            transicionPedidoService.transicionar(pedidoId, EstadoPedido.EN_TRANSITO);
         }
 
-        entrega.setRepartidor(nuevoRepartidor);
+        // ocuparElegido vacía el contexto de persistencia: se modifica una copia recién leída
+        entrega = obtenerPorId(entregaId);
+        entrega.setRepartidor(repartidorRepository.getReferenceById(nuevoRepartidorId));
         entrega.setEstadoEntrega(EstadoEntrega.ASIGNADO);
         entrega.setComentarios(null); // Limpiar comentarios anteriores
+        entregaRepository.save(entrega);
 
-        return entregaRepository.save(entrega);
+        transicionRepartidorService.liberarSiSinEntregas(repartidorAnteriorId);
+        eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(entregaId, estadoAnterior, EstadoEntrega.ASIGNADO));
+        return obtenerPorId(entregaId);
     }
 
     @Transactional(readOnly = true)
@@ -224,6 +220,12 @@ public class EntregaService {
         return entregaRepository.existsById(id);
     }
 
+    // Usado en @PreAuthorize: la entrega está asignada al repartidor del usuario autenticado
+    @Transactional(readOnly = true)
+    public boolean esOwnerDeLaEntrega(Long id, String email) {
+        return entregaRepository.existsByIdAndRepartidorClienteEmail(id, email);
+    }
+
     @Transactional(readOnly = true)
     public boolean existePorPedido(Long pedidoId) {
         return entregaRepository.existsByPedidoId(pedidoId);
@@ -231,12 +233,12 @@ public class EntregaService {
 
     @Transactional(readOnly = true)
     public Long contarTotal() {
-        return entregaRepository.count();
+        return contadorEstadosService.totalEntregas();
     }
 
     @Transactional(readOnly = true)
     public Long contarPorEstado(EstadoEntrega estado) {
-        return entregaRepository.countByEstadoEntrega(estado);
+        return contadorEstadosService.entregas(estado);
     }
 
     @Transactional(readOnly = true)
@@ -278,23 +280,30 @@ public class EntregaService {
 
     // Métodos adicionales requeridos por el controller
     public Page<EntregaDto> listarEntregasPorEstado(EstadoEntrega estado, Pageable pageable) {
-        return entregaRepository.findByEstadoEntrega(estado, pageable).map(this::convertirADto);
+        return entregaRepository.findDtoByEstadoEntrega(estado, pageable);
     }
 
     public Page<EntregaDto> listarEntregasPorRepartidor(Long repartidorId, Pageable pageable) {
-        return listarPorRepartidorPaginado(repartidorId, pageable).map(this::convertirADto);
+        return entregaRepository.findDtoByRepartidorId(repartidorId, pageable);
     }
 
     public Page<EntregaDto> listarEntregas(Pageable pageable) {
-        return listarPaginado(pageable).map(this::convertirADto);
+        return entregaRepository.findAllDto(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDto<EntregaDto> listarEntregasPorCursor(Long repartidorId, EstadoEntrega estado, String after, Integer tamano) {
+        int limite = PaginaCursorDto.normalizarTamano(tamano);
+        List<EntregaDto> filas = entregaRepository.buscarDespuesDe(repartidorId, estado, Cursor.desdeToken(after), limite + 1);
+        return PaginaCursorDto.de(filas, limite, Function.identity(), e -> new Cursor(e.getFechaInicio(), e.getId()));
     }
 
     public Page<EntregaDto> listarEntregasActivas(Pageable pageable) {
-        return entregaRepository.findEntregasActivas(pageable).map(this::convertirADto);
+        return entregaRepository.findDtoActivas(pageable);
     }
 
     public Page<EntregaDto> listarEntregasPorRepartidorYEstado(Long repartidorId, EstadoEntrega estado, Pageable pageable) {
-        return entregaRepository.findByRepartidorIdAndEstadoEntrega(repartidorId, estado, pageable).map(this::convertirADto);
+        return entregaRepository.findDtoByRepartidorIdAndEstadoEntrega(repartidorId, estado, pageable);
     }
 
     public EntregaDto obtenerEntregaPorId(Long id) {
@@ -302,8 +311,19 @@ public class EntregaService {
     }
 
     public EntregaDto crearEntrega(EntregaDto entregaDto) {
-        Entrega entrega = crearEntrega(entregaDto.getPedidoId(), entregaDto.getRepartidorId());
-        return convertirADto(entrega);
+        Long pedidoId = entregaDto.getPedidoId();
+        if (entregaDto.getRepartidorId() != null) {
+            return convertirADto(crearEntrega(pedidoId, entregaDto.getRepartidorId()));
+        }
+
+        // Sin repartidor indicado se toma el libre más cercano al restaurante del pedido
+        Long restauranteId = pedidoRepository.findById(pedidoId)
+                .orElseThrow(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + pedidoId))
+                .getRestaurante().getId();
+        verificarSinEntrega(pedidoId);
+        Long repartidorId = repartidorService.asignarRepartidorLibre(restauranteId)
+                .orElseThrow(() -> new IllegalStateException("No hay repartidores libres para asignar la entrega"));
+        return convertirADto(registrarEntrega(pedidoId, repartidorId));
     }
 
     public EntregaDto actualizarEntrega(Long id, EntregaDto entregaDto) {
@@ -329,20 +349,68 @@ public class EntregaService {
     }
 
     public EntregaDto cambiarEstado(Long id, EstadoEntrega estado) {
-        Entrega entrega = obtenerPorId(id);
-        
-        // Validar transiciones de estado
-        if (estado == EstadoEntrega.EN_CAMINO) {
-            entrega = marcarEnCamino(id);
-        } else if (estado == EstadoEntrega.ENTREGADO) {
-            entrega = marcarEntregada(id, null);
-        } else if (estado == EstadoEntrega.FALLIDO) {
-            entrega = marcarFallida(id, "Estado cambiado por administrador");
-        }
-        
+        // Las transiciones se validan en el UPDATE condicional de cada método
+        Entrega entrega = switch (estado) {
+            case EN_CAMINO -> marcarEnCamino(id);
+            case ENTREGADO -> marcarEntregada(id, null);
+            case FALLIDO -> marcarFallida(id, "Estado cambiado por administrador");
+            case ASIGNADO -> obtenerPorId(id);
+        };
+
         return convertirADto(entrega);
     }
 
+    /**
+     * Cambio de estado masivo en una sola transacción. Cada entrega se valida junto con su pedido,
+     * que acompaña el cambio igual que en marcarEntregada y marcarFallida.
+     */
+    public List<ResultadoCambioEstadoDto> cambiarEstadoEnLote(List<Long> ids, EstadoEntrega nuevoEstado) {
+        EstadoPedido estadoPedido = switch (nuevoEstado) {
+            case ENTREGADO -> EstadoPedido.ENTREGADO;
+            case FALLIDO -> EstadoPedido.LISTO;
+            case EN_CAMINO -> null;
+            case ASIGNADO -> throw new IllegalArgumentException("Las entregas se reasignan de una en una indicando el repartidor");
+        };
+
+        Map<Long, Object[]> filas = new HashMap<>();
+        for (Object[] fila : entregaRepository.bloquearEstadosConPedido(ids)) {
+            filas.put((Long) fila[0], fila);
+        }
+
+        List<ResultadoCambioEstadoDto> resultados = new ArrayList<>();
+        Map<Long, EstadoEntrega> entregasAplicables = new LinkedHashMap<>();
+        Map<Long, EstadoPedido> pedidosAplicables = new LinkedHashMap<>();
+        Set<Long> repartidores = new LinkedHashSet<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Object[] fila = filas.get(id);
+            if (fila == null) {
+                resultados.add(ResultadoCambioEstadoDto.rechazado(id, "Entrega no encontrada con ID: " + id));
+                continue;
+            }
+            EstadoEntrega actual = (EstadoEntrega) fila[1];
+            Long pedidoId = (Long) fila[2];
+            EstadoPedido actualPedido = (EstadoPedido) fila[3];
+            if (!actual.puedeCambiarA(nuevoEstado)) {
+                resultados.add(ResultadoCambioEstadoDto.rechazado(id, "No se puede cambiar la entrega de " + actual + " a " + nuevoEstado));
+            } else if (estadoPedido != null && !actualPedido.puedeCambiarA(estadoPedido)) {
+                resultados.add(ResultadoCambioEstadoDto.rechazado(id, "No se puede cambiar el pedido " + pedidoId + " de " + actualPedido + " a " + estadoPedido));
+            } else {
+                entregasAplicables.put(id, actual);
+                pedidosAplicables.put(pedidoId, actualPedido);
+                repartidores.add((Long) fila[4]);
+                resultados.add(ResultadoCambioEstadoDto.aplicado(id, actual));
+            }
+        }
+
+        transicionEntregaService.aplicarEnLote(entregasAplicables, nuevoEstado);
+        if (estadoPedido != null) {
+            transicionPedidoService.aplicarEnLote(pedidosAplicables, estadoPedido);
+            // Entregas cerradas: sus repartidores quedan libres si no tienen otras
+            repartidores.forEach(transicionRepartidorService::liberarSiSinEntregas);
+        }
+        return resultados;
+    }
+
     public EntregaDto iniciarEntrega(Long id) {
         Entrega entrega = marcarEnCamino(id);
         return convertirADto(entrega);
@@ -356,11 +424,12 @@ public class EntregaService {
     public Map<String, Object> obtenerEstadisticasEntregas() {
         Map<String, Object> estadisticas = new HashMap<>();
         
-        estadisticas.put("totalEntregas", entregaRepository.count());
-        estadisticas.put("entregasAsignadas", entregaRepository.countByEstadoEntrega(EstadoEntrega.ASIGNADO));
-        estadisticas.put("entregasEnCamino", entregaRepository.countByEstadoEntrega(EstadoEntrega.EN_CAMINO));
-        estadisticas.put("entregasCompletadas", entregaRepository.countByEstadoEntrega(EstadoEntrega.ENTREGADO));
-        estadisticas.put("entregasFallidas", entregaRepository.countByEstadoEntrega(EstadoEntrega.FALLIDO));
+        // Lecturas en memoria: los contadores se mantienen con cada transición
+        estadisticas.put("totalEntregas", contadorEstadosService.totalEntregas());
+        estadisticas.put("entregasAsignadas", contadorEstadosService.entregas(EstadoEntrega.ASIGNADO));
+        estadisticas.put("entregasEnCamino", contadorEstadosService.entregas(EstadoEntrega.EN_CAMINO));
+        estadisticas.put("entregasCompletadas", contadorEstadosService.entregas(EstadoEntrega.ENTREGADO));
+        estadisticas.put("entregasFallidas", contadorEstadosService.entregas(EstadoEntrega.FALLIDO));
         
         return estadisticas;
     }
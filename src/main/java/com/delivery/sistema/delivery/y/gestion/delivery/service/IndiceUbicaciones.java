@@ -0,0 +1,281 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Última ubicación conocida de cada repartidor y una grilla de celdas de tamanoCelda grados con los que están
+ * disponibles, para buscar los más cercanos a un punto sin recorrerlos todos.
+ * Las búsquedas avanzan en anillos de celdas alrededor del punto y se detienen cuando ninguna celda más lejana
+ * puede contener a alguien más cerca que los ya encontrados. Las ubicaciones más antiguas que el límite indicado
+ * en cada búsqueda se ignoran. No es seguro para hilos: UbicacionRepartidorService lo protege con un lock de
+ * lectura/escritura.
+ */
+final class IndiceUbicaciones {
+
+    static final double RADIO_TIERRA_KM = 6371.0088;
+    private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180;
+
+    record Cercano(long repartidorId, double latitud, double longitud, double distanciaKm, long actualizadoEn) {
+    }
+
+    private static final class Repartidor {
+        boolean disponible;
+        boolean ubicado;
+        double latitud;
+        double longitud;
+        long actualizadoEn;
+        // Celda y posición dentro de ella mientras está en la grilla; indice -1 si no lo está
+        long celda;
+        int indice = -1;
+    }
+
+    // Repartidores disponibles de una celda en arreglos paralelos; al quitar uno se mueve el último a su lugar
+    private static final class Celda {
+        long[] ids = new long[4];
+        double[] latitudes = new double[4];
+        double[] longitudes = new double[4];
+        int tamano;
+    }
+
+    private final double tamanoCelda;
+    private final int columnas;
+    private final int filas;
+    private final Map<Long, Repartidor> repartidores = new HashMap<>();
+    private final Map<Long, Celda> celdas = new HashMap<>();
+    private int enGrilla;
+
+    IndiceUbicaciones(double tamanoCelda) {
+        this.tamanoCelda = tamanoCelda;
+        this.columnas = (int) Math.ceil(360 / tamanoCelda);
+        this.filas = (int) Math.ceil(180 / tamanoCelda);
+    }
+
+    int tamano() {
+        return repartidores.size();
+    }
+
+    int enGrilla() {
+        return enGrilla;
+    }
+
+    /**
+     * Alta o cambio de disponibilidad. La ubicación se conserva: un repartidor que vuelve a estar disponible entra
+     * a la grilla con la última que informó.
+     */
+    void registrar(long repartidorId, boolean disponible) {
+        Repartidor repartidor = repartidores.computeIfAbsent(repartidorId, id -> new Repartidor());
+        repartidor.disponible = disponible;
+        if (disponible && repartidor.ubicado && repartidor.indice < 0) {
+            insertar(repartidorId, repartidor);
+        } else if (!disponible && repartidor.indice >= 0) {
+            sacar(repartidor);
+        }
+    }
+
+    void quitar(long repartidorId) {
+        Repartidor repartidor = repartidores.remove(repartidorId);
+        if (repartidor != null && repartidor.indice >= 0) {
+            sacar(repartidor);
+        }
+    }
+
+    /**
+     * Deja solo los repartidores indicados; los que siguen conservan su ubicación.
+     */
+    void conservarSolo(Set<Long> repartidorIds) {
+        List<Long> sobrantes = new ArrayList<>();
+        for (Long id : repartidores.keySet()) {
+            if (!repartidorIds.contains(id)) {
+                sobrantes.add(id);
+            }
+        }
+        sobrantes.forEach(this::quitar);
+    }
+
+    /**
+     * Registra la ubicación informada. Devuelve false si el repartidor no está registrado.
+     */
+    boolean actualizar(long repartidorId, double latitud, double longitud, long instante) {
+        Repartidor repartidor = repartidores.get(repartidorId);
+        if (repartidor == null) {
+            return false;
+        }
+        repartidor.latitud = latitud;
+        repartidor.longitud = longitud;
+        repartidor.actualizadoEn = instante;
+        repartidor.ubicado = true;
+        if (!repartidor.disponible) {
+            return true;
+        }
+        long celda = celda(latitud, longitud);
+        if (repartidor.indice >= 0 && repartidor.celda == celda) {
+            Celda actual = celdas.get(celda);
+            actual.latitudes[repartidor.indice] = latitud;
+            actual.longitudes[repartidor.indice] = longitud;
+            return true;
+        }
+        if (repartidor.indice >= 0) {
+            sacar(repartidor);
+        }
+        insertar(repartidorId, repartidor);
+        return true;
+    }
+
+    /**
+     * Última ubicación del repartidor como {latitud, longitud}, o null si no tiene una posterior a vigentesDesde.
+     */
+    double[] ubicacion(long repartidorId, long vigentesDesde) {
+        Repartidor repartidor = repartidores.get(repartidorId);
+        if (repartidor == null || !repartidor.ubicado || repartidor.actualizadoEn < vigentesDesde) {
+            return null;
+        }
+        return new double[]{repartidor.latitud, repartidor.longitud};
+    }
+
+    /**
+     * Olvida las ubicaciones informadas antes de vigentesDesde y saca de la grilla a esos repartidores.
+     * Siguen registrados y vuelven a la grilla con su próxima ubicación.
+     */
+    int descartarAntiguas(long vigentesDesde) {
+        int descartadas = 0;
+        for (Repartidor repartidor : repartidores.values()) {
+            if (repartidor.ubicado && repartidor.actualizadoEn < vigentesDesde) {
+                if (repartidor.indice >= 0) {
+                    sacar(repartidor);
+                }
+                repartidor.ubicado = false;
+                descartadas++;
+            }
+        }
+        return descartadas;
+    }
+
+    /**
+     * Hasta k repartidores disponibles a menos de radioKm del punto, del más cercano al más lejano.
+     */
+    List<Cercano> cercanos(double latitud, double longitud, int k, double radioKm, long vigentesDesde) {
+        PriorityQueue<Cercano> mejores = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble(Cercano::distanciaKm).reversed());
+        recorrer(latitud, longitud, radioKm, vigentesDesde, mejores, k);
+        List<Cercano> resultado = new ArrayList<>(mejores);
+        resultado.sort(Comparator.comparingDouble(Cercano::distanciaKm));
+        return resultado;
+    }
+
+    // Anillo d: celdas a distancia de Chebyshev d de la celda del punto. Todo lo que está en el anillo d + 1 queda
+    // al menos a d celdas completas del punto, así que si ya hay k candidatos más cerca que eso no hace falta seguir
+    private void recorrer(double latitud, double longitud, double radioKm, long vigentesDesde,
+                          PriorityQueue<Cercano> mejores, int k) {
+        int fila = fila(latitud);
+        int columna = columna(longitud);
+        int maxAnillo = Math.max(filas, columnas) / 2;
+        for (int anillo = 0; anillo <= maxAnillo; anillo++) {
+            for (int df = -anillo; df <= anillo; df++) {
+                int f = fila + df;
+                if (f < 0 || f >= filas) {
+                    continue;
+                }
+                boolean borde = Math.abs(df) == anillo;
+                // En las filas intermedias del anillo solo sus dos extremos pertenecen a él
+                int paso = borde ? 1 : 2 * anillo;
+                for (int dc = -anillo; dc <= anillo; dc += paso) {
+                    Celda celda = celdas.get((long) f * columnas + Math.floorMod(columna + dc, columnas));
+                    if (celda != null) {
+                        revisar(celda, latitud, longitud, radioKm, vigentesDesde, mejores, k);
+                    }
+                }
+            }
+            double cota = anillo * ladoMinimoKm(latitud, anillo + 1);
+            if (cota > radioKm || (mejores.size() == k && mejores.peek().distanciaKm() <= cota)) {
+                return;
+            }
+        }
+    }
+
+    private void revisar(Celda celda, double latitud, double longitud, double radioKm, long vigentesDesde,
+                         PriorityQueue<Cercano> mejores, int k) {
+        for (int i = 0; i < celda.tamano; i++) {
+            double distancia = distanciaKm(latitud, longitud, celda.latitudes[i], celda.longitudes[i]);
+            if (distancia > radioKm || (mejores.size() == k && distancia >= mejores.peek().distanciaKm())) {
+                continue;
+            }
+            Repartidor repartidor = repartidores.get(celda.ids[i]);
+            if (repartidor.actualizadoEn < vigentesDesde) {
+                continue;
+            }
+            mejores.add(new Cercano(celda.ids[i], celda.latitudes[i], celda.longitudes[i], distancia,
+                    repartidor.actualizadoEn));
+            if (mejores.size() > k) {
+                mejores.poll();
+            }
+        }
+    }
+
+    // Lado más corto de una celda a hasta `anillos` celdas del punto: el ancho se achica con la latitud
+    private double ladoMinimoKm(double latitud, int anillos) {
+        double latitudMaxima = Math.min(Math.abs(latitud) + anillos * tamanoCelda, 89.9);
+        return tamanoCelda * KM_POR_GRADO * Math.cos(Math.toRadians(latitudMaxima));
+    }
+
+    static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private int fila(double latitud) {
+        return Math.min(filas - 1, (int) Math.floor((latitud + 90) / tamanoCelda));
+    }
+
+    private int columna(double longitud) {
+        return Math.floorMod((int) Math.floor((longitud + 180) / tamanoCelda), columnas);
+    }
+
+    private long celda(double latitud, double longitud) {
+        return (long) fila(latitud) * columnas + columna(longitud);
+    }
+
+    private void insertar(long repartidorId, Repartidor repartidor) {
+        long clave = celda(repartidor.latitud, repartidor.longitud);
+        Celda celda = celdas.computeIfAbsent(clave, c -> new Celda());
+        if (celda.tamano == celda.ids.length) {
+            int capacidad = celda.tamano * 2;
+            celda.ids = Arrays.copyOf(celda.ids, capacidad);
+            celda.latitudes = Arrays.copyOf(celda.latitudes, capacidad);
+            celda.longitudes = Arrays.copyOf(celda.longitudes, capacidad);
+        }
+        int indice = celda.tamano++;
+        celda.ids[indice] = repartidorId;
+        celda.latitudes[indice] = repartidor.latitud;
+        celda.longitudes[indice] = repartidor.longitud;
+        repartidor.celda = clave;
+        repartidor.indice = indice;
+        enGrilla++;
+    }
+
+    private void sacar(Repartidor repartidor) {
+        Celda celda = celdas.get(repartidor.celda);
+        int ultimo = --celda.tamano;
+        if (repartidor.indice != ultimo) {
+            long movido = celda.ids[ultimo];
+            celda.ids[repartidor.indice] = movido;
+            celda.latitudes[repartidor.indice] = celda.latitudes[ultimo];
+            celda.longitudes[repartidor.indice] = celda.longitudes[ultimo];
+            repartidores.get(movido).indice = repartidor.indice;
+        }
+        if (celda.tamano == 0) {
+            celdas.remove(repartidor.celda);
+        }
+        repartidor.indice = -1;
+        enGrilla--;
+    }
+}
@@ -0,0 +1,163 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import java.util.Arrays;
+
+/**
+ * Asignación de costo mínimo sobre una matriz filas x columnas (repartidores x pedidos) en la que cada fila y cada
+ * columna se usan a lo sumo una vez. Los pares imposibles llevan costo Double.POSITIVE_INFINITY.
+ * hungaro() es exacto: primero maximiza la cantidad de pares posibles y, entre esas soluciones, minimiza el costo.
+ * Cuesta O(n² m) con n el lado menor, por eso para lotes grandes se usa greedy(), que toma los pares del más barato
+ * al más caro en O(n m log(n m)).
+ */
+final class OptimizadorAsignacion {
+
+    /**
+     * columnaPorFila[i] es la columna asignada a la fila i, o -1.
+     */
+    record Solucion(int[] columnaPorFila, int asignados, double costoTotal) {
+    }
+
+    private OptimizadorAsignacion() {
+    }
+
+    static Solucion hungaro(double[][] costos, int columnas) {
+        int filas = costos.length;
+        if (filas == 0 || columnas == 0) {
+            return vacia(filas);
+        }
+        // El algoritmo necesita filas <= columnas: si no, se resuelve la traspuesta
+        boolean traspuesta = filas > columnas;
+        int n = traspuesta ? columnas : filas;
+        int m = traspuesta ? filas : columnas;
+
+        // Los imposibles pasan a un costo finito mayor que cualquier solución que no los use
+        double maximo = 0;
+        for (double[] fila : costos) {
+            for (double costo : fila) {
+                if (costo != Double.POSITIVE_INFINITY) {
+                    maximo = Math.max(maximo, Math.abs(costo));
+                }
+            }
+        }
+        double imposible = (2 * maximo + 1) * (n + 1);
+        double[][] a = new double[n + 1][m + 1];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double costo = traspuesta ? costos[j][i] : costos[i][j];
+                a[i + 1][j + 1] = costo == Double.POSITIVE_INFINITY ? imposible : costo;
+            }
+        }
+
+        // Húngaro con potenciales u/v: agrega una fila por vez siguiendo el camino de aumento más barato
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] camino = new int[m + 1];
+        double[] minimo = new double[m + 1];
+        boolean[] usada = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minimo, Double.POSITIVE_INFINITY);
+            Arrays.fill(usada, false);
+            do {
+                usada[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!usada[j]) {
+                        double actual = a[i0][j] - u[i0] - v[j];
+                        if (actual < minimo[j]) {
+                            minimo[j] = actual;
+                            camino[j] = j0;
+                        }
+                        if (minimo[j] < delta) {
+                            delta = minimo[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (usada[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minimo[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = camino[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] columnaPorFila = new int[filas];
+        Arrays.fill(columnaPorFila, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                int fila = traspuesta ? j - 1 : p[j] - 1;
+                int columna = traspuesta ? p[j] - 1 : j - 1;
+                if (costos[fila][columna] != Double.POSITIVE_INFINITY) {
+                    columnaPorFila[fila] = columna;
+                }
+            }
+        }
+        return solucion(costos, columnaPorFila);
+    }
+
+    static Solucion greedy(double[][] costos, int columnas) {
+        int filas = costos.length;
+        // Cada par posible se empaqueta en un long (costo como float ordenable, índice) para ordenar sin objetos
+        long[] pares = new long[filas * columnas];
+        int cantidad = 0;
+        for (int i = 0; i < filas; i++) {
+            for (int j = 0; j < columnas; j++) {
+                if (costos[i][j] != Double.POSITIVE_INFINITY) {
+                    int bits = Float.floatToIntBits((float) costos[i][j]);
+                    bits ^= (bits >> 31) & 0x7fffffff;
+                    pares[cantidad++] = ((long) bits << 32) | (i * columnas + j);
+                }
+            }
+        }
+        Arrays.sort(pares, 0, cantidad);
+        int[] columnaPorFila = new int[filas];
+        Arrays.fill(columnaPorFila, -1);
+        boolean[] columnaUsada = new boolean[columnas];
+        int restantes = Math.min(filas, columnas);
+        for (int p = 0; p < cantidad; p++) {
+            int k = (int) pares[p];
+            int fila = k / columnas;
+            int columna = k % columnas;
+            if (columnaPorFila[fila] < 0 && !columnaUsada[columna]) {
+                columnaPorFila[fila] = columna;
+                columnaUsada[columna] = true;
+                if (--restantes == 0) {
+                    break;
+                }
+            }
+        }
+        return solucion(costos, columnaPorFila);
+    }
+
+    private static Solucion solucion(double[][] costos, int[] columnaPorFila) {
+        int asignados = 0;
+        double total = 0;
+        for (int i = 0; i < columnaPorFila.length; i++) {
+            if (columnaPorFila[i] >= 0) {
+                asignados++;
+                total += costos[i][columnaPorFila[i]];
+            }
+        }
+        return new Solucion(columnaPorFila, asignados, total);
+    }
+
+    private static Solucion vacia(int filas) {
+        int[] columnaPorFila = new int[filas];
+        Arrays.fill(columnaPorFila, -1);
+        return new Solucion(columnaPorFila, 0, 0);
+    }
+}
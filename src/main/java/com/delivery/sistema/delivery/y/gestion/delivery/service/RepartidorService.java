@@ -3,30 +3,53 @@ package com.delivery.sistema.delivery.y.gestion.delivery.service;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.Repartidor;
 import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
 import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
 import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
 import com.delivery.sistema.delivery.y.gestion.cliente.repository.ClienteRepository;
 import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorDto;
 import com.delivery.sistema.delivery.y.gestion.delivery.dto.EntregaDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.RepartidorEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.service.ContadorEstadosService;
 
 import java.util.Map;
 import java.util.HashMap;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class RepartidorService {
 
+    // Candidatos de cada tipo (cercanos y más antiguos) que se intentan tomar en una asignación
+    private static final int CANDIDATOS_ASIGNACION = 5;
+
     private final RepartidorRepository repartidorRepository;
     private final ClienteRepository clienteRepository;
+    private final EntregaRepository entregaRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final ContadorEstadosService contadorEstadosService;
+    private final UbicacionRepartidorService ubicacionRepartidorService;
+    private final TransicionRepartidorService transicionRepartidorService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.repartidores.radio-asignacion-km:15}")
+    private double radioAsignacionKm;
 
     public List<Repartidor> listarTodos() {
         return repartidorRepository.findAll();
@@ -90,18 +113,19 @@ public class RepartidorService {
             repartidor.setEstado(EstadoRepartidor.LIBRE);
         }
 
-        return repartidorRepository.save(repartidor);
+        return guardar(repartidor, null, null);
     }
 
     public Repartidor actualizar(Long id, Repartidor repartidorActualizado) {
         Repartidor repartidorExistente = obtenerPorId(id);
+        Boolean disponibleAnterior = repartidorExistente.getDisponible();
 
         // Actualizar campos
         repartidorExistente.setTelefono(repartidorActualizado.getTelefono());
         repartidorExistente.setVehiculo(repartidorActualizado.getVehiculo());
         repartidorExistente.setDisponible(repartidorActualizado.getDisponible());
 
-        return repartidorRepository.save(repartidorExistente);
+        return guardar(repartidorExistente, repartidorExistente.getEstado(), disponibleAnterior);
     }
 
     public void eliminar(Long id) {
@@ -114,6 +138,8 @@ public class RepartidorService {
         }
 
         repartidorRepository.delete(repartidor);
+        eventPublisher.publishEvent(new RepartidorEstadoCambiadoEvent(
+                id, repartidor.getEstado(), null, repartidor.getDisponible(), null));
     }
 
     private Repartidor cambiarEstadoInterno(Long id, EstadoRepartidor nuevoEstado) {
@@ -124,8 +150,9 @@ public class RepartidorService {
             throw new IllegalStateException("No se puede ocupar un repartidor no disponible");
         }
 
+        EstadoRepartidor estadoAnterior = repartidor.getEstado();
         repartidor.setEstado(nuevoEstado);
-        return repartidorRepository.save(repartidor);
+        return guardar(repartidor, estadoAnterior, repartidor.getDisponible());
     }
 
     public Repartidor marcarLibre(Long id) {
@@ -142,30 +169,56 @@ public class RepartidorService {
 
     public Repartidor activar(Long id) {
         Repartidor repartidor = obtenerPorId(id);
+        EstadoRepartidor estadoAnterior = repartidor.getEstado();
+        Boolean disponibleAnterior = repartidor.getDisponible();
         repartidor.setDisponible(true);
         repartidor.setEstado(EstadoRepartidor.LIBRE);
-        return repartidorRepository.save(repartidor);
+        return guardar(repartidor, estadoAnterior, disponibleAnterior);
     }
 
     public Repartidor desactivar(Long id) {
         Repartidor repartidor = obtenerPorId(id);
+        EstadoRepartidor estadoAnterior = repartidor.getEstado();
+        Boolean disponibleAnterior = repartidor.getDisponible();
         repartidor.setDisponible(false);
         repartidor.setEstado(EstadoRepartidor.INACTIVO);
-        return repartidorRepository.save(repartidor);
+        return guardar(repartidor, estadoAnterior, disponibleAnterior);
+    }
+
+    /**
+     * Toma un repartidor libre para un pedido del restaurante y lo pasa a OCUPADO. Prueba primero con los más
+     * cercanos según las ubicaciones en vivo, dentro de app.repartidores.radio-asignacion-km, y después con los
+     * libres sin entregas registrados hace más tiempo. Cada candidato se toma con un UPDATE condicional: si otra
+     * asignación concurrente lo ganó, se sigue con el próximo.
+     * @return el id del repartidor tomado
+     */
+    public Optional<Long> asignarRepartidorLibre(Long restauranteId) {
+        for (Long candidato : candidatosLibres(restauranteId)) {
+            if (transicionRepartidorService.ocupar(candidato)) {
+                return Optional.of(candidato);
+            }
+        }
+        return Optional.empty();
     }
 
-    public Optional<Repartidor> asignarRepartidorLibre() {
-        List<Repartidor> libres = listarDisponibles();
-        if (libres.isEmpty()) {
-            return Optional.empty();
+    private Set<Long> candidatosLibres(Long restauranteId) {
+        Restaurante restaurante = restauranteRepository.findById(restauranteId)
+                .orElseThrow(() -> new EntityNotFoundException("Restaurante no encontrado con ID: " + restauranteId));
+        Set<Long> candidatos = new LinkedHashSet<>();
+        if (restaurante.getLatitud() != null && restaurante.getLongitud() != null) {
+            ubicacionRepartidorService.cercanos(restaurante.getLatitud().doubleValue(),
+                    restaurante.getLongitud().doubleValue(), radioAsignacionKm, CANDIDATOS_ASIGNACION)
+                    .forEach(cercano -> candidatos.add(cercano.repartidorId()));
         }
-        
-        // Tomar el primer repartidor disponible
-        Repartidor repartidor = libres.get(0);
-        repartidor.setEstado(EstadoRepartidor.OCUPADO);
-        repartidorRepository.save(repartidor);
-        
-        return Optional.of(repartidor);
+        repartidorRepository.findLibresSinEntregas(PageRequest.of(0, CANDIDATOS_ASIGNACION))
+                .forEach(repartidor -> candidatos.add(repartidor.getId()));
+        return candidatos;
+    }
+
+    // Usado en @PreAuthorize: el repartidor pertenece al usuario autenticado
+    @Transactional(readOnly = true)
+    public boolean esOwner(Long repartidorId, String email) {
+        return repartidorRepository.existsByIdAndClienteEmail(repartidorId, email);
     }
 
     @Transactional(readOnly = true)
@@ -180,17 +233,17 @@ public class RepartidorService {
 
     @Transactional(readOnly = true)
     public Long contarTotal() {
-        return repartidorRepository.count();
+        return contadorEstadosService.totalRepartidores();
     }
 
     @Transactional(readOnly = true)
     public Long contarDisponibles() {
-        return repartidorRepository.countByDisponibleTrue();
+        return contadorEstadosService.repartidoresDisponibles();
     }
 
     @Transactional(readOnly = true)
     public Long contarPorEstado(EstadoRepartidor estado) {
-        return repartidorRepository.countByEstado(estado);
+        return contadorEstadosService.repartidores(estado);
     }
 
     @Transactional(readOnly = true)
@@ -207,17 +260,17 @@ public class RepartidorService {
     // Métodos adicionales requeridos por RepartidorController
     @Transactional(readOnly = true)
     public Page<RepartidorDto> listarRepartidoresDisponibles(Pageable pageable) {
-        return repartidorRepository.findByDisponibleTrue(pageable).map(this::convertirADto);
+        return repartidorRepository.findDtoByDisponibleTrue(pageable);
     }
 
     @Transactional(readOnly = true)
     public Page<RepartidorDto> listarRepartidoresPorEstado(EstadoRepartidor estado, Pageable pageable) {
-        return repartidorRepository.findByEstado(estado, pageable).map(this::convertirADto);
+        return repartidorRepository.findDtoByEstado(estado, pageable);
     }
 
     @Transactional(readOnly = true)
     public Page<RepartidorDto> listarRepartidores(Pageable pageable) {
-        return repartidorRepository.findAll(pageable).map(this::convertirADto);
+        return repartidorRepository.findAllDto(pageable);
     }
 
     public RepartidorDto obtenerRepartidorPorId(Long id) {
@@ -234,6 +287,16 @@ public class RepartidorService {
         return convertirADto(actualizar(id, repartidor));
     }
 
+    // Guarda el repartidor y publica el cambio de estado o disponibilidad para los contadores en memoria
+    private Repartidor guardar(Repartidor repartidor, EstadoRepartidor estadoAnterior, Boolean disponibleAnterior) {
+        Repartidor guardado = repartidorRepository.save(repartidor);
+        if (estadoAnterior != guardado.getEstado() || !Objects.equals(disponibleAnterior, guardado.getDisponible())) {
+            eventPublisher.publishEvent(new RepartidorEstadoCambiadoEvent(guardado.getId(),
+                    estadoAnterior, guardado.getEstado(), disponibleAnterior, guardado.getDisponible()));
+        }
+        return guardado;
+    }
+
     // Métodos de conversión DTO
     private RepartidorDto convertirADto(Repartidor repartidor) {
         RepartidorDto dto = new RepartidorDto();
@@ -262,13 +325,15 @@ public class RepartidorService {
     // Métodos adicionales requeridos por RepartidorController
     public RepartidorDto cambiarDisponibilidad(Long id, boolean disponible) {
         Repartidor repartidor = obtenerPorId(id);
+        EstadoRepartidor estadoAnterior = repartidor.getEstado();
+        Boolean disponibleAnterior = repartidor.getDisponible();
         repartidor.setDisponible(disponible);
         if (!disponible) {
             repartidor.setEstado(EstadoRepartidor.INACTIVO);
         } else {
             repartidor.setEstado(EstadoRepartidor.LIBRE);
         }
-        return convertirADto(repartidorRepository.save(repartidor));
+        return convertirADto(guardar(repartidor, estadoAnterior, disponibleAnterior));
     }
 
     @Transactional(readOnly = true)
@@ -284,9 +349,7 @@ public class RepartidorService {
 
     @Transactional(readOnly = true)
     public Page<EntregaDto> obtenerHistorialEntregas(Long repartidorId, Pageable pageable) {
-        // Este método requiere integración con EntregaService
-        // Por ahora retornamos una página vacía
-        return Page.empty(pageable);
+        return entregaRepository.findDtoByRepartidorId(repartidorId, pageable);
     }
 
     public void eliminarRepartidor(Long id) {
@@ -302,7 +365,8 @@ public class RepartidorService {
             throw new IllegalStateException("No se puede ocupar un repartidor no disponible");
         }
 
+        EstadoRepartidor estadoAnterior = repartidor.getEstado();
         repartidor.setEstado(nuevoEstado);
-        return convertirADto(repartidorRepository.save(repartidor));
+        return convertirADto(guardar(repartidor, estadoAnterior, repartidor.getDisponible()));
     }
 }
\ No newline at end of file
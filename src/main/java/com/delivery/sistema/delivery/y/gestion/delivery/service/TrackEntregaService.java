@@ -0,0 +1,232 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.MetricasTrackDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.PuntoUbicacionDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EntregaTrack;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaTrackRepository;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaTrackRepositoryCustom.PuntoTrack;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ingesta de ubicaciones GPS de las entregas en camino sin tocar la base de datos por cada punto.
+ * Los puntos llegan en lotes, se validan contra un mapa en memoria de entregas en camino y quedan en un BufferTrack
+ * por entrega. Cada app.track.descarga-ms todos los buffers se vacían en una sola transacción: los puntos se agregan
+ * a entrega_track con INSERT por lotes de JDBC y la última posición de cada entrega se escribe una sola vez.
+ * La memoria está acotada por app.track.capacidad-por-entrega y app.track.max-puntos-pendientes; lo que se pierde
+ * por esos límites o por fallas de escritura queda contado en metricas().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrackEntregaService {
+
+    // Tolerancia para relojes de dispositivos adelantados
+    private static final long MAX_ADELANTO_MS = 5 * 60 * 1000;
+
+    private final EntregaRepository entregaRepository;
+    private final EntregaTrackRepository entregaTrackRepository;
+    private final UbicacionRepartidorService ubicacionRepartidorService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.track.capacidad-por-entrega:256}")
+    private int capacidadPorEntrega;
+
+    @Value("${app.track.max-puntos-pendientes:200000}")
+    private long maxPuntosPendientes;
+
+    @Value("${app.track.max-puntos-por-envio:500}")
+    private int maxPuntosPorEnvio;
+
+    @Value("${app.track.tamano-lote:1000}")
+    private int tamanoLote;
+
+    // Entregas en camino y su repartidor
+    private final Map<Long, Long> enCamino = new ConcurrentHashMap<>();
+    private final Map<Long, BufferTrack> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong pendientes = new AtomicLong();
+
+    private final LongAdder recibidos = new LongAdder();
+    private final LongAdder descartadosPorDesborde = new LongAdder();
+    private final LongAdder rechazadosPorLimite = new LongAdder();
+    private final LongAdder persistidos = new LongAdder();
+    private final LongAdder perdidosPorError = new LongAdder();
+    private final LongAdder descargas = new LongAdder();
+    private volatile long ultimoRetrasoMs;
+    private volatile long maxRetrasoMs;
+    private volatile long ultimaDescargaMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    // Recoge cambios de estado que no publicaron evento, por ejemplo los hechos fuera de la aplicación
+    @Scheduled(initialDelayString = "${app.track.reconciliacion-ms:60000}",
+               fixedDelayString = "${app.track.reconciliacion-ms:60000}")
+    public void reconciliar() {
+        Map<Long, Long> actuales = new HashMap<>();
+        for (Object[] fila : entregaRepository.findRepartidoresEnCamino()) {
+            actuales.put((Long) fila[0], (Long) fila[1]);
+        }
+        enCamino.keySet().retainAll(actuales.keySet());
+        enCamino.putAll(actuales);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntregaEstadoCambiado(EntregaEstadoCambiadoEvent event) {
+        if (event.estadoNuevo() == EstadoEntrega.EN_CAMINO) {
+            entregaRepository.findRepartidorIdById(event.entregaId())
+                    .ifPresent(repartidorId -> enCamino.put(event.entregaId(), repartidorId));
+        } else if (event.estadoAnterior() == EstadoEntrega.EN_CAMINO) {
+            enCamino.remove(event.entregaId());
+        }
+    }
+
+    /**
+     * Encola los puntos de una entrega en camino y devuelve cuántos se aceptaron. La última posición también
+     * actualiza en el acto el índice de ubicaciones de repartidores.
+     */
+    public int registrar(Long entregaId, List<PuntoUbicacionDto> puntos) {
+        if (puntos == null || puntos.isEmpty()) {
+            throw new IllegalArgumentException("Debe enviar al menos un punto");
+        }
+        if (puntos.size() > maxPuntosPorEnvio) {
+            throw new IllegalArgumentException("No se pueden enviar más de " + maxPuntosPorEnvio + " puntos por vez");
+        }
+        long ahora = System.currentTimeMillis();
+        PuntoUbicacionDto masReciente = puntos.get(0);
+        for (PuntoUbicacionDto punto : puntos) {
+            if (punto == null) {
+                throw new IllegalArgumentException("Los puntos no pueden ser nulos");
+            }
+            UbicacionRepartidorService.validarCoordenadas(punto.latitud(), punto.longitud());
+            if (punto.instante() <= 0 || punto.instante() > ahora + MAX_ADELANTO_MS) {
+                throw new IllegalArgumentException("El instante de cada punto debe ser positivo y no estar en el futuro");
+            }
+            if (punto.instante() > masReciente.instante()) {
+                masReciente = punto;
+            }
+        }
+        Long repartidorId = enCamino.get(entregaId);
+        if (repartidorId == null) {
+            if (!entregaRepository.existsById(entregaId)) {
+                throw new EntityNotFoundException("Entrega no encontrada con ID: " + entregaId);
+            }
+            throw new IllegalStateException("Solo se puede actualizar ubicación de entregas en camino");
+        }
+
+        recibidos.add(puntos.size());
+        int aceptados = 0;
+        BufferTrack buffer = buffers.computeIfAbsent(entregaId, id -> new BufferTrack(id, capacidadPorEntrega));
+        for (PuntoUbicacionDto punto : puntos) {
+            if (pendientes.get() >= maxPuntosPendientes) {
+                rechazadosPorLimite.increment();
+                continue;
+            }
+            int pisados = buffer.agregar(punto.latitud(), punto.longitud(), punto.instante(), ahora);
+            while (pisados == BufferTrack.CERRADO) {
+                // La descarga lo cerró por vacío entre medias; se usa uno nuevo
+                buffers.remove(entregaId, buffer);
+                buffer = buffers.computeIfAbsent(entregaId, id -> new BufferTrack(id, capacidadPorEntrega));
+                pisados = buffer.agregar(punto.latitud(), punto.longitud(), punto.instante(), ahora);
+            }
+            if (pisados == 0) {
+                pendientes.incrementAndGet();
+            } else {
+                descartadosPorDesborde.increment();
+            }
+            aceptados++;
+        }
+        ubicacionRepartidorService.registrarUbicacion(repartidorId, masReciente.latitud(), masReciente.longitud());
+        return aceptados;
+    }
+
+    @Scheduled(fixedDelayString = "${app.track.descarga-ms:2000}")
+    public synchronized void descargar() {
+        long inicio = System.currentTimeMillis();
+        List<PuntoTrack> puntos = new ArrayList<>();
+        List<PuntoTrack> ultimos = new ArrayList<>();
+        long recibidoDesde = Long.MAX_VALUE;
+        long[] desde = new long[1];
+        for (Map.Entry<Long, BufferTrack> entrada : buffers.entrySet()) {
+            BufferTrack buffer = entrada.getValue();
+            PuntoTrack ultimo = buffer.drenar(puntos, desde);
+            if (ultimo != null) {
+                ultimos.add(ultimo);
+            } else if (!enCamino.containsKey(entrada.getKey()) && buffer.cerrarSiVacio()) {
+                buffers.remove(entrada.getKey(), buffer);
+            }
+            recibidoDesde = Math.min(recibidoDesde, desde[0]);
+        }
+        if (puntos.isEmpty() && ultimos.isEmpty()) {
+            return;
+        }
+
+        pendientes.addAndGet(-puntos.size());
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                entregaTrackRepository.insertarEnLote(puntos, tamanoLote);
+                entregaTrackRepository.actualizarUltimasUbicaciones(ultimos);
+            });
+            persistidos.add(puntos.size());
+        } catch (RuntimeException e) {
+            // No se reintenta: volver a encolar podría superar el límite de memoria
+            perdidosPorError.add(puntos.size());
+            log.error("No se pudieron escribir {} puntos de recorrido de {} entregas", puntos.size(), ultimos.size(), e);
+            return;
+        }
+
+        long fin = System.currentTimeMillis();
+        descargas.increment();
+        ultimaDescargaMs = fin - inicio;
+        if (recibidoDesde != Long.MAX_VALUE) {
+            ultimoRetrasoMs = fin - recibidoDesde;
+            maxRetrasoMs = Math.max(maxRetrasoMs, ultimoRetrasoMs);
+        }
+        log.debug("Recorridos descargados: {} puntos, {} entregas en {} ms", puntos.size(), ultimos.size(), ultimaDescargaMs);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        descargar();
+    }
+
+    public List<PuntoUbicacionDto> recorrido(Long entregaId) {
+        ZoneId zona = ZoneId.systemDefault();
+        List<PuntoUbicacionDto> recorrido = new ArrayList<>();
+        for (EntregaTrack punto : entregaTrackRepository.findByEntregaIdOrderByRegistradoEnAscIdAsc(entregaId)) {
+            recorrido.add(new PuntoUbicacionDto(punto.getLatitud().doubleValue(), punto.getLongitud().doubleValue(),
+                    punto.getRegistradoEn().atZone(zona).toInstant().toEpochMilli()));
+        }
+        return recorrido;
+    }
+
+    public MetricasTrackDto metricas() {
+        return new MetricasTrackDto(recibidos.sum(), descartadosPorDesborde.sum(), rechazadosPorLimite.sum(),
+                persistidos.sum(), perdidosPorError.sum(), pendientes.get(), enCamino.size(), descargas.sum(),
+                ultimoRetrasoMs, maxRetrasoMs, ultimaDescargaMs);
+    }
+}
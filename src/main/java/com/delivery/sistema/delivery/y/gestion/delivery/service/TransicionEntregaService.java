@@ -0,0 +1,104 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motor de transiciones de estado de entregas.
+ * Igual que {@link com.delivery.sistema.delivery.y.gestion.pedido.service.TransicionPedidoService},
+ * cada cambio es un UPDATE condicionado al estado actual.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TransicionEntregaService {
+
+    private static final int MAX_INTENTOS = 3;
+
+    private final EntregaRepository entregaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EstadoEntrega transicionar(Long entregaId, EstadoEntrega nuevoEstado) {
+        if (nuevoEstado == EstadoEntrega.ENTREGADO) {
+            // La entrega completada siempre registra fecha de entrega
+            return transicionar(entregaId, nuevoEstado, null);
+        }
+        return aplicar(entregaId, nuevoEstado, origenes -> entregaRepository.actualizarEstadoSiPermitido(
+                entregaId, nuevoEstado, origenes, LocalDateTime.now()));
+    }
+
+    public EstadoEntrega transicionar(Long entregaId, EstadoEntrega nuevoEstado, String comentarios) {
+        return aplicar(entregaId, nuevoEstado, origenes -> nuevoEstado == EstadoEntrega.ENTREGADO
+                ? entregaRepository.marcarEntregadaSiPermitido(entregaId, origenes, comentarios, LocalDateTime.now())
+                : entregaRepository.actualizarEstadoYComentariosSiPermitido(entregaId, nuevoEstado, origenes, comentarios, LocalDateTime.now()));
+    }
+
+    /**
+     * Aplica una transición ya validada a entregas bloqueadas en la transacción actual,
+     * con un único UPDATE para todas ellas.
+     */
+    public void aplicarEnLote(Map<Long, EstadoEntrega> estadosAnteriores, EstadoEntrega nuevoEstado) {
+        if (estadosAnteriores.isEmpty()) {
+            return;
+        }
+        Set<EstadoEntrega> estadosOrigen = nuevoEstado.getEstadosOrigen();
+        LocalDateTime ahora = LocalDateTime.now();
+        int actualizadas = nuevoEstado == EstadoEntrega.ENTREGADO
+                ? entregaRepository.marcarEntregadasEnLoteSiPermitido(estadosAnteriores.keySet(), estadosOrigen, ahora)
+                : entregaRepository.actualizarEstadoEnLoteSiPermitido(estadosAnteriores.keySet(), nuevoEstado, estadosOrigen, ahora);
+        if (actualizadas != estadosAnteriores.size()) {
+            throw new IllegalStateException("Algunas entregas cambiaron de estado mientras se actualizaban, intente nuevamente");
+        }
+        estadosAnteriores.forEach((entregaId, anterior) ->
+                eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(entregaId, anterior, nuevoEstado)));
+    }
+
+    private EstadoEntrega aplicar(Long entregaId, EstadoEntrega nuevoEstado, ActualizacionCondicional actualizacion) {
+        Set<EstadoEntrega> estadosOrigen = nuevoEstado.getEstadosOrigen();
+        EstadoEntrega estadoAnterior = null;
+
+        if (estadosOrigen.size() == 1) {
+            // Con un único origen posible, un solo UPDATE basta para aplicar y conocer el estado anterior
+            if (actualizacion.ejecutar(estadosOrigen) > 0) {
+                estadoAnterior = estadosOrigen.iterator().next();
+            }
+        } else {
+            // Con varios orígenes el UPDATE se condiciona al estado leído; si cambió entre medias se reintenta
+            for (int intento = 0; intento < MAX_INTENTOS && estadoAnterior == null; intento++) {
+                EstadoEntrega actual = obtenerEstado(entregaId);
+                if (!estadosOrigen.contains(actual)) {
+                    break;
+                }
+                if (actualizacion.ejecutar(Set.of(actual)) > 0) {
+                    estadoAnterior = actual;
+                }
+            }
+        }
+
+        if (estadoAnterior == null) {
+            throw new IllegalStateException("No se puede cambiar la entrega de " + obtenerEstado(entregaId) + " a " + nuevoEstado);
+        }
+        eventPublisher.publishEvent(new EntregaEstadoCambiadoEvent(entregaId, estadoAnterior, nuevoEstado));
+        return estadoAnterior;
+    }
+
+    private EstadoEntrega obtenerEstado(Long entregaId) {
+        return entregaRepository.findEstadoById(entregaId)
+                .orElseThrow(() -> new EntityNotFoundException("Entrega no encontrada con ID: " + entregaId));
+    }
+
+    @FunctionalInterface
+    private interface ActualizacionCondicional {
+        int ejecutar(Set<EstadoEntrega> estadosOrigen);
+    }
+}
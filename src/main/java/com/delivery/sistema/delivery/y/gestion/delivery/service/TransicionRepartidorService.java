@@ -0,0 +1,67 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.event.RepartidorEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Toma y liberación de repartidores al asignar y cerrar entregas.
+ * Igual que {@link com.delivery.sistema.delivery.y.gestion.pedido.service.TransicionPedidoService},
+ * cada cambio es un UPDATE condicionado al estado actual, así que dos asignaciones concurrentes
+ * no pueden quedarse con el mismo repartidor. No refresca instancias de Repartidor ya cargadas en la transacción.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TransicionRepartidorService {
+
+    private final RepartidorRepository repartidorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Pasa al repartidor de LIBRE a OCUPADO si sigue libre y disponible.
+     * @return false si otra asignación lo tomó antes o ya no está disponible
+     */
+    public boolean ocupar(Long repartidorId) {
+        if (repartidorRepository.ocuparSiLibre(repartidorId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new RepartidorEstadoCambiadoEvent(repartidorId,
+                EstadoRepartidor.LIBRE, EstadoRepartidor.OCUPADO, true, true));
+        return true;
+    }
+
+    /**
+     * Como ocupar, para cuando el repartidor lo eligió quien llama.
+     */
+    public void ocuparElegido(Long repartidorId) {
+        if (!ocupar(repartidorId)) {
+            if (!repartidorRepository.existsById(repartidorId)) {
+                throw new EntityNotFoundException("Repartidor no encontrado con ID: " + repartidorId);
+            }
+            throw new IllegalStateException("El repartidor no está disponible");
+        }
+    }
+
+    /**
+     * Devuelve al repartidor a LIBRE si estaba OCUPADO y ya no le quedan entregas activas.
+     * Va después de cerrar o mover la entrega, en la misma transacción.
+     */
+    public boolean liberarSiSinEntregas(Long repartidorId) {
+        if (repartidorRepository.liberarSiSinEntregas(repartidorId, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        // La fila quedó bloqueada por el UPDATE: la disponibilidad leída es la vigente
+        Boolean disponible = repartidorRepository.findDisponibleById(repartidorId).orElse(null);
+        eventPublisher.publishEvent(new RepartidorEstadoCambiadoEvent(repartidorId,
+                EstadoRepartidor.OCUPADO, EstadoRepartidor.LIBRE, disponible, disponible));
+        return true;
+    }
+}
@@ -0,0 +1,216 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorCercanoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.RepartidorEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ubicaciones en vivo de los repartidores en un IndiceUbicaciones en memoria, para encontrar a los disponibles
+ * más cercanos a un punto sin consultar la base de datos. Las ubicaciones solo viven en memoria: llegan de la
+ * app del repartidor y de las entregas en camino, y se olvidan pasados app.repartidores.ubicacion-vigencia-s
+ * sin novedades. Qué repartidores están disponibles se carga al arrancar, se actualiza con
+ * RepartidorEstadoCambiadoEvent y se reconcilia periódicamente contra la base de datos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UbicacionRepartidorService {
+
+    public static final int MAX_RESULTADOS = 50;
+
+    private final RepartidorRepository repartidorRepository;
+
+    @Value("${app.repartidores.celda-grados:0.01}")
+    private double tamanoCelda;
+
+    @Value("${app.repartidores.ubicacion-vigencia-s:120}")
+    private long vigenciaSegundos;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceUbicaciones indice;
+    // Cambios llegados mientras se lee la base de datos; se vuelven a aplicar sobre lo leído
+    private List<RepartidorEstadoCambiadoEvent> pendientes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    @Scheduled(initialDelayString = "${app.repartidores.reconciliacion-ms:60000}",
+               fixedDelayString = "${app.repartidores.reconciliacion-ms:60000}")
+    public synchronized void reconciliar() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Object[]> filas;
+        try {
+            filas = repartidorRepository.findDisponibilidades();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Set<Long> ids = new HashSet<>(filas.size() * 2);
+        int descartadas;
+        int enGrilla;
+        lock.writeLock().lock();
+        try {
+            if (indice == null) {
+                indice = new IndiceUbicaciones(tamanoCelda);
+            }
+            for (Object[] fila : filas) {
+                Long id = (Long) fila[0];
+                ids.add(id);
+                indice.registrar(id, Boolean.TRUE.equals(fila[1]));
+            }
+            indice.conservarSolo(ids);
+            // La lectura puede ser anterior a estos cambios: sin volver a aplicarlos, los pisaría
+            pendientes.forEach(this::aplicar);
+            pendientes = null;
+            descartadas = indice.descartarAntiguas(vigentesDesde());
+            enGrilla = indice.enGrilla();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Índice de ubicaciones reconciliado: {} repartidores, {} ubicados y disponibles, {} ubicaciones vencidas",
+                ids.size(), enGrilla, descartadas);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRepartidorEstadoCambiado(RepartidorEstadoCambiadoEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (indice != null) {
+                aplicar(event);
+            }
+            if (pendientes != null) {
+                pendientes.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Con el candado de escritura tomado e indice ya creado
+    private void aplicar(RepartidorEstadoCambiadoEvent event) {
+        if (event.estadoNuevo() == null) {
+            indice.quitar(event.repartidorId());
+        } else {
+            indice.registrar(event.repartidorId(),
+                    event.estadoNuevo() == EstadoRepartidor.LIBRE && Boolean.TRUE.equals(event.disponibleNuevo()));
+        }
+    }
+
+    public void actualizar(Long repartidorId, double latitud, double longitud) {
+        validarCoordenadas(latitud, longitud);
+        if (!registrarUbicacion(repartidorId, latitud, longitud)) {
+            throw new EntityNotFoundException("Repartidor no encontrado con ID: " + repartidorId);
+        }
+    }
+
+    /**
+     * Registra una ubicación ya validada. Devuelve false si el repartidor no está en el índice.
+     */
+    boolean registrarUbicacion(Long repartidorId, double latitud, double longitud) {
+        lock.writeLock().lock();
+        try {
+            return indice != null && indice.actualizar(repartidorId, latitud, longitud, System.currentTimeMillis());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta limite repartidores disponibles a menos de radioKm del punto, del más cercano al más lejano.
+     */
+    public List<RepartidorCercanoDto> cercanos(double latitud, double longitud, double radioKm, int limite) {
+        validarCoordenadas(latitud, longitud);
+        if (radioKm <= 0 || radioKm > 100) {
+            throw new IllegalArgumentException("El radio debe ser mayor a 0 y de hasta 100 km");
+        }
+        if (limite < 1 || limite > MAX_RESULTADOS) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_RESULTADOS);
+        }
+        List<IndiceUbicaciones.Cercano> cercanos;
+        lock.readLock().lock();
+        try {
+            if (indice == null) {
+                return List.of();
+            }
+            cercanos = indice.cercanos(latitud, longitud, limite, radioKm, vigentesDesde());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return cercanos.stream()
+                .map(c -> new RepartidorCercanoDto(c.repartidorId(), c.latitud(), c.longitud(), c.distanciaKm(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(c.actualizadoEn()), ZoneId.systemDefault())))
+                .toList();
+    }
+
+    /**
+     * Ubicación vigente, como {latitud, longitud}, de cada repartidor indicado que la tenga.
+     */
+    Map<Long, double[]> ubicaciones(Collection<Long> repartidorIds) {
+        Map<Long, double[]> ubicaciones = new HashMap<>();
+        long desde = vigentesDesde();
+        lock.readLock().lock();
+        try {
+            if (indice == null) {
+                return ubicaciones;
+            }
+            for (Long id : repartidorIds) {
+                double[] ubicacion = indice.ubicacion(id, desde);
+                if (ubicacion != null) {
+                    ubicaciones.put(id, ubicacion);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ubicaciones;
+    }
+
+    private long vigentesDesde() {
+        return System.currentTimeMillis() - vigenciaSegundos * 1000;
+    }
+
+    static void validarCoordenadas(double latitud, double longitud) {
+        if (!(latitud >= -90 && latitud <= 90)) {
+            throw new IllegalArgumentException("La latitud debe estar entre -90 y 90");
+        }
+        if (!(longitud >= -180 && longitud <= 180)) {
+            throw new IllegalArgumentException("La longitud debe estar entre -180 y 180");
+        }
+    }
+}
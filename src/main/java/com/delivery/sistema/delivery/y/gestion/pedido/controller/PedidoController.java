@@ -2,8 +2,14 @@ package com.delivery.sistema.delivery.y.gestion.pedido.controller;
 
 import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
 import com.delivery.sistema.delivery.y.gestion.pedido.dto.CrearPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.CambioEstadoPedidosDto;
 import com.delivery.sistema.delivery.y.gestion.pedido.service.PedidoService;
+import com.delivery.sistema.delivery.y.gestion.pedido.service.PedidoStreamService;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.MetricasTiempoEstimadoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.ResultadoCambioEstadoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.service.TiempoEstimadoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -12,11 +18,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -28,13 +37,17 @@ import java.util.Map;
 public class PedidoController {
 
     private final PedidoService pedidoService;
+    private final PedidoStreamService pedidoStreamService;
+    private final TiempoEstimadoService tiempoEstimadoService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Listar pedidos (Admin)", 
-               description = "Obtiene una lista paginada de pedidos con filtros opcionales")
+               description = "Obtiene una lista paginada de pedidos con filtros opcionales. "
+                       + "Filtrando por cliente se incluyen los archivados y el orden es siempre por fecha descendente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de pedidos obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Orden no admitido para los pedidos de un cliente"),
         @ApiResponse(responseCode = "403", description = "Sin permisos de administrador")
     })
     public ResponseEntity<Page<PedidoDto>> listarPedidos(
@@ -56,12 +69,31 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.listarPedidos(pageable));
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Listar pedidos por cursor (Admin)",
+               description = "Paginación por cursor sobre (fechaPedido, id): enviar en 'after' el token 'siguiente' de la página anterior")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de pedidos obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos de administrador")
+    })
+    public ResponseEntity<PaginaCursorDto<PedidoDto>> listarPedidosPorCursor(
+            @RequestParam(required = false) EstadoPedido estado,
+            @RequestParam(required = false) Long restauranteId,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(pedidoService.listarPedidosPorCursor(restauranteId, clienteId, estado, after, size));
+    }
+
     @GetMapping("/mis-pedidos")
     @PreAuthorize("hasRole('CLIENTE')")
     @Operation(summary = "Mis pedidos", 
-               description = "Obtiene los pedidos del cliente autenticado")
+               description = "Obtiene los pedidos del cliente autenticado, incluidos los archivados, del más reciente al más antiguo")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de pedidos del cliente obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Orden no admitido: solo por fecha descendente"),
         @ApiResponse(responseCode = "403", description = "Sin permisos de cliente")
     })
     public ResponseEntity<Page<PedidoDto>> misPedidos(
@@ -83,6 +115,24 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.listarPedidosPorRestaurante(restauranteId, pageable));
     }
 
+    @GetMapping("/restaurante/{restauranteId}/cursor")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#restauranteId, authentication.name))")
+    public ResponseEntity<PaginaCursorDto<PedidoDto>> pedidosDelRestaurantePorCursor(
+            @PathVariable Long restauranteId,
+            @RequestParam(required = false) EstadoPedido estado,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(pedidoService.listarPedidosPorCursor(restauranteId, null, estado, after, size));
+    }
+
+    @GetMapping(value = "/restaurante/{restauranteId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#restauranteId, authentication.name))")
+    @Operation(summary = "Stream de pedidos del restaurante",
+               description = "Server-Sent Events: primero 'pedidos-activos' con los pedidos en curso y luego 'pedido-creado' y 'pedido-estado' por cada cambio")
+    public SseEmitter streamPedidosDelRestaurante(@PathVariable Long restauranteId) {
+        return pedidoStreamService.suscribir(restauranteId);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or @pedidoService.esOwnerDelPedido(#id, authentication.name)")
     public ResponseEntity<PedidoDto> obtenerPedido(@PathVariable Long id) {
@@ -105,12 +155,14 @@ public class PedidoController {
     @PatchMapping("/{id}/estado")
     @PreAuthorize("hasRole('ADMIN') or hasRole('RESTAURANTE') or hasRole('REPARTIDOR')")
     @Operation(summary = "Cambiar estado del pedido", 
-               description = "Permite cambiar el estado de un pedido según el rol del usuario")
+               description = "Permite cambiar el estado de un pedido según el rol del usuario. "
+                       + "Un pedido en tránsito se cierra desde /api/entregas (entregada o fallida); tras fallar vuelve a LISTO y puede cancelarse")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Estado del pedido actualizado exitosamente"),
         @ApiResponse(responseCode = "400", description = "Estado inválido para la transición"),
         @ApiResponse(responseCode = "403", description = "Sin permisos para cambiar el estado"),
-        @ApiResponse(responseCode = "404", description = "Pedido no encontrado")
+        @ApiResponse(responseCode = "404", description = "Pedido no encontrado"),
+        @ApiResponse(responseCode = "409", description = "El pedido no admite la transición o está en manos de su entrega")
     })
     public ResponseEntity<PedidoDto> cambiarEstado(
             @PathVariable Long id,
@@ -118,6 +170,20 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.cambiarEstado(id, estado));
     }
 
+    @PatchMapping("/estado")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('RESTAURANTE') or hasRole('REPARTIDOR')")
+    @Operation(summary = "Cambiar estado de varios pedidos",
+               description = "Aplica el mismo cambio de estado a una lista de pedidos en una sola transacción e informa el resultado de cada uno")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Cambio procesado; cada pedido indica si se aplicó o el motivo del rechazo"),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos para cambiar el estado")
+    })
+    public ResponseEntity<List<ResultadoCambioEstadoDto>> cambiarEstadoEnLote(
+            @Valid @RequestBody CambioEstadoPedidosDto cambio) {
+        return ResponseEntity.ok(pedidoService.cambiarEstadoEnLote(cambio.getIds(), cambio.getEstado()));
+    }
+
     @GetMapping("/estadisticas")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Obtener estadísticas de pedidos", 
@@ -130,6 +196,18 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.contarPedidosPorEstado());
     }
 
+    @GetMapping("/tiempo-estimado/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Métricas del tiempo estimado",
+               description = "Muestras, media móvil y cuantiles de preparación, recogida y trayecto que usa la estimación de tiempo de entrega")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Métricas obtenidas exitosamente"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos de administrador")
+    })
+    public ResponseEntity<MetricasTiempoEstimadoDto> metricasTiempoEstimado() {
+        return ResponseEntity.ok(tiempoEstimadoService.metricas());
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<PedidoDto> actualizarPedido(
@@ -0,0 +1,24 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoPedidosDto {
+
+    @NotEmpty(message = "Debe indicar al menos un pedido")
+    @Size(max = 200, message = "No se pueden cambiar más de 200 pedidos a la vez")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "El estado es obligatorio")
+    private EstadoPedido estado;
+}
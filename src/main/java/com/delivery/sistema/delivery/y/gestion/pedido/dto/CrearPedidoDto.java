@@ -28,6 +28,10 @@ public class CrearPedidoDto {
     private String notas;
     
     private String metodoPago = "EFECTIVO";
+
+    // Opcional: las promociones sin código se aplican automáticamente
+    @Size(max = 20, message = "El código de promoción no puede exceder 20 caracteres")
+    private String codigoPromocion;
     
     @NotNull(message = "Los detalles del pedido son obligatorios")
     private List<DetallePedidoDto> detalles;
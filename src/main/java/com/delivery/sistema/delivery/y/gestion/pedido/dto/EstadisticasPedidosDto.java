@@ -0,0 +1,24 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de pedidos entre desde y hasta (ambos días incluidos). Los meses van como "AAAA-MM";
+ * las ventas solo cuentan pedidos ENTREGADO. actualizadoEn es el instante de la última lectura de la base de datos.
+ */
+public record EstadisticasPedidosDto(
+        LocalDate desde,
+        LocalDate hasta,
+        Map<String, Long> pedidosPorMes,
+        Map<String, BigDecimal> ventasPorMes,
+        List<Posicion> restaurantesMasVentas,
+        List<Posicion> clientesMasActivos,
+        LocalDateTime actualizadoEn) {
+
+    public record Posicion(Long id, long pedidos, BigDecimal ventas) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Atributos de un pedido que alimentan la analítica en memoria; proyección directa desde pedido y pedido_historico.
+ */
+public record HechoPedidoDto(
+        Long id,
+        Long restauranteId,
+        Long clienteId,
+        LocalDateTime fechaPedido,
+        BigDecimal total,
+        EstadoPedido estado) {
+}
@@ -52,6 +52,19 @@ public class PedidoDto {
     @NotNull(message = "El total es obligatorio")
     @DecimalMin(value = "0.0", inclusive = true, message = "El total no puede ser negativo")
     private BigDecimal total;
+
+    private BigDecimal descuento;
+
+    private Long promocionId;
     
     private List<DetallePedidoDto> detalles;
-}
\ No newline at end of file
+
+    // Usado por la proyección PedidoRepository.PROYECCION_DTO (sin detalles)
+    public PedidoDto(Long id, Long clienteId, String clienteNombre, Long restauranteId, String restauranteNombre,
+                     String direccionEntrega, String notas, Integer tiempoEstimado, BigDecimal costoDelivery,
+                     String metodoPago, EstadoPedido estado, LocalDateTime fechaPedido,
+                     LocalDateTime fechaActualizacion, BigDecimal total, BigDecimal descuento, Long promocionId) {
+        this(id, clienteId, clienteNombre, restauranteId, restauranteNombre, direccionEntrega, notas, tiempoEstimado,
+                costoDelivery, metodoPago, estado, fechaPedido, fechaActualizacion, total, descuento, promocionId, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento enviado por el stream de pedidos de un restaurante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoEventoDto {
+    public static final String CREADO = "pedido-creado";
+    public static final String ESTADO = "pedido-estado";
+
+    private String tipo;
+    private Long pedidoId;
+    private Long restauranteId;
+    private EstadoPedido estadoAnterior;
+    private EstadoPedido estadoNuevo;
+    private LocalDateTime fecha;
+    private PedidoDto pedido;
+}
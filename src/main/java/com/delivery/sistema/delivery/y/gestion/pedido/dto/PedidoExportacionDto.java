@@ -0,0 +1,30 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de la exportación de pedidos; el orden de los campos es el de las columnas del CSV.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoExportacionDto {
+    private Long id;
+    private LocalDateTime fechaPedido;
+    private Long clienteId;
+    private String clienteNombre;
+    private Long restauranteId;
+    private String restauranteNombre;
+    private EstadoPedido estado;
+    private String metodoPago;
+    private BigDecimal costoDelivery;
+    private BigDecimal descuento;
+    private BigDecimal total;
+    private Boolean archivado;
+}
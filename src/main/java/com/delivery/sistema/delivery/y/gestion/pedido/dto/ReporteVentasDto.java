@@ -0,0 +1,21 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReporteVentasDto {
+    private Long restauranteId;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private Long cantidadPedidos;
+    private BigDecimal total;
+    private List<VentaDiariaDto> dias;
+}
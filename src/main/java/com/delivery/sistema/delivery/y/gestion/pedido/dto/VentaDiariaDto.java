@@ -0,0 +1,17 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiariaDto {
+    private LocalDate fecha;
+    private Long cantidadPedidos;
+    private BigDecimal total;
+}
@@ -0,0 +1,10 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.event;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+
+/**
+ * Se publica dentro de la transacción que cambia el estado de un pedido.
+ * estadoAnterior es null cuando el pedido se crea y estadoNuevo es null cuando deja de existir.
+ */
+public record PedidoEstadoCambiadoEvent(Long pedidoId, EstadoPedido estadoAnterior, EstadoPedido estadoNuevo) {
+}
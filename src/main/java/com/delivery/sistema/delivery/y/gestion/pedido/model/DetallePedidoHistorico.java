@@ -0,0 +1,32 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "detalle_pedido_historico")
+public class DetallePedidoHistorico {
+
+    @Id
+    private Long id;
+
+    @Column(name = "pedido_id", nullable = false)
+    private Long pedidoId;
+
+    @Column(name = "menu_id", nullable = false)
+    private Long menuId;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "precio_unitario", precision = 10, scale = 2, nullable = false)
+    private BigDecimal precioUnitario;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal subtotal;
+}
@@ -1,5 +1,24 @@
 package com.delivery.sistema.delivery.y.gestion.pedido.model;
 
+import java.util.Set;
+
 public enum EstadoPedido {
-    PENDIENTE, CONFIRMADO, EN_PREPARACION, LISTO, EN_TRANSITO, ENTREGADO, CANCELADO
+    PENDIENTE, CONFIRMADO, EN_PREPARACION, LISTO, EN_TRANSITO, ENTREGADO, CANCELADO;
+
+    // Tabla de transiciones: estados desde los que un pedido puede pasar a este estado
+    public Set<EstadoPedido> getEstadosOrigen() {
+        return switch (this) {
+            case PENDIENTE -> Set.of();
+            case CONFIRMADO -> Set.of(PENDIENTE);
+            case EN_PREPARACION -> Set.of(CONFIRMADO);
+            case LISTO -> Set.of(EN_PREPARACION, EN_TRANSITO); // EN_TRANSITO: entrega fallida, se reasigna
+            case EN_TRANSITO -> Set.of(LISTO);
+            case ENTREGADO -> Set.of(EN_TRANSITO);
+            case CANCELADO -> Set.of(PENDIENTE, CONFIRMADO, EN_PREPARACION, LISTO, EN_TRANSITO, ENTREGADO); // ENTREGADO: anulación posterior, se descuenta de las ventas
+        };
+    }
+
+    public boolean puedeCambiarA(EstadoPedido nuevoEstado) {
+        return nuevoEstado.getEstadosOrigen().contains(this);
+    }
 }
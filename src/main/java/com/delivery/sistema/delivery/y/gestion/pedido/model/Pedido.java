@@ -2,6 +2,7 @@ package com.delivery.sistema.delivery.y.gestion.pedido.model;
 
 import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -68,11 +69,28 @@ public class Pedido {
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
 
+    // Última vez que pasó a LISTO; fechaActualizacion no sirve porque cambia con cualquier modificación posterior
+    @Column(name = "fecha_listo")
+    private LocalDateTime fechaListo;
+
     @NotNull(message = "El total es obligatorio")
     @DecimalMin(value = "0.0", inclusive = true, message = "El total no puede ser negativo")
     @Column(precision = 10, scale = 2, nullable = false)
     private BigDecimal total;
 
+    // Descuento de la promoción aplicada al crear el pedido; el total ya lo tiene restado
+    @DecimalMin(value = "0.0", inclusive = true, message = "El descuento no puede ser negativo")
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal descuento = BigDecimal.ZERO;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "promocion_id")
+    private Promocion promocion;
+
+    // Bloque de cupo del que salió el uso de la promoción; sin clave foránea porque los bloques se borran
+    @Column(name = "cupo_promocion_id")
+    private Long cupoPromocionId;
+
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<DetallePedido> detalles = new HashSet<>();
 }
@@ -0,0 +1,65 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pedido finalizado movido fuera de la tabla pedido por el archivador.
+ * Conserva el id original; las referencias se guardan como ids sin claves foráneas.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "pedido_historico")
+public class PedidoHistorico {
+
+    @Id
+    private Long id;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(name = "restaurante_id", nullable = false)
+    private Long restauranteId;
+
+    @Column(name = "direccion_entrega", nullable = false)
+    private String direccionEntrega;
+
+    @Column(length = 500)
+    private String notas;
+
+    @Column(name = "tiempo_estimado")
+    private Integer tiempoEstimado;
+
+    @Column(name = "costo_delivery", precision = 10, scale = 2)
+    private BigDecimal costoDelivery;
+
+    @Column(name = "metodo_pago", nullable = false, length = 20)
+    private String metodoPago;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EstadoPedido estado;
+
+    @Column(name = "fecha_pedido", nullable = false)
+    private LocalDateTime fechaPedido;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal total;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal descuento;
+
+    @Column(name = "promocion_id")
+    private Long promocionId;
+
+    @Column(name = "fecha_archivado", nullable = false)
+    private LocalDateTime fechaArchivado;
+}
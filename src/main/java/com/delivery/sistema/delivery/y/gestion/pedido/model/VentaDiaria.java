@@ -0,0 +1,38 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.model;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de ventas por restaurante: pedidos entregados y su total,
+ * agrupados por la fecha en que se hizo el pedido.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "venta_diaria",
+       uniqueConstraints = @UniqueConstraint(name = "uk_venta_diaria_restaurante_fecha", columnNames = {"restaurante_id", "fecha"}))
+public class VentaDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "restaurante_id", nullable = false)
+    private Restaurante restaurante;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "cantidad_pedidos", nullable = false)
+    private Long cantidadPedidos = 0L;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal total = BigDecimal.ZERO;
+}
@@ -6,10 +6,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long> {
+public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Long>, DetallePedidoRepositoryCustom {
 
     List<DetallePedido> findByPedidoId(Long pedidoId);
 
@@ -27,6 +28,10 @@ public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Lo
     @Query("SELECT dp.menu.id, dp.menu.nombre, SUM(dp.cantidad) as totalVendido FROM DetallePedido dp WHERE dp.menu.restaurante.id = :restauranteId GROUP BY dp.menu.id, dp.menu.nombre ORDER BY totalVendido DESC")
     List<Object[]> getMenusMasVendidosByRestaurante(@Param("restauranteId") Long restauranteId);
 
+    // Popularidad de cada menú para el autocompletado
+    @Query("SELECT dp.menu.id, SUM(dp.cantidad) FROM DetallePedido dp WHERE dp.pedido.fechaPedido >= :desde GROUP BY dp.menu.id")
+    List<Object[]> sumarCantidadPorMenuDesde(@Param("desde") LocalDateTime desde);
+
     @Query("SELECT COUNT(dp) FROM DetallePedido dp WHERE dp.pedido.id = :pedidoId")
     Long countDetallesByPedido(@Param("pedidoId") Long pedidoId);
 
@@ -0,0 +1,15 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.DetallePedido;
+
+import java.util.List;
+
+public interface DetallePedidoRepositoryCustom {
+
+    /**
+     * Inserta todos los detalles de un pedido en un único lote JDBC.
+     * Con IDENTITY Hibernate no agrupa los INSERT, por eso se hace directamente con JDBC.
+     * Cada detalle recibe el id generado para su fila.
+     */
+    void insertarEnLote(Long pedidoId, List<DetallePedido> detalles);
+}
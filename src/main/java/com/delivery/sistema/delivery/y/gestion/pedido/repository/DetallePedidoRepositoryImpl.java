@@ -0,0 +1,54 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.model.DetallePedido;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class DetallePedidoRepositoryImpl implements DetallePedidoRepositoryCustom {
+
+    private static final String INSERT_DETALLE =
+            "INSERT INTO detalle_pedido (pedido_id, menu_id, cantidad, precio_unitario, subtotal) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarEnLote(Long pedidoId, List<DetallePedido> detalles) {
+        if (detalles.isEmpty()) {
+            return;
+        }
+
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_DETALLE, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DetallePedido detalle = detalles.get(i);
+                        ps.setLong(1, pedidoId);
+                        ps.setLong(2, detalle.getMenu().getId());
+                        ps.setInt(3, detalle.getCantidad());
+                        ps.setBigDecimal(4, detalle.getPrecioUnitario());
+                        ps.setBigDecimal(5, detalle.getSubtotal());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return detalles.size();
+                    }
+                }, claves);
+
+        // Las claves generadas vuelven en el orden del lote
+        List<Map<String, Object>> ids = claves.getKeyList();
+        for (int i = 0; i < ids.size() && i < detalles.size(); i++) {
+            detalles.get(i).setId(((Number) ids.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoExportacionDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.PedidoHistorico;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface PedidoHistoricoRepository extends JpaRepository<PedidoHistorico, Long>, PedidoHistoricoRepositoryCustom {
+
+    List<PedidoHistorico> findByClienteIdOrderByFechaPedidoDesc(Long clienteId);
+
+    long countByClienteId(Long clienteId);
+
+    // Misma forma y orden que PedidoRepositoryImpl.buscarDespuesDe, para mezclar ambas tablas por keyset
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto("
+            + "h.id, h.clienteId, c.nombre, h.restauranteId, r.nombre, h.direccionEntrega, h.notas, h.tiempoEstimado, "
+            + "h.costoDelivery, h.metodoPago, h.estado, h.fechaPedido, h.fechaActualizacion, h.total, h.descuento, h.promocionId) "
+            + "FROM PedidoHistorico h LEFT JOIN Cliente c ON c.id = h.clienteId LEFT JOIN Restaurante r ON r.id = h.restauranteId "
+            + "WHERE h.clienteId = :clienteId AND (h.fechaPedido < :fecha OR (h.fechaPedido = :fecha AND h.id < :id)) "
+            + "AND (:restauranteId IS NULL OR h.restauranteId = :restauranteId) AND (:estado IS NULL OR h.estado = :estado) "
+            + "ORDER BY h.fechaPedido DESC, h.id DESC")
+    List<PedidoDto> buscarDelClienteDespuesDe(@Param("clienteId") Long clienteId,
+                                              @Param("restauranteId") Long restauranteId,
+                                              @Param("estado") EstadoPedido estado,
+                                              @Param("fecha") LocalDateTime fecha,
+                                              @Param("id") Long id,
+                                              Pageable limite);
+
+    @Query("SELECT p.estado, COUNT(p) FROM PedidoHistorico p GROUP BY p.estado")
+    List<Object[]> contarAgrupadoPorEstado();
+
+    // Mismo recorrido que PedidoRepository.recorrerParaExportacion; LEFT JOIN porque el archivo no tiene claves foráneas
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PedidoRepository.TAMANO_FETCH_EXPORTACION),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoExportacionDto("
+            + "h.id, h.fechaPedido, h.clienteId, c.nombre, h.restauranteId, r.nombre, h.estado, h.metodoPago, "
+            + "h.costoDelivery, h.descuento, h.total, true) "
+            + "FROM PedidoHistorico h LEFT JOIN Cliente c ON c.id = h.clienteId LEFT JOIN Restaurante r ON r.id = h.restauranteId "
+            + "WHERE h.fechaPedido >= :desde AND h.fechaPedido < :hasta "
+            + "AND (:restauranteId IS NULL OR h.restauranteId = :restauranteId) AND (:estado IS NULL OR h.estado = :estado) "
+            + "ORDER BY h.fechaPedido ASC, h.id ASC")
+    Stream<PedidoExportacionDto> recorrerParaExportacion(@Param("desde") LocalDateTime desde,
+                                                         @Param("hasta") LocalDateTime hasta,
+                                                         @Param("restauranteId") Long restauranteId,
+                                                         @Param("estado") EstadoPedido estado);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PedidoRepository.TAMANO_FETCH_EXPORTACION),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto("
+            + "h.id, h.restauranteId, h.clienteId, h.fechaPedido, h.total, h.estado) FROM PedidoHistorico h ORDER BY h.id")
+    Stream<HechoPedidoDto> recorrerHechos();
+}
@@ -0,0 +1,13 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PedidoHistoricoRepositoryCustom {
+
+    /**
+     * Copia los pedidos indicados, sus detalles y su entrega a las tablas *_historico
+     * y los borra de las tablas activas. Debe ejecutarse dentro de una transacción.
+     */
+    void archivar(List<Long> pedidoIds, LocalDateTime fechaArchivado);
+}
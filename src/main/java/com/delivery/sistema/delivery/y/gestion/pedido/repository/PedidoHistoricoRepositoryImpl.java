@@ -0,0 +1,51 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PedidoHistoricoRepositoryImpl implements PedidoHistoricoRepositoryCustom {
+
+    private static final String COPIAR_PEDIDOS =
+            "INSERT INTO pedido_historico (id, cliente_id, restaurante_id, direccion_entrega, notas, tiempo_estimado, "
+            + "costo_delivery, metodo_pago, estado, fecha_pedido, fecha_actualizacion, total, descuento, promocion_id, fecha_archivado) "
+            + "SELECT id, cliente_id, restaurante_id, direccion_entrega, notas, tiempo_estimado, "
+            + "costo_delivery, metodo_pago, estado, fecha_pedido, fecha_actualizacion, total, descuento, promocion_id, :fechaArchivado "
+            + "FROM pedido WHERE id IN (:ids)";
+
+    private static final String COPIAR_DETALLES =
+            "INSERT INTO detalle_pedido_historico (id, pedido_id, menu_id, cantidad, precio_unitario, subtotal) "
+            + "SELECT id, pedido_id, menu_id, cantidad, precio_unitario, subtotal FROM detalle_pedido WHERE pedido_id IN (:ids)";
+
+    private static final String COPIAR_ENTREGAS =
+            "INSERT INTO entrega_historico (id, pedido_id, repartidor_id, latitud, longitud, estado_entrega, fecha_inicio, "
+            + "fecha_actualizacion, fecha_entrega, comentarios, fecha_asignacion) "
+            + "SELECT id, pedido_id, repartidor_id, latitud, longitud, estado_entrega, fecha_inicio, "
+            + "fecha_actualizacion, fecha_entrega, comentarios, fecha_asignacion FROM entrega WHERE pedido_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void archivar(List<Long> pedidoIds, LocalDateTime fechaArchivado) {
+        if (pedidoIds.isEmpty()) {
+            return;
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("ids", pedidoIds)
+                .addValue("fechaArchivado", fechaArchivado);
+
+        jdbcTemplate.update(COPIAR_PEDIDOS, parametros);
+        jdbcTemplate.update(COPIAR_DETALLES, parametros);
+        jdbcTemplate.update(COPIAR_ENTREGAS, parametros);
+
+        // Primero las tablas hijas para respetar las claves foráneas hacia pedido
+        jdbcTemplate.update("DELETE FROM entrega WHERE pedido_id IN (:ids)", parametros);
+        jdbcTemplate.update("DELETE FROM detalle_pedido WHERE pedido_id IN (:ids)", parametros);
+        jdbcTemplate.update("DELETE FROM pedido WHERE id IN (:ids)", parametros);
+    }
+}
@@ -1,23 +1,50 @@
 package com.delivery.sistema.delivery.y.gestion.pedido.repository;
 
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoExportacionDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.VentaDiariaDto;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoRepositoryCustom {
+
+    // Proyección directa a DTO para listados: una sola consulta y sin entidades gestionadas
+    String PROYECCION_DTO = "SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto("
+            + "p.id, c.id, c.nombre, r.id, r.nombre, p.direccionEntrega, p.notas, p.tiempoEstimado, p.costoDelivery, "
+            + "p.metodoPago, p.estado, p.fechaPedido, p.fechaActualizacion, p.total, p.descuento, p.promocion.id) "
+            + "FROM Pedido p JOIN p.cliente c JOIN p.restaurante r";
+
+    // Filas leídas por viaje a la base de datos en las exportaciones en streaming
+    String TAMANO_FETCH_EXPORTACION = "1000";
 
     List<Pedido> findByClienteIdOrderByFechaPedidoDesc(Long clienteId);
 
+    long countByClienteId(Long clienteId);
+
+    // Usos realmente confirmados de un bloque de cupo de promoción
+    long countByCupoPromocionId(Long cupoPromocionId);
+
     List<Pedido> findByRestauranteIdOrderByFechaPedidoDesc(Long restauranteId);
 
     List<Pedido> findByEstadoOrderByFechaPedidoAsc(EstadoPedido estado);
@@ -38,9 +65,6 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.restaurante.id = :restauranteId AND p.estado = :estado")
     Long countPedidosByRestauranteAndEstado(@Param("restauranteId") Long restauranteId, @Param("estado") EstadoPedido estado);
 
-    @Query("SELECT SUM(p.total) FROM Pedido p WHERE p.restaurante.id = :restauranteId AND p.estado = 'ENTREGADO' AND p.fechaPedido BETWEEN :fechaInicio AND :fechaFin")
-    Optional<Double> calcularVentasByRestauranteAndFechas(@Param("restauranteId") Long restauranteId, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
-
     @Query("SELECT p FROM Pedido p WHERE p.estado IN ('PENDIENTE', 'CONFIRMADO', 'EN_PREPARACION', 'LISTO') ORDER BY p.fechaPedido ASC")
     List<Pedido> findPedidosActivos();
 
@@ -56,8 +80,17 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.fechaPedido BETWEEN :fechaInicio AND :fechaFin")
     Long countPedidosByFechas(@Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
 
-    @Query("SELECT SUM(p.total) FROM Pedido p WHERE p.estado = 'ENTREGADO' AND p.fechaPedido BETWEEN :fechaInicio AND :fechaFin")
-    Optional<Double> calcularVentasByFechas(@Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
+    // Ventas sobre los pedidos en vivo; los rangos cerrados se leen de venta_diaria
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.VentaDiariaDto(CAST(p.fechaPedido AS LocalDate), COUNT(p), SUM(p.total)) "
+            + "FROM Pedido p WHERE (:restauranteId IS NULL OR p.restaurante.id = :restauranteId) AND p.estado = 'ENTREGADO' "
+            + "AND p.fechaPedido >= :desde AND p.fechaPedido < :hasta GROUP BY CAST(p.fechaPedido AS LocalDate)")
+    List<VentaDiariaDto> sumarVentasEntregadasPorDia(@Param("restauranteId") Long restauranteId, @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // Una fila: [pedidos desde, ventas entregadas desde, total restaurantes, total clientes]
+    @Query("SELECT COUNT(p), SUM(CASE WHEN p.estado = 'ENTREGADO' THEN p.total ELSE 0 END), "
+            + "(SELECT COUNT(r) FROM Restaurante r), (SELECT COUNT(c) FROM Cliente c) "
+            + "FROM Pedido p WHERE p.fechaPedido >= :desde")
+    List<Object[]> resumenDashboard(@Param("desde") LocalDateTime desde);
 
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.restaurante.id = :restauranteId AND p.fechaPedido BETWEEN :fechaInicio AND :fechaFin")
     Long countPedidosByRestauranteAndFechas(@Param("restauranteId") Long restauranteId, @Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
@@ -66,4 +99,122 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     Page<Pedido> findByRestauranteIdAndEstado(Long restauranteId, EstadoPedido estado, Pageable pageable);
     
     Page<Pedido> findByEstado(EstadoPedido estado, Pageable pageable);
-}
\ No newline at end of file
+
+    // Transiciones de estado atómicas: el UPDATE solo aplica si el estado actual está entre los permitidos
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Pedido p SET p.estado = :nuevoEstado, p.fechaActualizacion = :ahora, "
+            + "p.fechaListo = CASE WHEN :nuevoEstado = com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido.LISTO THEN :ahora ELSE p.fechaListo END"
+            + " WHERE p.id = :pedidoId AND p.estado IN :estadosOrigen")
+    int actualizarEstadoSiPermitido(@Param("pedidoId") Long pedidoId, @Param("nuevoEstado") EstadoPedido nuevoEstado, @Param("estadosOrigen") Collection<EstadoPedido> estadosOrigen, @Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT p.estado FROM Pedido p WHERE p.id = :pedidoId")
+    Optional<EstadoPedido> findEstadoById(@Param("pedidoId") Long pedidoId);
+
+    @Query("SELECT p.restaurante.id FROM Pedido p WHERE p.id = :pedidoId")
+    Optional<Long> findRestauranteIdById(@Param("pedidoId") Long pedidoId);
+
+    // Fila (restaurante.id, fechaPedido) del pedido, datos fijos que usa la estimación de tiempo
+    @Query("SELECT p.restaurante.id, p.fechaPedido FROM Pedido p WHERE p.id = :pedidoId")
+    List<Object[]> findRestauranteYFechaPedidoById(@Param("pedidoId") Long pedidoId);
+
+    // Filas (id, restaurante.id, fechaPedido) de varios pedidos, para las estimaciones de una misma transacción
+    @Query("SELECT p.id, p.restaurante.id, p.fechaPedido FROM Pedido p WHERE p.id IN :pedidoIds")
+    List<Object[]> findRestauranteYFechaPedidoByIdIn(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    // Cambios masivos: se bloquean las filas en orden de id y se actualizan con un solo UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.estado FROM Pedido p WHERE p.id IN :pedidoIds ORDER BY p.id")
+    List<Object[]> bloquearEstados(@Param("pedidoIds") Collection<Long> pedidoIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Pedido p SET p.estado = :nuevoEstado, p.fechaActualizacion = :ahora, "
+            + "p.fechaListo = CASE WHEN :nuevoEstado = com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido.LISTO THEN :ahora ELSE p.fechaListo END"
+            + " WHERE p.id IN :pedidoIds AND p.estado IN :estadosOrigen")
+    int actualizarEstadoEnLoteSiPermitido(@Param("pedidoIds") Collection<Long> pedidoIds, @Param("nuevoEstado") EstadoPedido nuevoEstado, @Param("estadosOrigen") Collection<EstadoPedido> estadosOrigen, @Param("ahora") LocalDateTime ahora);
+
+    // Listados paginados proyectados a PedidoDto
+    @Query(value = PROYECCION_DTO, countQuery = "SELECT COUNT(p) FROM Pedido p")
+    Page<PedidoDto> findAllDto(Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :restauranteId",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.restaurante.id = :restauranteId")
+    Page<PedidoDto> findDtoByRestauranteId(@Param("restauranteId") Long restauranteId, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE c.id = :clienteId",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.cliente.id = :clienteId")
+    Page<PedidoDto> findDtoByClienteId(@Param("clienteId") Long clienteId, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE p.estado = :estado",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.estado = :estado")
+    Page<PedidoDto> findDtoByEstado(@Param("estado") EstadoPedido estado, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :restauranteId AND p.estado = :estado",
+            countQuery = "SELECT COUNT(p) FROM Pedido p WHERE p.restaurante.id = :restauranteId AND p.estado = :estado")
+    Page<PedidoDto> findDtoByRestauranteIdAndEstado(@Param("restauranteId") Long restauranteId, @Param("estado") EstadoPedido estado, Pageable pageable);
+
+    @Query(PROYECCION_DTO + " WHERE p.id = :pedidoId")
+    Optional<PedidoDto> findDtoById(@Param("pedidoId") Long pedidoId);
+
+    // Carga inicial de la cola de cocina en memoria
+    @Query(PROYECCION_DTO + " WHERE p.estado IN :estados ORDER BY p.fechaPedido ASC, p.id ASC")
+    List<PedidoDto> findDtoByEstadoIn(@Param("estados") Collection<EstadoPedido> estados);
+
+    // Pedidos activos de un solo restaurante, para el estado inicial del stream del panel
+    @Query(PROYECCION_DTO + " WHERE r.id = :restauranteId AND p.estado IN ('PENDIENTE', 'CONFIRMADO', 'EN_PREPARACION', 'LISTO') ORDER BY p.fechaPedido ASC")
+    List<PedidoDto> findDtoActivosByRestauranteId(@Param("restauranteId") Long restauranteId);
+
+    // Pedidos finalizados que pasan al archivo. Se bloquean para que no cambien mientras se copian;
+    // los calificados se quedan porque calificacion mantiene una clave foránea hacia pedido
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id FROM Pedido p WHERE p.estado IN ('ENTREGADO', 'CANCELADO') AND p.fechaPedido < :fechaLimite "
+            + "AND NOT EXISTS (SELECT 1 FROM Calificacion c WHERE c.pedido.id = p.id) ORDER BY p.id")
+    List<Long> bloquearArchivables(@Param("fechaLimite") LocalDateTime fechaLimite, Limit limite);
+
+    // Semilla y reconciliación de los contadores en memoria por estado
+    @Query("SELECT p.estado, COUNT(p) FROM Pedido p GROUP BY p.estado")
+    List<Object[]> contarAgrupadoPorEstado();
+
+    /**
+     * Recorrido hacia adelante para exportar: proyección a DTO (nada queda en el contexto de persistencia)
+     * y lectura por bloques de TAMANO_FETCH_EXPORTACION filas. Debe consumirse dentro de una transacción
+     * y cerrarse al terminar.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoExportacionDto("
+            + "p.id, p.fechaPedido, c.id, c.nombre, r.id, r.nombre, p.estado, p.metodoPago, p.costoDelivery, "
+            + "p.descuento, p.total, false) "
+            + "FROM Pedido p JOIN p.cliente c JOIN p.restaurante r "
+            + "WHERE p.fechaPedido >= :desde AND p.fechaPedido < :hasta "
+            + "AND (:restauranteId IS NULL OR r.id = :restauranteId) AND (:estado IS NULL OR p.estado = :estado) "
+            + "ORDER BY p.fechaPedido ASC, p.id ASC")
+    Stream<PedidoExportacionDto> recorrerParaExportacion(@Param("desde") LocalDateTime desde,
+                                                         @Param("hasta") LocalDateTime hasta,
+                                                         @Param("restauranteId") Long restauranteId,
+                                                         @Param("estado") EstadoPedido estado);
+
+    // Carga completa de la analítica en memoria; mismas condiciones de uso que recorrerParaExportacion
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANO_FETCH_EXPORTACION),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto("
+            + "p.id, p.restaurante.id, p.cliente.id, p.fechaPedido, p.total, p.estado) FROM Pedido p ORDER BY p.id")
+    Stream<HechoPedidoDto> recorrerHechos();
+
+    // Refresco incremental de la analítica en memoria
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto("
+            + "p.id, p.restaurante.id, p.cliente.id, p.fechaPedido, p.total, p.estado) FROM Pedido p "
+            + "WHERE p.fechaActualizacion >= :desde ORDER BY p.id")
+    List<HechoPedidoDto> findHechosActualizadosDesde(@Param("desde") LocalDateTime desde);
+
+    // Pedidos listos que esperan repartidor, para el despacho por lotes: (id, latitud y longitud del restaurante, listo desde).
+    // Incluye los que vuelven de una entrega fallida, cuya fila de entrega se reutiliza al reasignarlos.
+    // Los que pasaron a LISTO antes de existir fecha_listo usan fechaActualizacion
+    @Query("SELECT p.id, r.latitud, r.longitud, COALESCE(p.fechaListo, p.fechaActualizacion) FROM Pedido p JOIN p.restaurante r "
+            + "WHERE p.estado = 'LISTO' AND NOT EXISTS (SELECT 1 FROM Entrega e WHERE e.pedido.id = p.id AND e.estadoEntrega <> 'FALLIDO') "
+            + "ORDER BY COALESCE(p.fechaListo, p.fechaActualizacion) ASC, p.id ASC")
+    List<Object[]> findListosParaDespacho(Limit limite);
+}
@@ -0,0 +1,23 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PedidoRepositoryCustom {
+
+    /**
+     * Paginación por cursor sobre (fecha_pedido, id) descendente, sin consulta COUNT.
+     * Los filtros nulos se omiten para que cada combinación use su índice idx_pedido_*.
+     */
+    List<PedidoDto> buscarDespuesDe(Long restauranteId, Long clienteId, EstadoPedido estado, Cursor cursor, int limite);
+
+    /**
+     * Escribe tiempoEstimado de varios pedidos con un UPDATE ... CASE por cada tanda de ids.
+     * No toca fechaActualizacion: la estimación no es un cambio del pedido.
+     */
+    void actualizarTiemposEstimados(Map<Long, Integer> minutosPorPedido);
+}
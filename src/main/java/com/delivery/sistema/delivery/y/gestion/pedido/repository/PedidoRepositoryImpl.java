@@ -0,0 +1,75 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class PedidoRepositoryImpl implements PedidoRepositoryCustom {
+
+    private static final int TANDA_TIEMPOS = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PedidoDto> buscarDespuesDe(Long restauranteId, Long clienteId, EstadoPedido estado, Cursor cursor, int limite) {
+        StringBuilder jpql = new StringBuilder(PedidoRepository.PROYECCION_DTO + " WHERE "
+                + "(p.fechaPedido < :fecha OR (p.fechaPedido = :fecha AND p.id < :id))");
+        if (restauranteId != null) {
+            jpql.append(" AND r.id = :restauranteId");
+        }
+        if (clienteId != null) {
+            jpql.append(" AND c.id = :clienteId");
+        }
+        if (estado != null) {
+            jpql.append(" AND p.estado = :estado");
+        }
+        jpql.append(" ORDER BY p.fechaPedido DESC, p.id DESC");
+
+        TypedQuery<PedidoDto> query = entityManager.createQuery(jpql.toString(), PedidoDto.class)
+                .setParameter("fecha", cursor.fecha())
+                .setParameter("id", cursor.id())
+                .setMaxResults(limite);
+        if (restauranteId != null) {
+            query.setParameter("restauranteId", restauranteId);
+        }
+        if (clienteId != null) {
+            query.setParameter("clienteId", clienteId);
+        }
+        if (estado != null) {
+            query.setParameter("estado", estado);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public void actualizarTiemposEstimados(Map<Long, Integer> minutosPorPedido) {
+        List<Map.Entry<Long, Integer>> filas = new ArrayList<>(minutosPorPedido.entrySet());
+        for (int desde = 0; desde < filas.size(); desde += TANDA_TIEMPOS) {
+            List<Map.Entry<Long, Integer>> tanda = filas.subList(desde, Math.min(desde + TANDA_TIEMPOS, filas.size()));
+            StringBuilder jpql = new StringBuilder("UPDATE Pedido p SET p.tiempoEstimado = CASE p.id");
+            for (int i = 0; i < tanda.size(); i++) {
+                jpql.append(" WHEN :id").append(i).append(" THEN :minutos").append(i);
+            }
+            jpql.append(" ELSE p.tiempoEstimado END WHERE p.id IN :ids");
+
+            // Como JPQL, Hibernate vacía antes los cambios pendientes y no pisan el valor nuevo al confirmar
+            Query query = entityManager.createQuery(jpql.toString());
+            List<Long> ids = new ArrayList<>(tanda.size());
+            for (int i = 0; i < tanda.size(); i++) {
+                query.setParameter("id" + i, tanda.get(i).getKey());
+                query.setParameter("minutos" + i, tanda.get(i).getValue());
+                ids.add(tanda.get(i).getKey());
+            }
+            query.setParameter("ids", ids).executeUpdate();
+        }
+    }
+}
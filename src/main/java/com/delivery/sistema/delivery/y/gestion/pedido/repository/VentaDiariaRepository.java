@@ -0,0 +1,27 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.VentaDiariaDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, Long>, VentaDiariaRepositoryCustom {
+
+    // Sin restaurante se suman todos los restaurantes de cada día
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.pedido.dto.VentaDiariaDto(v.fecha, SUM(v.cantidadPedidos), SUM(v.total)) "
+            + "FROM VentaDiaria v WHERE (:restauranteId IS NULL OR v.restaurante.id = :restauranteId) "
+            + "AND v.fecha BETWEEN :fechaInicio AND :fechaFin GROUP BY v.fecha ORDER BY v.fecha")
+    List<VentaDiariaDto> sumarPorDia(@Param("restauranteId") Long restauranteId,
+                                     @Param("fechaInicio") LocalDate fechaInicio,
+                                     @Param("fechaFin") LocalDate fechaFin);
+
+    // Popularidad de cada restaurante para el autocompletado
+    @Query("SELECT v.restaurante.id, SUM(v.cantidadPedidos) FROM VentaDiaria v WHERE v.fecha >= :desde GROUP BY v.restaurante.id")
+    List<Object[]> sumarPedidosPorRestauranteDesde(@Param("desde") LocalDate desde);
+}
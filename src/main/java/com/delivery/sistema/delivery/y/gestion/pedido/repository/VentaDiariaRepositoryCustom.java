@@ -0,0 +1,20 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface VentaDiariaRepositoryCustom {
+
+    /**
+     * Suma (o resta, con valores negativos) pedidos y total a la fila del restaurante y día,
+     * creándola si todavía no existe.
+     */
+    void acumular(Long restauranteId, LocalDate fecha, long cantidadPedidos, BigDecimal total);
+
+    /**
+     * Recalcula las filas del rango [fechaInicio, fechaFin] a partir de los pedidos entregados.
+     * Debe ejecutarse en una transacción: bloquea los pedidos del rango hasta que confirma, de modo que
+     * ningún acumular de esos días se pierda ni se cuente dos veces.
+     */
+    void reconstruir(LocalDate fechaInicio, LocalDate fechaFin);
+}
@@ -0,0 +1,79 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class VentaDiariaRepositoryImpl implements VentaDiariaRepositoryCustom {
+
+    private static final String SUMAR =
+            "UPDATE venta_diaria SET cantidad_pedidos = cantidad_pedidos + ?, total = total + ? WHERE restaurante_id = ? AND fecha = ?";
+
+    private static final String INSERTAR_VACIA =
+            "INSERT INTO venta_diaria (restaurante_id, fecha, cantidad_pedidos, total) VALUES (?, ?, 0, 0)";
+
+    private static final String BLOQUEAR_PEDIDOS_RANGO =
+            "SELECT id FROM pedido WHERE fecha_pedido >= ? AND fecha_pedido < ? FOR UPDATE";
+
+    private static final String BORRAR_RANGO =
+            "DELETE FROM venta_diaria WHERE fecha BETWEEN ? AND ?";
+
+    // Incluye los pedidos ya movidos a pedido_historico por el archivador
+    private static final String RECALCULAR_RANGO =
+            "INSERT INTO venta_diaria (restaurante_id, fecha, cantidad_pedidos, total) "
+            + "SELECT restaurante_id, CAST(fecha_pedido AS DATE), COUNT(*), SUM(total) FROM ("
+            + "SELECT restaurante_id, fecha_pedido, total FROM pedido "
+            + "WHERE estado = 'ENTREGADO' AND fecha_pedido >= ? AND fecha_pedido < ? "
+            + "UNION ALL SELECT restaurante_id, fecha_pedido, total FROM pedido_historico "
+            + "WHERE estado = 'ENTREGADO' AND fecha_pedido >= ? AND fecha_pedido < ?) v "
+            + "GROUP BY restaurante_id, CAST(fecha_pedido AS DATE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void acumular(Long restauranteId, LocalDate fecha, long cantidadPedidos, BigDecimal total) {
+        if (sumar(restauranteId, fecha, cantidadPedidos, total) == 1) {
+            return;
+        }
+
+        // Primera venta del día: la fila vacía se crea tras un savepoint de la transacción actual, en la
+        // misma conexión; si otra petición la crea a la vez, el choque con la clave única solo deshace el INSERT
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            try (PreparedStatement ps = con.prepareStatement(INSERTAR_VACIA)) {
+                ps.setLong(1, restauranteId);
+                ps.setObject(2, fecha);
+                ps.executeUpdate();
+                con.releaseSavepoint(savepoint);
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Ya la creó otra transacción
+                con.rollback(savepoint);
+            }
+            return null;
+        });
+        sumar(restauranteId, fecha, cantidadPedidos, total);
+    }
+
+    private int sumar(Long restauranteId, LocalDate fecha, long cantidadPedidos, BigDecimal total) {
+        return jdbcTemplate.update(SUMAR, cantidadPedidos, total, restauranteId, fecha);
+    }
+
+    @Override
+    public void reconstruir(LocalDate fechaInicio, LocalDate fechaFin) {
+        LocalDateTime desde = fechaInicio.atStartOfDay();
+        LocalDateTime hasta = fechaFin.plusDays(1).atStartOfDay();
+        // Los pedidos que cambian de estado ya tienen su fila bloqueada cuando acumulan: bloquear los del rango
+        // espera a que confirmen los cambios en curso y hace esperar a los siguientes hasta que termine el recálculo
+        jdbcTemplate.query(BLOQUEAR_PEDIDOS_RANGO, rs -> { }, desde, hasta);
+        jdbcTemplate.update(BORRAR_RANGO, fechaInicio, fechaFin);
+        jdbcTemplate.update(RECALCULAR_RANGO, desde, hasta, desde, hasta);
+    }
+}
@@ -0,0 +1,161 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.EstadisticasPedidosDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.EstadisticasPedidosDto.Posicion;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Estadísticas de pedidos del panel de administración calculadas sobre una foto columnar en memoria
+ * (HechosPedidos), sin consultas agrupadas contra la base de datos transaccional.
+ * La foto se carga entera al arrancar y cada madrugada, y entre medias se refresca cada
+ * app.analitica.refresco-ms leyendo solo los pedidos con fecha de actualización reciente.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnaliticaPedidosService {
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoHistoricoRepository pedidoHistoricoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Margen hacia atrás de cada refresco, para no perder transacciones que confirman tarde
+    @Value("${app.analitica.solape-ms:60000}")
+    private long solapeMs;
+
+    private record Foto(HechosPedidos hechos, LocalDateTime actualizadoEn) {
+    }
+
+    private volatile Foto foto;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recargar();
+    }
+
+    // La carga completa recoge lo que el refresco incremental no ve: pedidos borrados o cambiados fuera de la aplicación
+    @Scheduled(cron = "${app.analitica.recarga-cron:0 30 4 * * *}")
+    public synchronized void recargar() {
+        LocalDateTime inicio = LocalDateTime.now();
+        HechosPedidos.Constructor constructor = new HechosPedidos.Constructor();
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.executeWithoutResult(status -> {
+            try (Stream<HechoPedidoDto> archivados = pedidoHistoricoRepository.recorrerHechos()) {
+                archivados.forEach(constructor::agregar);
+            }
+            try (Stream<HechoPedidoDto> activos = pedidoRepository.recorrerHechos()) {
+                activos.forEach(constructor::agregar);
+            }
+        });
+
+        HechosPedidos hechos = constructor.construir();
+        foto = new Foto(hechos, inicio);
+        log.info("Analítica de pedidos cargada: {} pedidos en {} ms", hechos.filas(),
+                ChronoUnit.MILLIS.between(inicio, LocalDateTime.now()));
+    }
+
+    @Scheduled(initialDelayString = "${app.analitica.refresco-ms:30000}",
+               fixedDelayString = "${app.analitica.refresco-ms:30000}")
+    public synchronized void refrescar() {
+        Foto actual = foto;
+        if (actual == null) {
+            recargar();
+            return;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        List<HechoPedidoDto> cambios = pedidoRepository.findHechosActualizadosDesde(
+                actual.actualizadoEn().minus(solapeMs, ChronoUnit.MILLIS));
+        foto = new Foto(actual.hechos().conCambios(cambios), inicio);
+        log.debug("Analítica de pedidos refrescada con {} cambios", cambios.size());
+    }
+
+    /**
+     * Pedidos y ventas de los últimos meses (el actual incluido) y los top mejores restaurantes por ventas
+     * y clientes por cantidad de pedidos en ese mismo periodo.
+     */
+    public EstadisticasPedidosDto estadisticas(int meses, int top) {
+        if (meses < 1 || meses > 120) {
+            throw new IllegalArgumentException("La cantidad de meses debe estar entre 1 y 120");
+        }
+        if (top < 1 || top > 100) {
+            throw new IllegalArgumentException("El tamaño del ranking debe estar entre 1 y 100");
+        }
+
+        Foto actual = foto;
+        if (actual == null) {
+            refrescar();
+            actual = foto;
+        }
+        HechosPedidos hechos = actual.hechos();
+        LocalDate hasta = LocalDate.now();
+        YearMonth primerMes = YearMonth.from(hasta).minusMonths(meses - 1L);
+        LocalDate desde = primerMes.atDay(1);
+
+        HechosPedidos.Agregado porMes = hechos.porMes(desde, hasta);
+        Map<String, Long> pedidosPorMes = new LinkedHashMap<>();
+        Map<String, BigDecimal> ventasPorMes = new LinkedHashMap<>();
+        for (int i = 0; i < porMes.pedidos().length; i++) {
+            String mes = primerMes.plusMonths(i).toString();
+            pedidosPorMes.put(mes, porMes.pedidos()[i]);
+            ventasPorMes.put(mes, BigDecimal.valueOf(porMes.ventas()[i], 2));
+        }
+
+        HechosPedidos.Agregado porRestaurante = hechos.porRestaurante(desde, hasta);
+        HechosPedidos.Agregado porCliente = hechos.porCliente(desde, hasta);
+        return new EstadisticasPedidosDto(desde, hasta, pedidosPorMes, ventasPorMes,
+                mejores(porRestaurante, porRestaurante.ventas(), porRestaurante.pedidos(), top),
+                mejores(porCliente, porCliente.pedidos(), porCliente.ventas(), top),
+                actual.actualizadoEn());
+    }
+
+    // Los top con mayor criterio (desempate por el segundo criterio y luego por id menor), con un montículo de tamaño top
+    private static List<Posicion> mejores(HechosPedidos.Agregado agregado, long[] criterio, long[] desempate, int top) {
+        Comparator<Integer> orden = Comparator.<Integer>comparingLong(clave -> criterio[clave])
+                .thenComparingLong(clave -> desempate[clave])
+                .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<Integer> peores = new PriorityQueue<>(top + 1, orden);
+        for (int clave = 0; clave < criterio.length; clave++) {
+            if (agregado.pedidos()[clave] == 0) {
+                continue;
+            }
+            if (peores.size() < top) {
+                peores.add(clave);
+            } else if (orden.compare(clave, peores.peek()) > 0) {
+                peores.poll();
+                peores.add(clave);
+            }
+        }
+
+        List<Posicion> posiciones = new ArrayList<>(peores.size());
+        while (!peores.isEmpty()) {
+            int clave = peores.poll();
+            posiciones.add(new Posicion((long) clave, agregado.pedidos()[clave], BigDecimal.valueOf(agregado.ventas()[clave], 2)));
+        }
+        return posiciones.reversed();
+    }
+}
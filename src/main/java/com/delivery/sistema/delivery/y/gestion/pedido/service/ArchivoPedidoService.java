@@ -0,0 +1,73 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archivador de pedidos finalizados.
+ * Mueve los pedidos ENTREGADO/CANCELADO más antiguos que app.archivo.antiguedad-dias, con sus detalles
+ * y su entrega, a las tablas *_historico. Trabaja en lotes de app.archivo.lote pedidos, cada uno en su
+ * propia transacción corta, para no retener bloqueos sobre las tablas activas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchivoPedidoService {
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoHistoricoRepository pedidoHistoricoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.archivo.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.archivo.antiguedad-dias:180}")
+    private int antiguedadDias;
+
+    @Value("${app.archivo.lote:500}")
+    private int tamanoLote;
+
+    @Scheduled(initialDelayString = "${app.archivo.intervalo-ms:3600000}",
+               fixedDelayString = "${app.archivo.intervalo-ms:3600000}")
+    public void archivarProgramado() {
+        if (habilitado) {
+            archivar(LocalDateTime.now().minusDays(antiguedadDias));
+        }
+    }
+
+    /**
+     * Archiva todos los pedidos finalizados anteriores a la fecha límite.
+     * @return cantidad de pedidos archivados
+     */
+    public int archivar(LocalDateTime fechaLimite) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int total = 0;
+        int archivados;
+        do {
+            archivados = transaccion.execute(status -> archivarLote(fechaLimite));
+            total += archivados;
+        } while (archivados == tamanoLote);
+
+        if (total > 0) {
+            log.info("Archivados {} pedidos anteriores a {}", total, fechaLimite);
+        }
+        return total;
+    }
+
+    private int archivarLote(LocalDateTime fechaLimite) {
+        List<Long> pedidoIds = pedidoRepository.bloquearArchivables(fechaLimite, Limit.of(tamanoLote));
+        pedidoHistoricoRepository.archivar(pedidoIds, LocalDateTime.now());
+        return pedidoIds.size();
+    }
+}
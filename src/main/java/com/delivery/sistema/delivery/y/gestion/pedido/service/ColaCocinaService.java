@@ -0,0 +1,235 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cola de cocina en memoria: pedidos PENDIENTE, CONFIRMADO y EN_PREPARACION de cada restaurante,
+ * ordenados por fecha de pedido.
+ * Cada cola es una lista inmutable que se reemplaza entera en cada cambio (copy-on-write), de modo
+ * que una lectura siempre ve una foto consistente sin bloquear. Las escrituras de un mismo restaurante
+ * se serializan con ConcurrentHashMap.compute: la comparación con el estado anterior del evento y el reemplazo
+ * ocurren en la misma llamada. Si el estado anterior no coincide con la cola (eventos concurrentes procesados
+ * fuera de orden), el pedido se vuelve a leer de la base de datos fuera del bloqueo del restaurante; la versión
+ * de la cola detecta si otro cambio se aplicó mientras tanto, y en ese caso se vuelve a decidir.
+ * Una recarga construye colas nuevas y las publica de golpe; los pedidos que cambian durante la recarga se
+ * vuelven a leer después, porque la foto de la base de datos puede ser anterior a su evento.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ColaCocinaService {
+
+    public static final Set<EstadoPedido> ESTADOS = Collections.unmodifiableSet(
+            EnumSet.of(EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO, EstadoPedido.EN_PREPARACION));
+
+    private static final Comparator<PedidoDto> ORDEN =
+            Comparator.comparing(PedidoDto::getFechaPedido).thenComparing(PedidoDto::getId);
+
+    private static final int MAX_INTENTOS = 3;
+
+    private final PedidoRepository pedidoRepository;
+
+    // Las colas vacías se conservan para que su versión no vuelva a empezar
+    private volatile Map<Long, Cola> colas = new ConcurrentHashMap<>();
+    private final Map<Long, Long> restaurantePorPedido = new ConcurrentHashMap<>();
+
+    // Pedidos que cambiaron durante una recarga; null fuera de ellas
+    private final Object candadoRecarga = new Object();
+    private Set<Long> cambiadosEnRecarga;
+
+    private record Cola(List<PedidoDto> pedidos, long version) {
+
+        private static final Cola VACIA = new Cola(List.of(), 0);
+
+        private PedidoDto buscar(Long pedidoId) {
+            return pedidos.stream()
+                    .filter(pedido -> pedido.getId().equals(pedidoId))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void inicializar() {
+        synchronized (candadoRecarga) {
+            cambiadosEnRecarga = new HashSet<>();
+        }
+        Map<Long, Cola> nuevas = new ConcurrentHashMap<>();
+        try {
+            pedidoRepository.findDtoByEstadoIn(ESTADOS).stream()
+                    .collect(Collectors.groupingBy(PedidoDto::getRestauranteId))
+                    .forEach((restauranteId, pedidos) -> {
+                        nuevas.put(restauranteId, new Cola(List.copyOf(pedidos), 1));
+                        pedidos.forEach(pedido -> restaurantePorPedido.put(pedido.getId(), restauranteId));
+                    });
+        } catch (RuntimeException e) {
+            synchronized (candadoRecarga) {
+                cambiadosEnRecarga = null;
+            }
+            throw e;
+        }
+
+        colas = nuevas;
+        Set<Long> cambiados;
+        synchronized (candadoRecarga) {
+            cambiados = cambiadosEnRecarga;
+            cambiadosEnRecarga = null;
+        }
+        cambiados.forEach(this::refrescar);
+        log.info("Cola de cocina cargada: {} pedidos en {} restaurantes",
+                nuevas.values().stream().mapToInt(cola -> cola.pedidos().size()).sum(), nuevas.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstadoPedido(PedidoEstadoCambiadoEvent evento) {
+        if (!ESTADOS.contains(evento.estadoAnterior()) && !ESTADOS.contains(evento.estadoNuevo())) {
+            return;
+        }
+        Long pedidoId = evento.pedidoId();
+        anotarSiHayRecarga(pedidoId);
+        Long restauranteId = restauranteDe(pedidoId);
+        if (restauranteId != null) {
+            actualizar(restauranteId, pedidoId, evento);
+        }
+    }
+
+    /**
+     * Foto inmutable de la cola del restaurante, ordenada por fecha de pedido.
+     */
+    public List<PedidoDto> pedidos(Long restauranteId) {
+        return colas.getOrDefault(restauranteId, Cola.VACIA).pedidos();
+    }
+
+    public Page<PedidoDto> pagina(Long restauranteId, EstadoPedido estado, Pageable pageable) {
+        List<PedidoDto> filtrados = pedidos(restauranteId).stream()
+                .filter(pedido -> pedido.getEstado() == estado)
+                .toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(filtrados, pageable, filtrados.size());
+        }
+        int desde = (int) Math.min(pageable.getOffset(), filtrados.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), filtrados.size());
+        return new PageImpl<>(filtrados.subList(desde, hasta), pageable, filtrados.size());
+    }
+
+    // El restaurante de un pedido no cambia: fuera del bloqueo solo se averigua qué cola tocar
+    private Long restauranteDe(Long pedidoId) {
+        Long restauranteId = restaurantePorPedido.get(pedidoId);
+        return restauranteId != null ? restauranteId : pedidoRepository.findRestauranteIdById(pedidoId).orElse(null);
+    }
+
+    private void anotarSiHayRecarga(Long pedidoId) {
+        synchronized (candadoRecarga) {
+            if (cambiadosEnRecarga != null) {
+                cambiadosEnRecarga.add(pedidoId);
+            }
+        }
+    }
+
+    private void refrescar(Long pedidoId) {
+        Long restauranteId = restauranteDe(pedidoId);
+        if (restauranteId != null) {
+            actualizar(restauranteId, pedidoId, null);
+        }
+    }
+
+    // Aplica el evento si el estado anterior coincide con la cola; si no (o sin evento) el pedido se lee de la
+    // base de datos fuera del bloqueo y solo se publica si la cola no cambió entre la lectura y el reemplazo
+    private void actualizar(Long restauranteId, Long pedidoId, PedidoEstadoCambiadoEvent evento) {
+        for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+            Map<Long, Cola> destino = colas;
+            Cola vista = destino.getOrDefault(restauranteId, Cola.VACIA);
+            boolean hayQueLeer = !aplicable(vista.buscar(pedidoId), evento);
+            PedidoDto leido = hayQueLeer ? leer(pedidoId) : null;
+
+            boolean[] aplicado = {false};
+            destino.compute(restauranteId, (id, cola) -> {
+                Cola actual = cola == null ? Cola.VACIA : cola;
+                PedidoDto enCola = actual.buscar(pedidoId);
+                if (aplicable(enCola, evento)) {
+                    aplicado[0] = true;
+                    return reemplazar(id, actual, pedidoId,
+                            ESTADOS.contains(evento.estadoNuevo()) ? conEstado(enCola, evento.estadoNuevo()) : null);
+                }
+                if (!hayQueLeer || actual.version() != vista.version()) {
+                    // Otro cambio se aplicó entre la vista y el bloqueo: lo leído puede ser anterior a él
+                    return cola;
+                }
+                aplicado[0] = true;
+                return reemplazar(id, actual, pedidoId, leido);
+            });
+            if (aplicado[0]) {
+                return;
+            }
+        }
+        // Último recurso con mucha concurrencia en el restaurante: leer sin soltar el bloqueo
+        colas.compute(restauranteId, (id, cola) ->
+                reemplazar(id, cola == null ? Cola.VACIA : cola, pedidoId, leer(pedidoId)));
+    }
+
+    // El evento se puede aplicar sobre la cola sin leer la base de datos
+    private static boolean aplicable(PedidoDto enCola, PedidoEstadoCambiadoEvent evento) {
+        if (evento == null) {
+            return false;
+        }
+        EstadoPedido esperado = ESTADOS.contains(evento.estadoAnterior()) ? evento.estadoAnterior() : null;
+        if ((enCola == null ? null : enCola.getEstado()) != esperado) {
+            return false;
+        }
+        // Un pedido que entra en la cola no tiene datos en ella: hay que leerlo
+        return enCola != null || !ESTADOS.contains(evento.estadoNuevo());
+    }
+
+    // La base de datos tiene la última versión confirmada del pedido; null si ya no pertenece a la cola
+    private PedidoDto leer(Long pedidoId) {
+        return pedidoRepository.findDtoById(pedidoId)
+                .filter(pedido -> ESTADOS.contains(pedido.getEstado()))
+                .orElse(null);
+    }
+
+    // Se llama dentro de colas.compute del restaurante, así que el índice por pedido cambia con la cola
+    private Cola reemplazar(Long restauranteId, Cola cola, Long pedidoId, PedidoDto pedido) {
+        List<PedidoDto> nueva = new ArrayList<>(cola.pedidos());
+        nueva.removeIf(existente -> existente.getId().equals(pedidoId));
+        if (pedido == null) {
+            restaurantePorPedido.remove(pedidoId);
+        } else {
+            restaurantePorPedido.put(pedidoId, restauranteId);
+            int posicion = Collections.binarySearch(nueva, pedido, ORDEN);
+            nueva.add(posicion < 0 ? -posicion - 1 : posicion, pedido);
+        }
+        return new Cola(List.copyOf(nueva), cola.version() + 1);
+    }
+
+    // Los DTO de la cola se comparten con los lectores, por eso nunca se modifican en sitio
+    private PedidoDto conEstado(PedidoDto pedido, EstadoPedido estado) {
+        return new PedidoDto(pedido.getId(), pedido.getClienteId(), pedido.getClienteNombre(), pedido.getRestauranteId(),
+                pedido.getRestauranteNombre(), pedido.getDireccionEntrega(), pedido.getNotas(), pedido.getTiempoEstimado(),
+                pedido.getCostoDelivery(), pedido.getMetodoPago(), estado, pedido.getFechaPedido(), LocalDateTime.now(),
+                pedido.getTotal(), pedido.getDescuento(), pedido.getPromocionId());
+    }
+}
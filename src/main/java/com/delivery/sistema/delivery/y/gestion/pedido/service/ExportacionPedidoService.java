@@ -0,0 +1,169 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoExportacionDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de pedidos (archivados y activos) escrita fila a fila en la salida, en orden de fecha de pedido.
+ * Las filas se leen con un Stream de solo avance sobre proyecciones a DTO, así que la memoria usada
+ * no depende del rango pedido: solo el bloque de filas del driver y el buffer de escritura.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportacionPedidoService {
+
+    private static final String CABECERA_CSV = "id,fechaPedido,clienteId,clienteNombre,restauranteId,restauranteNombre,"
+            + "estado,metodoPago,costoDelivery,descuento,total,archivado";
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final Comparator<PedidoExportacionDto> ORDEN =
+            Comparator.comparing(PedidoExportacionDto::getFechaPedido).thenComparing(PedidoExportacionDto::getId);
+
+    private final PedidoRepository pedidoRepository;
+    private final PedidoHistoricoRepository pedidoHistoricoRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String tipoContenido;
+        private final String extension;
+
+        Formato(String tipoContenido, String extension) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Formato desde(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + valor + " (use csv o ndjson)");
+            }
+        }
+    }
+
+    /**
+     * Escribe los pedidos con fecha de pedido entre fechaInicio y fechaFin (ambos días incluidos).
+     * No cierra la salida; si comprimir es true la escribe en gzip.
+     */
+    @Transactional(readOnly = true)
+    public void exportar(LocalDate fechaInicio, LocalDate fechaFin, Long restauranteId, EstadoPedido estado,
+                         Formato formato, boolean comprimir, OutputStream salida) throws IOException {
+        LocalDateTime desde = fechaInicio.atStartOfDay();
+        LocalDateTime hasta = fechaFin.plusDays(1).atStartOfDay();
+
+        GZIPOutputStream gzip = comprimir ? new GZIPOutputStream(salida, 8192) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : salida, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            writer.write(CABECERA_CSV);
+            writer.write('\n');
+        }
+
+        // El archivador deja en la tabla activa los pedidos calificados (calificacion los referencia), así que
+        // las fechas de ambas tablas se solapan: los dos cursores, ya ordenados por (fechaPedido, id), se
+        // recorren a la vez y se mezclan fila a fila
+        try (Stream<PedidoExportacionDto> archivados =
+                     pedidoHistoricoRepository.recorrerParaExportacion(desde, hasta, restauranteId, estado);
+             Stream<PedidoExportacionDto> activos =
+                     pedidoRepository.recorrerParaExportacion(desde, hasta, restauranteId, estado)) {
+            Iterator<PedidoExportacionDto> restoArchivados = archivados.iterator();
+            Iterator<PedidoExportacionDto> restoActivos = activos.iterator();
+            PedidoExportacionDto archivado = siguiente(restoArchivados);
+            PedidoExportacionDto activo = siguiente(restoActivos);
+            while (archivado != null || activo != null) {
+                if (activo == null || (archivado != null && ORDEN.compare(archivado, activo) <= 0)) {
+                    escribir(writer, formato, archivado);
+                    archivado = siguiente(restoArchivados);
+                } else {
+                    escribir(writer, formato, activo);
+                    activo = siguiente(restoActivos);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    private static PedidoExportacionDto siguiente(Iterator<PedidoExportacionDto> filas) {
+        return filas.hasNext() ? filas.next() : null;
+    }
+
+    private void escribir(Writer writer, Formato formato, PedidoExportacionDto fila) {
+        try {
+            writer.write(formato == Formato.CSV ? aCsv(fila) : objectMapper.writeValueAsString(fila));
+            writer.write('\n');
+        } catch (IOException e) {
+            // Normalmente el cliente cortó la descarga
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String aCsv(PedidoExportacionDto fila) {
+        return String.join(",",
+                valor(fila.getId()),
+                fila.getFechaPedido() == null ? "" : FORMATO_FECHA.format(fila.getFechaPedido()),
+                valor(fila.getClienteId()),
+                texto(fila.getClienteNombre()),
+                valor(fila.getRestauranteId()),
+                texto(fila.getRestauranteNombre()),
+                valor(fila.getEstado()),
+                texto(fila.getMetodoPago()),
+                valor(fila.getCostoDelivery()),
+                valor(fila.getDescuento()),
+                valor(fila.getTotal()),
+                valor(fila.getArchivado()));
+    }
+
+    private String valor(Object valor) {
+        return valor == null ? "" : valor.toString();
+    }
+
+    // RFC 4180: se entrecomilla si hay separadores, comillas o saltos de línea, duplicando las comillas
+    private String texto(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,482 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Foto columnar e inmutable de los pedidos (activos y archivados) para las estadísticas del panel.
+ * Las filas van ordenadas por id en segmentos de hasta CAPACIDAD_SEGMENTO filas, con un arreglo primitivo
+ * por atributo: restaurante, cliente, día (epoch day), total en céntimos y estado. Cada segmento guarda
+ * además su rango de días para saltarlo entero cuando queda fuera del periodo consultado.
+ * Aplicar cambios devuelve una foto nueva que comparte los segmentos no tocados, así que un refresco
+ * solo copia los segmentos recientes. Las agregaciones reparten el trabajo con fork/join.
+ */
+public final class HechosPedidos {
+
+    static final int CAPACIDAD_SEGMENTO = 1 << 16;
+
+    // Hasta este número de claves cada tarea acumula en arreglos propios que luego se suman;
+    // por encima (clientes) las filas se agrupan una vez por tramo de claves y cada tarea suma solo su tramo
+    private static final int LIMITE_CLAVES_POR_TAREA = 1 << 14;
+
+    private static final byte ENTREGADO = (byte) EstadoPedido.ENTREGADO.ordinal();
+
+    public static final HechosPedidos VACIA = new HechosPedidos(new Segmento[0]);
+
+    private final Segmento[] segmentos;
+    private final int filas;
+    private final int maxRestauranteId;
+    private final int maxClienteId;
+
+    private HechosPedidos(Segmento[] segmentos) {
+        this.segmentos = segmentos;
+        int total = 0;
+        int maxRestaurante = 0;
+        int maxCliente = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.filas;
+            maxRestaurante = Math.max(maxRestaurante, segmento.maxRestaurante);
+            maxCliente = Math.max(maxCliente, segmento.maxCliente);
+        }
+        this.filas = total;
+        this.maxRestauranteId = maxRestaurante;
+        this.maxClienteId = maxCliente;
+    }
+
+    /**
+     * Cantidad de pedidos y ventas (céntimos de los pedidos ENTREGADO) por clave.
+     * La posición i corresponde a la clave i: id de restaurante o cliente, o mes contado desde el primero del periodo.
+     */
+    public record Agregado(long[] pedidos, long[] ventas) {
+
+        private void sumar(Agregado otro) {
+            for (int i = 0; i < pedidos.length; i++) {
+                pedidos[i] += otro.pedidos[i];
+                ventas[i] += otro.ventas[i];
+            }
+        }
+    }
+
+    public int filas() {
+        return filas;
+    }
+
+    public Agregado porMes(LocalDate desde, LocalDate hasta) {
+        YearMonth primerMes = YearMonth.from(desde);
+        int diaDesde = (int) desde.toEpochDay();
+        int[] mesDeDia = new int[(int) ChronoUnit.DAYS.between(desde, hasta) + 1];
+        for (int i = 0; i < mesDeDia.length; i++) {
+            mesDeDia[i] = (int) primerMes.until(YearMonth.from(desde.plusDays(i)), ChronoUnit.MONTHS);
+        }
+        int meses = (int) primerMes.until(YearMonth.from(hasta), ChronoUnit.MONTHS) + 1;
+        return agregar((segmento, fila) -> mesDeDia[segmento.dias[fila] - diaDesde], meses, desde, hasta);
+    }
+
+    public Agregado porRestaurante(LocalDate desde, LocalDate hasta) {
+        return agregar((segmento, fila) -> segmento.restaurantes[fila], maxRestauranteId + 1, desde, hasta);
+    }
+
+    public Agregado porCliente(LocalDate desde, LocalDate hasta) {
+        return agregar((segmento, fila) -> segmento.clientes[fila], maxClienteId + 1, desde, hasta);
+    }
+
+    /**
+     * Foto con los cambios aplicados: las filas con un id ya presente se reemplazan y las nuevas se insertan
+     * en su posición. Solo se reconstruyen los segmentos donde cae algún cambio.
+     */
+    public HechosPedidos conCambios(List<HechoPedidoDto> cambios) {
+        if (cambios.isEmpty()) {
+            return this;
+        }
+        List<HechoPedidoDto> ordenados = new ArrayList<>(cambios);
+        ordenados.sort(Comparator.comparing(HechoPedidoDto::id));
+
+        Segmento[] base = segmentos.length > 0 ? segmentos : new Segmento[] {Segmento.VACIO};
+        List<Segmento> resultado = new ArrayList<>(base.length + 1);
+        int siguienteCambio = 0;
+        for (int s = 0; s < base.length; s++) {
+            // Un segmento recibe los ids menores que el primero del segmento siguiente
+            long limite = s + 1 < base.length ? base[s + 1].ids[0] : Long.MAX_VALUE;
+            int finCambios = siguienteCambio;
+            while (finCambios < ordenados.size() && ordenados.get(finCambios).id() < limite) {
+                finCambios++;
+            }
+            if (finCambios == siguienteCambio) {
+                resultado.add(base[s]);
+                continue;
+            }
+            resultado.addAll(mezclar(base[s], ordenados.subList(siguienteCambio, finCambios)));
+            siguienteCambio = finCambios;
+        }
+        return new HechosPedidos(resultado.toArray(new Segmento[0]));
+    }
+
+    // Mezcla ordenada por id de un segmento con sus cambios; si crece de más se parte en varios segmentos
+    private static List<Segmento> mezclar(Segmento segmento, List<HechoPedidoDto> cambios) {
+        Columnas columnas = new Columnas();
+        int fila = 0;
+        for (int i = 0; i < cambios.size(); i++) {
+            HechoPedidoDto cambio = cambios.get(i);
+            // Con ids repetidos vale el último
+            if (i + 1 < cambios.size() && cambios.get(i + 1).id().equals(cambio.id())) {
+                continue;
+            }
+            while (fila < segmento.filas && segmento.ids[fila] < cambio.id()) {
+                columnas.agregar(segmento, fila++);
+            }
+            if (fila < segmento.filas && segmento.ids[fila] == cambio.id()) {
+                fila++;
+            }
+            columnas.agregar(cambio);
+        }
+        while (fila < segmento.filas) {
+            columnas.agregar(segmento, fila++);
+        }
+        return columnas.terminar();
+    }
+
+    private interface Clave {
+        int de(Segmento segmento, int fila);
+    }
+
+    private Agregado agregar(Clave clave, int numClaves, LocalDate desde, LocalDate hasta) {
+        int diaDesde = (int) desde.toEpochDay();
+        int diaHasta = (int) hasta.toEpochDay();
+        if (segmentos.length == 0) {
+            return new Agregado(new long[numClaves], new long[numClaves]);
+        }
+        if (numClaves <= LIMITE_CLAVES_POR_TAREA) {
+            return ForkJoinPool.commonPool().invoke(
+                    new PorSegmentos(clave, numClaves, diaDesde, diaHasta, 0, segmentos.length));
+        }
+        Agregado agregado = new Agregado(new long[numClaves], new long[numClaves]);
+        int tramo = Math.max(LIMITE_CLAVES_POR_TAREA,
+                (numClaves + ForkJoinPool.getCommonPoolParallelism() - 1) / ForkJoinPool.getCommonPoolParallelism());
+        int tramos = (numClaves + tramo - 1) / tramo;
+        Grupos[] grupos = new Grupos[segmentos.length];
+        ForkJoinPool.commonPool().invoke(new Agrupar(clave, tramo, tramos, diaDesde, diaHasta, grupos, 0, segmentos.length));
+        ForkJoinPool.commonPool().invoke(new PorClaves(grupos, agregado, 0, tramos));
+        return agregado;
+    }
+
+    /**
+     * Filas de un segmento dentro del periodo, ordenadas por tramo de claves: las del tramo t ocupan
+     * las posiciones [inicios[t], inicios[t + 1]) de claves y ventas. ventas es 0 si el pedido no se entregó.
+     */
+    private record Grupos(int[] inicios, int[] claves, long[] ventas) {
+    }
+
+    // Ordenación por conteo en dos pasadas: la primera cuenta las filas de cada tramo, la segunda las coloca
+    private static Grupos agrupar(Segmento segmento, Clave clave, int tramo, int tramos, int diaDesde, int diaHasta) {
+        int[] inicios = new int[tramos + 1];
+        if (segmento.diaMaximo < diaDesde || segmento.diaMinimo > diaHasta) {
+            return new Grupos(inicios, new int[0], new long[0]);
+        }
+        int[] claveDeFila = new int[segmento.filas];
+        int enPeriodo = 0;
+        for (int fila = 0; fila < segmento.filas; fila++) {
+            int dia = segmento.dias[fila];
+            if (dia < diaDesde || dia > diaHasta) {
+                claveDeFila[fila] = -1;
+                continue;
+            }
+            int k = clave.de(segmento, fila);
+            claveDeFila[fila] = k;
+            inicios[k / tramo + 1]++;
+            enPeriodo++;
+        }
+        for (int t = 0; t < tramos; t++) {
+            inicios[t + 1] += inicios[t];
+        }
+
+        int[] claves = new int[enPeriodo];
+        long[] ventas = new long[enPeriodo];
+        int[] siguiente = Arrays.copyOf(inicios, tramos);
+        for (int fila = 0; fila < segmento.filas; fila++) {
+            int k = claveDeFila[fila];
+            if (k < 0) {
+                continue;
+            }
+            int posicion = siguiente[k / tramo]++;
+            claves[posicion] = k;
+            ventas[posicion] = segmento.estados[fila] == ENTREGADO ? segmento.totales[fila] : 0;
+        }
+        return new Grupos(inicios, claves, ventas);
+    }
+
+    private static void acumular(Segmento segmento, Clave clave, int diaDesde, int diaHasta, Agregado agregado) {
+        if (segmento.diaMaximo < diaDesde || segmento.diaMinimo > diaHasta) {
+            return;
+        }
+        long[] pedidos = agregado.pedidos();
+        long[] ventas = agregado.ventas();
+        int[] dias = segmento.dias;
+        for (int fila = 0; fila < segmento.filas; fila++) {
+            int dia = dias[fila];
+            if (dia < diaDesde || dia > diaHasta) {
+                continue;
+            }
+            int k = clave.de(segmento, fila);
+            pedidos[k]++;
+            if (segmento.estados[fila] == ENTREGADO) {
+                ventas[k] += segmento.totales[fila];
+            }
+        }
+    }
+
+    // Reparte los segmentos; cada hoja acumula un segmento en arreglos propios y al volver se suman
+    private final class PorSegmentos extends RecursiveTask<Agregado> {
+
+        private final Clave clave;
+        private final int numClaves;
+        private final int diaDesde;
+        private final int diaHasta;
+        private final int desde;
+        private final int hasta;
+
+        private PorSegmentos(Clave clave, int numClaves, int diaDesde, int diaHasta, int desde, int hasta) {
+            this.clave = clave;
+            this.numClaves = numClaves;
+            this.diaDesde = diaDesde;
+            this.diaHasta = diaHasta;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Agregado compute() {
+            if (hasta - desde == 1) {
+                Agregado agregado = new Agregado(new long[numClaves], new long[numClaves]);
+                acumular(segmentos[desde], clave, diaDesde, diaHasta, agregado);
+                return agregado;
+            }
+            int medio = (desde + hasta) >>> 1;
+            PorSegmentos izquierda = new PorSegmentos(clave, numClaves, diaDesde, diaHasta, desde, medio);
+            izquierda.fork();
+            Agregado derecha = new PorSegmentos(clave, numClaves, diaDesde, diaHasta, medio, hasta).compute();
+            Agregado resultado = izquierda.join();
+            resultado.sumar(derecha);
+            return resultado;
+        }
+    }
+
+    // Reparte los segmentos; cada hoja agrupa las filas de un segmento por tramo de claves
+    private final class Agrupar extends RecursiveAction {
+
+        private final Clave clave;
+        private final int tramo;
+        private final int tramos;
+        private final int diaDesde;
+        private final int diaHasta;
+        private final Grupos[] grupos;
+        private final int desde;
+        private final int hasta;
+
+        private Agrupar(Clave clave, int tramo, int tramos, int diaDesde, int diaHasta, Grupos[] grupos, int desde, int hasta) {
+            this.clave = clave;
+            this.tramo = tramo;
+            this.tramos = tramos;
+            this.diaDesde = diaDesde;
+            this.diaHasta = diaHasta;
+            this.grupos = grupos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                grupos[desde] = agrupar(segmentos[desde], clave, tramo, tramos, diaDesde, diaHasta);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Agrupar(clave, tramo, tramos, diaDesde, diaHasta, grupos, desde, medio),
+                    new Agrupar(clave, tramo, tramos, diaDesde, diaHasta, grupos, medio, hasta));
+        }
+    }
+
+    // Reparte los tramos de claves; cada hoja lee solo las filas de su tramo y escribe solo en él
+    private static final class PorClaves extends RecursiveAction {
+
+        private final Grupos[] grupos;
+        private final Agregado agregado;
+        private final int desde;
+        private final int hasta;
+
+        private PorClaves(Grupos[] grupos, Agregado agregado, int desde, int hasta) {
+            this.grupos = grupos;
+            this.agregado = agregado;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                long[] pedidos = agregado.pedidos();
+                long[] ventas = agregado.ventas();
+                for (Grupos grupo : grupos) {
+                    for (int i = grupo.inicios()[desde]; i < grupo.inicios()[desde + 1]; i++) {
+                        int k = grupo.claves()[i];
+                        pedidos[k]++;
+                        ventas[k] += grupo.ventas()[i];
+                    }
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new PorClaves(grupos, agregado, desde, medio), new PorClaves(grupos, agregado, medio, hasta));
+        }
+    }
+
+    private static final class Segmento {
+
+        static final Segmento VACIO = new Segmento(new long[0], new int[0], new int[0], new int[0], new long[0], new byte[0], 0);
+
+        final long[] ids;
+        final int[] restaurantes;
+        final int[] clientes;
+        final int[] dias;
+        final long[] totales;
+        final byte[] estados;
+        final int filas;
+        final int maxRestaurante;
+        final int maxCliente;
+        final int diaMinimo;
+        final int diaMaximo;
+
+        Segmento(long[] ids, int[] restaurantes, int[] clientes, int[] dias, long[] totales, byte[] estados, int filas) {
+            this.ids = ids;
+            this.restaurantes = restaurantes;
+            this.clientes = clientes;
+            this.dias = dias;
+            this.totales = totales;
+            this.estados = estados;
+            this.filas = filas;
+            int maxR = 0;
+            int maxC = 0;
+            int minD = Integer.MAX_VALUE;
+            int maxD = Integer.MIN_VALUE;
+            for (int i = 0; i < filas; i++) {
+                maxR = Math.max(maxR, restaurantes[i]);
+                maxC = Math.max(maxC, clientes[i]);
+                minD = Math.min(minD, dias[i]);
+                maxD = Math.max(maxD, dias[i]);
+            }
+            this.maxRestaurante = maxR;
+            this.maxCliente = maxC;
+            this.diaMinimo = minD;
+            this.diaMaximo = maxD;
+        }
+    }
+
+    // Columnas en construcción: se añaden filas en orden de id y se cortan segmentos al llenarse
+    private static final class Columnas {
+
+        private final List<Segmento> segmentos = new ArrayList<>();
+        private long[] ids;
+        private int[] restaurantes;
+        private int[] clientes;
+        private int[] dias;
+        private long[] totales;
+        private byte[] estados;
+        private int filas;
+
+        Columnas() {
+            reiniciar();
+        }
+
+        long ultimoId() {
+            if (filas > 0) {
+                return ids[filas - 1];
+            }
+            return segmentos.isEmpty() ? Long.MIN_VALUE : segmentos.get(segmentos.size() - 1).ids[CAPACIDAD_SEGMENTO - 1];
+        }
+
+        void agregar(HechoPedidoDto hecho) {
+            if (filas == CAPACIDAD_SEGMENTO) {
+                cerrar();
+            }
+            ids[filas] = hecho.id();
+            restaurantes[filas] = Math.toIntExact(hecho.restauranteId());
+            clientes[filas] = Math.toIntExact(hecho.clienteId());
+            dias[filas] = (int) hecho.fechaPedido().toLocalDate().toEpochDay();
+            totales[filas] = hecho.total().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            estados[filas] = (byte) hecho.estado().ordinal();
+            filas++;
+        }
+
+        void agregar(Segmento segmento, int fila) {
+            if (filas == CAPACIDAD_SEGMENTO) {
+                cerrar();
+            }
+            ids[filas] = segmento.ids[fila];
+            restaurantes[filas] = segmento.restaurantes[fila];
+            clientes[filas] = segmento.clientes[fila];
+            dias[filas] = segmento.dias[fila];
+            totales[filas] = segmento.totales[fila];
+            estados[filas] = segmento.estados[fila];
+            filas++;
+        }
+
+        List<Segmento> terminar() {
+            if (filas > 0) {
+                cerrar();
+            }
+            return segmentos;
+        }
+
+        private void cerrar() {
+            segmentos.add(filas == CAPACIDAD_SEGMENTO
+                    ? new Segmento(ids, restaurantes, clientes, dias, totales, estados, filas)
+                    : new Segmento(Arrays.copyOf(ids, filas), Arrays.copyOf(restaurantes, filas),
+                            Arrays.copyOf(clientes, filas), Arrays.copyOf(dias, filas),
+                            Arrays.copyOf(totales, filas), Arrays.copyOf(estados, filas), filas));
+            reiniciar();
+        }
+
+        private void reiniciar() {
+            ids = new long[CAPACIDAD_SEGMENTO];
+            restaurantes = new int[CAPACIDAD_SEGMENTO];
+            clientes = new int[CAPACIDAD_SEGMENTO];
+            dias = new int[CAPACIDAD_SEGMENTO];
+            totales = new long[CAPACIDAD_SEGMENTO];
+            estados = new byte[CAPACIDAD_SEGMENTO];
+            filas = 0;
+        }
+    }
+
+    /**
+     * Carga completa: recibe las filas de cada tabla ordenadas por id. Las que llegan fuera de orden
+     * (un pedido antiguo aún activo detrás de los archivados) se aplican al final como cambios.
+     */
+    public static final class Constructor {
+
+        private final Columnas columnas = new Columnas();
+        private final List<HechoPedidoDto> fueraDeOrden = new ArrayList<>();
+
+        public void agregar(HechoPedidoDto hecho) {
+            if (hecho.id() > columnas.ultimoId()) {
+                columnas.agregar(hecho);
+            } else {
+                fueraDeOrden.add(hecho);
+            }
+        }
+
+        public HechosPedidos construir() {
+            return new HechosPedidos(columnas.terminar().toArray(new Segmento[0])).conCambios(fueraDeOrden);
+        }
+    }
+}
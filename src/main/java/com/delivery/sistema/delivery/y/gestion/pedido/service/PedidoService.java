@@ -8,23 +8,44 @@ import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.service.CanjePromocionService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.ContadorEstadosService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.MotorPromocionesService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.MotorPromocionesService.PromocionAplicada;
+import com.delivery.sistema.delivery.y.gestion.shared.service.TiempoEstimadoService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
 import com.delivery.sistema.delivery.y.gestion.pedido.dto.CrearPedidoDto;
 import com.delivery.sistema.delivery.y.gestion.pedido.dto.DetallePedidoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.ResultadoCambioEstadoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
 
 @Service
 @RequiredArgsConstructor
@@ -36,13 +57,38 @@ public class PedidoService {
     private final RestauranteRepository restauranteRepository;
     private final MenuRepository menuRepository;
     private final DetallePedidoRepository detallePedidoRepository;
+    private final TransicionPedidoService transicionPedidoService;
+    private final ContadorEstadosService contadorEstadosService;
+    private final VentaDiariaService ventaDiariaService;
+    private final ColaCocinaService colaCocinaService;
+    private final PedidoHistoricoRepository pedidoHistoricoRepository;
+    private final PromocionRepository promocionRepository;
+    private final MotorPromocionesService motorPromocionesService;
+    private final CanjePromocionService canjePromocionService;
+    private final TiempoEstimadoService tiempoEstimadoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Comparator<PedidoDto> RECIENTES_PRIMERO =
+            Comparator.comparing(PedidoDto::getFechaPedido).thenComparing(PedidoDto::getId).reversed();
+    private static final Sort ORDEN_CLIENTE = Sort.by(Sort.Direction.DESC, "fechaPedido", "id");
+
+    @Value("${app.pedido.costo-delivery:5.00}")
+    private BigDecimal costoDeliveryPorDefecto;
 
     public List<Pedido> listarTodos() {
         return pedidoRepository.findAll();
     }
 
     public List<Pedido> listarPorCliente(Long clienteId) {
-        return pedidoRepository.findByClienteIdOrderByFechaPedidoDesc(clienteId);
+        List<Pedido> pedidos = new ArrayList<>(pedidoRepository.findByClienteIdOrderByFechaPedidoDesc(clienteId));
+        // El archivador deja en la tabla activa los pedidos calificados (calificacion los referencia), así que
+        // un archivado puede ser más reciente que un activo: ambas listas ya vienen ordenadas y el sort las
+        // mezcla por fecha en una pasada
+        pedidoHistoricoRepository.findByClienteIdOrderByFechaPedidoDesc(clienteId).stream()
+                .map(this::desdeHistorico)
+                .forEach(pedidos::add);
+        pedidos.sort(Comparator.comparing(Pedido::getFechaPedido).reversed());
+        return pedidos;
     }
 
     public List<Pedido> listarPorRestaurante(Long restauranteId) {
@@ -71,10 +117,48 @@ public class PedidoService {
 
     public Pedido obtenerPorId(Long id) {
         return pedidoRepository.findById(id)
+                .or(() -> pedidoHistoricoRepository.findById(id).map(this::desdeHistorico))
                 .orElseThrow(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + id));
     }
 
+    // Solo pedidos de la tabla activa: los archivados no se pueden modificar
+    private Pedido obtenerModificable(Long id) {
+        return pedidoRepository.findById(id).orElseThrow(() -> pedidoHistoricoRepository.existsById(id)
+                ? new IllegalStateException("El pedido " + id + " está archivado y no se puede modificar")
+                : new EntityNotFoundException("Pedido no encontrado con ID: " + id));
+    }
+
+    // Copia de solo lectura de un pedido archivado: no está gestionada y nunca debe guardarse
+    private Pedido desdeHistorico(PedidoHistorico historico) {
+        Pedido pedido = new Pedido();
+        pedido.setId(historico.getId());
+        pedido.setCliente(clienteRepository.getReferenceById(historico.getClienteId()));
+        pedido.setRestaurante(restauranteRepository.getReferenceById(historico.getRestauranteId()));
+        pedido.setDireccionEntrega(historico.getDireccionEntrega());
+        pedido.setNotas(historico.getNotas());
+        pedido.setTiempoEstimado(historico.getTiempoEstimado());
+        pedido.setCostoDelivery(historico.getCostoDelivery());
+        pedido.setMetodoPago(historico.getMetodoPago());
+        pedido.setEstado(historico.getEstado());
+        pedido.setFechaPedido(historico.getFechaPedido());
+        pedido.setFechaActualizacion(historico.getFechaActualizacion());
+        pedido.setTotal(historico.getTotal());
+        pedido.setDescuento(historico.getDescuento());
+        if (historico.getPromocionId() != null) {
+            pedido.setPromocion(promocionRepository.getReferenceById(historico.getPromocionId()));
+        }
+        return pedido;
+    }
+
     public Pedido crearPedido(Pedido pedido, List<DetallePedido> detalles) {
+        return crearPedido(pedido, detalles, null);
+    }
+
+    public Pedido crearPedido(Pedido pedido, List<DetallePedido> detalles, String codigoPromocion) {
+        if (detalles == null || detalles.isEmpty()) {
+            throw new IllegalArgumentException("El pedido debe tener al menos un detalle");
+        }
+
         // Validar cliente
         Cliente cliente = clienteRepository.findById(pedido.getCliente().getId())
                 .orElseThrow(() -> new EntityNotFoundException("Cliente no encontrado"));
@@ -88,117 +172,109 @@ public class PedidoService {
             throw new IllegalStateException("El restaurante no está disponible");
         }
 
-        // Configurar pedido
-        pedido.setCliente(cliente);
-        pedido.setRestaurante(restaurante);
-        pedido.setEstado(EstadoPedido.PENDIENTE);
-
-        // Calcular total
-        BigDecimal total = calcularTotalPedido(detalles);
-        total = total.add(pedido.getCostoDelivery());
-        pedido.setTotal(total);
-
-        // Guardar pedido
-        Pedido pedidoGuardado = pedidoRepository.save(pedido);
+        // Cargar todos los menús del carrito en una sola consulta y calcular el total en memoria
+        Map<Long, Menu> menus = cargarMenus(detalles);
+        BigDecimal subtotalPedido = BigDecimal.ZERO;
 
-        // Guardar detalles
         for (DetallePedido detalle : detalles) {
-            // Validar menú
-            Menu menu = menuRepository.findById(detalle.getMenu().getId())
-                    .orElseThrow(() -> new EntityNotFoundException("Menú no encontrado"));
+            Long menuId = detalle.getMenu().getId();
+            Menu menu = menus.get(menuId);
+            if (menu == null) {
+                throw new EntityNotFoundException("Menú no encontrado con ID: " + menuId);
+            }
+
+            if (!menu.getRestaurante().getId().equals(restaurante.getId())) {
+                throw new IllegalArgumentException("El menú '" + menu.getNombre() + "' no pertenece al restaurante");
+            }
 
             if (!menu.getDisponible()) {
                 throw new IllegalStateException("El menú '" + menu.getNombre() + "' no está disponible");
             }
 
             // Configurar detalle
-            detalle.setPedido(pedidoGuardado);
             detalle.setMenu(menu);
             detalle.setPrecioUnitario(menu.getPrecio());
-            
-            BigDecimal subtotal = menu.getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad()));
-            detalle.setSubtotal(subtotal);
+            detalle.setSubtotal(menu.getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad())));
+            subtotalPedido = subtotalPedido.add(detalle.getSubtotal());
+        }
 
-            detallePedidoRepository.save(detalle);
+        // Configurar pedido
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.setEstado(EstadoPedido.PENDIENTE);
+        pedido.setTiempoEstimado(tiempoEstimadoService.estimarAlCrear(restaurante.getId()));
+        if (pedido.getCostoDelivery() == null) {
+            pedido.setCostoDelivery(costoDeliveryPorDefecto);
         }
+        aplicarPromocion(pedido, subtotalPedido, codigoPromocion);
+        pedido.setTotal(subtotalPedido.add(pedido.getCostoDelivery()).subtract(pedido.getDescuento()));
+
+        // Guardar pedido y todos sus detalles en un único lote JDBC
+        Pedido pedidoGuardado = pedidoRepository.save(pedido);
+        detalles.forEach(detalle -> detalle.setPedido(pedidoGuardado));
+        detallePedidoRepository.insertarEnLote(pedidoGuardado.getId(), detalles);
 
+        eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(pedidoGuardado.getId(), null, EstadoPedido.PENDIENTE));
         return pedidoGuardado;
     }
 
-    private BigDecimal calcularTotalPedido(List<DetallePedido> detalles) {
-        return detalles.stream()
-                .map(detalle -> {
-                    Menu menu = menuRepository.findById(detalle.getMenu().getId())
-                            .orElseThrow(() -> new EntityNotFoundException("Menú no encontrado"));
-                    return menu.getPrecio().multiply(BigDecimal.valueOf(detalle.getCantidad()));
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // La mejor promoción se elige en memoria y su uso sale del bloque de cupo reservado por este nodo
+    private void aplicarPromocion(Pedido pedido, BigDecimal subtotal, String codigoPromocion) {
+        Set<Long> agotadas = new HashSet<>();
+        while (true) {
+            Optional<PromocionAplicada> mejor = motorPromocionesService.mejorPromocion(pedido.getRestaurante().getId(),
+                    codigoPromocion, subtotal, pedido.getCostoDelivery(), LocalDateTime.now(), agotadas);
+            if (mejor.isEmpty()) {
+                pedido.setDescuento(BigDecimal.ZERO);
+                pedido.setPromocion(null);
+                pedido.setCupoPromocionId(null);
+                return;
+            }
+
+            PromocionAplicada aplicada = mejor.get();
+            Optional<Long> cupo = canjePromocionService.canjear(aplicada.promocionId());
+            if (cupo.isPresent()) {
+                pedido.setDescuento(aplicada.descuento());
+                pedido.setPromocion(promocionRepository.getReferenceById(aplicada.promocionId()));
+                pedido.setCupoPromocionId(cupo.get());
+                return;
+            }
+            // Sin usos disponibles: se descarta y se busca la siguiente mejor
+            agotadas.add(aplicada.promocionId());
+        }
+    }
+
+    private Map<Long, Menu> cargarMenus(List<DetallePedido> detalles) {
+        Set<Long> menuIds = detalles.stream()
+                .map(detalle -> detalle.getMenu().getId())
+                .collect(Collectors.toSet());
+
+        return menuRepository.findAllById(menuIds).stream()
+                .collect(Collectors.toMap(Menu::getId, Function.identity()));
     }
 
     public Pedido confirmarPedido(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() != EstadoPedido.PENDIENTE) {
-            throw new IllegalStateException("Solo se pueden confirmar pedidos pendientes");
-        }
-        
-        pedido.setEstado(EstadoPedido.CONFIRMADO);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.CONFIRMADO);
     }
 
     public Pedido iniciarPreparacion(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() != EstadoPedido.CONFIRMADO) {
-            throw new IllegalStateException("Solo se pueden preparar pedidos confirmados");
-        }
-        
-        pedido.setEstado(EstadoPedido.EN_PREPARACION);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.EN_PREPARACION);
     }
 
     public Pedido marcarListo(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() != EstadoPedido.EN_PREPARACION) {
-            throw new IllegalStateException("Solo se pueden marcar como listos pedidos en preparación");
-        }
-        
-        pedido.setEstado(EstadoPedido.LISTO);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.LISTO);
     }
 
     public Pedido marcarEnTransito(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() != EstadoPedido.LISTO) {
-            throw new IllegalStateException("Solo se pueden poner en tránsito pedidos listos");
-        }
-        
-        pedido.setEstado(EstadoPedido.EN_TRANSITO);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.EN_TRANSITO);
     }
 
     public Pedido marcarEntregado(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() != EstadoPedido.EN_TRANSITO) {
-            throw new IllegalStateException("Solo se pueden entregar pedidos en tránsito");
-        }
-        
-        pedido.setEstado(EstadoPedido.ENTREGADO);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.ENTREGADO);
     }
 
     public Pedido cancelarPedido(Long id) {
-        Pedido pedido = obtenerPorId(id);
-        
-        if (pedido.getEstado() == EstadoPedido.ENTREGADO) {
-            throw new IllegalStateException("No se puede cancelar un pedido entregado");
-        }
-        
-        pedido.setEstado(EstadoPedido.CANCELADO);
-        return pedidoRepository.save(pedido);
+        return actualizarEstado(id, EstadoPedido.CANCELADO);
     }
 
     @Transactional(readOnly = true)
@@ -207,9 +283,8 @@ public class PedidoService {
     }
 
     @Transactional(readOnly = true)
-    public Double calcularVentasPorRestaurante(Long restauranteId, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        return pedidoRepository.calcularVentasByRestauranteAndFechas(restauranteId, fechaInicio, fechaFin)
-                .orElse(0.0);
+    public BigDecimal calcularVentasPorRestaurante(Long restauranteId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return ventaDiariaService.calcularTotal(restauranteId, fechaInicio, fechaFin);
     }
 
     @Transactional(readOnly = true)
@@ -219,26 +294,23 @@ public class PedidoService {
 
     @Transactional(readOnly = true)
     public Map<String, Long> contarPedidosPorEstado() {
-        Map<String, Long> estadisticas = new HashMap<>();
-        
-        for (EstadoPedido estado : EstadoPedido.values()) {
-            estadisticas.put(estado.name(), pedidoRepository.countPedidosByEstado(estado));
-        }
-        
-        return estadisticas;
+        // Lectura en memoria: los contadores se mantienen con cada transición
+        return contadorEstadosService.pedidosPorEstado();
     }
 
     // Métodos adicionales requeridos por PedidoController
     @Transactional(readOnly = true)
     public Page<PedidoDto> listarPedidosPorRestauranteYEstado(Long restauranteId, EstadoPedido estado, Pageable pageable) {
-        return pedidoRepository.findByRestauranteIdAndEstado(restauranteId, estado, pageable)
-                .map(this::convertirADto);
+        // Los estados de cocina se sirven desde memoria, ya ordenados por fecha de pedido
+        if (ColaCocinaService.ESTADOS.contains(estado) && pageable.getSort().isUnsorted()) {
+            return colaCocinaService.pagina(restauranteId, estado, pageable);
+        }
+        return pedidoRepository.findDtoByRestauranteIdAndEstado(restauranteId, estado, pageable);
     }
 
     @Transactional(readOnly = true)
     public Page<PedidoDto> listarPedidosPorRestaurante(Long restauranteId, Pageable pageable) {
-        return pedidoRepository.findByRestauranteId(restauranteId, pageable)
-                .map(this::convertirADto);
+        return pedidoRepository.findDtoByRestauranteId(restauranteId, pageable);
     }
 
     public PedidoDto obtenerPedidoPorId(Long id) {
@@ -249,14 +321,20 @@ public class PedidoService {
         // Convertir CrearPedidoDto a Pedido y DetallePedido
         Pedido pedido = convertirCrearDtoAEntidad(crearPedidoDto);
         List<DetallePedido> detalles = convertirDetallesDtoAEntidad(crearPedidoDto.getDetalles(), pedido);
-        
-        return convertirADto(crear(pedido, detalles));
+
+        PedidoDto dto = convertirADto(crearPedido(pedido, detalles, crearPedidoDto.getCodigoPromocion()));
+        dto.setDetalles(detalles.stream().map(this::convertirDetalleADto).toList());
+        return dto;
     }
 
     public PedidoDto cambiarEstado(Long id, EstadoPedido nuevoEstado) {
         return convertirADto(actualizarEstado(id, nuevoEstado));
     }
 
+    public List<ResultadoCambioEstadoDto> cambiarEstadoEnLote(List<Long> ids, EstadoPedido nuevoEstado) {
+        return transicionPedidoService.transicionarEnLote(ids, nuevoEstado, origenesSinEntrega(nuevoEstado));
+    }
+
     public PedidoDto actualizarPedido(Long id, PedidoDto pedidoDto) {
         Pedido pedido = convertirDtoAEntidad(pedidoDto);
         return convertirADto(actualizar(id, pedido));
@@ -265,17 +343,81 @@ public class PedidoService {
     // Métodos adicionales requeridos por PedidoController
     @Transactional(readOnly = true)
     public Page<PedidoDto> listarPedidosPorEstado(EstadoPedido estado, Pageable pageable) {
-        return pedidoRepository.findByEstado(estado, pageable).map(this::convertirADto);
+        return pedidoRepository.findDtoByEstado(estado, pageable);
     }
 
+    // Si el cliente tiene pedidos archivados la página sale de mezclar ambas tablas por (fechaPedido, id) descendente;
+    // cada tabla aporta como mucho offset + tamaño filas
     @Transactional(readOnly = true)
     public Page<PedidoDto> listarPedidosPorCliente(Long clienteId, Pageable pageable) {
-        return pedidoRepository.findByClienteId(clienteId, pageable).map(this::convertirADto);
+        pageable = ordenDelCliente(pageable);
+        long archivados = pedidoHistoricoRepository.countByClienteId(clienteId);
+        if (archivados == 0) {
+            return pedidoRepository.findDtoByClienteId(clienteId, pageable);
+        }
+        long total = pedidoRepository.countByClienteId(clienteId) + archivados;
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(delClienteDespuesDe(clienteId, null, null, Cursor.desdeToken(null), (int) total), pageable, total);
+        }
+        int hasta = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total);
+        List<PedidoDto> primeros = delClienteDespuesDe(clienteId, null, null, Cursor.desdeToken(null), hasta);
+        int desde = (int) Math.min(pageable.getOffset(), primeros.size());
+        return new PageImpl<>(primeros.subList(desde, primeros.size()), pageable, total);
+    }
+
+    // La mezcla con el archivo solo recorre ambas tablas en ese orden; se aplica también a los clientes sin
+    // archivados para que el orden no dependa de si ya se archivó algún pedido
+    private static Pageable ordenDelCliente(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isSorted() && !sort.equals(ORDEN_CLIENTE) && !sort.equals(Sort.by(Sort.Direction.DESC, "fechaPedido"))) {
+            throw new IllegalArgumentException("Los pedidos de un cliente solo pueden ordenarse por fechaPedido descendente");
+        }
+        return pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), ORDEN_CLIENTE)
+                : Pageable.unpaged(ORDEN_CLIENTE);
     }
 
     @Transactional(readOnly = true)
     public Page<PedidoDto> listarPedidos(Pageable pageable) {
-        return pedidoRepository.findAll(pageable).map(this::convertirADto);
+        return pedidoRepository.findAllDto(pageable);
+    }
+
+    // Paginación por cursor: sin COUNT y con coste constante sin importar la profundidad
+    @Transactional(readOnly = true)
+    public PaginaCursorDto<PedidoDto> listarPedidosPorCursor(Long restauranteId, Long clienteId, EstadoPedido estado,
+                                                             String after, Integer tamano) {
+        int limite = PaginaCursorDto.normalizarTamano(tamano);
+        Cursor cursor = Cursor.desdeToken(after);
+        // Los pedidos de un cliente incluyen los archivados; el resto de listados solo recorre la tabla activa
+        List<PedidoDto> filas = clienteId != null
+                ? delClienteDespuesDe(clienteId, restauranteId, estado, cursor, limite + 1)
+                : pedidoRepository.buscarDespuesDe(restauranteId, null, estado, cursor, limite + 1);
+        return PaginaCursorDto.de(filas, limite, Function.identity(), p -> new Cursor(p.getFechaPedido(), p.getId()));
+    }
+
+    // Primeras 'limite' filas tras el cursor entre pedidos activos y archivados del cliente: cada tabla se lee
+    // por keyset con el mismo cursor y las dos listas, ya ordenadas, se mezclan
+    private List<PedidoDto> delClienteDespuesDe(Long clienteId, Long restauranteId, EstadoPedido estado,
+                                                Cursor cursor, int limite) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        List<PedidoDto> activos = pedidoRepository.buscarDespuesDe(restauranteId, clienteId, estado, cursor, limite);
+        List<PedidoDto> archivados = pedidoHistoricoRepository.buscarDelClienteDespuesDe(clienteId, restauranteId, estado,
+                cursor.fecha(), cursor.id(), PageRequest.of(0, limite));
+
+        List<PedidoDto> mezcla = new ArrayList<>(limite);
+        int i = 0;
+        int j = 0;
+        while (mezcla.size() < limite && (i < activos.size() || j < archivados.size())) {
+            if (j == archivados.size()
+                    || (i < activos.size() && RECIENTES_PRIMERO.compare(activos.get(i), archivados.get(j)) <= 0)) {
+                mezcla.add(activos.get(i++));
+            } else {
+                mezcla.add(archivados.get(j++));
+            }
+        }
+        return mezcla;
     }
 
     // Métodos existentes renombrados para evitar conflictos
@@ -284,14 +426,26 @@ public class PedidoService {
     }
 
     public Pedido actualizarEstado(Long id, EstadoPedido nuevoEstado) {
-        // Método genérico para cambiar estado
-        Pedido pedido = obtenerPorId(id);
-        pedido.setEstado(nuevoEstado);
-        return pedidoRepository.save(pedido);
+        // Método genérico para cambiar estado, validado contra la tabla de transiciones de EstadoPedido
+        transicionPedidoService.transicionar(id, nuevoEstado, origenesSinEntrega(nuevoEstado));
+        return obtenerPorId(id);
+    }
+
+    // Un pedido en tránsito tiene una entrega y un repartidor ocupado: solo EntregaService lo mueve
+    // (entregada, fallida), cerrando la entrega y liberando al repartidor en la misma transacción
+    private static Set<EstadoPedido> origenesSinEntrega(EstadoPedido nuevoEstado) {
+        if (nuevoEstado == EstadoPedido.EN_TRANSITO || nuevoEstado == EstadoPedido.ENTREGADO) {
+            throw new IllegalStateException(
+                    "El pedido pasa a " + nuevoEstado + " a través de su entrega, no desde el pedido");
+        }
+        Set<EstadoPedido> origenes = EnumSet.noneOf(EstadoPedido.class);
+        origenes.addAll(nuevoEstado.getEstadosOrigen());
+        origenes.remove(EstadoPedido.EN_TRANSITO);
+        return origenes;
     }
 
     public Pedido actualizar(Long id, Pedido pedidoActualizado) {
-        Pedido pedidoExistente = obtenerPorId(id);
+        Pedido pedidoExistente = obtenerModificable(id);
         // Actualizar campos básicos sin cambiar estado
         pedidoExistente.setNotas(pedidoActualizado.getNotas());
         pedidoExistente.setDireccionEntrega(pedidoActualizado.getDireccionEntrega());
@@ -306,6 +460,8 @@ public class PedidoService {
         dto.setRestauranteId(pedido.getRestaurante().getId());
         dto.setFechaPedido(pedido.getFechaPedido());
         dto.setTotal(pedido.getTotal());
+        dto.setDescuento(pedido.getDescuento());
+        dto.setPromocionId(pedido.getPromocion() != null ? pedido.getPromocion().getId() : null);
         dto.setEstado(pedido.getEstado());
         dto.setDireccionEntrega(pedido.getDireccionEntrega());
         dto.setNotas(pedido.getNotas());
@@ -315,17 +471,61 @@ public class PedidoService {
         return dto;
     }
 
+    private DetallePedidoDto convertirDetalleADto(DetallePedido detalle) {
+        DetallePedidoDto dto = new DetallePedidoDto();
+        dto.setId(detalle.getId());
+        dto.setPedidoId(detalle.getPedido().getId());
+        dto.setMenuId(detalle.getMenu().getId());
+        dto.setMenuNombre(detalle.getMenu().getNombre());
+        dto.setCantidad(detalle.getCantidad());
+        dto.setPrecioUnitario(detalle.getPrecioUnitario());
+        dto.setSubtotal(detalle.getSubtotal());
+        return dto;
+    }
+
     private Pedido convertirCrearDtoAEntidad(CrearPedidoDto dto) {
         Pedido pedido = new Pedido();
-        // Configurar cliente y restaurante desde los IDs
-        // Esta implementación se completará según las necesidades específicas
+
+        // Cliente y restaurante se resuelven en crearPedido a partir de sus IDs
+        Cliente cliente = new Cliente();
+        cliente.setId(dto.getClienteId());
+        pedido.setCliente(cliente);
+
+        Restaurante restaurante = new Restaurante();
+        restaurante.setId(dto.getRestauranteId());
+        pedido.setRestaurante(restaurante);
+
+        pedido.setDireccionEntrega(dto.getDireccionEntrega());
+        pedido.setNotas(dto.getNotas());
+        pedido.setMetodoPago(dto.getMetodoPago() != null ? dto.getMetodoPago() : "EFECTIVO");
         return pedido;
     }
 
     private List<DetallePedido> convertirDetallesDtoAEntidad(List<DetallePedidoDto> detallesDto, Pedido pedido) {
-        // Convertir detalles DTO a entidades
-        // Esta implementación se completará según las necesidades específicas
-        return new ArrayList<>();
+        List<DetallePedido> detalles = new ArrayList<>();
+        if (detallesDto == null) {
+            return detalles;
+        }
+
+        for (DetallePedidoDto detalleDto : detallesDto) {
+            if (detalleDto.getMenuId() == null) {
+                throw new IllegalArgumentException("El menú es obligatorio en cada detalle");
+            }
+            if (detalleDto.getCantidad() == null || detalleDto.getCantidad() < 1) {
+                throw new IllegalArgumentException("La cantidad debe ser al menos 1");
+            }
+
+            // El precio y el subtotal se calculan en el servidor, nunca se toman del cliente
+            Menu menu = new Menu();
+            menu.setId(detalleDto.getMenuId());
+
+            DetallePedido detalle = new DetallePedido();
+            detalle.setPedido(pedido);
+            detalle.setMenu(menu);
+            detalle.setCantidad(detalleDto.getCantidad());
+            detalles.add(detalle);
+        }
+        return detalles;
     }
 
     private Pedido convertirDtoAEntidad(PedidoDto dto) {
@@ -0,0 +1,151 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoEventoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream SSE de pedidos por restaurante para los paneles de cocina.
+ * Cada suscriptor tiene una cola acotada y un hilo virtual que la vacía y envía heartbeats,
+ * así una conexión inactiva solo cuesta un hilo virtual bloqueado y un cliente lento nunca
+ * frena la transacción que publica el cambio. Si la cola se llena se cierra la conexión
+ * y el cliente, al reconectar, recibe de nuevo los pedidos activos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PedidoStreamService {
+
+    private final PedidoRepository pedidoRepository;
+    private final RestauranteRepository restauranteRepository;
+
+    private final Map<Long, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+    private final ExecutorService emisores = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.pedido.stream.buffer:256}")
+    private int capacidadBuffer;
+
+    @Value("${app.pedido.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${app.pedido.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public SseEmitter suscribir(Long restauranteId) {
+        if (!restauranteRepository.existsById(restauranteId)) {
+            throw new EntityNotFoundException("Restaurante no encontrado con ID: " + restauranteId);
+        }
+
+        Suscriptor suscriptor = new Suscriptor(restauranteId, new SseEmitter(timeoutMs), new ArrayBlockingQueue<>(capacidadBuffer));
+        suscriptor.emitter.onCompletion(() -> cancelar(suscriptor));
+        suscriptor.emitter.onTimeout(() -> cancelar(suscriptor));
+        suscriptor.emitter.onError(e -> cancelar(suscriptor));
+
+        // Se registra antes de leer los pedidos activos para no perder cambios intermedios
+        suscriptores.computeIfAbsent(restauranteId, id -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        emisores.execute(() -> emitir(suscriptor));
+        return suscriptor.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstadoPedido(PedidoEstadoCambiadoEvent evento) {
+        if (suscriptores.isEmpty() || evento.estadoNuevo() == null) {
+            return;
+        }
+
+        pedidoRepository.findDtoById(evento.pedidoId()).ifPresent(pedido -> {
+            Set<Suscriptor> destino = suscriptores.get(pedido.getRestauranteId());
+            if (destino == null) {
+                return;
+            }
+            PedidoEventoDto dto = new PedidoEventoDto(
+                    evento.estadoAnterior() == null ? PedidoEventoDto.CREADO : PedidoEventoDto.ESTADO,
+                    evento.pedidoId(), pedido.getRestauranteId(), evento.estadoAnterior(), evento.estadoNuevo(),
+                    LocalDateTime.now(), pedido);
+            for (Suscriptor suscriptor : destino) {
+                if (!suscriptor.cola.offer(dto)) {
+                    log.debug("Cola llena para un suscriptor del restaurante {}, se cierra la conexión", suscriptor.restauranteId);
+                    suscriptor.emitter.complete();
+                    cancelar(suscriptor);
+                }
+            }
+        });
+    }
+
+    private void emitir(Suscriptor suscriptor) {
+        try {
+            suscriptor.emitter.send(SseEmitter.event().name("pedidos-activos")
+                    .data(pedidoRepository.findDtoActivosByRestauranteId(suscriptor.restauranteId), MediaType.APPLICATION_JSON));
+
+            while (suscriptor.activo) {
+                PedidoEventoDto evento = suscriptor.cola.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                if (!suscriptor.activo) {
+                    break;
+                }
+                if (evento == null) {
+                    suscriptor.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    suscriptor.emitter.send(SseEmitter.event().name(evento.getTipo())
+                            .data(evento, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // El cliente se desconectó o el emitter ya estaba cerrado
+            suscriptor.emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            suscriptor.emitter.complete();
+        } finally {
+            cancelar(suscriptor);
+        }
+    }
+
+    private void cancelar(Suscriptor suscriptor) {
+        suscriptor.activo = false;
+        suscriptores.computeIfPresent(suscriptor.restauranteId, (id, destino) -> {
+            destino.remove(suscriptor);
+            return destino.isEmpty() ? null : destino;
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        suscriptores.values().forEach(destino -> destino.forEach(suscriptor -> suscriptor.emitter.complete()));
+        suscriptores.clear();
+        emisores.shutdownNow();
+    }
+
+    private static final class Suscriptor {
+        private final Long restauranteId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<PedidoEventoDto> cola;
+        private volatile boolean activo = true;
+
+        private Suscriptor(Long restauranteId, SseEmitter emitter, BlockingQueue<PedidoEventoDto> cola) {
+            this.restauranteId = restauranteId;
+            this.emitter = emitter;
+            this.cola = cola;
+        }
+    }
+}
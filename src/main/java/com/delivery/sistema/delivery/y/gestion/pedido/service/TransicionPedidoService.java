@@ -0,0 +1,142 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.ResultadoCambioEstadoDto;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motor de transiciones de estado de pedidos.
+ * Cada cambio es un UPDATE condicionado al estado actual, por lo que dos
+ * peticiones concurrentes no pueden aplicar la misma transición dos veces.
+ * No refresca instancias de Pedido ya cargadas en la transacción.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TransicionPedidoService {
+
+    private static final int MAX_INTENTOS = 3;
+
+    private final PedidoRepository pedidoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @return el estado desde el que se hizo la transición
+     */
+    public EstadoPedido transicionar(Long pedidoId, EstadoPedido nuevoEstado) {
+        return transicionar(pedidoId, nuevoEstado, nuevoEstado.getEstadosOrigen());
+    }
+
+    /**
+     * Igual que {@link #transicionar(Long, EstadoPedido)} pero admitiendo solo un subconjunto de los estados de origen.
+     */
+    public EstadoPedido transicionar(Long pedidoId, EstadoPedido nuevoEstado, Set<EstadoPedido> estadosOrigen) {
+        if (estadosOrigen.isEmpty()) {
+            throw new IllegalStateException("Ningún pedido puede pasar al estado " + nuevoEstado);
+        }
+
+        EstadoPedido estadoAnterior = estadosOrigen.size() == 1
+                ? transicionarDesdeUnico(pedidoId, nuevoEstado, estadosOrigen)
+                : transicionarDesdeActual(pedidoId, nuevoEstado, estadosOrigen);
+
+        eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(pedidoId, estadoAnterior, nuevoEstado));
+        return estadoAnterior;
+    }
+
+    /**
+     * Cambio masivo: bloquea los pedidos, descarta los que no admiten la transición y aplica
+     * el resto con un único UPDATE. El resultado conserva el orden de los ids recibidos.
+     */
+    public List<ResultadoCambioEstadoDto> transicionarEnLote(Collection<Long> pedidoIds, EstadoPedido nuevoEstado) {
+        return transicionarEnLote(pedidoIds, nuevoEstado, nuevoEstado.getEstadosOrigen());
+    }
+
+    public List<ResultadoCambioEstadoDto> transicionarEnLote(Collection<Long> pedidoIds, EstadoPedido nuevoEstado,
+                                                             Set<EstadoPedido> estadosOrigen) {
+        Map<Long, EstadoPedido> actuales = new HashMap<>();
+        for (Object[] fila : pedidoRepository.bloquearEstados(pedidoIds)) {
+            actuales.put((Long) fila[0], (EstadoPedido) fila[1]);
+        }
+
+        List<ResultadoCambioEstadoDto> resultados = new ArrayList<>();
+        Map<Long, EstadoPedido> aplicables = new LinkedHashMap<>();
+        for (Long pedidoId : new LinkedHashSet<>(pedidoIds)) {
+            EstadoPedido actual = actuales.get(pedidoId);
+            if (actual == null) {
+                resultados.add(ResultadoCambioEstadoDto.rechazado(pedidoId, "Pedido no encontrado con ID: " + pedidoId));
+            } else if (!estadosOrigen.contains(actual)) {
+                resultados.add(ResultadoCambioEstadoDto.rechazado(pedidoId, "No se puede cambiar el pedido de " + actual + " a " + nuevoEstado));
+            } else {
+                aplicables.put(pedidoId, actual);
+                resultados.add(ResultadoCambioEstadoDto.aplicado(pedidoId, actual));
+            }
+        }
+
+        aplicarEnLote(aplicables, nuevoEstado);
+        return resultados;
+    }
+
+    /**
+     * Aplica una transición ya validada a pedidos bloqueados en la transacción actual.
+     */
+    public void aplicarEnLote(Map<Long, EstadoPedido> estadosAnteriores, EstadoPedido nuevoEstado) {
+        if (estadosAnteriores.isEmpty()) {
+            return;
+        }
+        int actualizados = pedidoRepository.actualizarEstadoEnLoteSiPermitido(
+                estadosAnteriores.keySet(), nuevoEstado, nuevoEstado.getEstadosOrigen(), LocalDateTime.now());
+        if (actualizados != estadosAnteriores.size()) {
+            throw new IllegalStateException("Algunos pedidos cambiaron de estado mientras se actualizaban, intente nuevamente");
+        }
+        estadosAnteriores.forEach((pedidoId, anterior) ->
+                eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(pedidoId, anterior, nuevoEstado)));
+    }
+
+    // Con un único origen posible, un solo UPDATE basta para aplicar y conocer el estado anterior
+    private EstadoPedido transicionarDesdeUnico(Long pedidoId, EstadoPedido nuevoEstado, Set<EstadoPedido> estadosOrigen) {
+        if (pedidoRepository.actualizarEstadoSiPermitido(pedidoId, nuevoEstado, estadosOrigen, LocalDateTime.now()) == 0) {
+            throw rechazo(pedidoId, nuevoEstado);
+        }
+        return estadosOrigen.iterator().next();
+    }
+
+    // Con varios orígenes se lee el estado actual y el UPDATE se condiciona a ese valor exacto;
+    // si otra transacción lo cambió entre medias, se vuelve a intentar
+    private EstadoPedido transicionarDesdeActual(Long pedidoId, EstadoPedido nuevoEstado, Set<EstadoPedido> estadosOrigen) {
+        for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+            EstadoPedido actual = pedidoRepository.findEstadoById(pedidoId)
+                    .orElseThrow(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + pedidoId));
+            if (!estadosOrigen.contains(actual)) {
+                throw new IllegalStateException("No se puede cambiar el pedido de " + actual + " a " + nuevoEstado);
+            }
+            if (pedidoRepository.actualizarEstadoSiPermitido(pedidoId, nuevoEstado, Set.of(actual), LocalDateTime.now()) == 1) {
+                return actual;
+            }
+        }
+        throw new IllegalStateException("El pedido " + pedidoId + " cambió de estado mientras se actualizaba, intente nuevamente");
+    }
+
+    // Solo se consulta el estado actual cuando la transición falla, para informar el motivo
+    private RuntimeException rechazo(Long pedidoId, EstadoPedido nuevoEstado) {
+        return pedidoRepository.findEstadoById(pedidoId)
+                .<RuntimeException>map(actual -> new IllegalStateException(
+                        "No se puede cambiar el pedido de " + actual + " a " + nuevoEstado))
+                .orElseGet(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + pedidoId));
+    }
+}
@@ -0,0 +1,89 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.ReporteVentasDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.VentaDiariaDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.VentaDiariaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ventas diarias por restaurante.
+ * La tabla venta_diaria se mantiene de forma incremental: suma cuando un pedido llega a ENTREGADO
+ * y resta si después sale de ese estado (cancelación). Los reportes suman las filas de los días
+ * cerrados y calculan el día de hoy directamente sobre los pedidos.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class VentaDiariaService {
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final PedidoRepository pedidoRepository;
+
+    // Síncrono, dentro de la transacción del cambio de estado: el acumulado se confirma o revierte con él
+    @EventListener
+    public void alCambiarEstadoPedido(PedidoEstadoCambiadoEvent evento) {
+        int signo;
+        if (evento.estadoNuevo() == EstadoPedido.ENTREGADO) {
+            signo = 1;
+        } else if (evento.estadoAnterior() == EstadoPedido.ENTREGADO) {
+            signo = -1;
+        } else {
+            return;
+        }
+
+        Pedido pedido = pedidoRepository.findById(evento.pedidoId())
+                .orElseThrow(() -> new EntityNotFoundException("Pedido no encontrado con ID: " + evento.pedidoId()));
+        ventaDiariaRepository.acumular(pedido.getRestaurante().getId(), pedido.getFechaPedido().toLocalDate(),
+                signo, signo > 0 ? pedido.getTotal() : pedido.getTotal().negate());
+    }
+
+    @Transactional(readOnly = true)
+    public ReporteVentasDto reporte(Long restauranteId, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+
+        LocalDate hoy = LocalDate.now();
+        List<VentaDiariaDto> dias = new ArrayList<>();
+        LocalDate ultimoCerrado = fechaFin.isBefore(hoy) ? fechaFin : hoy.minusDays(1);
+        if (!fechaInicio.isAfter(ultimoCerrado)) {
+            dias.addAll(ventaDiariaRepository.sumarPorDia(restauranteId, fechaInicio, ultimoCerrado));
+        }
+        if (!hoy.isBefore(fechaInicio) && !hoy.isAfter(fechaFin)) {
+            dias.addAll(pedidoRepository.sumarVentasEntregadasPorDia(restauranteId, hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay()));
+        }
+
+        long cantidadPedidos = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (VentaDiariaDto dia : dias) {
+            cantidadPedidos += dia.getCantidadPedidos();
+            total = total.add(dia.getTotal());
+        }
+        return new ReporteVentasDto(restauranteId, fechaInicio, fechaFin, cantidadPedidos, total, dias);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal calcularTotal(Long restauranteId, LocalDate fechaInicio, LocalDate fechaFin) {
+        return reporte(restauranteId, fechaInicio, fechaFin).getTotal();
+    }
+
+    public void reconstruir(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        ventaDiariaRepository.reconstruir(fechaInicio, fechaFin);
+    }
+}
@@ -0,0 +1,58 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.controller;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.service.AutocompletadoService;
+import com.delivery.sistema.delivery.y.gestion.restaurante.service.BusquedaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/busqueda")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Tag(name = "Búsqueda", description = "Búsqueda de texto en restaurantes y menús")
+@SecurityRequirement(name = "bearerAuth")
+public class BusquedaController {
+
+    private final BusquedaService busquedaService;
+    private final AutocompletadoService autocompletadoService;
+
+    @GetMapping
+    @Operation(summary = "Buscar restaurantes y menús",
+               description = "Busca por nombre, descripción y dirección sin distinguir mayúsculas ni tildes; "
+                       + "los resultados vienen ordenados por relevancia. tipo permite limitar a RESTAURANTE o MENU")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resultados obtenidos exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Texto de búsqueda o límite inválidos"),
+        @ApiResponse(responseCode = "409", description = "El índice de búsqueda todavía se está construyendo")
+    })
+    public ResponseEntity<List<ResultadoBusquedaDto>> buscar(
+            @RequestParam String q,
+            @RequestParam(required = false) ResultadoBusquedaDto.Tipo tipo,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(busquedaService.buscar(q, tipo, limite));
+    }
+
+    @GetMapping("/autocompletar")
+    @Operation(summary = "Autocompletar nombres",
+               description = "Sugiere nombres de restaurantes, menús y categorías que empiezan con el texto o se le parecen "
+                       + "(tolera errores de tipeo); las sugerencias se ordenan por coincidencia y popularidad")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Texto o límite inválidos")
+    })
+    public ResponseEntity<List<SugerenciaDto>> autocompletar(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limite) {
+        return ResponseEntity.ok(autocompletadoService.sugerir(q, limite));
+    }
+}
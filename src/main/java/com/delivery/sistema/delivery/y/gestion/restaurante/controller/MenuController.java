@@ -1,6 +1,8 @@
 package com.delivery.sistema.delivery.y.gestion.restaurante.controller;
 
 import com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoImportacionDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.service.ImportacionMenuService;
 import com.delivery.sistema.delivery.y.gestion.restaurante.service.MenuService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,6 +12,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +20,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/api/menus")
 @RequiredArgsConstructor
@@ -26,6 +32,7 @@ import jakarta.validation.Valid;
 public class MenuController {
 
     private final MenuService menuService;
+    private final ImportacionMenuService importacionMenuService;
 
     @GetMapping
     @Operation(summary = "Listar menús", 
@@ -77,6 +84,35 @@ public class MenuController {
         return ResponseEntity.ok(menuService.crearMenu(menuDto));
     }
 
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#restauranteId, authentication.name))")
+    @Operation(summary = "Importar menús desde CSV",
+               description = "Crea en lote los menús de un restaurante a partir de un CSV con cabecera (nombre, descripcion, precio, categoria o categoriaId, imagenUrl, disponible)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación procesada; las filas rechazadas se indican en el resultado"),
+        @ApiResponse(responseCode = "400", description = "Cabecera del CSV inválida"),
+        @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
+    })
+    public ResponseEntity<ResultadoImportacionDto> importarMenusCsv(
+            @RequestParam Long restauranteId,
+            InputStream cuerpo) throws IOException {
+        return ResponseEntity.ok(importacionMenuService.importarCsv(restauranteId, cuerpo));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#restauranteId, authentication.name))")
+    @Operation(summary = "Importar menús desde JSON",
+               description = "Crea en lote los menús de un restaurante a partir de un arreglo JSON de menús")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación procesada; las filas rechazadas se indican en el resultado"),
+        @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
+    })
+    public ResponseEntity<ResultadoImportacionDto> importarMenusJson(
+            @RequestParam Long restauranteId,
+            InputStream cuerpo) throws IOException {
+        return ResponseEntity.ok(importacionMenuService.importarJson(restauranteId, cuerpo));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @menuService.esOwnerDelMenu(#id, authentication.name))")
     @Operation(summary = "Actualizar menú", 
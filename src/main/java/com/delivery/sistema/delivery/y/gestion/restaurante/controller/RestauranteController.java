@@ -2,6 +2,13 @@ package com.delivery.sistema.delivery.y.gestion.restaurante.controller;
 
 import com.delivery.sistema.delivery.y.gestion.restaurante.dto.RestauranteDto;
 import com.delivery.sistema.delivery.y.gestion.restaurante.service.RestauranteService;
+import com.delivery.sistema.delivery.y.gestion.restaurante.service.VitrinaService;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.CalificacionDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PromocionDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PromocionPublicaDto;
+import com.delivery.sistema.delivery.y.gestion.shared.service.CalificacionService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.PromocionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -10,11 +17,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.time.LocalTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,6 +40,9 @@ import java.util.Map;
 public class RestauranteController {
 
     private final RestauranteService restauranteService;
+    private final CalificacionService calificacionService;
+    private final PromocionService promocionService;
+    private final VitrinaService vitrinaService;
 
     @GetMapping
     @Operation(summary = "Listar restaurantes", 
@@ -53,6 +70,64 @@ public class RestauranteController {
         return ResponseEntity.ok(restauranteService.obtenerRestaurantePorId(id));
     }
 
+    @GetMapping("/abiertos")
+    @Operation(summary = "Listar restaurantes abiertos",
+               description = "Restaurantes activos abiertos ahora según su horario, o a la hora indicada (HH:mm). "
+                       + "Los horarios que cruzan la medianoche se consideran abiertos hasta el cierre del día siguiente")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de restaurantes abiertos obtenida exitosamente")
+    })
+    public ResponseEntity<List<RestauranteDto>> listarAbiertos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME, fallbackPatterns = "HH:mm") LocalTime hora) {
+        return ResponseEntity.ok(restauranteService.listarAbiertos(hora));
+    }
+
+    @GetMapping("/{id}/abierto")
+    @Operation(summary = "Consultar si el restaurante está abierto",
+               description = "Indica si el restaurante está activo y dentro de su horario en este momento")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado de apertura obtenido"),
+        @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
+    })
+    public ResponseEntity<Map<String, Boolean>> estaAbierto(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("abierto", restauranteService.estaAbierto(id)));
+    }
+
+    @GetMapping("/{id}/vitrina")
+    @Operation(summary = "Obtener la vitrina del restaurante",
+               description = "Datos del restaurante, menús disponibles agrupados por categoría activa y resumen de calificaciones. "
+                       + "Responde con ETag; enviar If-None-Match para recibir 304 si no cambió")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Vitrina obtenida exitosamente"),
+        @ApiResponse(responseCode = "304", description = "La vitrina no cambió desde el ETag enviado"),
+        @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
+    })
+    public ResponseEntity<byte[]> obtenerVitrina(@PathVariable Long id, WebRequest request) {
+        VitrinaService.Entrada vitrina = vitrinaService.obtener(id);
+        if (request.checkNotModified(vitrina.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(vitrina.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .eTag(vitrina.etag())
+                .body(vitrina.cuerpo());
+    }
+
+    @GetMapping("/{id}/calificaciones")
+    @Operation(summary = "Listar calificaciones del restaurante",
+               description = "Paginación por cursor sobre (fechaCalificacion, id): enviar en 'after' el token 'siguiente' de la página anterior")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de calificaciones obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    public ResponseEntity<PaginaCursorDto<CalificacionDto>> listarCalificaciones(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(calificacionService.listarPorRestaurantePorCursor(id, after, size));
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('RESTAURANTE')")
     @Operation(summary = "Crear nuevo restaurante", 
@@ -121,4 +196,73 @@ public class RestauranteController {
     public ResponseEntity<RestauranteDto> cambiarEstado(@PathVariable Long id, @RequestParam boolean activo) {
         return ResponseEntity.ok(restauranteService.cambiarEstado(id, activo));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{id}/promociones")
+    @Operation(summary = "Listar promociones del restaurante",
+               description = "Obtiene las promociones activas del restaurante, sin sus códigos de canje")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Promociones obtenidas exitosamente")
+    })
+    public ResponseEntity<List<PromocionPublicaDto>> listarPromociones(@PathVariable Long id) {
+        return ResponseEntity.ok(promocionService.listarPublicasPorRestaurante(id));
+    }
+
+    @GetMapping("/{id}/promociones/gestion")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#id, authentication.name))")
+    @Operation(summary = "Listar promociones para gestión",
+               description = "Obtiene las promociones activas del restaurante con sus códigos y usos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Promociones obtenidas exitosamente"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos para gestionar promociones de este restaurante")
+    })
+    public ResponseEntity<List<PromocionDto>> listarPromocionesGestion(@PathVariable Long id) {
+        return ResponseEntity.ok(promocionService.listarPorRestaurante(id));
+    }
+
+    @PostMapping("/{id}/promociones")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#id, authentication.name))")
+    @Operation(summary = "Crear promoción",
+               description = "Crea una promoción del restaurante; sin código se aplica automáticamente a los pedidos que cumplan el monto mínimo")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Promoción creada exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o código duplicado"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos para gestionar promociones de este restaurante"),
+        @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
+    })
+    public ResponseEntity<PromocionDto> crearPromocion(
+            @PathVariable Long id,
+            @Valid @RequestBody PromocionDto promocionDto) {
+        return ResponseEntity.ok(promocionService.crear(id, promocionDto));
+    }
+
+    @PutMapping("/{id}/promociones/{promocionId}")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#id, authentication.name))")
+    @Operation(summary = "Actualizar promoción",
+               description = "Actualiza una promoción del restaurante")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Promoción actualizada exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o código duplicado"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos para gestionar promociones de este restaurante"),
+        @ApiResponse(responseCode = "404", description = "Promoción no encontrada")
+    })
+    public ResponseEntity<PromocionDto> actualizarPromocion(
+            @PathVariable Long id,
+            @PathVariable Long promocionId,
+            @Valid @RequestBody PromocionDto promocionDto) {
+        return ResponseEntity.ok(promocionService.actualizar(id, promocionId, promocionDto));
+    }
+
+    @DeleteMapping("/{id}/promociones/{promocionId}")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('RESTAURANTE') and @restauranteService.esOwner(#id, authentication.name))")
+    @Operation(summary = "Desactivar promoción",
+               description = "Desactiva una promoción; los pedidos que ya la usaron la conservan")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Promoción desactivada exitosamente"),
+        @ApiResponse(responseCode = "403", description = "Sin permisos para gestionar promociones de este restaurante"),
+        @ApiResponse(responseCode = "404", description = "Promoción no encontrada")
+    })
+    public ResponseEntity<Void> desactivarPromocion(@PathVariable Long id, @PathVariable Long promocionId) {
+        promocionService.desactivar(id, promocionId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+/**
+ * Texto indexable de un restaurante o de un menú. En un restaurante restauranteId es su propio id;
+ * direccion solo aplica a restaurantes. visible indica si debe aparecer en las búsquedas
+ * (restaurante activo, menú disponible).
+ */
+public record DocumentoBusquedaDto(
+        Long id,
+        Long restauranteId,
+        String nombre,
+        String descripcion,
+        String direccion,
+        Boolean visible) {
+
+    // Menús: sin dirección
+    public DocumentoBusquedaDto(Long id, Long restauranteId, String nombre, String descripcion, Boolean visible) {
+        this(id, restauranteId, nombre, descripcion, null, visible);
+    }
+}
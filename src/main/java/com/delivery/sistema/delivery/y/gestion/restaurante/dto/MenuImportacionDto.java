@@ -0,0 +1,36 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila de una importación masiva de menús. La categoría se indica por id (categoriaId) o por nombre (categoria).
+ */
+@Data
+@NoArgsConstructor
+public class MenuImportacionDto {
+
+    @NotBlank(message = "El nombre es obligatorio")
+    @Size(max = 100, message = "El nombre no puede exceder 100 caracteres")
+    private String nombre;
+
+    @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
+    private String descripcion;
+
+    @NotNull(message = "El precio es obligatorio")
+    @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor a 0")
+    @Digits(integer = 6, fraction = 2, message = "El precio debe tener máximo 6 dígitos enteros y 2 decimales")
+    private BigDecimal precio;
+
+    private Long categoriaId;
+
+    private String categoria;
+
+    @Size(max = 500, message = "La URL de imagen no puede exceder 500 caracteres")
+    private String imagenUrl;
+
+    private Boolean disponible = true;
+}
@@ -0,0 +1,18 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+/**
+ * Un resultado de la búsqueda de texto; los resultados vienen ordenados por puntaje descendente.
+ */
+public record ResultadoBusquedaDto(
+        Tipo tipo,
+        Long id,
+        String nombre,
+        String descripcion,
+        Long restauranteId,
+        double puntaje) {
+
+    public enum Tipo {
+        RESTAURANTE,
+        MENU
+    }
+}
@@ -0,0 +1,28 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva: filas leídas, filas insertadas y el motivo de cada fila rechazada.
+ * Las filas se numeran desde 1 sin contar la cabecera del CSV.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDto {
+    private int filas;
+    private int importadas;
+    private List<ErrorFila> errores;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private int fila;
+        private String motivo;
+    }
+}
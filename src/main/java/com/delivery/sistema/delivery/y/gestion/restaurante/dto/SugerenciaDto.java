@@ -0,0 +1,18 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+/**
+ * Sugerencia de autocompletado. Si varios elementos del mismo tipo comparten el nombre se sugiere una sola vez,
+ * con el id del más popular.
+ */
+public record SugerenciaDto(
+        String texto,
+        Tipo tipo,
+        Long id,
+        double puntaje) {
+
+    public enum Tipo {
+        RESTAURANTE,
+        MENU,
+        CATEGORIA
+    }
+}
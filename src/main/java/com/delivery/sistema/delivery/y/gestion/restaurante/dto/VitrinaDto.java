@@ -0,0 +1,26 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vitrina pública de un restaurante: sus datos, los menús disponibles agrupados por categoría activa
+ * (en el orden de las categorías), el resumen de calificaciones y si está abierto según su horario.
+ * generadoEn es el instante en que se armó.
+ */
+public record VitrinaDto(
+        RestauranteDto restaurante,
+        List<Seccion> secciones,
+        ResumenCalificaciones calificaciones,
+        boolean abierto,
+        LocalDateTime generadoEn) {
+
+    public record Seccion(Long categoriaId, String nombre, String descripcion, Integer ordenMostrar, List<MenuDto> menus) {
+    }
+
+    // porPuntuacion tiene siempre las claves 1 a 5
+    public record ResumenCalificaciones(BigDecimal promedio, long total, Map<Integer, Long> porPuntuacion) {
+    }
+}
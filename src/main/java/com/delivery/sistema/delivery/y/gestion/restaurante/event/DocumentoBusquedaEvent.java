@@ -0,0 +1,10 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.event;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto.Tipo;
+
+/**
+ * Un restaurante o menú se guardó (documento con su texto actual) o se eliminó (documento null).
+ */
+public record DocumentoBusquedaEvent(Tipo tipo, Long id, DocumentoBusquedaDto documento) {
+}
@@ -0,0 +1,21 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.event;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+
+import java.time.LocalTime;
+
+/**
+ * Se publica dentro de la transacción que crea, modifica o elimina un restaurante, con el horario y el estado
+ * que quedan vigentes. Un restaurante eliminado se informa como inactivo.
+ */
+public record HorarioCambiadoEvent(Long restauranteId, LocalTime horaApertura, LocalTime horaCierre, boolean activo) {
+
+    public static HorarioCambiadoEvent de(Restaurante restaurante) {
+        return new HorarioCambiadoEvent(restaurante.getId(), restaurante.getHoraApertura(), restaurante.getHoraCierre(),
+                Boolean.TRUE.equals(restaurante.getActivo()));
+    }
+
+    public static HorarioCambiadoEvent eliminado(Long restauranteId) {
+        return new HorarioCambiadoEvent(restauranteId, null, null, false);
+    }
+}
@@ -0,0 +1,47 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.event;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de Restaurante y Menu: traduce cada alta, modificación o baja en un DocumentoBusquedaEvent.
+ * Hibernate lo obtiene como bean de Spring; el evento se aplica al índice recién cuando la transacción confirma.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndiceBusquedaListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void guardado(Object entidad) {
+        if (entidad instanceof Restaurante restaurante) {
+            eventPublisher.publishEvent(new DocumentoBusquedaEvent(Tipo.RESTAURANTE, restaurante.getId(),
+                    new DocumentoBusquedaDto(restaurante.getId(), restaurante.getId(), restaurante.getNombre(),
+                            restaurante.getDescripcion(), restaurante.getDireccion(), restaurante.getActivo())));
+        } else if (entidad instanceof Menu menu) {
+            // getId() de la referencia al restaurante no la inicializa
+            eventPublisher.publishEvent(new DocumentoBusquedaEvent(Tipo.MENU, menu.getId(),
+                    new DocumentoBusquedaDto(menu.getId(), menu.getRestaurante().getId(), menu.getNombre(),
+                            menu.getDescripcion(), null, menu.getDisponible())));
+        }
+    }
+
+    @PostRemove
+    public void eliminado(Object entidad) {
+        if (entidad instanceof Restaurante restaurante) {
+            eventPublisher.publishEvent(new DocumentoBusquedaEvent(Tipo.RESTAURANTE, restaurante.getId(), null));
+        } else if (entidad instanceof Menu menu) {
+            eventPublisher.publishEvent(new DocumentoBusquedaEvent(Tipo.MENU, menu.getId(), null));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.event;
+
+/**
+ * Un restaurante abrió o cerró: por su horario, en el minuto exacto de apertura o de cierre, o porque un cambio de
+ * horario o de estado confirmado lo abrió o cerró en el acto. Lo publica HorarioService fuera de toda transacción.
+ */
+public record RestauranteAperturaEvent(Long restauranteId, boolean abierto) {
+}
@@ -0,0 +1,13 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.event;
+
+/**
+ * Se publica dentro de la transacción que cambia datos visibles en la vitrina de un restaurante:
+ * sus datos, sus menús o sus calificaciones. restauranteId es null cuando el cambio afecta a todos
+ * los restaurantes (por ejemplo, una categoría).
+ */
+public record RestauranteCambiadoEvent(Long restauranteId) {
+
+    public static RestauranteCambiadoEvent todos() {
+        return new RestauranteCambiadoEvent(null);
+    }
+}
@@ -1,6 +1,7 @@
 package com.delivery.sistema.delivery.y.gestion.restaurante.model;
 
 import com.delivery.sistema.delivery.y.gestion.pedido.model.DetallePedido;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.IndiceBusquedaListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
@@ -20,6 +21,7 @@ import java.util.HashSet;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(IndiceBusquedaListener.class)
 @Table(name = "menu")
 public class Menu {
 
@@ -2,8 +2,11 @@ package com.delivery.sistema.delivery.y.gestion.restaurante.model;
 
 import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.IndiceBusquedaListener;
 import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -13,6 +16,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Set;
@@ -23,6 +27,7 @@ import java.util.HashSet;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(IndiceBusquedaListener.class)
 @Table(name = "restaurante")
 public class Restaurante {
 
@@ -52,6 +57,17 @@ public class Restaurante {
     @Column(name = "telefono", length = 20)
     private String telefono;
 
+    // Ubicación del local, para asignar el repartidor disponible más cercano
+    @DecimalMin(value = "-90.0", message = "La latitud debe estar entre -90 y 90")
+    @DecimalMax(value = "90.0", message = "La latitud debe estar entre -90 y 90")
+    @Column(precision = 10, scale = 8)
+    private BigDecimal latitud;
+
+    @DecimalMin(value = "-180.0", message = "La longitud debe estar entre -180 y 180")
+    @DecimalMax(value = "180.0", message = "La longitud debe estar entre -180 y 180")
+    @Column(precision = 11, scale = 8)
+    private BigDecimal longitud;
+
     @Column(name = "activo", nullable = false)
     private Boolean activo = true;
 
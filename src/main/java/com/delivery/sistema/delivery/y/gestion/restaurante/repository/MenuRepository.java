@@ -1,19 +1,31 @@
 package com.delivery.sistema.delivery.y.gestion.restaurante.repository;
 
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuDto;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface MenuRepository extends JpaRepository<Menu, Long> {
+public interface MenuRepository extends JpaRepository<Menu, Long>, MenuRepositoryCustom {
+
+    // Proyección directa a DTO para listados: una sola consulta y sin entidades gestionadas
+    String PROYECCION_DTO = "SELECT new com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuDto("
+            + "m.id, m.nombre, m.descripcion, m.precio, m.imagenUrl, m.disponible, cat.id, cat.nombre, "
+            + "r.id, r.nombre, m.fechaCreacion, m.fechaActualizacion) "
+            + "FROM Menu m JOIN m.categoria cat JOIN m.restaurante r";
 
     List<Menu> findByDisponibleTrueOrderByNombreAsc();
 
@@ -25,6 +37,23 @@ public interface MenuRepository extends JpaRepository<Menu, Long> {
 
     List<Menu> findByNombreContainingIgnoreCase(String nombre);
 
+    // Reconstrucción del índice de búsqueda; usar dentro de una transacción y cerrar el Stream
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto("
+            + "m.id, m.restaurante.id, m.nombre, m.descripcion, m.disponible) FROM Menu m")
+    Stream<DocumentoBusquedaDto> recorrerDocumentosBusqueda();
+
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto("
+            + "m.id, m.restaurante.id, m.nombre, m.descripcion, m.disponible) FROM Menu m WHERE m.restaurante.id = :restauranteId")
+    List<DocumentoBusquedaDto> findDocumentosBusquedaByRestauranteId(@Param("restauranteId") Long restauranteId);
+
+    // id, nombre y categoría de los menús que pueden sugerirse en el autocompletado
+    @Query("SELECT m.id, m.nombre, m.categoria.id FROM Menu m WHERE m.disponible = true AND m.restaurante.activo = true")
+    List<Object[]> findNombresSugeribles();
+
     Page<Menu> findByRestauranteId(Long restauranteId, Pageable pageable);
 
     Page<Menu> findByDisponibleTrue(Pageable pageable);
@@ -59,4 +88,23 @@ public interface MenuRepository extends JpaRepository<Menu, Long> {
     Page<Menu> findByRestauranteIdAndDisponibleTrue(Long restauranteId, Pageable pageable);
     
     Page<Menu> findByCategoriaId(Long categoriaId, Pageable pageable);
+
+    // Listados paginados proyectados a MenuDto
+    @Query(value = PROYECCION_DTO, countQuery = "SELECT COUNT(m) FROM Menu m")
+    Page<MenuDto> findAllDto(Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :restauranteId",
+            countQuery = "SELECT COUNT(m) FROM Menu m WHERE m.restaurante.id = :restauranteId")
+    Page<MenuDto> findDtoByRestauranteId(@Param("restauranteId") Long restauranteId, Pageable pageable);
+
+    @Query(value = PROYECCION_DTO + " WHERE r.id = :restauranteId AND m.disponible = true",
+            countQuery = "SELECT COUNT(m) FROM Menu m WHERE m.restaurante.id = :restauranteId AND m.disponible = true")
+    Page<MenuDto> findDtoByRestauranteIdAndDisponibleTrue(@Param("restauranteId") Long restauranteId, Pageable pageable);
+
+    @Query(PROYECCION_DTO + " WHERE r.id = :restauranteId AND m.disponible = true ORDER BY m.nombre")
+    List<MenuDto> findDtoVitrina(@Param("restauranteId") Long restauranteId);
+
+    @Query(value = PROYECCION_DTO + " WHERE cat.id = :categoriaId",
+            countQuery = "SELECT COUNT(m) FROM Menu m WHERE m.categoria.id = :categoriaId")
+    Page<MenuDto> findDtoByCategoriaId(@Param("categoriaId") Long categoriaId, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.repository;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+
+import java.util.List;
+
+public interface MenuRepositoryCustom {
+
+    /**
+     * Inserta los menús en un único lote JDBC; cada menú debe traer categoría y restaurante con id.
+     * Con IDENTITY Hibernate no agrupa los INSERT, por eso se hace directamente con JDBC.
+     */
+    void insertarEnLote(List<Menu> menus);
+}
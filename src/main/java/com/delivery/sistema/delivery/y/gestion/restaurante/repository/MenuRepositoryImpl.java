@@ -0,0 +1,39 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.repository;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class MenuRepositoryImpl implements MenuRepositoryCustom {
+
+    private static final String INSERT_MENU =
+            "INSERT INTO menu (nombre, descripcion, precio, imagen_url, disponible, categoria_id, restaurante_id, "
+                    + "fecha_creacion, fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertarEnLote(List<Menu> menus) {
+        if (menus.isEmpty()) {
+            return;
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_MENU, menus, menus.size(), (ps, menu) -> {
+            ps.setString(1, menu.getNombre());
+            ps.setString(2, menu.getDescripcion());
+            ps.setBigDecimal(3, menu.getPrecio());
+            ps.setString(4, menu.getImagenUrl());
+            ps.setBoolean(5, menu.getDisponible());
+            ps.setLong(6, menu.getCategoria().getId());
+            ps.setLong(7, menu.getRestaurante().getId());
+            ps.setTimestamp(8, ahora);
+            ps.setTimestamp(9, ahora);
+        });
+    }
+}
@@ -1,16 +1,21 @@
 package com.delivery.sistema.delivery.y.gestion.restaurante.repository;
 
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RestauranteRepository extends JpaRepository<Restaurante, Long> {
@@ -19,14 +24,27 @@ public interface RestauranteRepository extends JpaRepository<Restaurante, Long>
 
     List<Restaurante> findByNombreContainingIgnoreCase(String nombre);
 
+    // Reconstrucción del índice de búsqueda; usar dentro de una transacción y cerrar el Stream
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto("
+            + "r.id, r.id, r.nombre, r.descripcion, r.direccion, r.activo) FROM Restaurante r")
+    Stream<DocumentoBusquedaDto> recorrerDocumentosBusqueda();
+
     List<Restaurante> findByClienteId(Long clienteId);
 
     Page<Restaurante> findByActivoTrue(Pageable pageable);
 
     Page<Restaurante> findByNombreContainingIgnoreCaseAndActivoTrue(String nombre, Pageable pageable);
 
-    @Query("SELECT r FROM Restaurante r WHERE r.activo = true AND r.horaApertura <= :horaActual AND r.horaCierre >= :horaActual")
-    List<Restaurante> findRestaurantesAbiertos(@Param("horaActual") LocalTime horaActual);
+    @Query("SELECT r FROM Restaurante r JOIN FETCH r.cliente WHERE r.id IN :ids ORDER BY r.nombre")
+    List<Restaurante> findConClienteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Filas (id, horaApertura, horaCierre) de los restaurantes activos, para IndiceHorarios
+    @Query("SELECT r.id, r.horaApertura, r.horaCierre FROM Restaurante r WHERE r.activo = true")
+    List<Object[]> findHorariosActivos();
 
     @Query("SELECT r FROM Restaurante r WHERE LOWER(r.direccion) LIKE LOWER(CONCAT('%', :direccion, '%')) AND r.activo = true")
     List<Restaurante> findByDireccionContainingIgnoreCaseAndActivoTrue(@Param("direccion") String direccion);
@@ -37,9 +55,6 @@ public interface RestauranteRepository extends JpaRepository<Restaurante, Long>
     @Query("SELECT r FROM Restaurante r LEFT JOIN FETCH r.menus WHERE r.id = :restauranteId")
     Optional<Restaurante> findByIdWithMenus(@Param("restauranteId") Long restauranteId);
 
-    @Query("SELECT r FROM Restaurante r WHERE r.id = :restauranteId AND r.activo = true AND r.horaApertura <= CURRENT_TIME AND r.horaCierre >= CURRENT_TIME")
-    boolean isRestauranteAbierto(@Param("restauranteId") Long restauranteId);
-
     @Query("SELECT r FROM Restaurante r WHERE r.telefono = :telefono")
     Optional<Restaurante> findByTelefono(@Param("telefono") String telefono);
 
@@ -48,6 +63,8 @@ public interface RestauranteRepository extends JpaRepository<Restaurante, Long>
 
     boolean existsByClienteId(Long clienteId);
 
+    boolean existsByIdAndClienteEmail(Long id, String email);
+
     // Métodos agregados para corregir discrepancias con RestauranteService
     
     @Query("SELECT COUNT(r) FROM Restaurante r WHERE r.activo = true")
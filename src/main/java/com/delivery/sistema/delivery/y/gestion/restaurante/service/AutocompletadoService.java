@@ -0,0 +1,170 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.DetallePedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.VentaDiariaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.DocumentoBusquedaEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Autocompletado de nombres de restaurantes, menús y categorías servido desde un IndiceAutocompletado inmutable.
+ * Las consultas no tocan la base de datos ni toman locks. El índice se reconstruye entero cuando cambian
+ * restaurantes, menús o categorías (revisando cada app.autocompletado.revision-ms) y, para actualizar la popularidad,
+ * cada app.autocompletado.recalculo-ms. La popularidad es la cantidad pedida en los últimos
+ * app.autocompletado.popularidad-dias días: unidades para menús, pedidos para restaurantes y la suma de sus menús
+ * para categorías. Solo se calcula en el recálculo periódico; las reconstrucciones por cambios releen los nombres
+ * y reutilizan la última popularidad calculada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AutocompletadoService {
+
+    private static final int MAX_LONGITUD_CONSULTA = 100;
+
+    private final RestauranteRepository restauranteRepository;
+    private final MenuRepository menuRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.autocompletado.popularidad-dias:90}")
+    private int diasPopularidad;
+
+    @Value("${app.autocompletado.recalculo-ms:600000}")
+    private long recalculoMs;
+
+    private volatile IndiceAutocompletado indice = IndiceAutocompletado.VACIO;
+    // Cada cambio suma uno; el índice vigente refleja los cambios hasta cambiosAplicados
+    private final AtomicLong cambios = new AtomicLong(1);
+    private volatile long cambiosAplicados;
+    // Sumas de los últimos días por restaurante y por menú; solo las toca reconstruir, que es synchronized
+    private Popularidad popularidad;
+    private volatile long popularidadCalculadaEn;
+
+    private record Popularidad(Map<Long, Long> pedidosPorRestaurante, Map<Long, Long> unidadesPorMenu) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentoBusqueda(DocumentoBusquedaEvent event) {
+        cambios.incrementAndGet();
+    }
+
+    // Cubre los cambios de categorías, que no pasan por DocumentoBusquedaEvent
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestauranteCambiado(RestauranteCambiadoEvent event) {
+        cambios.incrementAndGet();
+    }
+
+    // Los cambios se agrupan: una ráfaga de ediciones produce una sola reconstrucción
+    @Scheduled(initialDelayString = "${app.autocompletado.revision-ms:5000}",
+               fixedDelayString = "${app.autocompletado.revision-ms:5000}")
+    public void revisar() {
+        boolean recalcular = System.currentTimeMillis() - popularidadCalculadaEn >= recalculoMs;
+        if (recalcular || cambios.get() != cambiosAplicados) {
+            reconstruir(recalcular);
+        }
+    }
+
+    public void reconstruir() {
+        reconstruir(true);
+    }
+
+    private synchronized void reconstruir(boolean recalcularPopularidad) {
+        long inicio = System.currentTimeMillis();
+        // Los cambios que lleguen durante la construcción quedan por encima de version y piden otra pasada;
+        // si construir falla, cambiosAplicados no avanza y la próxima revisión lo reintenta
+        long version = cambios.get();
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        IndiceAutocompletado nuevo = lectura.execute(status -> {
+            if (recalcularPopularidad || popularidad == null) {
+                popularidad = calcularPopularidad();
+                popularidadCalculadaEn = inicio;
+            }
+            return construir(popularidad);
+        });
+        indice = nuevo;
+        cambiosAplicados = version;
+        log.debug("Índice de autocompletado reconstruido: {} sugerencias en {} ms", nuevo.tamano(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    public List<SugerenciaDto> sugerir(String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("El texto a autocompletar es obligatorio");
+        }
+        if (consulta.length() > MAX_LONGITUD_CONSULTA) {
+            throw new IllegalArgumentException("El texto a autocompletar no puede exceder " + MAX_LONGITUD_CONSULTA + " caracteres");
+        }
+        if (limite < 1 || limite > IndiceAutocompletado.MAX_SUGERENCIAS) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + IndiceAutocompletado.MAX_SUGERENCIAS);
+        }
+        return indice.sugerir(consulta, limite);
+    }
+
+    private Popularidad calcularPopularidad() {
+        LocalDate desde = LocalDate.now().minusDays(diasPopularidad);
+        return new Popularidad(sumas(ventaDiariaRepository.sumarPedidosPorRestauranteDesde(desde)),
+                sumas(detallePedidoRepository.sumarCantidadPorMenuDesde(desde.atStartOfDay())));
+    }
+
+    private IndiceAutocompletado construir(Popularidad popularidad) {
+        Map<Long, Long> pedidosPorRestaurante = popularidad.pedidosPorRestaurante();
+        Map<Long, Long> unidadesPorMenu = popularidad.unidadesPorMenu();
+
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        for (Restaurante restaurante : restauranteRepository.findByActivoTrueOrderByNombreAsc()) {
+            constructor.agregar(Tipo.RESTAURANTE, restaurante.getId(), restaurante.getNombre(),
+                    pedidosPorRestaurante.getOrDefault(restaurante.getId(), 0L));
+        }
+        Map<Long, Long> unidadesPorCategoria = new HashMap<>();
+        for (Object[] fila : menuRepository.findNombresSugeribles()) {
+            Long menuId = (Long) fila[0];
+            long unidades = unidadesPorMenu.getOrDefault(menuId, 0L);
+            constructor.agregar(Tipo.MENU, menuId, (String) fila[1], unidades);
+            unidadesPorCategoria.merge((Long) fila[2], unidades, Long::sum);
+        }
+        for (Categoria categoria : categoriaRepository.findByActivoTrueOrderByOrdenMostrarAsc()) {
+            constructor.agregar(Tipo.CATEGORIA, categoria.getId(), categoria.getNombre(),
+                    unidadesPorCategoria.getOrDefault(categoria.getId(), 0L));
+        }
+        return constructor.construir();
+    }
+
+    private static Map<Long, Long> sumas(List<Object[]> filas) {
+        Map<Long, Long> sumas = new HashMap<>(filas.size() * 2);
+        for (Object[] fila : filas) {
+            sumas.put((Long) fila[0], ((Number) fila[1]).longValue());
+        }
+        return sumas;
+    }
+}
@@ -0,0 +1,155 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.DocumentoBusquedaEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.util.TextoBusqueda;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto sobre restaurantes y menús con un índice invertido en memoria (IndiceBusqueda),
+ * en lugar de consultas LIKE '%texto%' que recorren las tablas completas.
+ * El índice se mantiene con los eventos JPA de Restaurante y Menu (IndiceBusquedaListener), aplicados al confirmar,
+ * y se reconstruye en segundo plano al arrancar y cada madrugada para recoger lo que no pasa por JPA.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BusquedaService {
+
+    private static final int MAX_LONGITUD_CONSULTA = 200;
+
+    private final RestauranteRepository restauranteRepository;
+    private final MenuRepository menuRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceBusqueda indice = new IndiceBusqueda();
+    // Cambios llegados durante una reconstrucción; se vuelven a aplicar sobre el índice nuevo antes de publicarlo
+    private List<DocumentoBusquedaEvent> pendientes;
+    private volatile boolean listo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        Thread.ofVirtual().name("indice-busqueda").start(this::reconstruir);
+    }
+
+    // Recoge lo que no genera eventos JPA: actualizaciones masivas por JPQL o cambios hechos fuera de la aplicación
+    @Scheduled(cron = "${app.busqueda.reconstruccion-cron:0 0 5 * * *}")
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndiceBusqueda nuevo = new IndiceBusqueda();
+        try {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            lectura.executeWithoutResult(status -> {
+                try (Stream<DocumentoBusquedaDto> restaurantes = restauranteRepository.recorrerDocumentosBusqueda()) {
+                    restaurantes.forEach(documento -> nuevo.guardar(Tipo.RESTAURANTE, documento));
+                }
+                try (Stream<DocumentoBusquedaDto> menus = menuRepository.recorrerDocumentosBusqueda()) {
+                    menus.forEach(documento -> nuevo.guardar(Tipo.MENU, documento));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudo reconstruir el índice de búsqueda; se conserva el anterior", e);
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendientes.forEach(event -> aplicar(nuevo, event));
+            pendientes = null;
+            indice = nuevo;
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda reconstruido: {} documentos en {} ms", nuevo.tamano(), System.currentTimeMillis() - inicio);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentoBusqueda(DocumentoBusquedaEvent event) {
+        lock.writeLock().lock();
+        try {
+            aplicar(indice, event);
+            if (pendientes != null) {
+                pendientes.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reindexa los menús de un restaurante; para altas por JDBC (importación masiva) que no generan eventos JPA.
+     */
+    public void reindexarMenus(Long restauranteId) {
+        for (DocumentoBusquedaDto documento : menuRepository.findDocumentosBusquedaByRestauranteId(restauranteId)) {
+            onDocumentoBusqueda(new DocumentoBusquedaEvent(Tipo.MENU, documento.id(), documento));
+        }
+    }
+
+    public List<ResultadoBusquedaDto> buscar(String consulta, Tipo tipo, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda es obligatorio");
+        }
+        if (consulta.length() > MAX_LONGITUD_CONSULTA) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede exceder " + MAX_LONGITUD_CONSULTA + " caracteres");
+        }
+        if (limite < 1 || limite > 100) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y 100");
+        }
+        List<String> terminos = new ArrayList<>(new LinkedHashSet<>(TextoBusqueda.terminos(consulta)));
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        if (!listo) {
+            throw new IllegalStateException("El índice de búsqueda se está construyendo, intente nuevamente en unos segundos");
+        }
+
+        lock.readLock().lock();
+        try {
+            return indice.buscar(terminos, tipo, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void aplicar(IndiceBusqueda indice, DocumentoBusquedaEvent event) {
+        if (event.documento() == null) {
+            indice.eliminar(event.tipo(), event.id());
+        } else {
+            indice.guardar(event.tipo(), event.documento());
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.delivery.sistema.delivery.y.gestion.restaurante.service;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaRepository;
 import com.delivery.sistema.delivery.y.gestion.restaurante.dto.CategoriaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,7 @@ import java.util.Optional;
 public class CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Categoria> listarTodas() {
         return categoriaRepository.findAll();
@@ -63,6 +66,7 @@ public class CategoriaService {
             categoria.setOrdenMostrar(siguienteOrden);
         }
 
+        publicarCambio();
         return categoriaRepository.save(categoria);
     }
 
@@ -81,6 +85,7 @@ public class CategoriaService {
         categoriaExistente.setActivo(categoriaActualizada.getActivo());
         categoriaExistente.setOrdenMostrar(categoriaActualizada.getOrdenMostrar());
 
+        publicarCambio();
         return categoriaRepository.save(categoriaExistente);
     }
 
@@ -94,23 +99,27 @@ public class CategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        publicarCambio();
     }
 
     public void activar(Long id) {
         Categoria categoria = obtenerPorId(id);
         categoria.setActivo(true);
         categoriaRepository.save(categoria);
+        publicarCambio();
     }
 
     public void desactivar(Long id) {
         Categoria categoria = obtenerPorId(id);
         categoria.setActivo(false);
         categoriaRepository.save(categoria);
+        publicarCambio();
     }
 
     public CategoriaDto cambiarOrden(Long id, Integer nuevoOrden) {
         Categoria categoria = obtenerPorId(id);
         categoria.setOrdenMostrar(nuevoOrden);
+        publicarCambio();
         return convertirADto(categoriaRepository.save(categoria));
     }
 
@@ -180,6 +189,11 @@ public class CategoriaService {
         eliminar(id);
     }
 
+    // Las categorías son compartidas: cualquier cambio invalida la vitrina de todos los restaurantes
+    private void publicarCambio() {
+        eventPublisher.publishEvent(RestauranteCambiadoEvent.todos());
+    }
+
     // Métodos de conversión DTO
     private CategoriaDto convertirADto(Categoria categoria) {
         CategoriaDto dto = new CategoriaDto();
@@ -0,0 +1,170 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.HorarioCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteAperturaEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Responde "abierto ahora" y "abierto a tal hora" desde un IndiceHorarios en memoria, sin consultar la base de datos.
+ * El índice se carga al arrancar, se actualiza con cada HorarioCambiadoEvent confirmado y se recarga cada madrugada
+ * para recoger cambios hechos fuera de RestauranteService; los eventos que llegan durante la recarga se guardan y se
+ * repiten sobre el índice nuevo antes de publicarlo. Al comenzar cada minuto publica RestauranteAperturaEvent
+ * por los restaurantes que abren o cierran en ese minuto, para que las cachés cambien a la hora exacta.
+ * Una hora se evalúa por su minuto del día, en la zona horaria del servidor.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HorarioService {
+
+    private final RestauranteRepository restauranteRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceHorarios indice = new IndiceHorarios();
+    // Cambios llegados durante una recarga; se vuelven a aplicar sobre el índice nuevo antes de publicarlo
+    private List<HorarioCambiadoEvent> pendientes;
+    // Minuto hasta el que ya se publicaron las transiciones; -1 antes del primer recorrido. Solo lo usa el scheduler
+    private int ultimoMinuto = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recargar();
+    }
+
+    @Scheduled(cron = "${app.horarios.recarga-cron:0 15 4 * * *}")
+    public synchronized void recargar() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndiceHorarios nuevo = new IndiceHorarios();
+        try {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            List<Object[]> filas = lectura.execute(status -> restauranteRepository.findHorariosActivos());
+            for (Object[] fila : filas) {
+                if (fila[1] != null && fila[2] != null) {
+                    nuevo.guardar((Long) fila[0], (LocalTime) fila[1], (LocalTime) fila[2]);
+                }
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendientes.forEach(event -> aplicar(nuevo, event));
+            pendientes = null;
+            indice = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de horarios cargado: {} restaurantes en {} ms", nuevo.tamano(), System.currentTimeMillis() - inicio);
+    }
+
+    // Si el cambio abre o cierra el restaurante en el acto, también se publica la transición, ya con el índice al día
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHorarioCambiado(HorarioCambiadoEvent event) {
+        int minuto = IndiceHorarios.minuto(LocalTime.now());
+        boolean antes;
+        boolean despues;
+        lock.writeLock().lock();
+        try {
+            antes = indice.abierto(event.restauranteId(), minuto);
+            aplicar(indice, event);
+            if (pendientes != null) {
+                pendientes.add(event);
+            }
+            despues = indice.abierto(event.restauranteId(), minuto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (antes != despues) {
+            eventPublisher.publishEvent(new RestauranteAperturaEvent(event.restauranteId(), despues));
+        }
+    }
+
+    private static void aplicar(IndiceHorarios destino, HorarioCambiadoEvent event) {
+        if (event.activo() && event.horaApertura() != null && event.horaCierre() != null) {
+            destino.guardar(event.restauranteId(), event.horaApertura(), event.horaCierre());
+        } else {
+            destino.quitar(event.restauranteId());
+        }
+    }
+
+    @Scheduled(cron = "0 * * * * *")
+    public void publicarTransiciones() {
+        int minuto = IndiceHorarios.minuto(LocalTime.now());
+        int anterior = ultimoMinuto;
+        ultimoMinuto = minuto;
+        if (anterior < 0 || anterior == minuto) {
+            return;
+        }
+        IndiceHorarios.Transiciones transiciones;
+        lock.readLock().lock();
+        try {
+            transiciones = indice.transiciones(anterior, minuto);
+        } finally {
+            lock.readLock().unlock();
+        }
+        transiciones.abren().forEach(id -> eventPublisher.publishEvent(new RestauranteAperturaEvent(id, true)));
+        transiciones.cierran().forEach(id -> eventPublisher.publishEvent(new RestauranteAperturaEvent(id, false)));
+        if (!transiciones.abren().isEmpty() || !transiciones.cierran().isEmpty()) {
+            log.debug("Minuto {}: abren {} restaurantes, cierran {}", minuto, transiciones.abren().size(),
+                    transiciones.cierran().size());
+        }
+    }
+
+    public boolean estaAbierto(Long restauranteId) {
+        return estaAbiertoA(restauranteId, LocalTime.now());
+    }
+
+    public boolean estaAbiertoA(Long restauranteId, LocalTime hora) {
+        lock.readLock().lock();
+        try {
+            return indice.abierto(restauranteId, IndiceHorarios.minuto(hora));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> abiertos() {
+        return abiertosA(LocalTime.now());
+    }
+
+    public List<Long> abiertosA(LocalTime hora) {
+        lock.readLock().lock();
+        try {
+            return indice.abiertos(IndiceHorarios.minuto(hora));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuImportacionDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoImportacionDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoImportacionDto.ErrorFila;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.util.LectorCsv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importación masiva de menús de un restaurante desde CSV o desde un arreglo JSON.
+ * Las filas se leen de forma secuencial, se validan en memoria (las categorías se resuelven con una sola
+ * consulta al inicio) y se insertan con lotes JDBC de app.menu.importacion.lote filas, cada lote en su
+ * propia transacción: una importación grande no retiene bloqueos ni depende de una única transacción larga.
+ * Las filas inválidas no detienen la importación; se informan en el resultado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacionMenuService {
+
+    private final MenuRepository menuRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusquedaService busquedaService;
+
+    @Value("${app.menu.importacion.lote:500}")
+    private int tamanoLote;
+
+    /**
+     * CSV con cabecera; columnas reconocidas (sin distinguir mayúsculas): nombre, descripcion, precio,
+     * categoriaId, categoria, imagenUrl, disponible.
+     */
+    public ResultadoImportacionDto importarCsv(Long restauranteId, InputStream entrada) throws IOException {
+        Importacion importacion = iniciar(restauranteId);
+        Reader reader = new InputStreamReader(entrada, StandardCharsets.UTF_8);
+        LectorCsv lector = new LectorCsv(reader);
+
+        List<String> cabecera = lector.leer();
+        if (cabecera == null) {
+            throw new IllegalArgumentException("El archivo CSV está vacío");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            // Quita el BOM que algunas hojas de cálculo ponen al inicio
+            String nombre = i == 0 ? cabecera.get(i).replace("\uFEFF", "") : cabecera.get(i);
+            columnas.put(nombre.trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columnas.containsKey("nombre") || !columnas.containsKey("precio")
+                || (!columnas.containsKey("categoria") && !columnas.containsKey("categoriaid"))) {
+            throw new IllegalArgumentException("La cabecera del CSV debe incluir nombre, precio y categoria o categoriaId");
+        }
+
+        while (true) {
+            List<String> campos;
+            try {
+                campos = lector.leer();
+            } catch (IllegalArgumentException e) {
+                // Sin estructura no se puede seguir leyendo; lo ya insertado se conserva
+                importacion.rechazar(importacion.siguienteFila(), e.getMessage() + "; la lectura se detuvo aquí");
+                break;
+            }
+            if (campos == null) {
+                break;
+            }
+            int fila = importacion.siguienteFila();
+            try {
+                importacion.agregar(fila, desdeCsv(campos, columnas));
+            } catch (IllegalArgumentException e) {
+                importacion.rechazar(fila, e.getMessage());
+            }
+        }
+        return importacion.terminar();
+    }
+
+    public ResultadoImportacionDto importarJson(Long restauranteId, InputStream entrada) throws IOException {
+        Importacion importacion = iniciar(restauranteId);
+        // Cada elemento se lee como árbol y se convierte aparte, así un tipo incorrecto solo invalida su fila
+        try (MappingIterator<JsonNode> elementos = objectMapper.readerFor(JsonNode.class).readValues(entrada)) {
+            while (elementos.hasNextValue()) {
+                JsonNode elemento = elementos.nextValue();
+                int fila = importacion.siguienteFila();
+                try {
+                    importacion.agregar(fila, objectMapper.treeToValue(elemento, MenuImportacionDto.class));
+                } catch (JsonProcessingException e) {
+                    importacion.rechazar(fila, "Valor inválido: " + e.getOriginalMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            importacion.rechazar(importacion.siguienteFila(), "JSON inválido: " + e.getOriginalMessage() + "; la lectura se detuvo aquí");
+        }
+        return importacion.terminar();
+    }
+
+    private Importacion iniciar(Long restauranteId) {
+        Restaurante restaurante = restauranteRepository.findById(restauranteId)
+                .orElseThrow(() -> new EntityNotFoundException("Restaurante no encontrado con ID: " + restauranteId));
+
+        // La tabla de categorías es pequeña: una consulta y la resolución por id o nombre queda en memoria
+        Map<Long, Categoria> porId = new HashMap<>();
+        Map<String, Categoria> porNombre = new HashMap<>();
+        for (Categoria categoria : categoriaRepository.findAll()) {
+            porId.put(categoria.getId(), categoria);
+            porNombre.put(categoria.getNombre().trim().toLowerCase(Locale.ROOT), categoria);
+        }
+        return new Importacion(restaurante, porId, porNombre);
+    }
+
+    private MenuImportacionDto desdeCsv(List<String> campos, Map<String, Integer> columnas) {
+        MenuImportacionDto dto = new MenuImportacionDto();
+        dto.setNombre(campo(campos, columnas, "nombre"));
+        dto.setDescripcion(campo(campos, columnas, "descripcion"));
+        dto.setImagenUrl(campo(campos, columnas, "imagenurl"));
+        dto.setCategoria(campo(campos, columnas, "categoria"));
+
+        String precio = campo(campos, columnas, "precio");
+        if (precio != null) {
+            try {
+                dto.setPrecio(new BigDecimal(precio));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Precio inválido: " + precio);
+            }
+        }
+        String categoriaId = campo(campos, columnas, "categoriaid");
+        if (categoriaId != null) {
+            try {
+                dto.setCategoriaId(Long.valueOf(categoriaId));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id de categoría inválido: " + categoriaId);
+            }
+        }
+        String disponible = campo(campos, columnas, "disponible");
+        if (disponible != null) {
+            dto.setDisponible(switch (disponible.toLowerCase(Locale.ROOT)) {
+                case "true", "1", "si", "sí" -> true;
+                case "false", "0", "no" -> false;
+                default -> throw new IllegalArgumentException("Valor de disponible inválido: " + disponible);
+            });
+        }
+        return dto;
+    }
+
+    private static String campo(List<String> campos, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    // Estado de una importación en curso: el lote pendiente y los errores acumulados
+    private class Importacion {
+
+        private final Restaurante restaurante;
+        private final Map<Long, Categoria> categoriasPorId;
+        private final Map<String, Categoria> categoriasPorNombre;
+        private final TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        private final List<Menu> lote = new ArrayList<>();
+        private final List<Integer> filasLote = new ArrayList<>();
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int filas;
+        private int importadas;
+
+        Importacion(Restaurante restaurante, Map<Long, Categoria> categoriasPorId, Map<String, Categoria> categoriasPorNombre) {
+            this.restaurante = restaurante;
+            this.categoriasPorId = categoriasPorId;
+            this.categoriasPorNombre = categoriasPorNombre;
+        }
+
+        int siguienteFila() {
+            return ++filas;
+        }
+
+        void agregar(int fila, MenuImportacionDto dto) {
+            if (dto == null) {
+                rechazar(fila, "Fila vacía");
+                return;
+            }
+            List<String> violaciones = validator.validate(dto).stream()
+                    .sorted(Comparator.comparing(violacion -> violacion.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .toList();
+            if (!violaciones.isEmpty()) {
+                rechazar(fila, String.join("; ", violaciones));
+                return;
+            }
+
+            Categoria categoria = resolverCategoria(dto);
+            if (categoria == null) {
+                rechazar(fila, dto.getCategoriaId() == null && dto.getCategoria() == null
+                        ? "La categoría es obligatoria"
+                        : "Categoría no encontrada: " + (dto.getCategoriaId() != null ? dto.getCategoriaId() : dto.getCategoria()));
+                return;
+            }
+
+            Menu menu = new Menu();
+            menu.setNombre(dto.getNombre().trim());
+            menu.setDescripcion(dto.getDescripcion());
+            menu.setPrecio(dto.getPrecio());
+            menu.setImagenUrl(dto.getImagenUrl());
+            menu.setDisponible(dto.getDisponible() != null ? dto.getDisponible() : true);
+            menu.setCategoria(categoria);
+            menu.setRestaurante(restaurante);
+            lote.add(menu);
+            filasLote.add(fila);
+            if (lote.size() >= tamanoLote) {
+                insertarLote();
+            }
+        }
+
+        void rechazar(int fila, String motivo) {
+            errores.add(new ErrorFila(fila, motivo));
+        }
+
+        ResultadoImportacionDto terminar() {
+            insertarLote();
+            log.info("Importación de menús del restaurante {}: {} filas, {} importadas, {} con errores",
+                    restaurante.getId(), filas, importadas, errores.size());
+            if (importadas > 0) {
+                // Las inserciones JDBC no pasan por los eventos JPA que mantienen el índice de búsqueda
+                busquedaService.reindexarMenus(restaurante.getId());
+                eventPublisher.publishEvent(new RestauranteCambiadoEvent(restaurante.getId()));
+            }
+            errores.sort(Comparator.comparingInt(ErrorFila::getFila));
+            return new ResultadoImportacionDto(filas, importadas, errores);
+        }
+
+        private Categoria resolverCategoria(MenuImportacionDto dto) {
+            if (dto.getCategoriaId() != null) {
+                return categoriasPorId.get(dto.getCategoriaId());
+            }
+            if (dto.getCategoria() != null) {
+                return categoriasPorNombre.get(dto.getCategoria().trim().toLowerCase(Locale.ROOT));
+            }
+            return null;
+        }
+
+        // Si el lote falla en la base de datos se rechazan sus filas y la importación continúa con el siguiente
+        private void insertarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            try {
+                transaccion.executeWithoutResult(status -> menuRepository.insertarEnLote(lote));
+                importadas += lote.size();
+            } catch (DataAccessException e) {
+                log.warn("Lote de menús rechazado por la base de datos: {}", e.getMostSpecificCause().getMessage());
+                String motivo = "Error al guardar el lote: " + e.getMostSpecificCause().getMessage();
+                filasLote.forEach(fila -> rechazar(fila, motivo));
+            }
+            lote.clear();
+            filasLote.clear();
+        }
+    }
+}
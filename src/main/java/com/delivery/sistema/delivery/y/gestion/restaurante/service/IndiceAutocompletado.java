@@ -0,0 +1,450 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.shared.util.TextoBusqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice inmutable de autocompletado sobre nombres de restaurantes, menús y categorías.
+ * <ul>
+ *   <li>Un trie con el nombre normalizado y cada sufijo que empieza en una palabra ("lomo saltado" y "saltado"):
+ *       cada nodo guarda ya ordenadas las MAX_SUGERENCIAS mejores entradas de su subárbol, así una consulta por prefijo
+ *       es un recorrido de tantos nodos como caracteres tiene.</li>
+ *   <li>Para tolerar errores de tipeo ("sevi", "lomo saltdo") cada palabra de la consulta se compara contra el
+ *       vocabulario (las palabras distintas de todos los nombres, mucho menos que los nombres): los trigramas proponen
+ *       palabras candidatas y la distancia de edición contra sus prefijos decide. Después se cruzan las entradas que
+ *       contienen una palabra aceptada para cada palabra de la consulta.</li>
+ * </ul>
+ * El puntaje combina la calidad de la coincidencia con la popularidad (1 + ln(1 + popularidad)).
+ */
+final class IndiceAutocompletado {
+
+    static final int MAX_SUGERENCIAS = 10;
+
+    private static final Pattern ESPACIOS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double CALIDAD_NOMBRE = 1.0;
+    private static final double CALIDAD_PALABRA = 0.8;
+    private static final double CALIDAD_APROXIMADA = 0.6;
+    private static final int[] VACIO_INT = new int[0];
+
+    static final IndiceAutocompletado VACIO = new Constructor().construir();
+
+    private final String[] textos;
+    private final Tipo[] tipos;
+    private final long[] ids;
+    private final double[] pesos;
+    // Palabras de cada entrada, como posiciones en el vocabulario
+    private final int[][] palabrasPorEntrada;
+    // Vocabulario ordenado y, por palabra, las entradas que la contienen de mayor a menor peso
+    private final String[] vocabulario;
+    private final int[][] entradasPorPalabra;
+    private final Map<String, int[]> palabrasPorTrigrama;
+    private final Nodo raiz;
+
+    private IndiceAutocompletado(String[] textos, Tipo[] tipos, long[] ids, double[] pesos, int[][] palabrasPorEntrada,
+                                 String[] vocabulario, int[][] entradasPorPalabra, Map<String, int[]> palabrasPorTrigrama,
+                                 Nodo raiz) {
+        this.textos = textos;
+        this.tipos = tipos;
+        this.ids = ids;
+        this.pesos = pesos;
+        this.palabrasPorEntrada = palabrasPorEntrada;
+        this.vocabulario = vocabulario;
+        this.entradasPorPalabra = entradasPorPalabra;
+        this.palabrasPorTrigrama = palabrasPorTrigrama;
+        this.raiz = raiz;
+    }
+
+    int tamano() {
+        return textos.length;
+    }
+
+    List<SugerenciaDto> sugerir(String consulta, int limite) {
+        String[] consultaPalabras = palabras(consulta);
+        if (consultaPalabras.length == 0) {
+            return List.of();
+        }
+        String normalizada = String.join(" ", consultaPalabras);
+
+        // entrada -> mejor puntaje
+        Map<Integer, Double> puntajes = new HashMap<>();
+        Nodo nodo = raiz.buscar(normalizada);
+        if (nodo != null) {
+            for (int codigo : nodo.mejores) {
+                puntajes.merge(codigo >>> 1, puntaje(codigo), Math::max);
+            }
+        }
+        if (puntajes.size() < limite && normalizada.length() >= 3) {
+            aproximadas(consultaPalabras, puntajes, limite);
+        }
+
+        return puntajes.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(entrada -> textos[entrada.getKey()]))
+                .limit(limite)
+                .map(entrada -> new SugerenciaDto(textos[entrada.getKey()], tipos[entrada.getKey()],
+                        ids[entrada.getKey()], Math.round(entrada.getValue() * 10000) / 10000.0))
+                .toList();
+    }
+
+    private void aproximadas(String[] consultaPalabras, Map<Integer, Double> puntajes, int limite) {
+        // Por cada palabra de la consulta: palabra del vocabulario aceptada -> ediciones
+        List<Map<Integer, Integer>> aceptadas = new ArrayList<>(consultaPalabras.length);
+        int guia = -1;
+        long menorVolumen = Long.MAX_VALUE;
+        for (String palabra : consultaPalabras) {
+            Map<Integer, Integer> parecidas = parecidas(palabra);
+            if (parecidas.isEmpty()) {
+                return;
+            }
+            long volumen = 0;
+            for (int posicion : parecidas.keySet()) {
+                volumen += entradasPorPalabra[posicion].length;
+            }
+            if (volumen < menorVolumen) {
+                menorVolumen = volumen;
+                guia = aceptadas.size();
+            }
+            aceptadas.add(parecidas);
+        }
+
+        // Se recorren las entradas de la palabra más selectiva y se verifica el resto sobre las palabras de cada entrada.
+        // Las candidatas van de menos a más ediciones y sus entradas por peso descendente: cuando ni la cota del
+        // puntaje supera al peor de los elegidos, el resto de esa palabra tampoco puede entrar
+        PriorityQueue<double[]> peores = new PriorityQueue<>(limite + 1, Comparator.comparingDouble(par -> par[1]));
+        Map<Integer, Integer> candidatas = aceptadas.get(guia);
+        List<Integer> orden = new ArrayList<>(candidatas.keySet());
+        orden.sort(Comparator.comparing(candidatas::get));
+        Set<Integer> vistas = new HashSet<>();
+        for (int posicion : orden) {
+            double calidad = CALIDAD_APROXIMADA / (1 + candidatas.get(posicion));
+            for (int entrada : entradasPorPalabra[posicion]) {
+                if (peores.size() == limite && calidad * pesos[entrada] <= peores.peek()[1]) {
+                    break;
+                }
+                if (puntajes.containsKey(entrada) || contieneAlguna(entrada, vistas)) {
+                    continue;
+                }
+                int errores = errores(entrada, aceptadas);
+                if (errores < 0) {
+                    continue;
+                }
+                double puntaje = CALIDAD_APROXIMADA / (1 + errores) * pesos[entrada];
+                if (peores.size() < limite) {
+                    peores.add(new double[] {entrada, puntaje});
+                } else if (puntaje > peores.peek()[1]) {
+                    peores.poll();
+                    peores.add(new double[] {entrada, puntaje});
+                }
+            }
+            vistas.add(posicion);
+        }
+        for (double[] par : peores) {
+            puntajes.put((int) par[0], par[1]);
+        }
+    }
+
+    // Una entrada ya evaluada desde otra palabra candidata no se vuelve a evaluar
+    private boolean contieneAlguna(int entrada, Set<Integer> posiciones) {
+        for (int propia : palabrasPorEntrada[entrada]) {
+            if (posiciones.contains(propia)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Suma de ediciones si cada palabra de la consulta tiene una aceptada entre las de la entrada; -1 si alguna no
+    private int errores(int entrada, List<Map<Integer, Integer>> aceptadas) {
+        int total = 0;
+        for (Map<Integer, Integer> parecidas : aceptadas) {
+            int mejor = Integer.MAX_VALUE;
+            for (int propia : palabrasPorEntrada[entrada]) {
+                Integer ediciones = parecidas.get(propia);
+                if (ediciones != null && ediciones < mejor) {
+                    mejor = ediciones;
+                }
+            }
+            if (mejor == Integer.MAX_VALUE) {
+                return -1;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    // Palabras del vocabulario que empiezan con la palabra dada o cuyo comienzo está a pocas ediciones de ella
+    private Map<Integer, Integer> parecidas(String palabra) {
+        Map<Integer, Integer> parecidas = new HashMap<>();
+        int desde = Arrays.binarySearch(vocabulario, palabra);
+        for (int i = desde >= 0 ? desde : -desde - 1; i < vocabulario.length && vocabulario[i].startsWith(palabra); i++) {
+            parecidas.put(i, 0);
+        }
+        int permitidos = palabra.length() <= 2 ? 0 : palabra.length() <= 5 ? 1 : 2;
+        if (permitidos == 0) {
+            return parecidas;
+        }
+        Map<Integer, Integer> compartidos = new HashMap<>();
+        for (String trigrama : trigramas(palabra)) {
+            for (int posicion : palabrasPorTrigrama.getOrDefault(trigrama, VACIO_INT)) {
+                compartidos.merge(posicion, 1, Integer::sum);
+            }
+        }
+        compartidos.keySet().forEach(posicion -> {
+            if (parecidas.containsKey(posicion)) {
+                return;
+            }
+            String candidata = vocabulario[posicion];
+            int mejor = permitidos + 1;
+            for (int largo = palabra.length() - 1; largo <= palabra.length() + 1; largo++) {
+                if (largo >= 1 && largo <= candidata.length()) {
+                    mejor = Math.min(mejor, distancia(palabra, candidata, largo, permitidos));
+                }
+            }
+            if (mejor <= permitidos) {
+                parecidas.put(posicion, mejor);
+            }
+        });
+        return parecidas;
+    }
+
+    // Distancia de Damerau-Levenshtein (transposiciones adyacentes) entre a y los primeros largo caracteres de b
+    private static int distancia(String a, String b, int largo, int cota) {
+        if (Math.abs(a.length() - largo) > cota) {
+            return cota + 1;
+        }
+        int[][] d = new int[a.length() + 1][largo + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= largo; j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= largo; j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][largo];
+    }
+
+    // El bit bajo del código indica si la coincidencia empieza en una palabra interior del nombre
+    private double puntaje(int codigo) {
+        return ((codigo & 1) == 0 ? CALIDAD_NOMBRE : CALIDAD_PALABRA) * pesos[codigo >>> 1];
+    }
+
+    // Orden de las listas del trie: mayor puntaje primero y, a igual puntaje, por texto
+    private boolean antes(int codigo, int otro) {
+        int comparacion = Double.compare(puntaje(otro), puntaje(codigo));
+        return comparacion < 0 || (comparacion == 0 && textos[codigo >>> 1].compareTo(textos[otro >>> 1]) < 0);
+    }
+
+    private static String[] palabras(String texto) {
+        return Arrays.stream(ESPACIOS.split(TextoBusqueda.normalizar(texto)))
+                .filter(palabra -> !palabra.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    // Trigramas de una palabra con un espacio inicial, para que el comienzo de la palabra también cuente
+    private static List<String> trigramas(String palabra) {
+        String conBorde = " " + palabra;
+        List<String> resultado = new ArrayList<>();
+        for (int i = 0; i + 3 <= conBorde.length(); i++) {
+            resultado.add(conBorde.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    // Nodo del trie; los hijos van en arreglos ordenados por carácter
+    private static final class Nodo {
+
+        private char[] letras = new char[0];
+        private Nodo[] hijos = new Nodo[0];
+        private int[] propios = VACIO_INT;
+        private int[] mejores = VACIO_INT;
+
+        Nodo buscar(String clave) {
+            Nodo nodo = this;
+            for (int i = 0; i < clave.length() && nodo != null; i++) {
+                int posicion = Arrays.binarySearch(nodo.letras, clave.charAt(i));
+                nodo = posicion >= 0 ? nodo.hijos[posicion] : null;
+            }
+            return nodo;
+        }
+
+        void insertar(String clave, int codigo) {
+            Nodo nodo = this;
+            for (int i = 0; i < clave.length(); i++) {
+                char letra = clave.charAt(i);
+                int posicion = Arrays.binarySearch(nodo.letras, letra);
+                if (posicion < 0) {
+                    posicion = -posicion - 1;
+                    nodo.letras = insertar(nodo.letras, posicion, letra);
+                    Nodo[] hijos = new Nodo[nodo.hijos.length + 1];
+                    System.arraycopy(nodo.hijos, 0, hijos, 0, posicion);
+                    System.arraycopy(nodo.hijos, posicion, hijos, posicion + 1, nodo.hijos.length - posicion);
+                    hijos[posicion] = new Nodo();
+                    nodo.hijos = hijos;
+                }
+                nodo = nodo.hijos[posicion];
+            }
+            nodo.propios = Arrays.copyOf(nodo.propios, nodo.propios.length + 1);
+            nodo.propios[nodo.propios.length - 1] = codigo;
+        }
+
+        private static char[] insertar(char[] letras, int posicion, char letra) {
+            char[] nuevas = new char[letras.length + 1];
+            System.arraycopy(letras, 0, nuevas, 0, posicion);
+            System.arraycopy(letras, posicion, nuevas, posicion + 1, letras.length - posicion);
+            nuevas[posicion] = letra;
+            return nuevas;
+        }
+
+        // Calcula en postorden las mejores entradas de cada subárbol, sin repetir entrada
+        void calcularMejores(IndiceAutocompletado indice) {
+            int total = propios.length;
+            for (Nodo hijo : hijos) {
+                hijo.calcularMejores(indice);
+                total += hijo.mejores.length;
+            }
+            int[] candidatos = Arrays.copyOf(propios, total);
+            int cantidad = propios.length;
+            for (Nodo hijo : hijos) {
+                System.arraycopy(hijo.mejores, 0, candidatos, cantidad, hijo.mejores.length);
+                cantidad += hijo.mejores.length;
+            }
+
+            // Selección parcial: como mucho MAX_SUGERENCIAS pasadas sobre unas decenas de candidatos
+            int[] seleccion = new int[Math.min(MAX_SUGERENCIAS, total)];
+            int elegidos = 0;
+            while (elegidos < seleccion.length) {
+                int mejor = -1;
+                for (int i = 0; i < total; i++) {
+                    if (candidatos[i] >= 0 && (mejor < 0 || indice.antes(candidatos[i], candidatos[mejor]))) {
+                        mejor = i;
+                    }
+                }
+                if (mejor < 0) {
+                    break;
+                }
+                int entrada = candidatos[mejor] >>> 1;
+                seleccion[elegidos++] = candidatos[mejor];
+                for (int i = 0; i < total; i++) {
+                    if (candidatos[i] >= 0 && candidatos[i] >>> 1 == entrada) {
+                        candidatos[i] = -1;
+                    }
+                }
+            }
+            mejores = Arrays.copyOf(seleccion, elegidos);
+            propios = null;
+        }
+    }
+
+    /**
+     * Acumula los nombres sugeribles; los repetidos dentro de un mismo tipo se fusionan sumando su popularidad.
+     */
+    static final class Constructor {
+
+        private static final class Entrada {
+            private final Tipo tipo;
+            private final String[] palabras;
+            private String texto;
+            private long id;
+            private long popularidadMaxima = -1;
+            private long popularidad;
+
+            Entrada(Tipo tipo, String[] palabras) {
+                this.tipo = tipo;
+                this.palabras = palabras;
+            }
+        }
+
+        private final Map<String, Entrada> entradas = new LinkedHashMap<>();
+
+        void agregar(Tipo tipo, Long id, String texto, long popularidad) {
+            String[] palabras = palabras(texto);
+            if (palabras.length == 0) {
+                return;
+            }
+            Entrada entrada = entradas.computeIfAbsent(tipo + ":" + String.join(" ", palabras), clave -> new Entrada(tipo, palabras));
+            entrada.popularidad += popularidad;
+            if (popularidad > entrada.popularidadMaxima) {
+                entrada.popularidadMaxima = popularidad;
+                entrada.id = id;
+                entrada.texto = texto.trim();
+            }
+        }
+
+        IndiceAutocompletado construir() {
+            int total = entradas.size();
+            String[] textos = new String[total];
+            Tipo[] tipos = new Tipo[total];
+            long[] ids = new long[total];
+            double[] pesos = new double[total];
+            Nodo raiz = new Nodo();
+
+            // Vocabulario ordenado, necesario para buscar palabras por prefijo con búsqueda binaria
+            TreeMap<String, List<Integer>> entradasPorTexto = new TreeMap<>();
+            int indice = 0;
+            for (Entrada entrada : entradas.values()) {
+                textos[indice] = entrada.texto;
+                tipos[indice] = entrada.tipo;
+                ids[indice] = entrada.id;
+                pesos[indice] = 1 + Math.log1p(entrada.popularidad);
+                for (int i = 0; i < entrada.palabras.length; i++) {
+                    String sufijo = String.join(" ", Arrays.copyOfRange(entrada.palabras, i, entrada.palabras.length));
+                    raiz.insertar(sufijo, (indice << 1) | (i == 0 ? 0 : 1));
+                    List<Integer> lista = entradasPorTexto.computeIfAbsent(entrada.palabras[i], palabra -> new ArrayList<>());
+                    if (lista.isEmpty() || lista.get(lista.size() - 1) != indice) {
+                        lista.add(indice);
+                    }
+                }
+                indice++;
+            }
+
+            String[] vocabulario = entradasPorTexto.keySet().toArray(String[]::new);
+            int[][] entradasPorPalabra = new int[vocabulario.length][];
+            Comparator<Integer> porPeso = Comparator.<Integer>comparingDouble(entrada -> pesos[entrada]).reversed();
+            Map<String, Integer> posiciones = new HashMap<>(vocabulario.length * 2);
+            Map<String, List<Integer>> porTrigrama = new HashMap<>();
+            for (int posicion = 0; posicion < vocabulario.length; posicion++) {
+                entradasPorPalabra[posicion] = entradasPorTexto.get(vocabulario[posicion]).stream()
+                        .sorted(porPeso).mapToInt(Integer::intValue).toArray();
+                posiciones.put(vocabulario[posicion], posicion);
+                for (String trigrama : new HashSet<>(trigramas(vocabulario[posicion]))) {
+                    porTrigrama.computeIfAbsent(trigrama, t -> new ArrayList<>()).add(posicion);
+                }
+            }
+            Map<String, int[]> palabrasPorTrigrama = new HashMap<>(porTrigrama.size() * 2);
+            porTrigrama.forEach((trigrama, lista) -> palabrasPorTrigrama.put(trigrama, lista.stream().mapToInt(Integer::intValue).toArray()));
+
+            int[][] palabrasPorEntrada = new int[total][];
+            indice = 0;
+            for (Entrada entrada : entradas.values()) {
+                palabrasPorEntrada[indice++] = Arrays.stream(entrada.palabras).distinct().mapToInt(posiciones::get).toArray();
+            }
+
+            IndiceAutocompletado resultado = new IndiceAutocompletado(textos, tipos, ids, pesos, palabrasPorEntrada,
+                    vocabulario, entradasPorPalabra, palabrasPorTrigrama, raiz);
+            raiz.calcularMejores(resultado);
+            return resultado;
+        }
+    }
+}
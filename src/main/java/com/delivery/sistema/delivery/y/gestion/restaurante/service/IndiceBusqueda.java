@@ -0,0 +1,139 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.shared.util.TextoBusqueda;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Índice invertido en memoria de restaurantes y menús: por cada término, los documentos que lo contienen
+ * con su frecuencia ponderada (el nombre pesa más que la descripción y la dirección).
+ * Los resultados se ordenan primero por cantidad de términos de la consulta que coinciden y luego por BM25.
+ * Solo guarda documentos visibles; un menú no se devuelve si su restaurante no está en el índice (inactivo).
+ * No es seguro para hilos: BusquedaService lo protege con un lock de lectura/escritura.
+ */
+class IndiceBusqueda {
+
+    private static final int PESO_NOMBRE = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private record Documento(Tipo tipo, Long id, Long restauranteId, String nombre, String descripcion,
+                             Map<String, Integer> frecuencias, int longitud) {
+    }
+
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private long sumaLongitudes;
+
+    int tamano() {
+        return documentos.size();
+    }
+
+    void guardar(Tipo tipo, DocumentoBusquedaDto dto) {
+        eliminar(tipo, dto.id());
+        if (!Boolean.TRUE.equals(dto.visible())) {
+            return;
+        }
+        Map<String, Integer> frecuencias = new HashMap<>();
+        TextoBusqueda.terminos(dto.nombre()).forEach(termino -> frecuencias.merge(termino, PESO_NOMBRE, Integer::sum));
+        TextoBusqueda.terminos(dto.descripcion()).forEach(termino -> frecuencias.merge(termino, 1, Integer::sum));
+        TextoBusqueda.terminos(dto.direccion()).forEach(termino -> frecuencias.merge(termino, 1, Integer::sum));
+        int longitud = frecuencias.values().stream().mapToInt(Integer::intValue).sum();
+
+        long clave = clave(tipo, dto.id());
+        documentos.put(clave, new Documento(tipo, dto.id(), dto.restauranteId(), dto.nombre(), dto.descripcion(),
+                frecuencias, longitud));
+        frecuencias.forEach((termino, frecuencia) -> postings.computeIfAbsent(termino, t -> new HashMap<>()).put(clave, frecuencia));
+        sumaLongitudes += longitud;
+    }
+
+    void eliminar(Tipo tipo, Long id) {
+        long clave = clave(tipo, id);
+        Documento documento = documentos.remove(clave);
+        if (documento == null) {
+            return;
+        }
+        for (String termino : documento.frecuencias().keySet()) {
+            Map<Long, Integer> lista = postings.get(termino);
+            lista.remove(clave);
+            if (lista.isEmpty()) {
+                postings.remove(termino);
+            }
+        }
+        sumaLongitudes -= documento.longitud();
+    }
+
+    /**
+     * Los limite mejores documentos para los términos dados (ya normalizados y sin repetir); tipo null busca en ambos.
+     */
+    List<ResultadoBusquedaDto> buscar(List<String> terminos, Tipo tipo, int limite) {
+        if (documentos.isEmpty()) {
+            return List.of();
+        }
+        int total = documentos.size();
+        double longitudMedia = (double) sumaLongitudes / total;
+
+        // clave -> {puntaje, coincidencias}
+        Map<Long, double[]> acumulados = new HashMap<>();
+        for (String termino : terminos) {
+            Map<Long, Integer> lista = postings.get(termino);
+            if (lista == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (total - lista.size() + 0.5) / (lista.size() + 0.5));
+            lista.forEach((clave, frecuencia) -> {
+                Documento documento = documentos.get(clave);
+                if (!admitido(documento, tipo)) {
+                    return;
+                }
+                double normalizacion = K1 * (1 - B + B * documento.longitud() / longitudMedia);
+                double[] acumulado = acumulados.computeIfAbsent(clave, c -> new double[2]);
+                acumulado[0] += idf * frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+                acumulado[1]++;
+            });
+        }
+
+        Comparator<Map.Entry<Long, double[]>> orden = Comparator
+                .<Map.Entry<Long, double[]>>comparingDouble(entrada -> entrada.getValue()[1])
+                .thenComparingDouble(entrada -> entrada.getValue()[0])
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<Long, double[]>> peores = new PriorityQueue<>(limite + 1, orden);
+        for (Map.Entry<Long, double[]> entrada : acumulados.entrySet()) {
+            if (peores.size() < limite) {
+                peores.add(entrada);
+            } else if (orden.compare(entrada, peores.peek()) > 0) {
+                peores.poll();
+                peores.add(entrada);
+            }
+        }
+
+        List<ResultadoBusquedaDto> resultados = new ArrayList<>(peores.size());
+        while (!peores.isEmpty()) {
+            Map.Entry<Long, double[]> entrada = peores.poll();
+            Documento documento = documentos.get(entrada.getKey());
+            resultados.add(new ResultadoBusquedaDto(documento.tipo(), documento.id(), documento.nombre(),
+                    documento.descripcion(), documento.restauranteId(), Math.round(entrada.getValue()[0] * 10000) / 10000.0));
+        }
+        return resultados.reversed();
+    }
+
+    private boolean admitido(Documento documento, Tipo tipo) {
+        if (tipo != null && documento.tipo() != tipo) {
+            return false;
+        }
+        return documento.tipo() != Tipo.MENU || documentos.containsKey(clave(Tipo.RESTAURANTE, documento.restauranteId()));
+    }
+
+    // Restaurantes y menús comparten el mapa: el bit bajo distingue el tipo
+    private static long clave(Tipo tipo, Long id) {
+        return (id << 1) | (tipo == Tipo.MENU ? 1 : 0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horarios de los restaurantes activos en cubetas por minuto del día: para cada uno de los 1440 minutos,
+ * un BitSet con las posiciones de los restaurantes abiertos en ese minuto.
+ * El horario es [apertura, cierre); si el cierre es anterior a la apertura el restaurante cierra después de
+ * medianoche (20:00 a 02:00), y si ambos coinciden está abierto todo el día.
+ * Consultar un restaurante es O(1); listar los abiertos en un minuto recorre solo su BitSet.
+ * No es seguro para hilos: HorarioService lo protege con un lock de lectura/escritura.
+ */
+final class IndiceHorarios {
+
+    static final int MINUTOS_DIA = 24 * 60;
+
+    private final Map<Long, Integer> posiciones = new HashMap<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final BitSet[] abiertos = new BitSet[MINUTOS_DIA];
+    private long[] ids = new long[64];
+    private short[] aperturas = new short[64];
+    private short[] cierres = new short[64];
+    private int usadas;
+
+    IndiceHorarios() {
+        for (int minuto = 0; minuto < MINUTOS_DIA; minuto++) {
+            abiertos[minuto] = new BitSet();
+        }
+    }
+
+    static int minuto(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    static boolean cubre(int apertura, int cierre, int minuto) {
+        if (apertura == cierre) {
+            return true;
+        }
+        if (apertura < cierre) {
+            return minuto >= apertura && minuto < cierre;
+        }
+        return minuto >= apertura || minuto < cierre;
+    }
+
+    int tamano() {
+        return posiciones.size();
+    }
+
+    void guardar(Long restauranteId, LocalTime horaApertura, LocalTime horaCierre) {
+        quitar(restauranteId);
+        int posicion = libres.isEmpty() ? usadas++ : libres.pop();
+        if (posicion == ids.length) {
+            ids = Arrays.copyOf(ids, posicion * 2);
+            aperturas = Arrays.copyOf(aperturas, posicion * 2);
+            cierres = Arrays.copyOf(cierres, posicion * 2);
+        }
+        int apertura = minuto(horaApertura);
+        int cierre = minuto(horaCierre);
+        ids[posicion] = restauranteId;
+        aperturas[posicion] = (short) apertura;
+        cierres[posicion] = (short) cierre;
+        posiciones.put(restauranteId, posicion);
+        for (int minuto = 0; minuto < MINUTOS_DIA; minuto++) {
+            if (cubre(apertura, cierre, minuto)) {
+                abiertos[minuto].set(posicion);
+            }
+        }
+    }
+
+    void quitar(Long restauranteId) {
+        Integer posicion = posiciones.remove(restauranteId);
+        if (posicion == null) {
+            return;
+        }
+        for (BitSet minuto : abiertos) {
+            minuto.clear(posicion);
+        }
+        libres.push(posicion);
+    }
+
+    boolean abierto(Long restauranteId, int minuto) {
+        Integer posicion = posiciones.get(restauranteId);
+        return posicion != null && cubre(aperturas[posicion], cierres[posicion], minuto);
+    }
+
+    List<Long> abiertos(int minuto) {
+        BitSet bits = abiertos[minuto];
+        List<Long> resultado = new ArrayList<>(bits.cardinality());
+        for (int posicion = bits.nextSetBit(0); posicion >= 0; posicion = bits.nextSetBit(posicion + 1)) {
+            resultado.add(ids[posicion]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Restaurantes cuyo estado difiere entre dos minutos: en el resultado, los que abren y los que cierran.
+     */
+    Transiciones transiciones(int desde, int hasta) {
+        BitSet abren = (BitSet) abiertos[hasta].clone();
+        abren.andNot(abiertos[desde]);
+        BitSet cierran = (BitSet) abiertos[desde].clone();
+        cierran.andNot(abiertos[hasta]);
+        return new Transiciones(idsDe(abren), idsDe(cierran));
+    }
+
+    record Transiciones(List<Long> abren, List<Long> cierran) {
+    }
+
+    private List<Long> idsDe(BitSet bits) {
+        List<Long> resultado = new ArrayList<>(bits.cardinality());
+        for (int posicion = bits.nextSetBit(0); posicion >= 0; posicion = bits.nextSetBit(posicion + 1)) {
+            resultado.add(ids[posicion]);
+        }
+        return resultado;
+    }
+}
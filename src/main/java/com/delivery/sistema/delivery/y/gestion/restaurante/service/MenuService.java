@@ -2,6 +2,7 @@ package com.delivery.sistema.delivery.y.gestion.restaurante.service;
 
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
 import com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
@@ -9,6 +10,7 @@ import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaR
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,6 +28,7 @@ public class MenuService {
     private final MenuRepository menuRepository;
     private final CategoriaRepository categoriaRepository;
     private final RestauranteRepository restauranteRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Menu> listarTodos() {
         return menuRepository.findAll();
@@ -84,6 +87,7 @@ public class MenuService {
         menu.setCategoria(categoria);
         menu.setRestaurante(restaurante);
         
+        publicarCambio(menu);
         return menuRepository.save(menu);
     }
 
@@ -104,36 +108,42 @@ public class MenuService {
         menuExistente.setImagenUrl(menuActualizado.getImagenUrl());
         menuExistente.setDisponible(menuActualizado.getDisponible());
         
+        publicarCambio(menuExistente);
         return menuRepository.save(menuExistente);
     }
 
     public void eliminar(Long id) {
         Menu menu = obtenerPorId(id);
         menuRepository.delete(menu);
+        publicarCambio(menu);
     }
 
     public void activar(Long id) {
         Menu menu = obtenerPorId(id);
         menu.setDisponible(true);
         menuRepository.save(menu);
+        publicarCambio(menu);
     }
 
     public void desactivar(Long id) {
         Menu menu = obtenerPorId(id);
         menu.setDisponible(false);
         menuRepository.save(menu);
+        publicarCambio(menu);
     }
 
     public void actualizarPrecio(Long id, BigDecimal nuevoPrecio) {
         Menu menu = obtenerPorId(id);
         menu.setPrecio(nuevoPrecio);
         menuRepository.save(menu);
+        publicarCambio(menu);
     }
 
     public void actualizarImagen(Long id, String imagenUrl) {
         Menu menu = obtenerPorId(id);
         menu.setImagenUrl(imagenUrl);
         menuRepository.save(menu);
+        publicarCambio(menu);
     }
 
     @Transactional(readOnly = true)
@@ -157,6 +167,11 @@ public class MenuService {
                 .orElse(BigDecimal.ZERO);
     }
 
+    // La vitrina del restaurante se invalida cuando la transacción confirma
+    private void publicarCambio(Menu menu) {
+        eventPublisher.publishEvent(new RestauranteCambiadoEvent(menu.getRestaurante().getId()));
+    }
+
     // Métodos de conversión
     private MenuDto convertirADto(Menu menu) {
         MenuDto dto = new MenuDto();
@@ -175,11 +190,11 @@ public class MenuService {
 
     // Métodos adicionales requeridos por el controller
     public Page<MenuDto> listarMenus(Pageable pageable) {
-        return listarPaginado(pageable).map(this::convertirADto);
+        return menuRepository.findAllDto(pageable);
     }
 
     public Page<MenuDto> listarMenusPorRestaurante(Long restauranteId, Pageable pageable) {
-        return listarPorRestaurantePaginado(restauranteId, pageable).map(this::convertirADto);
+        return menuRepository.findDtoByRestauranteId(restauranteId, pageable);
     }
 
     public MenuDto obtenerMenuPorId(Long id) {
@@ -205,6 +220,7 @@ public class MenuService {
         menu.setRestaurante(restaurante);
         
         Menu resultado = menuRepository.save(menu);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 
@@ -225,6 +241,7 @@ public class MenuService {
         }
         
         Menu resultado = menuRepository.save(menuExistente);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 
@@ -239,6 +256,7 @@ public class MenuService {
         String imagenUrl = "/imagenes/menu/" + id + "_" + imagen.getOriginalFilename();
         menu.setImagenUrl(imagenUrl);
         menuRepository.save(menu);
+        publicarCambio(menu);
         return imagenUrl;
     }
 
@@ -246,15 +264,16 @@ public class MenuService {
         Menu menu = obtenerPorId(id);
         menu.setDisponible(disponible);
         Menu resultado = menuRepository.save(menu);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 
     // Métodos adicionales para el controller
     public Page<MenuDto> listarMenusDisponiblesPorRestaurante(Long restauranteId, Pageable pageable) {
-        return menuRepository.findByRestauranteIdAndDisponibleTrue(restauranteId, pageable).map(this::convertirADto);
+        return menuRepository.findDtoByRestauranteIdAndDisponibleTrue(restauranteId, pageable);
     }
 
     public Page<MenuDto> listarMenusPorCategoria(Long categoriaId, Pageable pageable) {
-        return menuRepository.findByCategoriaId(categoriaId, pageable).map(this::convertirADto);
+        return menuRepository.findDtoByCategoriaId(categoriaId, pageable);
     }
 }
\ No newline at end of file
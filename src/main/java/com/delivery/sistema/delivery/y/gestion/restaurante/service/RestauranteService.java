@@ -2,16 +2,20 @@ package com.delivery.sistema.delivery.y.gestion.restaurante.service;
 
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
 import com.delivery.sistema.delivery.y.gestion.restaurante.dto.RestauranteDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.HorarioCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
 import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
 import com.delivery.sistema.delivery.y.gestion.cliente.repository.ClienteRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +28,8 @@ public class RestauranteService {
 
     private final RestauranteRepository restauranteRepository;
     private final ClienteRepository clienteRepository;
+    private final HorarioService horarioService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Restaurante> listarTodos() {
         return restauranteRepository.findAll();
@@ -64,7 +70,9 @@ public class RestauranteService {
                 .orElseThrow(() -> new EntityNotFoundException("Cliente no encontrado con ID: " + restaurante.getCliente().getId()));
         
         restaurante.setCliente(cliente);
-        return restauranteRepository.save(restaurante);
+        Restaurante resultado = restauranteRepository.save(restaurante);
+        publicarCambio(resultado);
+        return resultado;
     }
 
     public Restaurante actualizar(Long id, Restaurante restauranteActualizado) {
@@ -75,28 +83,41 @@ public class RestauranteService {
         restauranteExistente.setDescripcion(restauranteActualizado.getDescripcion());
         restauranteExistente.setDireccion(restauranteActualizado.getDireccion());
         restauranteExistente.setTelefono(restauranteActualizado.getTelefono());
+        restauranteExistente.setLatitud(restauranteActualizado.getLatitud());
+        restauranteExistente.setLongitud(restauranteActualizado.getLongitud());
         restauranteExistente.setHoraApertura(restauranteActualizado.getHoraApertura());
         restauranteExistente.setHoraCierre(restauranteActualizado.getHoraCierre());
         restauranteExistente.setActivo(restauranteActualizado.getActivo());
         
+        publicarCambio(restauranteExistente);
         return restauranteRepository.save(restauranteExistente);
     }
 
     public void eliminar(Long id) {
         Restaurante restaurante = obtenerPorId(id);
         restauranteRepository.delete(restaurante);
+        eventPublisher.publishEvent(new RestauranteCambiadoEvent(id));
+        eventPublisher.publishEvent(HorarioCambiadoEvent.eliminado(id));
     }
 
     public void activar(Long id) {
         Restaurante restaurante = obtenerPorId(id);
         restaurante.setActivo(true);
         restauranteRepository.save(restaurante);
+        publicarCambio(restaurante);
     }
 
     public void desactivar(Long id) {
         Restaurante restaurante = obtenerPorId(id);
         restaurante.setActivo(false);
         restauranteRepository.save(restaurante);
+        publicarCambio(restaurante);
+    }
+
+    // Usado en @PreAuthorize: el restaurante pertenece al usuario autenticado
+    @Transactional(readOnly = true)
+    public boolean esOwner(Long restauranteId, String email) {
+        return restauranteRepository.existsByIdAndClienteEmail(restauranteId, email);
     }
 
     @Transactional(readOnly = true)
@@ -104,9 +125,20 @@ public class RestauranteService {
         return restauranteRepository.existsById(id);
     }
 
-    @Transactional(readOnly = true)
     public boolean estaAbierto(Long id) {
-        return restauranteRepository.isRestauranteAbierto(id);
+        if (!restauranteRepository.existsById(id)) {
+            throw new EntityNotFoundException("Restaurante no encontrado con ID: " + id);
+        }
+        return horarioService.estaAbierto(id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RestauranteDto> listarAbiertos(LocalTime hora) {
+        List<Long> ids = hora == null ? horarioService.abiertos() : horarioService.abiertosA(hora);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return restauranteRepository.findConClienteByIdIn(ids).stream().map(this::convertirADto).toList();
     }
 
     @Transactional(readOnly = true)
@@ -130,6 +162,12 @@ public class RestauranteService {
         return metricas;
     }
 
+    // La vitrina y el índice de horarios se actualizan cuando la transacción confirma
+    private void publicarCambio(Restaurante restaurante) {
+        eventPublisher.publishEvent(new RestauranteCambiadoEvent(restaurante.getId()));
+        eventPublisher.publishEvent(HorarioCambiadoEvent.de(restaurante));
+    }
+
     // Métodos de conversión
     private RestauranteDto convertirADto(Restaurante restaurante) {
         RestauranteDto dto = new RestauranteDto();
@@ -138,6 +176,8 @@ public class RestauranteService {
         dto.setDescripcion(restaurante.getDescripcion());
         dto.setDireccion(restaurante.getDireccion());
         dto.setTelefono(restaurante.getTelefono());
+        dto.setLatitud(restaurante.getLatitud());
+        dto.setLongitud(restaurante.getLongitud());
         dto.setHoraApertura(restaurante.getHoraApertura());
         dto.setHoraCierre(restaurante.getHoraCierre());
         dto.setActivo(restaurante.getActivo());
@@ -166,6 +206,8 @@ public class RestauranteService {
         restaurante.setDescripcion(restauranteDto.getDescripcion());
         restaurante.setDireccion(restauranteDto.getDireccion());
         restaurante.setTelefono(restauranteDto.getTelefono());
+        restaurante.setLatitud(restauranteDto.getLatitud());
+        restaurante.setLongitud(restauranteDto.getLongitud());
         restaurante.setHoraApertura(restauranteDto.getHoraApertura());
         restaurante.setHoraCierre(restauranteDto.getHoraCierre());
         restaurante.setActivo(restauranteDto.getActivo() != null ? restauranteDto.getActivo() : true);
@@ -176,6 +218,7 @@ public class RestauranteService {
         restaurante.setCliente(cliente);
         
         Restaurante resultado = restauranteRepository.save(restaurante);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 
@@ -186,11 +229,14 @@ public class RestauranteService {
         restauranteExistente.setDescripcion(restauranteDto.getDescripcion());
         restauranteExistente.setDireccion(restauranteDto.getDireccion());
         restauranteExistente.setTelefono(restauranteDto.getTelefono());
+        restauranteExistente.setLatitud(restauranteDto.getLatitud());
+        restauranteExistente.setLongitud(restauranteDto.getLongitud());
         restauranteExistente.setHoraApertura(restauranteDto.getHoraApertura());
         restauranteExistente.setHoraCierre(restauranteDto.getHoraCierre());
         restauranteExistente.setActivo(restauranteDto.getActivo() != null ? restauranteDto.getActivo() : restauranteExistente.getActivo());
         
         Restaurante resultado = restauranteRepository.save(restauranteExistente);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 
@@ -213,6 +259,7 @@ public class RestauranteService {
         Restaurante restaurante = obtenerPorId(id);
         restaurante.setActivo(activo);
         Restaurante resultado = restauranteRepository.save(restaurante);
+        publicarCambio(resultado);
         return convertirADto(resultado);
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.MenuDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.RestauranteDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.VitrinaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.VitrinaDto.ResumenCalificaciones;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.VitrinaDto.Seccion;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteAperturaEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.CalificacionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Vitrina de cada restaurante servida desde una caché de respuestas ya serializadas (byte[] con su ETag),
+ * así una lectura repetida no consulta la base de datos ni vuelve a serializar.
+ * La entrada de un restaurante se descarta cuando confirma una transacción que publica RestauranteCambiadoEvent
+ * para él (menús, datos del restaurante, calificaciones) y cuando abre o cierra (RestauranteAperturaEvent);
+ * los cambios de categorías vacían toda la caché.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VitrinaService {
+
+    // Versiones por franja de restaurantes: detectan una invalidación ocurrida mientras se armaba una entrada
+    private static final int FRANJAS = 64;
+
+    private final RestauranteService restauranteService;
+    private final HorarioService horarioService;
+    private final MenuRepository menuRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final CalificacionRepository calificacionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.vitrina.max-entradas:10000}")
+    private int maxEntradas;
+
+    public record Entrada(byte[] cuerpo, String etag) {
+    }
+
+    private final Map<Long, Entrada> cache = new ConcurrentHashMap<>();
+    private final AtomicLongArray versiones = new AtomicLongArray(FRANJAS);
+
+    public Entrada obtener(Long restauranteId) {
+        Entrada entrada = cache.get(restauranteId);
+        if (entrada != null) {
+            return entrada;
+        }
+
+        long version = versiones.get(franja(restauranteId));
+        entrada = serializar(armar(restauranteId));
+        if (cache.size() >= maxEntradas) {
+            desalojarUna();
+        }
+        cache.put(restauranteId, entrada);
+        // Si un cambio confirmó mientras se leía, lo armado puede ser anterior a él: se sirve esta vez pero no queda en caché
+        if (versiones.get(franja(restauranteId)) != version) {
+            cache.remove(restauranteId, entrada);
+        }
+        return entrada;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestauranteCambiado(RestauranteCambiadoEvent event) {
+        if (event.restauranteId() == null) {
+            for (int i = 0; i < FRANJAS; i++) {
+                versiones.incrementAndGet(i);
+            }
+            cache.clear();
+            return;
+        }
+        versiones.incrementAndGet(franja(event.restauranteId()));
+        cache.remove(event.restauranteId());
+    }
+
+    @EventListener
+    public void onRestauranteApertura(RestauranteAperturaEvent event) {
+        versiones.incrementAndGet(franja(event.restauranteId()));
+        cache.remove(event.restauranteId());
+    }
+
+    private VitrinaDto armar(Long restauranteId) {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        return lectura.execute(status -> {
+            RestauranteDto restaurante = restauranteService.obtenerRestaurantePorId(restauranteId);
+
+            Map<Long, List<MenuDto>> menusPorCategoria = new LinkedHashMap<>();
+            for (MenuDto menu : menuRepository.findDtoVitrina(restauranteId)) {
+                menusPorCategoria.computeIfAbsent(menu.getCategoriaId(), id -> new ArrayList<>()).add(menu);
+            }
+            // Solo las categorías activas que tienen algún menú disponible en este restaurante
+            List<Seccion> secciones = new ArrayList<>();
+            for (Categoria categoria : categoriaRepository.findByActivoTrueOrderByOrdenMostrarAsc()) {
+                List<MenuDto> menus = menusPorCategoria.get(categoria.getId());
+                if (menus != null) {
+                    secciones.add(new Seccion(categoria.getId(), categoria.getNombre(), categoria.getDescripcion(),
+                            categoria.getOrdenMostrar(), menus));
+                }
+            }
+
+            return new VitrinaDto(restaurante, secciones, resumirCalificaciones(restauranteId),
+                    horarioService.estaAbierto(restauranteId), LocalDateTime.now());
+        });
+    }
+
+    private ResumenCalificaciones resumirCalificaciones(Long restauranteId) {
+        Map<Integer, Long> porPuntuacion = new LinkedHashMap<>();
+        for (int puntuacion = 1; puntuacion <= 5; puntuacion++) {
+            porPuntuacion.put(puntuacion, 0L);
+        }
+        long total = 0;
+        long suma = 0;
+        for (Object[] fila : calificacionRepository.getDistribucionCalificacionesByRestaurante(restauranteId)) {
+            int puntuacion = ((Number) fila[0]).intValue();
+            long cantidad = ((Number) fila[1]).longValue();
+            porPuntuacion.merge(puntuacion, cantidad, Long::sum);
+            total += cantidad;
+            suma += puntuacion * cantidad;
+        }
+        BigDecimal promedio = total == 0 ? null
+                : BigDecimal.valueOf(suma).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+        return new ResumenCalificaciones(promedio, total, porPuntuacion);
+    }
+
+    private Entrada serializar(VitrinaDto vitrina) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsBytes(vitrina);
+            return new Entrada(cuerpo, '"' + DigestUtils.md5DigestAsHex(cuerpo) + '"');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la vitrina del restaurante " + vitrina.restaurante().getId(), e);
+        }
+    }
+
+    // Con la caché llena se descarta una entrada cualquiera; la próxima lectura de ese restaurante la vuelve a armar
+    private void desalojarUna() {
+        Iterator<Long> claves = cache.keySet().iterator();
+        if (claves.hasNext()) {
+            claves.next();
+            claves.remove();
+            log.debug("Caché de vitrinas llena ({} entradas), se descartó una", maxEntradas);
+        }
+    }
+
+    private static int franja(Long restauranteId) {
+        return (int) Math.floorMod(restauranteId, (long) FRANJAS);
+    }
+}
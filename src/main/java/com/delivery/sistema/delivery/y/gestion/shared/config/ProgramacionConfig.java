@@ -0,0 +1,41 @@
+package com.delivery.sistema.delivery.y.gestion.shared.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Planificadores de las tareas @Scheduled. Sin esta configuración todas comparten un único hilo y una
+ * pasada larga (archivo, reconstrucción de índices, recargas) retrasa a las demás.
+ * La renovación de los bloques de cupo de promociones tiene su propio hilo: si se retrasa más de ttl/2
+ * los bloques dejan de ser válidos en el nodo y los pedidos que los usan fallan al confirmar.
+ */
+@Configuration
+public class ProgramacionConfig {
+
+    public static final String CUPO_PROMOCIONES = "cupoPromocionesScheduler";
+
+    @Value("${app.programacion.hilos:4}")
+    private int hilos;
+
+    // Planificador por defecto: ScheduledAnnotationBeanPostProcessor lo elige por nombre al haber varios
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return crear(hilos, "programacion-");
+    }
+
+    @Bean(CUPO_PROMOCIONES)
+    public ThreadPoolTaskScheduler cupoPromocionesScheduler() {
+        return crear(1, "cupo-promociones-");
+    }
+
+    private static ThreadPoolTaskScheduler crear(int hilos, String prefijo) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(hilos);
+        scheduler.setThreadNamePrefix(prefijo);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
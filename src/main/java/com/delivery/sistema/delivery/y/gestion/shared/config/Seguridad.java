@@ -1,6 +1,7 @@
 package com.delivery.sistema.delivery.y.gestion.shared.config;
 
 import com.delivery.sistema.delivery.y.gestion.shared.security.FiltroJwtAutenticacion;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,6 +25,7 @@ public class Seguridad {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Streams SSE: la petición original ya se autorizó
                         .requestMatchers("/auth/**").permitAll() // Permitir login y registro
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll() // Permitir Swagger para revisión académica
                         .anyRequest().authenticated()
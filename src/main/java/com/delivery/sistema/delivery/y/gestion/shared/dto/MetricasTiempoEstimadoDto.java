@@ -0,0 +1,22 @@
+package com.delivery.sistema.delivery.y.gestion.shared.dto;
+
+/**
+ * Estado del estimador de tiempos de entrega. Cada etapa resume sus muestras globales: la media es la móvil
+ * exponencial que se usa para estimar y p50/p90 salen del histograma, con muestras recientes pesando más.
+ * descartadas: duraciones no positivas o mayores que app.eta.max-duracion-min.
+ * sinInicio: etapas que terminaron sin que se viera su comienzo, por ejemplo las que empezaron antes del arranque.
+ */
+public record MetricasTiempoEstimadoDto(
+        Etapa preparacion,
+        Etapa recogida,
+        Etapa trayecto,
+        int restaurantes,
+        int repartidores,
+        long muestrasHistoricas,
+        long descartadas,
+        long sinInicio,
+        long estimaciones) {
+
+    public record Etapa(long muestras, Double mediaMinutos, Double p50Minutos, Double p90Minutos) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.delivery.sistema.delivery.y.gestion.shared.dto;
+
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados paginados por cursor. No incluye total de elementos:
+ * evitar el COUNT es precisamente el objetivo de este modo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDto<T> {
+
+    public static final int TAMANO_POR_DEFECTO = 20;
+    public static final int TAMANO_MAXIMO = 100;
+
+    private List<T> contenido;
+
+    private int tamano;
+
+    private boolean hayMas;
+
+    // Token a enviar en el parámetro "after" para obtener la página siguiente
+    private String siguiente;
+
+    public static int normalizarTamano(Integer tamano) {
+        if (tamano == null || tamano < 1) {
+            return TAMANO_POR_DEFECTO;
+        }
+        return Math.min(tamano, TAMANO_MAXIMO);
+    }
+
+    /**
+     * Construye la página a partir de hasta tamano + 1 filas; la fila extra solo indica que hay más.
+     */
+    public static <E, T> PaginaCursorDto<T> de(List<E> filas, int tamano, Function<E, T> conversor, Function<E, Cursor> cursorDe) {
+        boolean hayMas = filas.size() > tamano;
+        List<E> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        String siguiente = hayMas ? cursorDe.apply(pagina.get(pagina.size() - 1)).aToken() : null;
+        return new PaginaCursorDto<>(pagina.stream().map(conversor).toList(), pagina.size(), hayMas, siguiente);
+    }
+}
@@ -0,0 +1,52 @@
+package com.delivery.sistema.delivery.y.gestion.shared.dto;
+
+import com.delivery.sistema.delivery.y.gestion.shared.model.TipoPromocion;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromocionDto {
+    private Long id;
+
+    private Long restauranteId;
+
+    @NotBlank(message = "El nombre de la promoción es obligatorio")
+    @Size(max = 100, message = "El nombre no puede exceder 100 caracteres")
+    private String nombre;
+
+    @Size(max = 500, message = "La descripción no puede exceder 500 caracteres")
+    private String descripcion;
+
+    @NotNull(message = "El tipo de promoción es obligatorio")
+    private TipoPromocion tipo;
+
+    @NotNull(message = "El valor es obligatorio")
+    @DecimalMin(value = "0.0", inclusive = true, message = "El valor no puede ser negativo")
+    private BigDecimal valor;
+
+    @Size(max = 20, message = "El código no puede exceder 20 caracteres")
+    private String codigo;
+
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDateTime fechaInicio;
+
+    @NotNull(message = "La fecha de fin es obligatoria")
+    private LocalDateTime fechaFin;
+
+    @DecimalMin(value = "0.0", message = "El monto mínimo no puede ser negativo")
+    private BigDecimal montoMinimo;
+
+    private Boolean activo;
+
+    @Min(value = 1, message = "Los usos máximos deben ser al menos 1")
+    private Integer usosMaximos;
+
+    private Integer usosActuales;
+}
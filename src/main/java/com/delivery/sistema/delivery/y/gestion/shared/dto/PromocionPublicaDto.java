@@ -0,0 +1,15 @@
+package com.delivery.sistema.delivery.y.gestion.shared.dto;
+
+import com.delivery.sistema.delivery.y.gestion.shared.model.TipoPromocion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Promoción tal como la ve cualquier visitante: sin el código canjeable ni los contadores de uso,
+ * solo si hace falta un código para aplicarla.
+ */
+public record PromocionPublicaDto(Long id, Long restauranteId, String nombre, String descripcion, TipoPromocion tipo,
+                                  BigDecimal valor, boolean requiereCodigo, LocalDateTime fechaInicio,
+                                  LocalDateTime fechaFin, BigDecimal montoMinimo) {
+}
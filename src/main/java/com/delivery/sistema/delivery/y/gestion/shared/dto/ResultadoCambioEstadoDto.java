@@ -0,0 +1,26 @@
+package com.delivery.sistema.delivery.y.gestion.shared.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un cambio de estado masivo para un id concreto.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoCambioEstadoDto {
+    private Long id;
+    private boolean aplicado;
+    private String estadoAnterior;
+    private String motivo;
+
+    public static ResultadoCambioEstadoDto aplicado(Long id, Enum<?> estadoAnterior) {
+        return new ResultadoCambioEstadoDto(id, true, estadoAnterior.name(), null);
+    }
+
+    public static ResultadoCambioEstadoDto rechazado(Long id, String motivo) {
+        return new ResultadoCambioEstadoDto(id, false, null, motivo);
+    }
+}
@@ -0,0 +1,7 @@
+package com.delivery.sistema.delivery.y.gestion.shared.event;
+
+/**
+ * Se publica dentro de la transacción que crea, modifica o desactiva una promoción.
+ */
+public record PromocionCambiadaEvent(Long promocionId) {
+}
@@ -0,0 +1,44 @@
+package com.delivery.sistema.delivery.y.gestion.shared.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bloque de usos de una promoción reservado por un nodo. La cantidad ya está sumada en
+ * promocion.usos_reservados; usados es lo que el nodo consolidó hasta su última sincronización.
+ * Si el nodo deja de renovar el bloque antes de expira, otro nodo lo recupera.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "promocion_cupo")
+public class CupoPromocion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "promocion_id", nullable = false)
+    private Promocion promocion;
+
+    @Column(nullable = false, length = 36)
+    private String nodo;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(nullable = false)
+    private Integer usados = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime expira;
+
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -66,9 +66,14 @@ public class Promocion {
     @Column(name = "usos_maximos")
     private Integer usosMaximos;
 
-    @Column(name = "usos_actuales", nullable = false)
+    // Los contadores de uso solo cambian con UPDATE atómicos de PromocionRepository, nunca al guardar la entidad
+    @Column(name = "usos_actuales", nullable = false, updatable = false)
     private Integer usosActuales = 0;
 
+    // Usos entregados en bloques a los nodos y todavía no consolidados en usosActuales
+    @Column(name = "usos_reservados", nullable = false, updatable = false)
+    private Integer usosReservados = 0;
+
     @CreationTimestamp
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
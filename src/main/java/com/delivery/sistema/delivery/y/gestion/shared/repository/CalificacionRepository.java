@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -73,4 +74,10 @@ public interface CalificacionRepository extends JpaRepository<Calificacion, Long
     
     @Query("SELECT c FROM Calificacion c LEFT JOIN FETCH c.pedido LEFT JOIN FETCH c.cliente LEFT JOIN FETCH c.restaurante WHERE c.id = :calificacionId")
     Optional<Calificacion> findByIdWithPedidoAndClienteAndRestaurante(@Param("calificacionId") Long calificacionId);
-}
\ No newline at end of file
+
+    // Paginación por cursor sobre (fecha_calificacion, id) descendente, sin consulta COUNT
+    @Query("SELECT c FROM Calificacion c JOIN FETCH c.cliente JOIN FETCH c.restaurante WHERE c.restaurante.id = :restauranteId "
+            + "AND (c.fechaCalificacion < :fecha OR (c.fechaCalificacion = :fecha AND c.id < :id)) "
+            + "ORDER BY c.fechaCalificacion DESC, c.id DESC")
+    List<Calificacion> findByRestauranteIdDespuesDe(@Param("restauranteId") Long restauranteId, @Param("fecha") LocalDateTime fecha, @Param("id") Long id, Limit limite);
+}
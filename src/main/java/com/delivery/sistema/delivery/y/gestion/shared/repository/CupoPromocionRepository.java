@@ -0,0 +1,32 @@
+package com.delivery.sistema.delivery.y.gestion.shared.repository;
+
+import com.delivery.sistema.delivery.y.gestion.shared.model.CupoPromocion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CupoPromocionRepository extends JpaRepository<CupoPromocion, Long> {
+
+    @Query("SELECT c FROM CupoPromocion c JOIN FETCH c.promocion WHERE c.expira < :ahora ORDER BY c.id")
+    List<CupoPromocion> findExpirados(@Param("ahora") LocalDateTime ahora);
+
+    // Devuelve 0 si el bloque ya no existe: otro nodo lo dio por perdido y lo recuperó
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CupoPromocion c SET c.usados = c.usados + :delta, c.expira = :expira WHERE c.id = :id")
+    int sincronizar(@Param("id") Long id, @Param("delta") int delta, @Param("expira") LocalDateTime expira);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CupoPromocion c WHERE c.id = :id")
+    int eliminar(@Param("id") Long id);
+
+    // Solo borra si sigue vencido: el nodo que lo consigue es el único que lo recupera
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CupoPromocion c WHERE c.id = :id AND c.expira < :ahora")
+    int eliminarSiExpirado(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+}
@@ -1,7 +1,10 @@
 package com.delivery.sistema.delivery.y.gestion.shared.repository;
 
 import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -36,4 +39,34 @@ public interface PromocionRepository extends JpaRepository<Promocion, Long> {
     List<Promocion> findPromocionesByRangoFechas(@Param("fechaInicio") LocalDateTime fechaInicio, @Param("fechaFin") LocalDateTime fechaFin);
 
     boolean existsByRestauranteIdAndNombreAndActivoTrue(Long restauranteId, String nombre);
+
+    boolean existsByCodigoIgnoreCase(String codigo);
+
+    boolean existsByCodigoIgnoreCaseAndIdNot(String codigo, Long id);
+
+    // Promociones que todavía pueden aplicarse: activas y sin vencer (vigentes o programadas)
+    @Query("SELECT p FROM Promocion p JOIN FETCH p.restaurante WHERE p.activo = true AND p.fechaFin >= :ahora")
+    List<Promocion> findActivasNoVencidas(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT p FROM Promocion p JOIN FETCH p.restaurante WHERE p.id = :id")
+    Optional<Promocion> findConRestauranteById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Promocion p WHERE p.id = :id")
+    Optional<Promocion> bloquearPorId(@Param("id") Long id);
+
+    /**
+     * Reserva un bloque de usos solo si la promoción sigue activa y, sumando lo ya usado y lo reservado
+     * por otros nodos, no supera usosMaximos. Devuelve 0 si no queda cupo suficiente.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promocion p SET p.usosReservados = p.usosReservados + :cantidad WHERE p.id = :id AND p.activo = true "
+            + "AND (p.usosMaximos IS NULL OR p.usosActuales + p.usosReservados + :cantidad <= p.usosMaximos)")
+    int reservarUsos(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    // Pasa usos de reservados a consumidos y devuelve los que sobraron (liberados) al cupo libre
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promocion p SET p.usosActuales = p.usosActuales + :consumidos, "
+            + "p.usosReservados = p.usosReservados - :consumidos - :liberados WHERE p.id = :id")
+    int consolidarUsos(@Param("id") Long id, @Param("consumidos") int consumidos, @Param("liberados") int liberados);
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package com.delivery.sistema.delivery.y.gestion.shared.service;
 
+import com.delivery.sistema.delivery.y.gestion.shared.dto.CalificacionDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PaginaCursorDto;
 import com.delivery.sistema.delivery.y.gestion.shared.model.Calificacion;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
 import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
 import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
 import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
 import com.delivery.sistema.delivery.y.gestion.shared.repository.CalificacionRepository;
 import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
 import com.delivery.sistema.delivery.y.gestion.cliente.repository.ClienteRepository;
 import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -29,6 +35,7 @@ public class CalificacionService {
     private final PedidoRepository pedidoRepository;
     private final ClienteRepository clienteRepository;
     private final RestauranteRepository restauranteRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Calificacion> listarTodas() {
         return calificacionRepository.findAll();
@@ -58,6 +65,15 @@ public class CalificacionService {
         return calificacionRepository.findByRestauranteId(restauranteId, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public PaginaCursorDto<CalificacionDto> listarPorRestaurantePorCursor(Long restauranteId, String after, Integer tamano) {
+        int limite = PaginaCursorDto.normalizarTamano(tamano);
+        Cursor cursor = Cursor.desdeToken(after);
+        List<Calificacion> filas = calificacionRepository.findByRestauranteIdDespuesDe(
+                restauranteId, cursor.fecha(), cursor.id(), Limit.of(limite + 1));
+        return PaginaCursorDto.de(filas, limite, this::convertirADto, c -> new Cursor(c.getFechaCalificacion(), c.getId()));
+    }
+
     public Optional<Calificacion> buscarPorId(Long id) {
         return calificacionRepository.findById(id);
     }
@@ -114,6 +130,7 @@ public class CalificacionService {
         calificacion.setCliente(cliente);
         calificacion.setRestaurante(restaurante);
 
+        publicarCambio(calificacion);
         return calificacionRepository.save(calificacion);
     }
 
@@ -129,12 +146,14 @@ public class CalificacionService {
         calificacionExistente.setPuntuacion(calificacionActualizada.getPuntuacion());
         calificacionExistente.setComentario(calificacionActualizada.getComentario());
 
+        publicarCambio(calificacionExistente);
         return calificacionRepository.save(calificacionExistente);
     }
 
     public void eliminar(Long id) {
         Calificacion calificacion = obtenerPorId(id);
         calificacionRepository.delete(calificacion);
+        publicarCambio(calificacion);
     }
 
     @Transactional(readOnly = true)
@@ -200,4 +219,23 @@ public class CalificacionService {
         return pedidoRepository.existsByIdAndClienteIdAndEstado(pedidoId, clienteId, EstadoPedido.ENTREGADO) &&
                !calificacionRepository.existsByPedidoId(pedidoId);
     }
-}
\ No newline at end of file
+
+    // El resumen de calificaciones forma parte de la vitrina del restaurante
+    private void publicarCambio(Calificacion calificacion) {
+        eventPublisher.publishEvent(new RestauranteCambiadoEvent(calificacion.getRestaurante().getId()));
+    }
+
+    private CalificacionDto convertirADto(Calificacion calificacion) {
+        CalificacionDto dto = new CalificacionDto();
+        dto.setId(calificacion.getId());
+        dto.setPuntuacion(calificacion.getPuntuacion());
+        dto.setComentario(calificacion.getComentario());
+        dto.setClienteId(calificacion.getCliente().getId());
+        dto.setClienteNombre(calificacion.getCliente().getNombre());
+        dto.setRestauranteId(calificacion.getRestaurante().getId());
+        dto.setRestauranteNombre(calificacion.getRestaurante().getNombre());
+        dto.setPedidoId(calificacion.getPedido() != null ? calificacion.getPedido().getId() : null);
+        dto.setFechaCalificacion(calificacion.getFechaCalificacion());
+        return dto;
+    }
+}
@@ -0,0 +1,350 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.config.ProgramacionConfig;
+import com.delivery.sistema.delivery.y.gestion.shared.event.PromocionCambiadaEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.model.CupoPromocion;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.CupoPromocionRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Canje de usos de promociones sin convertir la fila de la promoción en un punto caliente.
+ * Cada nodo reserva bloques de usos (promocion_cupo) con un UPDATE condicionado a usosMaximos, de modo
+ * que la suma de lo consumido y lo reservado nunca lo supera. Dentro de un bloque los canjes se cuentan
+ * con un contador atómico en memoria y se consolidan en la fila cada app.promociones.cupo.sincronizacion-ms.
+ * Cada pedido guarda el bloque del que salió su uso: si un nodo cae, otro recupera sus bloques vencidos
+ * contando esos pedidos y devuelve al cupo libre lo que no llegó a usarse.
+ * Un pedido solo confirma si su bloque sigue vigente en este nodo, cuya vigencia termina ttl/2 antes de que
+ * el bloque venza en la base de datos; además la recuperación espera app.promociones.cupo.gracia-ms tras el
+ * vencimiento. Así ningún pedido en curso confirma un uso de un bloque que otro nodo ya devolvió.
+ * La sincronización corre en su propio planificador (ProgramacionConfig) para que ninguna otra tarea
+ * programada la retrase más allá de ttl/2; app.promociones.cupo.sincronizacion-ms debe quedar muy por
+ * debajo de ese margen.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CanjePromocionService {
+
+    private static final int CERRADO = Integer.MIN_VALUE / 2;
+
+    private final PromocionRepository promocionRepository;
+    private final CupoPromocionRepository cupoPromocionRepository;
+    private final PedidoRepository pedidoRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.promociones.cupo.bloque:20}")
+    private int tamanoBloque;
+
+    @Value("${app.promociones.cupo.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.promociones.cupo.reintento-ms:1000}")
+    private long reintentoMs;
+
+    @Value("${app.promociones.cupo.gracia-ms:30000}")
+    private long graciaMs;
+
+    private final String nodo = UUID.randomUUID().toString();
+    private final Map<Long, Bloque> bloques = new ConcurrentHashMap<>();
+    private final Queue<Bloque> retirados = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Long> sinCupoHasta = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> candados = new ConcurrentHashMap<>();
+
+    private static final class Bloque {
+        private final Long cupoId;
+        private final Long promocionId;
+        private final int cantidad;
+        private final AtomicInteger usados = new AtomicInteger();
+        private volatile int sincronizados;
+        private volatile long validoHasta;
+        // Este nodo ya volcó sus usos en la promoción y borró la fila: nadie más puede recuperarlo
+        private volatile boolean consolidado;
+
+        private Bloque(Long cupoId, Long promocionId, int cantidad, long validoHasta) {
+            this.cupoId = cupoId;
+            this.promocionId = promocionId;
+            this.cantidad = cantidad;
+            this.validoHasta = validoHasta;
+        }
+
+        private boolean tomar() {
+            if (System.currentTimeMillis() > validoHasta) {
+                return false;
+            }
+            int actual;
+            do {
+                actual = usados.get();
+                if (actual < 0 || actual >= cantidad) {
+                    return false;
+                }
+            } while (!usados.compareAndSet(actual, actual + 1));
+            return true;
+        }
+
+        private boolean puedeConfirmar() {
+            return consolidado || System.currentTimeMillis() <= validoHasta;
+        }
+
+        // Devuelve los usos tomados hasta ahora y deja el bloque inservible; negativo si ya estaba cerrado
+        private int cerrar() {
+            return usados.getAndSet(CERRADO);
+        }
+    }
+
+    /**
+     * Toma un uso de la promoción para el pedido que se está creando.
+     * Si la transacción del pedido no confirma, el uso vuelve al bloque; si al confirmar el bloque ya no está
+     * vigente, la transacción falla con IllegalStateException.
+     * @return el bloque de cupo del que salió el uso, o vacío si la promoción no tiene usos disponibles
+     */
+    public Optional<Long> canjear(Long promocionId) {
+        for (int intento = 0; intento < 3; intento++) {
+            Bloque bloque = bloques.get(promocionId);
+            if (bloque == null || !bloque.tomar()) {
+                bloque = renovarBloque(promocionId, bloque);
+                if (bloque == null) {
+                    return Optional.empty();
+                }
+                if (!bloque.tomar()) {
+                    continue;
+                }
+            }
+            atarATransaccion(bloque);
+            return Optional.of(bloque.cupoId);
+        }
+        return Optional.empty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPromocion(PromocionCambiadaEvent evento) {
+        // Los cambios en usosMaximos o activo se aplican en el próximo bloque que se reserve
+        Bloque bloque = bloques.remove(evento.promocionId());
+        if (bloque != null) {
+            retirados.add(bloque);
+        }
+        sinCupoHasta.remove(evento.promocionId());
+    }
+
+    /**
+     * Consolida en la fila de cada promoción los usos contados desde la última sincronización y renueva
+     * los bloques en uso. Los bloques agotados, retirados o sin canjes desde la pasada anterior se cierran
+     * y devuelven lo que no usaron.
+     */
+    @Scheduled(initialDelayString = "${app.promociones.cupo.sincronizacion-ms:5000}",
+               fixedDelayString = "${app.promociones.cupo.sincronizacion-ms:5000}",
+               scheduler = ProgramacionConfig.CUPO_PROMOCIONES)
+    public synchronized void sincronizar() {
+        for (Bloque retirado = retirados.poll(); retirado != null; retirado = retirados.poll()) {
+            cerrar(retirado);
+        }
+        bloques.forEach((promocionId, bloque) -> {
+            int usados = bloque.usados.get();
+            if (usados == bloque.sincronizados || usados >= bloque.cantidad) {
+                if (bloques.remove(promocionId, bloque)) {
+                    cerrar(bloque);
+                }
+            } else {
+                renovar(bloque, usados);
+            }
+        });
+    }
+
+    /**
+     * Recupera los bloques que su nodo dejó de renovar (caída o pérdida de conexión).
+     * Los usos reales son los pedidos que referencian el bloque; el resto vuelve al cupo libre.
+     */
+    @Scheduled(initialDelayString = "${app.promociones.cupo.recuperacion-ms:60000}",
+               fixedDelayString = "${app.promociones.cupo.recuperacion-ms:60000}")
+    public void recuperarVencidos() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int recuperados = 0;
+        // Un bloque vencido ya no admite confirmaciones en su nodo; el margen cubre los pedidos que pasaron
+        // la comprobación y están terminando de confirmar, y la diferencia de reloj entre nodos
+        LocalDateTime limite = LocalDateTime.now().minus(Duration.ofMillis(graciaMs));
+        for (CupoPromocion cupo : cupoPromocionRepository.findExpirados(limite)) {
+            recuperados += transaccion.execute(status -> recuperar(cupo, limite));
+        }
+        if (recuperados > 0) {
+            log.info("Recuperados {} bloques de cupo de promociones vencidos", recuperados);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void liberarTodo() {
+        bloques.forEach((promocionId, bloque) -> retirados.add(bloque));
+        bloques.clear();
+        for (Bloque retirado = retirados.poll(); retirado != null; retirado = retirados.poll()) {
+            cerrar(retirado);
+        }
+    }
+
+    private Bloque renovarBloque(Long promocionId, Bloque agotado) {
+        ReentrantLock candado = candados.computeIfAbsent(promocionId, id -> new ReentrantLock());
+        candado.lock();
+        try {
+            Bloque actual = bloques.get(promocionId);
+            if (actual != null && actual != agotado) {
+                // Otro hilo ya reservó un bloque nuevo mientras se esperaba el candado
+                return actual;
+            }
+            if (System.currentTimeMillis() < sinCupoHasta.getOrDefault(promocionId, 0L)) {
+                return null;
+            }
+            if (actual != null && bloques.remove(promocionId, actual)) {
+                retirados.add(actual);
+            }
+
+            Bloque nuevo = reservarBloque(promocionId);
+            if (nuevo == null) {
+                // Evita que cada pedido vuelva a consultar la fila mientras no haya cupo
+                sinCupoHasta.put(promocionId, System.currentTimeMillis() + reintentoMs);
+                return null;
+            }
+            bloques.put(promocionId, nuevo);
+            return nuevo;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    // Transacción propia y corta: el bloqueo de la fila no se extiende a la transacción del pedido
+    private Bloque reservarBloque(Long promocionId) {
+        TransactionTemplate nueva = new TransactionTemplate(transactionManager);
+        nueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return nueva.execute(status -> {
+            Promocion promocion = promocionRepository.bloquearPorId(promocionId).orElse(null);
+            if (promocion == null || !Boolean.TRUE.equals(promocion.getActivo())) {
+                return null;
+            }
+
+            int cantidad = tamanoBloque;
+            if (promocion.getUsosMaximos() != null) {
+                cantidad = Math.min(cantidad,
+                        promocion.getUsosMaximos() - promocion.getUsosActuales() - promocion.getUsosReservados());
+            }
+            if (cantidad <= 0 || promocionRepository.reservarUsos(promocionId, cantidad) == 0) {
+                return null;
+            }
+
+            CupoPromocion cupo = new CupoPromocion();
+            cupo.setPromocion(promocionRepository.getReferenceById(promocionId));
+            cupo.setNodo(nodo);
+            cupo.setCantidad(cantidad);
+            cupo.setExpira(LocalDateTime.now().plus(Duration.ofMillis(ttlMs)));
+            cupoPromocionRepository.save(cupo);
+            return new Bloque(cupo.getId(), promocionId, cantidad, validoHasta());
+        });
+    }
+
+    private void renovar(Bloque bloque, int usados) {
+        int delta = usados - bloque.sincronizados;
+        LocalDateTime expira = LocalDateTime.now().plus(Duration.ofMillis(ttlMs));
+        try {
+            Boolean vigente = new TransactionTemplate(transactionManager).execute(status -> {
+                if (cupoPromocionRepository.sincronizar(bloque.cupoId, delta, expira) == 0) {
+                    return false;
+                }
+                if (delta != 0) {
+                    promocionRepository.consolidarUsos(bloque.promocionId, delta, 0);
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(vigente)) {
+                bloque.sincronizados = usados;
+                bloque.validoHasta = validoHasta();
+            } else {
+                // Otro nodo ya lo recuperó contando los pedidos: no queda nada que consolidar
+                bloques.remove(bloque.promocionId, bloque);
+                bloque.cerrar();
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo sincronizar el bloque de cupo {}: {}", bloque.cupoId, e.getMessage());
+        }
+    }
+
+    private void cerrar(Bloque bloque) {
+        int usados = bloque.cerrar();
+        if (usados < 0) {
+            return;
+        }
+        int consumidos = usados - bloque.sincronizados;
+        int liberados = bloque.cantidad - usados;
+        try {
+            Boolean propio = new TransactionTemplate(transactionManager).execute(status -> {
+                if (cupoPromocionRepository.eliminar(bloque.cupoId) == 0) {
+                    return false;
+                }
+                promocionRepository.consolidarUsos(bloque.promocionId, consumidos, liberados);
+                return true;
+            });
+            bloque.consolidado = Boolean.TRUE.equals(propio);
+        } catch (RuntimeException e) {
+            // La fila del bloque sigue ahí: se recuperará al vencer, contando los pedidos
+            log.warn("No se pudo cerrar el bloque de cupo {}: {}", bloque.cupoId, e.getMessage());
+        }
+    }
+
+    private int recuperar(CupoPromocion cupo, LocalDateTime limite) {
+        if (cupoPromocionRepository.eliminarSiExpirado(cupo.getId(), limite) == 0) {
+            return 0;
+        }
+        int confirmados = (int) pedidoRepository.countByCupoPromocionId(cupo.getId());
+        promocionRepository.consolidarUsos(cupo.getPromocion().getId(),
+                confirmados - cupo.getUsados(), cupo.getCantidad() - confirmados);
+        return 1;
+    }
+
+    private void atarATransaccion(Bloque bloque) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Pasado validoHasta el bloque puede vencer y ser recuperado por otro nodo sin contar este pedido
+                if (!bloque.puedeConfirmar()) {
+                    throw new IllegalStateException(
+                            "El cupo de la promoción venció antes de confirmar el pedido; vuelva a intentarlo");
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    bloque.usados.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    // El nodo deja de usar un bloque a mitad de su vigencia si no pudo renovarlo, mucho antes de que
+    // otro nodo lo dé por vencido y lo recupere
+    private long validoHasta() {
+        return System.currentTimeMillis() + ttlMs / 2;
+    }
+}
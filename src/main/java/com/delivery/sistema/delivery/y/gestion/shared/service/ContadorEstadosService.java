@@ -0,0 +1,134 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.RepartidorEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.util.ContadorEstados;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores en memoria de pedidos, entregas y repartidores por estado.
+ * Se siembran con un GROUP BY al arrancar, se actualizan con los eventos de cambio de estado
+ * una vez confirmada la transacción y se reconcilian periódicamente contra la base de datos
+ * para corregir cualquier desvío (por ejemplo, cambios hechos fuera de la aplicación).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContadorEstadosService {
+
+    private final PedidoRepository pedidoRepository;
+    private final EntregaRepository entregaRepository;
+    private final RepartidorRepository repartidorRepository;
+    private final PedidoHistoricoRepository pedidoHistoricoRepository;
+    private final EntregaHistoricoRepository entregaHistoricoRepository;
+
+    private final ContadorEstados<EstadoPedido> pedidos = new ContadorEstados<>(EstadoPedido.class);
+    private final ContadorEstados<EstadoEntrega> entregas = new ContadorEstados<>(EstadoEntrega.class);
+    private final ContadorEstados<EstadoRepartidor> repartidores = new ContadorEstados<>(EstadoRepartidor.class);
+    private final LongAdder repartidoresDisponibles = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    @Scheduled(initialDelayString = "${app.contadores.reconciliacion-ms:60000}",
+               fixedDelayString = "${app.contadores.reconciliacion-ms:60000}")
+    public void reconciliar() {
+        pedidos.reconciliar(agrupar(EstadoPedido.class,
+                pedidoRepository.contarAgrupadoPorEstado(), pedidoHistoricoRepository.contarAgrupadoPorEstado()));
+        entregas.reconciliar(agrupar(EstadoEntrega.class,
+                entregaRepository.contarAgrupadoPorEstado(), entregaHistoricoRepository.contarAgrupadoPorEstado()));
+
+        EnumMap<EstadoRepartidor, Long> porEstado = new EnumMap<>(EstadoRepartidor.class);
+        long disponibles = 0;
+        for (Object[] fila : repartidorRepository.contarAgrupadoPorEstadoYDisponible()) {
+            long cantidad = (Long) fila[2];
+            porEstado.merge((EstadoRepartidor) fila[0], cantidad, Long::sum);
+            if (Boolean.TRUE.equals(fila[1])) {
+                disponibles += cantidad;
+            }
+        }
+        repartidores.reconciliar(porEstado);
+        repartidoresDisponibles.add(disponibles - repartidoresDisponibles.sum());
+
+        log.debug("Contadores de estado reconciliados: pedidos={}, entregas={}, repartidores={}",
+                pedidos.comoMapa(), entregas.comoMapa(), repartidores.comoMapa());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstadoPedido(PedidoEstadoCambiadoEvent evento) {
+        pedidos.mover(evento.estadoAnterior(), evento.estadoNuevo());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstadoEntrega(EntregaEstadoCambiadoEvent evento) {
+        entregas.mover(evento.estadoAnterior(), evento.estadoNuevo());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEstadoRepartidor(RepartidorEstadoCambiadoEvent evento) {
+        repartidores.mover(evento.estadoAnterior(), evento.estadoNuevo());
+        if (Boolean.TRUE.equals(evento.disponibleAnterior())) {
+            repartidoresDisponibles.decrement();
+        }
+        if (Boolean.TRUE.equals(evento.disponibleNuevo())) {
+            repartidoresDisponibles.increment();
+        }
+    }
+
+    public Map<String, Long> pedidosPorEstado() {
+        return pedidos.comoMapa();
+    }
+
+    public long entregas(EstadoEntrega estado) {
+        return entregas.valor(estado);
+    }
+
+    public long totalEntregas() {
+        return entregas.total();
+    }
+
+    public long repartidores(EstadoRepartidor estado) {
+        return repartidores.valor(estado);
+    }
+
+    public long totalRepartidores() {
+        return repartidores.total();
+    }
+
+    public long repartidoresDisponibles() {
+        return repartidoresDisponibles.sum();
+    }
+
+    // Suma las filas activas y las archivadas: el archivador mueve filas sin cambiar su estado
+    private static <E extends Enum<E>> EnumMap<E, Long> agrupar(Class<E> tipo, List<Object[]> activas, List<Object[]> archivadas) {
+        EnumMap<E, Long> valores = new EnumMap<>(tipo);
+        for (List<Object[]> filas : List.of(activas, archivadas)) {
+            for (Object[] fila : filas) {
+                valores.merge(tipo.cast(fila[0]), (Long) fila[1], Long::sum);
+            }
+        }
+        return valores;
+    }
+}
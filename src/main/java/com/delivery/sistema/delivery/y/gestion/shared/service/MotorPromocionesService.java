@@ -0,0 +1,190 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.shared.event.PromocionCambiadaEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
+import com.delivery.sistema.delivery.y.gestion.shared.model.TipoPromocion;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.util.IndiceIntervalos;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de promociones en memoria. Por cada restaurante guarda un índice de intervalos sobre la ventana
+ * de vigencia de sus promociones, y un mapa global codigo → promoción para las que requieren código.
+ * Los índices son inmutables y se reemplazan enteros (copy-on-write) solo para el restaurante afectado
+ * cuando una promoción cambia; las lecturas durante la creación de pedidos nunca tocan la base de datos.
+ * Las promociones con código solo se aplican si el cliente lo envía; las demás se aplican automáticamente.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MotorPromocionesService {
+
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    private final PromocionRepository promocionRepository;
+
+    private final Map<Long, IndiceIntervalos<PromocionVigente>> indices = new ConcurrentHashMap<>();
+    private final Map<String, PromocionVigente> porCodigo = new ConcurrentHashMap<>();
+
+    public record PromocionVigente(Long id, Long restauranteId, String nombre, TipoPromocion tipo, BigDecimal valor,
+                                   String codigo, LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                   BigDecimal montoMinimo) {
+
+        BigDecimal descuento(BigDecimal subtotal, BigDecimal costoDelivery) {
+            BigDecimal descuento = switch (tipo) {
+                case DESCUENTO_PORCENTAJE -> subtotal.multiply(valor).divide(CIEN, 2, RoundingMode.HALF_UP);
+                case DESCUENTO_FIJO -> valor.min(subtotal);
+                case ENVIO_GRATIS -> costoDelivery;
+            };
+            return descuento.setScale(2, RoundingMode.HALF_UP);
+        }
+
+        boolean aplicableA(BigDecimal subtotal, LocalDateTime instante) {
+            return !instante.isBefore(fechaInicio) && !instante.isAfter(fechaFin) && subtotal.compareTo(montoMinimo) >= 0;
+        }
+    }
+
+    public record PromocionAplicada(Long promocionId, String nombre, BigDecimal descuento) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        List<PromocionVigente> promociones = promocionRepository.findActivasNoVencidas(LocalDateTime.now()).stream()
+                .filter(MotorPromocionesService::disponible)
+                .map(MotorPromocionesService::desdeEntidad)
+                .toList();
+
+        indices.clear();
+        porCodigo.clear();
+        promociones.stream()
+                .collect(Collectors.groupingBy(PromocionVigente::restauranteId))
+                .forEach((restauranteId, lista) -> indices.put(restauranteId, indexar(lista)));
+        promociones.stream()
+                .filter(promocion -> promocion.codigo() != null)
+                .forEach(promocion -> porCodigo.put(normalizar(promocion.codigo()), promocion));
+        log.info("Motor de promociones cargado: {} promociones en {} restaurantes", promociones.size(), indices.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPromocion(PromocionCambiadaEvent evento) {
+        recargar(evento.promocionId());
+    }
+
+    // Las promociones vencidas nunca se aplican, pero se quitan para que los índices no crezcan sin límite
+    @Scheduled(cron = "${app.promociones.purga-cron:0 0 4 * * *}")
+    public void purgarVencidas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        indices.keySet().forEach(restauranteId -> indices.computeIfPresent(restauranteId, (id, indice) -> {
+            List<PromocionVigente> vigentes = indice.elementos().stream()
+                    .filter(promocion -> !promocion.fechaFin().isBefore(ahora))
+                    .toList();
+            return vigentes.isEmpty() ? null : indexar(vigentes);
+        }));
+        porCodigo.values().removeIf(promocion -> promocion.fechaFin().isBefore(ahora));
+    }
+
+    /**
+     * Mejor promoción aplicable al pedido: la de mayor descuento entre las automáticas vigentes del restaurante
+     * y, si se envió, la del código. Un código inexistente, de otro restaurante o no aplicable es un error.
+     */
+    public Optional<PromocionAplicada> mejorPromocion(Long restauranteId, String codigo, BigDecimal subtotal,
+                                                      BigDecimal costoDelivery, LocalDateTime instante,
+                                                      Set<Long> excluidas) {
+        List<PromocionVigente> candidatas = new ArrayList<>();
+        IndiceIntervalos<PromocionVigente> indice = indices.get(restauranteId);
+        if (indice != null) {
+            indice.vigentesEn(instante).stream()
+                    .filter(promocion -> promocion.codigo() == null)
+                    .forEach(candidatas::add);
+        }
+
+        if (codigo != null && !codigo.isBlank()) {
+            PromocionVigente conCodigo = porCodigo.get(normalizar(codigo));
+            if (conCodigo == null || !conCodigo.restauranteId().equals(restauranteId)
+                    || excluidas.contains(conCodigo.id()) || !conCodigo.aplicableA(subtotal, instante)) {
+                throw new IllegalArgumentException("El código de promoción '" + codigo + "' no es válido para este pedido");
+            }
+            candidatas.add(conCodigo);
+        }
+
+        return candidatas.stream()
+                .filter(promocion -> !excluidas.contains(promocion.id()) && promocion.aplicableA(subtotal, instante))
+                .map(promocion -> new PromocionAplicada(promocion.id(), promocion.nombre(),
+                        promocion.descuento(subtotal, costoDelivery)))
+                .filter(aplicada -> aplicada.descuento().signum() > 0)
+                .max(Comparator.comparing(PromocionAplicada::descuento)
+                        .thenComparing(PromocionAplicada::promocionId, Comparator.reverseOrder()));
+    }
+
+    private void recargar(Long promocionId) {
+        quitar(promocionId);
+        promocionRepository.findConRestauranteById(promocionId)
+                .filter(promocion -> Boolean.TRUE.equals(promocion.getActivo()) && disponible(promocion))
+                .filter(promocion -> !promocion.getFechaFin().isBefore(LocalDateTime.now()))
+                .map(MotorPromocionesService::desdeEntidad)
+                .ifPresent(this::agregar);
+    }
+
+    private void agregar(PromocionVigente promocion) {
+        indices.compute(promocion.restauranteId(), (id, indice) -> {
+            List<PromocionVigente> lista = new ArrayList<>(indice == null ? List.of() : indice.elementos());
+            lista.add(promocion);
+            return indexar(lista);
+        });
+        if (promocion.codigo() != null) {
+            porCodigo.put(normalizar(promocion.codigo()), promocion);
+        }
+    }
+
+    private void quitar(Long promocionId) {
+        porCodigo.values().removeIf(promocion -> promocion.id().equals(promocionId));
+        indices.keySet().forEach(restauranteId -> indices.computeIfPresent(restauranteId, (id, indice) -> {
+            if (indice.elementos().stream().noneMatch(promocion -> promocion.id().equals(promocionId))) {
+                return indice;
+            }
+            List<PromocionVigente> restantes = indice.elementos().stream()
+                    .filter(promocion -> !promocion.id().equals(promocionId))
+                    .toList();
+            return restantes.isEmpty() ? null : indexar(restantes);
+        }));
+    }
+
+    private static IndiceIntervalos<PromocionVigente> indexar(List<PromocionVigente> promociones) {
+        return new IndiceIntervalos<>(promociones, PromocionVigente::fechaInicio, PromocionVigente::fechaFin);
+    }
+
+    private static boolean disponible(Promocion promocion) {
+        return promocion.getUsosMaximos() == null || promocion.getUsosActuales() < promocion.getUsosMaximos();
+    }
+
+    private static PromocionVigente desdeEntidad(Promocion promocion) {
+        return new PromocionVigente(promocion.getId(), promocion.getRestaurante().getId(), promocion.getNombre(),
+                promocion.getTipo(), promocion.getValor(),
+                promocion.getCodigo() == null || promocion.getCodigo().isBlank() ? null : promocion.getCodigo(),
+                promocion.getFechaInicio(), promocion.getFechaFin(),
+                promocion.getMontoMinimo() != null ? promocion.getMontoMinimo() : BigDecimal.ZERO);
+    }
+
+    private static String normalizar(String codigo) {
+        return codigo.trim().toUpperCase(Locale.ROOT);
+    }
+}
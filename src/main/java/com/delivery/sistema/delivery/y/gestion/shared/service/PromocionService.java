@@ -0,0 +1,145 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PromocionDto;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.PromocionPublicaDto;
+import com.delivery.sistema.delivery.y.gestion.shared.event.PromocionCambiadaEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
+import com.delivery.sistema.delivery.y.gestion.shared.model.TipoPromocion;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PromocionService {
+
+    private final PromocionRepository promocionRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public List<PromocionPublicaDto> listarPublicasPorRestaurante(Long restauranteId) {
+        return promocionRepository.findByRestauranteIdAndActivoTrueOrderByFechaCreacionDesc(restauranteId).stream()
+                .map(this::convertirAPublicaDto)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<PromocionDto> listarPorRestaurante(Long restauranteId) {
+        return promocionRepository.findByRestauranteIdAndActivoTrueOrderByFechaCreacionDesc(restauranteId).stream()
+                .map(this::convertirADto)
+                .toList();
+    }
+
+    public Promocion obtenerPorId(Long id) {
+        return promocionRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Promoción no encontrada con ID: " + id));
+    }
+
+    public PromocionDto crear(Long restauranteId, PromocionDto dto) {
+        Restaurante restaurante = restauranteRepository.findById(restauranteId)
+                .orElseThrow(() -> new EntityNotFoundException("Restaurante no encontrado con ID: " + restauranteId));
+
+        String codigo = normalizarCodigo(dto.getCodigo());
+        if (codigo != null && promocionRepository.existsByCodigoIgnoreCase(codigo)) {
+            throw new IllegalArgumentException("Ya existe una promoción con el código: " + codigo);
+        }
+
+        Promocion promocion = new Promocion();
+        promocion.setRestaurante(restaurante);
+        copiarCampos(dto, promocion, codigo);
+        return guardar(promocion);
+    }
+
+    public PromocionDto actualizar(Long restauranteId, Long id, PromocionDto dto) {
+        Promocion promocion = obtenerDelRestaurante(restauranteId, id);
+
+        String codigo = normalizarCodigo(dto.getCodigo());
+        if (codigo != null && promocionRepository.existsByCodigoIgnoreCaseAndIdNot(codigo, id)) {
+            throw new IllegalArgumentException("Ya existe una promoción con el código: " + codigo);
+        }
+
+        copiarCampos(dto, promocion, codigo);
+        if (dto.getActivo() != null) {
+            promocion.setActivo(dto.getActivo());
+        }
+        return guardar(promocion);
+    }
+
+    public void desactivar(Long restauranteId, Long id) {
+        Promocion promocion = obtenerDelRestaurante(restauranteId, id);
+        promocion.setActivo(false);
+        guardar(promocion);
+    }
+
+    private Promocion obtenerDelRestaurante(Long restauranteId, Long id) {
+        Promocion promocion = obtenerPorId(id);
+        if (!promocion.getRestaurante().getId().equals(restauranteId)) {
+            throw new EntityNotFoundException("Promoción no encontrada con ID: " + id);
+        }
+        return promocion;
+    }
+
+    // El motor de promociones recarga esta promoción cuando la transacción confirma
+    private PromocionDto guardar(Promocion promocion) {
+        Promocion guardada = promocionRepository.save(promocion);
+        eventPublisher.publishEvent(new PromocionCambiadaEvent(guardada.getId()));
+        return convertirADto(guardada);
+    }
+
+    private void copiarCampos(PromocionDto dto, Promocion promocion, String codigo) {
+        if (dto.getFechaInicio().isAfter(dto.getFechaFin())) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        if (dto.getTipo() == TipoPromocion.DESCUENTO_PORCENTAJE && dto.getValor().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new IllegalArgumentException("El porcentaje de descuento no puede superar 100");
+        }
+
+        promocion.setNombre(dto.getNombre());
+        promocion.setDescripcion(dto.getDescripcion());
+        promocion.setTipo(dto.getTipo());
+        promocion.setValor(dto.getValor());
+        promocion.setCodigo(codigo);
+        promocion.setFechaInicio(dto.getFechaInicio());
+        promocion.setFechaFin(dto.getFechaFin());
+        promocion.setMontoMinimo(dto.getMontoMinimo() != null ? dto.getMontoMinimo() : BigDecimal.ZERO);
+        promocion.setUsosMaximos(dto.getUsosMaximos());
+    }
+
+    private String normalizarCodigo(String codigo) {
+        return codigo == null || codigo.isBlank() ? null : codigo.trim().toUpperCase();
+    }
+
+    private PromocionDto convertirADto(Promocion promocion) {
+        PromocionDto dto = new PromocionDto();
+        dto.setId(promocion.getId());
+        dto.setRestauranteId(promocion.getRestaurante().getId());
+        dto.setNombre(promocion.getNombre());
+        dto.setDescripcion(promocion.getDescripcion());
+        dto.setTipo(promocion.getTipo());
+        dto.setValor(promocion.getValor());
+        dto.setCodigo(promocion.getCodigo());
+        dto.setFechaInicio(promocion.getFechaInicio());
+        dto.setFechaFin(promocion.getFechaFin());
+        dto.setMontoMinimo(promocion.getMontoMinimo());
+        dto.setActivo(promocion.getActivo());
+        dto.setUsosMaximos(promocion.getUsosMaximos());
+        dto.setUsosActuales(promocion.getUsosActuales());
+        return dto;
+    }
+
+    private PromocionPublicaDto convertirAPublicaDto(Promocion promocion) {
+        return new PromocionPublicaDto(promocion.getId(), promocion.getRestaurante().getId(), promocion.getNombre(),
+                promocion.getDescripcion(), promocion.getTipo(), promocion.getValor(), promocion.getCodigo() != null,
+                promocion.getFechaInicio(), promocion.getFechaFin(), promocion.getMontoMinimo());
+    }
+}
@@ -0,0 +1,451 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.MetricasTiempoEstimadoDto;
+import com.delivery.sistema.delivery.y.gestion.shared.util.EstadisticaDuracion;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Estimación en línea del tiempo de entrega de los pedidos, en minutos desde que se hicieron.
+ * El pedido se divide en tres etapas con su propia estadística en memoria (media móvil y cuantiles, ver
+ * {@link EstadisticaDuracion}): preparación por restaurante (alta a LISTO), recogida por hora del día (LISTO a
+ * entrega EN_CAMINO) y trayecto por repartidor y hora del día (EN_CAMINO a ENTREGADO). Cuando una clave todavía
+ * tiene menos de app.eta.min-muestras se usa el nivel más general y, sin ninguno, los valores por defecto.
+ * Las estadísticas aprenden de los cambios de estado una vez confirmados, con costo O(1) por evento; al arrancar
+ * se siembran con una sola pasada por las entregas completadas de los últimos app.eta.dias-historia días.
+ * tiempoEstimado se calcula al crear el pedido y se recalcula con cada cambio de estado. Las estimaciones de una
+ * transacción se juntan y se escriben justo antes del commit con una lectura por tipo y un UPDATE, así que un lote
+ * de N pedidos no cuesta 2N sentencias y la estimación se confirma o revierte con el cambio.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TiempoEstimadoService {
+
+    private static final int HORAS = 24;
+
+    private final PedidoRepository pedidoRepository;
+    private final EntregaRepository entregaRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.eta.alfa:0.1}")
+    private double alfa;
+
+    @Value("${app.eta.vida-media-horas:72}")
+    private long vidaMediaHoras;
+
+    @Value("${app.eta.min-muestras:5}")
+    private long minMuestras;
+
+    @Value("${app.eta.max-duracion-min:240}")
+    private long maxDuracionMin;
+
+    @Value("${app.eta.preparacion-defecto-min:20}")
+    private double preparacionDefectoMin;
+
+    @Value("${app.eta.recogida-defecto-min:8}")
+    private double recogidaDefectoMin;
+
+    @Value("${app.eta.trayecto-defecto-min:15}")
+    private double trayectoDefectoMin;
+
+    @Value("${app.eta.dias-historia:14}")
+    private int diasHistoria;
+
+    private record DatosPedido(long restauranteId, long fechaPedidoMs) {
+    }
+
+    private record Recogida(long repartidorId, long desdeMs) {
+    }
+
+    // Cambio cuya estimación se escribe al final de la transacción: id del pedido con estadoPedido, o de la
+    // entrega con estadoEntrega
+    private record Cambio(long id, EstadoPedido estadoPedido, EstadoEntrega estadoEntrega, long instanteMs) {
+    }
+
+    private final Map<Long, EstadisticaDuracion> preparacionPorRestaurante = new ConcurrentHashMap<>();
+    private final Map<Long, EstadisticaDuracion> trayectoPorRepartidor = new ConcurrentHashMap<>();
+    // Clave repartidorId * HORAS + hora
+    private final Map<Long, EstadisticaDuracion> trayectoPorRepartidorYHora = new ConcurrentHashMap<>();
+    private final EstadisticaDuracion[] recogidaPorHora = new EstadisticaDuracion[HORAS];
+    private final EstadisticaDuracion[] trayectoPorHora = new EstadisticaDuracion[HORAS];
+    private EstadisticaDuracion preparacionGlobal;
+    private EstadisticaDuracion recogidaGlobal;
+    private EstadisticaDuracion trayectoGlobal;
+
+    // Comienzo de las etapas en curso; solo viven mientras el pedido o la entrega están activos
+    private final Map<Long, DatosPedido> pedidos = new ConcurrentHashMap<>();
+    private final Map<Long, Long> listosDesde = new ConcurrentHashMap<>();
+    private final Map<Long, Recogida> enCamino = new ConcurrentHashMap<>();
+
+    private final LongAdder muestrasHistoricas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder sinInicio = new LongAdder();
+    private final LongAdder estimaciones = new LongAdder();
+
+    // Antes del arranque completo ya puede haber cambios de estado, por ejemplo de datos iniciales
+    @PostConstruct
+    public void crearEstadisticas() {
+        preparacionGlobal = nueva();
+        recogidaGlobal = nueva();
+        trayectoGlobal = nueva();
+        for (int hora = 0; hora < HORAS; hora++) {
+            recogidaPorHora[hora] = nueva();
+            trayectoPorHora[hora] = nueva();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (diasHistoria > 0) {
+            sembrar(LocalDateTime.now().minusDays(diasHistoria));
+        }
+    }
+
+    /**
+     * Minutos estimados desde el alta hasta la entrega de un pedido nuevo del restaurante.
+     */
+    public Integer estimarAlCrear(Long restauranteId) {
+        long ahora = System.currentTimeMillis();
+        int hora = hora(ahora);
+        return minutos(preparacion(restauranteId) + recogida(hora) + trayecto(null, hora));
+    }
+
+    // Síncrono, dentro de la transacción del cambio de estado: solo anota el cambio en el lote de la transacción
+    @EventListener
+    public void actualizarEstimacionPedido(PedidoEstadoCambiadoEvent evento) {
+        EstadoPedido estado = evento.estadoNuevo();
+        // El alta la estima crearPedido y EN_TRANSITO la entrega, que ya conoce al repartidor
+        if (evento.estadoAnterior() == null || estado == null || estado == EstadoPedido.CANCELADO
+                || estado == EstadoPedido.EN_TRANSITO) {
+            return;
+        }
+        encolar(new Cambio(evento.pedidoId(), estado, null, System.currentTimeMillis()));
+    }
+
+    @EventListener
+    public void actualizarEstimacionEntrega(EntregaEstadoCambiadoEvent evento) {
+        EstadoEntrega estado = evento.estadoNuevo();
+        if (estado != EstadoEntrega.ASIGNADO && estado != EstadoEntrega.EN_CAMINO) {
+            return;
+        }
+        encolar(new Cambio(evento.entregaId(), null, estado, System.currentTimeMillis()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aprenderDePedido(PedidoEstadoCambiadoEvent evento) {
+        Long pedidoId = evento.pedidoId();
+        EstadoPedido estado = evento.estadoNuevo();
+        if (estado == EstadoPedido.LISTO) {
+            long ahora = System.currentTimeMillis();
+            listosDesde.put(pedidoId, ahora);
+            // Desde EN_TRANSITO vuelve de una entrega fallida: no es tiempo de preparación
+            if (evento.estadoAnterior() != EstadoPedido.EN_TRANSITO) {
+                DatosPedido pedido = datosPedido(pedidoId);
+                if (pedido != null) {
+                    registrar(pedido.fechaPedidoMs(), ahora, preparacionGlobal,
+                            preparacionPorRestaurante.computeIfAbsent(pedido.restauranteId(), id -> nueva()));
+                }
+            }
+        } else if (estado == null || estado == EstadoPedido.ENTREGADO || estado == EstadoPedido.CANCELADO) {
+            pedidos.remove(pedidoId);
+            listosDesde.remove(pedidoId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aprenderDeEntrega(EntregaEstadoCambiadoEvent evento) {
+        Long entregaId = evento.entregaId();
+        long ahora = System.currentTimeMillis();
+        if (evento.estadoNuevo() == EstadoEntrega.EN_CAMINO) {
+            Object[] fila = primera(entregaRepository.findPedidoYRepartidorById(entregaId));
+            if (fila == null) {
+                return;
+            }
+            Long listo = listosDesde.remove((Long) fila[0]);
+            if (listo != null) {
+                registrar(listo, ahora, recogidaGlobal, recogidaPorHora[hora(listo)]);
+            } else {
+                sinInicio.increment();
+            }
+            enCamino.put(entregaId, new Recogida((Long) fila[3], ahora));
+        } else if (evento.estadoNuevo() == EstadoEntrega.ENTREGADO) {
+            Recogida recogida = enCamino.remove(entregaId);
+            if (recogida != null) {
+                registrarTrayecto(recogida.repartidorId(), recogida.desdeMs(), ahora);
+            } else {
+                sinInicio.increment();
+            }
+        } else if (evento.estadoAnterior() == EstadoEntrega.EN_CAMINO) {
+            enCamino.remove(entregaId);
+        }
+    }
+
+    // Lo que quedó de pedidos o entregas que cambiaron fuera de la aplicación; sus etapas ya no darían muestras válidas
+    @Scheduled(initialDelayString = "${app.eta.purga-ms:600000}", fixedDelayString = "${app.eta.purga-ms:600000}")
+    public void purgar() {
+        long limite = System.currentTimeMillis() - maxDuracionMin * 60_000;
+        pedidos.values().removeIf(pedido -> pedido.fechaPedidoMs() < limite);
+        listosDesde.values().removeIf(desde -> desde < limite);
+        enCamino.values().removeIf(recogida -> recogida.desdeMs() < limite);
+    }
+
+    public MetricasTiempoEstimadoDto metricas() {
+        return new MetricasTiempoEstimadoDto(etapa(preparacionGlobal), etapa(recogidaGlobal), etapa(trayectoGlobal),
+                preparacionPorRestaurante.size(), trayectoPorRepartidor.size(), muestrasHistoricas.sum(),
+                descartadas.sum(), sinInicio.sum(), estimaciones.sum());
+    }
+
+    // Sin marcas de LISTO ni EN_CAMINO en la base, la historia aproxima la preparación hasta la asignación y el
+    // trayecto desde la asignación; las muestras en vivo las corrigen
+    private void sembrar(LocalDateTime desde) {
+        long inicio = System.currentTimeMillis();
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        lectura.executeWithoutResult(status -> {
+            try (Stream<Object[]> entregadas = entregaRepository.recorrerTiemposEntregadas(desde)) {
+                entregadas.forEach(fila -> {
+                    long pedidoMs = milisegundos((LocalDateTime) fila[1]);
+                    long asignacionMs = milisegundos((LocalDateTime) fila[3]);
+                    long entregaMs = milisegundos((LocalDateTime) fila[4]);
+                    registrar(pedidoMs, asignacionMs, preparacionGlobal,
+                            preparacionPorRestaurante.computeIfAbsent((Long) fila[0], id -> nueva()));
+                    registrarTrayecto((Long) fila[2], asignacionMs, entregaMs);
+                    muestrasHistoricas.increment();
+                });
+            }
+        });
+        log.info("Tiempos estimados sembrados con {} entregas de los últimos {} días en {} ms",
+                muestrasHistoricas.sum(), diasHistoria, System.currentTimeMillis() - inicio);
+    }
+
+    private void encolar(Cambio cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> escribir(List.of(cambio)));
+            return;
+        }
+        Lote lote = (Lote) TransactionSynchronizationManager.getResource(this);
+        if (lote == null) {
+            lote = new Lote();
+            TransactionSynchronizationManager.bindResource(this, lote);
+            TransactionSynchronizationManager.registerSynchronization(lote);
+        }
+        lote.cambios.add(cambio);
+    }
+
+    // Cambios de una transacción; el recurso se suelta y se retoma con ella si se suspende
+    private final class Lote implements TransactionSynchronization {
+
+        private final List<Cambio> cambios = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TiempoEstimadoService.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TiempoEstimadoService.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            escribir(cambios);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TiempoEstimadoService.this);
+        }
+    }
+
+    // Lee de una vez lo que falta de pedidos y entregas, estima y escribe todo con un solo UPDATE; si un pedido
+    // cambió varias veces queda la última estimación
+    private void escribir(List<Cambio> cambios) {
+        Map<Long, DatosPedido> datos = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        List<Long> entregaIds = new ArrayList<>();
+        for (Cambio cambio : cambios) {
+            if (cambio.estadoEntrega() != null) {
+                entregaIds.add(cambio.id());
+            } else {
+                DatosPedido pedido = pedidos.get(cambio.id());
+                if (pedido != null) {
+                    datos.put(cambio.id(), pedido);
+                } else {
+                    faltantes.add(cambio.id());
+                }
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            for (Object[] fila : pedidoRepository.findRestauranteYFechaPedidoByIdIn(faltantes)) {
+                DatosPedido pedido = new DatosPedido((Long) fila[1], milisegundos((LocalDateTime) fila[2]));
+                datos.put((Long) fila[0], pedido);
+                pedidos.put((Long) fila[0], pedido);
+            }
+        }
+        Map<Long, Object[]> entregas = new HashMap<>();
+        if (!entregaIds.isEmpty()) {
+            for (Object[] fila : entregaRepository.findPedidoYRepartidorByIdIn(entregaIds)) {
+                entregas.put((Long) fila[0], fila);
+            }
+        }
+
+        Map<Long, Integer> minutosPorPedido = new LinkedHashMap<>();
+        for (Cambio cambio : cambios) {
+            if (cambio.estadoPedido() != null) {
+                DatosPedido pedido = datos.get(cambio.id());
+                if (pedido != null) {
+                    minutosPorPedido.put(cambio.id(), minutos(totalTrasPedido(pedido, cambio.estadoPedido(), cambio.instanteMs())));
+                }
+                continue;
+            }
+            Object[] fila = entregas.get(cambio.id());
+            if (fila != null) {
+                Long pedidoId = (Long) fila[1];
+                DatosPedido pedido = pedidos.computeIfAbsent(pedidoId,
+                        id -> new DatosPedido((Long) fila[2], milisegundos((LocalDateTime) fila[3])));
+                minutosPorPedido.put(pedidoId,
+                        minutos(totalTrasEntrega(pedido, (Long) fila[4], cambio.estadoEntrega(), cambio.instanteMs())));
+            }
+        }
+        if (!minutosPorPedido.isEmpty()) {
+            pedidoRepository.actualizarTiemposEstimados(minutosPorPedido);
+            estimaciones.add(minutosPorPedido.size());
+        }
+    }
+
+    // Total estimado en segundos desde el alta, tras un cambio de estado del pedido
+    private double totalTrasPedido(DatosPedido pedido, EstadoPedido estado, long ahora) {
+        int hora = hora(ahora);
+        double transcurrido = (ahora - pedido.fechaPedidoMs()) / 1000.0;
+        return switch (estado) {
+            case ENTREGADO -> transcurrido;
+            case LISTO -> transcurrido + recogida(hora) + trayecto(null, hora);
+            default -> Math.max(transcurrido, preparacion(pedido.restauranteId())) + recogida(hora) + trayecto(null, hora);
+        };
+    }
+
+    // Total estimado en segundos desde el alta, tras asignar la entrega o ponerla en camino
+    private double totalTrasEntrega(DatosPedido pedido, Long repartidorId, EstadoEntrega estado, long ahora) {
+        int hora = hora(ahora);
+        double transcurrido = (ahora - pedido.fechaPedidoMs()) / 1000.0;
+        double restante = estado == EstadoEntrega.ASIGNADO ? recogida(hora) : 0;
+        return transcurrido + restante + trayecto(repartidorId, hora);
+    }
+
+    private void registrarTrayecto(long repartidorId, long desdeMs, long hastaMs) {
+        int hora = hora(desdeMs);
+        registrar(desdeMs, hastaMs, trayectoGlobal, trayectoPorHora[hora],
+                trayectoPorRepartidor.computeIfAbsent(repartidorId, id -> nueva()),
+                trayectoPorRepartidorYHora.computeIfAbsent(repartidorId * HORAS + hora, clave -> nueva()));
+    }
+
+    private void registrar(long desdeMs, long hastaMs, EstadisticaDuracion... estadisticas) {
+        long duracionMs = hastaMs - desdeMs;
+        if (duracionMs <= 0 || duracionMs > maxDuracionMin * 60_000) {
+            descartadas.increment();
+            return;
+        }
+        for (EstadisticaDuracion estadistica : estadisticas) {
+            estadistica.registrar(duracionMs / 1000.0, hastaMs);
+        }
+    }
+
+    // Estimaciones por etapa en segundos, de la clave más específica con muestras suficientes a la más general
+
+    private double preparacion(Long restauranteId) {
+        return estimar(preparacionDefectoMin, preparacionPorRestaurante.get(restauranteId), preparacionGlobal);
+    }
+
+    private double recogida(int hora) {
+        return estimar(recogidaDefectoMin, recogidaPorHora[hora], recogidaGlobal);
+    }
+
+    private double trayecto(Long repartidorId, int hora) {
+        if (repartidorId == null) {
+            return estimar(trayectoDefectoMin, trayectoPorHora[hora], trayectoGlobal);
+        }
+        return estimar(trayectoDefectoMin, trayectoPorRepartidorYHora.get(repartidorId * HORAS + hora),
+                trayectoPorRepartidor.get(repartidorId), trayectoPorHora[hora], trayectoGlobal);
+    }
+
+    private double estimar(double defectoMin, EstadisticaDuracion... niveles) {
+        for (EstadisticaDuracion nivel : niveles) {
+            if (nivel != null && nivel.muestras() >= minMuestras) {
+                return nivel.media();
+            }
+        }
+        return defectoMin * 60;
+    }
+
+    private DatosPedido datosPedido(Long pedidoId) {
+        DatosPedido pedido = pedidos.get(pedidoId);
+        if (pedido == null) {
+            Object[] fila = primera(pedidoRepository.findRestauranteYFechaPedidoById(pedidoId));
+            if (fila == null) {
+                return null;
+            }
+            pedido = new DatosPedido((Long) fila[0], milisegundos((LocalDateTime) fila[1]));
+            pedidos.put(pedidoId, pedido);
+        }
+        return pedido;
+    }
+
+    private EstadisticaDuracion nueva() {
+        return new EstadisticaDuracion(alfa, vidaMediaHoras * 3_600_000);
+    }
+
+    private static MetricasTiempoEstimadoDto.Etapa etapa(EstadisticaDuracion estadistica) {
+        if (estadistica.muestras() == 0) {
+            return new MetricasTiempoEstimadoDto.Etapa(0, null, null, null);
+        }
+        return new MetricasTiempoEstimadoDto.Etapa(estadistica.muestras(), estadistica.media() / 60,
+                estadistica.cuantil(0.5) / 60, estadistica.cuantil(0.9) / 60);
+    }
+
+    private static Integer minutos(double segundos) {
+        return (int) Math.ceil(segundos / 60);
+    }
+
+    private static Object[] primera(List<Object[]> filas) {
+        return filas.isEmpty() ? null : filas.get(0);
+    }
+
+    private static long milisegundos(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static int hora(long instanteMs) {
+        return Instant.ofEpochMilli(instanteMs).atZone(ZoneId.systemDefault()).getHour();
+    }
+}
@@ -0,0 +1,70 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conteo en memoria de entidades por estado. Cada estado tiene su propio LongAdder
+ * (internamente repartido en celdas), así que las actualizaciones concurrentes no compiten.
+ */
+public class ContadorEstados<E extends Enum<E>> {
+
+    private final E[] estados;
+    private final LongAdder[] contadores;
+
+    public ContadorEstados(Class<E> tipo) {
+        this.estados = tipo.getEnumConstants();
+        this.contadores = new LongAdder[estados.length];
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = new LongAdder();
+        }
+    }
+
+    // null como estado anterior representa un alta y como estado nuevo una baja
+    public void mover(E estadoAnterior, E estadoNuevo) {
+        if (estadoAnterior == estadoNuevo) {
+            return;
+        }
+        if (estadoAnterior != null) {
+            contadores[estadoAnterior.ordinal()].decrement();
+        }
+        if (estadoNuevo != null) {
+            contadores[estadoNuevo.ordinal()].increment();
+        }
+    }
+
+    public long valor(E estado) {
+        return contadores[estado.ordinal()].sum();
+    }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder contador : contadores) {
+            total += contador.sum();
+        }
+        return total;
+    }
+
+    public Map<String, Long> comoMapa() {
+        Map<String, Long> valores = new LinkedHashMap<>();
+        for (E estado : estados) {
+            valores.put(estado.name(), valor(estado));
+        }
+        return valores;
+    }
+
+    /**
+     * Ajusta cada contador al valor leído de la base de datos sumando la diferencia con el valor actual.
+     * No es atómico respecto de los eventos: un cambio aplicado entre la lectura de la base y este ajuste
+     * se pierde o se cuenta dos veces, según haya confirmado antes o después de la lectura. El desvío queda
+     * acotado a los cambios de esa ventana y lo corrige la siguiente reconciliación.
+     */
+    public void reconciliar(EnumMap<E, Long> valoresReales) {
+        for (E estado : estados) {
+            LongAdder contador = contadores[estado.ordinal()];
+            contador.add(valoresReales.getOrDefault(estado, 0L) - contador.sum());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de paginación por cursor sobre (fecha, id), en orden descendente.
+ * Se expone al cliente como un token opaco en base64.
+ */
+public record Cursor(LocalDateTime fecha, Long id) {
+
+    // Anterior a cualquier fila real: sirve como cursor de la primera página
+    private static final Cursor INICIO = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final char SEPARADOR = '|';
+
+    public static Cursor desdeToken(String token) {
+        if (token == null || token.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            return new Cursor(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    public String aToken() {
+        String valor = fecha.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
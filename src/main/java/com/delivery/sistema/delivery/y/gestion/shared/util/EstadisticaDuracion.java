@@ -0,0 +1,97 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+/**
+ * Estadística en streaming de una duración: media móvil exponencial (EWMA) y un histograma de cubetas
+ * logarítmicas para cuantiles. Registrar una muestra cuesta O(1) y la memoria es fija, sin importar cuántas
+ * muestras se vieron.
+ * Cada cubeta cubre un factor GAMMA, así que un cuantil tiene un error relativo de a lo sumo (GAMMA-1)/(GAMMA+1),
+ * cerca del 5%. El histograma olvida con decaimiento hacia adelante: cada muestra pesa 2^(t/vidaMedia) respecto
+ * de una referencia, de modo que una muestra de hace una vida media cuenta la mitad que una de ahora sin tener
+ * que recorrer las cubetas en cada registro; solo se reescalan cuando los pesos crecen demasiado.
+ */
+public final class EstadisticaDuracion {
+
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MINIMO_SEGUNDOS = 30;
+    private static final double MAXIMO_SEGUNDOS = 8 * 3600;
+    private static final int CUBETAS = (int) Math.ceil(Math.log(MAXIMO_SEGUNDOS / MINIMO_SEGUNDOS) / LOG_GAMMA) + 1;
+    private static final double MAX_EXPONENTE = 40;
+
+    private final double alfa;
+    private final double vidaMediaMs;
+    private final double[] pesos = new double[CUBETAS];
+    private double pesoTotal;
+    private long referenciaMs = Long.MIN_VALUE;
+    private double media;
+    private long muestras;
+
+    public EstadisticaDuracion(double alfa, long vidaMediaMs) {
+        this.alfa = alfa;
+        this.vidaMediaMs = vidaMediaMs;
+    }
+
+    public synchronized void registrar(double segundos, long instanteMs) {
+        muestras++;
+        // Con pocas muestras alfa se reemplaza por 1/n: la media arranca como promedio simple y no queda pegada a la primera
+        media += Math.max(alfa, 1.0 / muestras) * (segundos - media);
+
+        if (referenciaMs == Long.MIN_VALUE) {
+            referenciaMs = instanteMs;
+        }
+        double exponente = (instanteMs - referenciaMs) / vidaMediaMs;
+        if (exponente > MAX_EXPONENTE) {
+            double factor = Math.pow(2, -exponente);
+            for (int i = 0; i < CUBETAS; i++) {
+                pesos[i] *= factor;
+            }
+            pesoTotal *= factor;
+            referenciaMs = instanteMs;
+            exponente = 0;
+        }
+        double peso = Math.pow(2, exponente);
+        pesos[cubeta(segundos)] += peso;
+        pesoTotal += peso;
+    }
+
+    public synchronized long muestras() {
+        return muestras;
+    }
+
+    // Media móvil en segundos, NaN sin muestras
+    public synchronized double media() {
+        return muestras == 0 ? Double.NaN : media;
+    }
+
+    // Cuantil q (entre 0 y 1) en segundos, NaN sin muestras
+    public synchronized double cuantil(double q) {
+        if (pesoTotal <= 0) {
+            return Double.NaN;
+        }
+        double objetivo = q * pesoTotal;
+        double acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += pesos[i];
+            if (acumulado >= objetivo && pesos[i] > 0) {
+                return valor(i);
+            }
+        }
+        return valor(CUBETAS - 1);
+    }
+
+    private static int cubeta(double segundos) {
+        if (segundos <= MINIMO_SEGUNDOS) {
+            return 0;
+        }
+        int cubeta = (int) Math.ceil(Math.log(segundos / MINIMO_SEGUNDOS) / LOG_GAMMA);
+        return Math.min(cubeta, CUBETAS - 1);
+    }
+
+    // La cubeta i cubre (MINIMO·GAMMA^(i-1), MINIMO·GAMMA^i]; se responde con el punto de menor error relativo
+    private static double valor(int cubeta) {
+        if (cubeta == 0) {
+            return MINIMO_SEGUNDOS;
+        }
+        return MINIMO_SEGUNDOS * Math.pow(GAMMA, cubeta - 1) * 2 * GAMMA / (1 + GAMMA);
+    }
+}
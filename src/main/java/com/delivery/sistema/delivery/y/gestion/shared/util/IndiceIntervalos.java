@@ -0,0 +1,69 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Índice inmutable de intervalos de tiempo [inicio, fin] para responder "qué elementos están vigentes en t".
+ * Los elementos se ordenan por inicio y se guarda, para cada posición, el mayor fin de los elementos hasta ella.
+ * Una consulta busca por bisección el último elemento que ya empezó y recorre hacia atrás, cortando en cuanto
+ * ese máximo acumulado queda antes de t: a partir de ahí ningún elemento anterior puede seguir vigente.
+ */
+public final class IndiceIntervalos<T> {
+
+    private final List<T> elementos;
+    private final LocalDateTime[] inicios;
+    private final LocalDateTime[] finMaximo;
+    private final Function<T, LocalDateTime> fin;
+
+    public IndiceIntervalos(List<T> elementos, Function<T, LocalDateTime> inicio, Function<T, LocalDateTime> fin) {
+        List<T> ordenados = new ArrayList<>(elementos);
+        ordenados.sort(Comparator.comparing(inicio));
+        this.elementos = List.copyOf(ordenados);
+        this.fin = fin;
+        this.inicios = new LocalDateTime[ordenados.size()];
+        this.finMaximo = new LocalDateTime[ordenados.size()];
+
+        LocalDateTime maximo = LocalDateTime.MIN;
+        for (int i = 0; i < ordenados.size(); i++) {
+            T elemento = ordenados.get(i);
+            inicios[i] = inicio.apply(elemento);
+            LocalDateTime finElemento = fin.apply(elemento);
+            maximo = finElemento.isAfter(maximo) ? finElemento : maximo;
+            finMaximo[i] = maximo;
+        }
+    }
+
+    public List<T> vigentesEn(LocalDateTime instante) {
+        List<T> vigentes = new ArrayList<>();
+        for (int i = ultimoIniciado(instante); i >= 0 && !finMaximo[i].isBefore(instante); i--) {
+            T elemento = elementos.get(i);
+            if (!fin.apply(elemento).isBefore(instante)) {
+                vigentes.add(elemento);
+            }
+        }
+        return vigentes;
+    }
+
+    public List<T> elementos() {
+        return elementos;
+    }
+
+    // Posición del último elemento con inicio <= instante, o -1 si ninguno empezó todavía
+    private int ultimoIniciado(LocalDateTime instante) {
+        int bajo = 0;
+        int alto = inicios.length - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (inicios[medio].isAfter(instante)) {
+                alto = medio - 1;
+            } else {
+                bajo = medio + 1;
+            }
+        }
+        return alto;
+    }
+}
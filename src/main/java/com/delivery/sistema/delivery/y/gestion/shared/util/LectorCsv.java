@@ -0,0 +1,82 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV (RFC 4180) registro a registro, sin cargar el archivo en memoria.
+ * Admite campos entre comillas con separadores, comillas duplicadas y saltos de línea dentro.
+ */
+public class LectorCsv {
+
+    private final Reader reader;
+    private int siguiente = -2;
+
+    public LectorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Siguiente registro, o null al final del archivo. Las líneas vacías se saltan.
+     */
+    public List<String> leer() throws IOException {
+        int c = avanzar();
+        while (c == '\r' || c == '\n') {
+            c = avanzar();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        while (true) {
+            if (entreComillas) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("CSV inválido: comillas sin cerrar");
+                }
+                if (c == '"') {
+                    int despues = avanzar();
+                    if (despues == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        c = despues;
+                        continue;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int despues = avanzar();
+                    if (despues != '\n') {
+                        siguiente = despues;
+                    }
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = avanzar();
+        }
+    }
+
+    private int avanzar() throws IOException {
+        if (siguiente != -2) {
+            int c = siguiente;
+            siguiente = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,63 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto en español para búsquedas: minúsculas, sin tildes ni diéresis (la ñ queda como n),
+ * separación en palabras, descarte de palabras vacías y un stemming ligero de plurales
+ * ("postres" y "postre" dan el mismo término, igual que "panes" y "pan").
+ */
+public final class TextoBusqueda {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "ante", "con", "de", "del", "e", "el", "en", "entre", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "sus", "u", "un", "una", "unas", "unos", "y");
+
+    private TextoBusqueda() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Términos indexables del texto, en orden y con repeticiones.
+     */
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) {
+                terminos.add(raiz(palabra));
+            }
+        }
+        return terminos;
+    }
+
+    // Quita la s final y luego una e final tras consonante: postres -> postre -> postr, panes -> pane -> pan
+    static String raiz(String palabra) {
+        String raiz = palabra;
+        if (raiz.length() > 3 && raiz.endsWith("s")) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        if (raiz.length() > 3 && raiz.endsWith("e") && !esVocal(raiz.charAt(raiz.length() - 2))) {
+            raiz = raiz.substring(0, raiz.length() - 1);
+        }
+        return raiz;
+    }
+
+    private static boolean esVocal(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,119 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaTrackRepositoryCustom.PuntoTrack;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BufferTrackTest {
+
+    private final BufferTrack buffer = new BufferTrack(7L, 3);
+    private final long[] recibidoDesde = new long[1];
+
+    private List<Long> drenarInstantes() {
+        List<PuntoTrack> puntos = new ArrayList<>();
+        buffer.drenar(puntos, recibidoDesde);
+        return puntos.stream().map(PuntoTrack::instante).toList();
+    }
+
+    @Test
+    void drenaLosPuntosEnOrdenDeLlegada() {
+        buffer.agregar(1, 1, 10, 1000);
+        buffer.agregar(2, 2, 20, 1001);
+
+        List<PuntoTrack> puntos = new ArrayList<>();
+        PuntoTrack ultimo = buffer.drenar(puntos, recibidoDesde);
+
+        assertThat(puntos).containsExactly(new PuntoTrack(7L, 1, 1, 10), new PuntoTrack(7L, 2, 2, 20));
+        assertThat(ultimo).isEqualTo(new PuntoTrack(7L, 2, 2, 20));
+        assertThat(recibidoDesde[0]).isEqualTo(1000);
+    }
+
+    @Test
+    void alDesbordarPisaAlMasAntiguoYAvisa() {
+        assertThat(buffer.agregar(0, 0, 1, 0)).isZero();
+        assertThat(buffer.agregar(0, 0, 2, 0)).isZero();
+        assertThat(buffer.agregar(0, 0, 3, 0)).isZero();
+        assertThat(buffer.agregar(0, 0, 4, 0)).isEqualTo(1);
+        assertThat(buffer.agregar(0, 0, 5, 0)).isEqualTo(1);
+
+        assertThat(drenarInstantes()).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void trasDesbordarVariasVueltasConservaLosUltimosEnOrden() {
+        for (long instante = 1; instante <= 10; instante++) {
+            buffer.agregar(0, 0, instante, 0);
+        }
+
+        assertThat(drenarInstantes()).containsExactly(8L, 9L, 10L);
+
+        // Después de drenar vuelve a tener toda la capacidad libre
+        assertThat(buffer.agregar(0, 0, 11, 0)).isZero();
+        assertThat(buffer.agregar(0, 0, 12, 0)).isZero();
+        assertThat(buffer.agregar(0, 0, 13, 0)).isZero();
+        assertThat(drenarInstantes()).containsExactly(11L, 12L, 13L);
+    }
+
+    @Test
+    void elUltimoEsElDeMayorInstanteAunqueLleguenDesordenados() {
+        buffer.agregar(1, 1, 30, 0);
+        buffer.agregar(2, 2, 10, 0);
+        buffer.agregar(3, 3, 20, 0);
+
+        List<PuntoTrack> puntos = new ArrayList<>();
+        assertThat(buffer.drenar(puntos, recibidoDesde)).isEqualTo(new PuntoTrack(7L, 1, 1, 30));
+        assertThat(puntos).hasSize(3);
+    }
+
+    @Test
+    void unPuntoViejoNoReemplazaAlUltimoYaEscrito() {
+        buffer.agregar(1, 1, 30, 0);
+        drenarInstantes();
+
+        buffer.agregar(2, 2, 10, 0);
+        List<PuntoTrack> puntos = new ArrayList<>();
+
+        // El punto se escribe en el recorrido pero la última posición no cambia
+        assertThat(buffer.drenar(puntos, recibidoDesde)).isNull();
+        assertThat(puntos).containsExactly(new PuntoTrack(7L, 2, 2, 10));
+    }
+
+    @Test
+    void sinPuntosPendientesNoDevuelveNada() {
+        List<PuntoTrack> puntos = new ArrayList<>();
+
+        assertThat(buffer.drenar(puntos, recibidoDesde)).isNull();
+        assertThat(puntos).isEmpty();
+        assertThat(recibidoDesde[0]).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void recibidoDesdeEsLaLlegadaDelMasAntiguoDesdeLaUltimaDescarga() {
+        buffer.agregar(0, 0, 1, 1000);
+        buffer.agregar(0, 0, 2, 2000);
+        drenarInstantes();
+
+        buffer.agregar(0, 0, 3, 3000);
+        buffer.agregar(0, 0, 4, 4000);
+        drenarInstantes();
+
+        assertThat(recibidoDesde[0]).isEqualTo(3000);
+    }
+
+    @Test
+    void soloSeCierraSinNadaPendiente() {
+        buffer.agregar(0, 0, 1, 0);
+
+        assertThat(buffer.cerrarSiVacio()).isFalse();
+        assertThat(buffer.agregar(0, 0, 2, 0)).isZero();
+
+        drenarInstantes();
+        assertThat(buffer.cerrarSiVacio()).isTrue();
+        assertThat(buffer.agregar(0, 0, 3, 0)).isEqualTo(BufferTrack.CERRADO);
+        assertThat(drenarInstantes()).isEmpty();
+    }
+}
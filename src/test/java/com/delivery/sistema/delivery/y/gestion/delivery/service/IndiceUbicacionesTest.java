@@ -0,0 +1,188 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class IndiceUbicacionesTest {
+
+    // Celdas de 0.01 grados, como en application.properties: algo más de 1 km de lado
+    private final IndiceUbicaciones indice = new IndiceUbicaciones(0.01);
+
+    private void disponible(long id, double latitud, double longitud, long instante) {
+        indice.registrar(id, true);
+        indice.actualizar(id, latitud, longitud, instante);
+    }
+
+    private List<Long> ids(double latitud, double longitud, int k, double radioKm) {
+        return indice.cercanos(latitud, longitud, k, radioKm, 0).stream()
+                .map(IndiceUbicaciones.Cercano::repartidorId)
+                .toList();
+    }
+
+    @Test
+    void devuelveLosMasCercanosOrdenadosPorDistancia() {
+        disponible(1L, -34.600, -58.380, 1);
+        disponible(2L, -34.610, -58.380, 1);
+        disponible(3L, -34.630, -58.380, 1);
+        disponible(4L, -34.700, -58.380, 1);
+
+        List<IndiceUbicaciones.Cercano> cercanos = indice.cercanos(-34.601, -58.380, 3, 50, 0);
+
+        assertThat(cercanos).extracting(IndiceUbicaciones.Cercano::repartidorId).containsExactly(1L, 2L, 3L);
+        assertThat(cercanos.get(0).distanciaKm()).isCloseTo(0.111, offset(0.001));
+    }
+
+    @Test
+    void respetaElRadio() {
+        disponible(1L, 40.4168, -3.7038, 1);
+        // Unos 5.5 km al norte
+        disponible(2L, 40.4668, -3.7038, 1);
+
+        assertThat(ids(40.4168, -3.7038, 10, 5)).containsExactly(1L);
+        assertThat(ids(40.4168, -3.7038, 10, 6)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void encuentraAlUnicoRepartidorVariosAnillosMasAllaDelPunto() {
+        // Unos 20 celdas de distancia: la búsqueda tiene que seguir ampliando el anillo
+        disponible(1L, 10.20, 20.00, 1);
+
+        assertThat(ids(10.00, 20.00, 1, 30)).containsExactly(1L);
+        assertThat(ids(10.00, 20.00, 1, 20)).isEmpty();
+    }
+
+    @Test
+    void unoMasLejanoEnLaCeldaDelPuntoNoTapaAUnoMasCercanoEnLaVecina() {
+        // El punto está en el borde de su celda; el 2 está en la celda de al lado pero mucho más cerca
+        disponible(1L, 0.0001, 0.0001, 1);
+        disponible(2L, 0.0105, 0.0101, 1);
+
+        assertThat(ids(0.0099, 0.0099, 1, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void cruzaElAntimeridiano() {
+        disponible(1L, 0, 179.999, 1);
+        disponible(2L, 0, 179.950, 1);
+
+        assertThat(ids(0, -179.999, 1, 5)).containsExactly(1L);
+    }
+
+    @Test
+    void losNoDisponiblesNoAparecenPeroConservanSuUbicacion() {
+        disponible(1L, 10, 10, 1);
+        indice.registrar(1L, false);
+
+        assertThat(ids(10, 10, 5, 1)).isEmpty();
+        assertThat(indice.enGrilla()).isZero();
+        assertThat(indice.ubicacion(1L, 0)).containsExactly(10, 10);
+
+        indice.registrar(1L, true);
+        assertThat(ids(10, 10, 5, 1)).containsExactly(1L);
+    }
+
+    @Test
+    void ubicacionDeUnRepartidorNoRegistradoSeIgnora() {
+        assertThat(indice.actualizar(1L, 10, 10, 1)).isFalse();
+        assertThat(indice.tamano()).isZero();
+    }
+
+    @Test
+    void unRepartidorRegistradoSinUbicacionNoEntraALaGrilla() {
+        indice.registrar(1L, true);
+
+        assertThat(indice.enGrilla()).isZero();
+        assertThat(indice.ubicacion(1L, 0)).isNull();
+        assertThat(ids(0, 0, 5, 10)).isEmpty();
+    }
+
+    @Test
+    void moverseDeCeldaLoSacaDeLaAnterior() {
+        disponible(1L, 10, 10, 1);
+        indice.actualizar(1L, 11, 11, 2);
+
+        assertThat(indice.enGrilla()).isEqualTo(1);
+        assertThat(ids(10, 10, 5, 1)).isEmpty();
+        assertThat(ids(11, 11, 5, 1)).containsExactly(1L);
+    }
+
+    @Test
+    void quitarDeUnaCeldaMantieneALosDemas() {
+        for (long id = 1; id <= 10; id++) {
+            disponible(id, 10 + id * 0.0001, 10, 1);
+        }
+        indice.quitar(3L);
+        indice.registrar(7L, false);
+        indice.actualizar(1L, 10.0005, 10, 2);
+
+        assertThat(indice.tamano()).isEqualTo(9);
+        assertThat(indice.enGrilla()).isEqualTo(8);
+        assertThat(ids(10, 10, 20, 1)).containsExactlyInAnyOrder(1L, 2L, 4L, 5L, 6L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void ignoraYDescartaLasUbicacionesAntiguas() {
+        disponible(1L, 10, 10, 100);
+        disponible(2L, 10.001, 10, 200);
+
+        assertThat(indice.cercanos(10, 10, 5, 1, 150))
+                .extracting(IndiceUbicaciones.Cercano::repartidorId).containsExactly(2L);
+        assertThat(indice.ubicacion(1L, 150)).isNull();
+
+        assertThat(indice.descartarAntiguas(150)).isEqualTo(1);
+        assertThat(indice.enGrilla()).isEqualTo(1);
+        assertThat(indice.tamano()).isEqualTo(2);
+
+        // Vuelve a la grilla con su próxima ubicación
+        indice.actualizar(1L, 10, 10, 300);
+        assertThat(ids(10, 10, 5, 1)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void conservarSoloQuitaLosQueNoEstan() {
+        disponible(1L, 10, 10, 1);
+        disponible(2L, 10, 10.001, 1);
+        disponible(3L, 10, 10.002, 1);
+
+        indice.conservarSolo(Set.of(1L, 3L));
+
+        assertThat(indice.tamano()).isEqualTo(2);
+        assertThat(ids(10, 10, 5, 1)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void coincideConRecorrerTodos() {
+        Random random = new Random(42);
+        List<double[]> puntos = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            double latitud = 40.3 + random.nextDouble() * 0.3;
+            double longitud = -3.9 + random.nextDouble() * 0.4;
+            disponible(id, latitud, longitud, 1);
+            puntos.add(new double[]{id, latitud, longitud});
+        }
+
+        for (int consulta = 0; consulta < 200; consulta++) {
+            double latitud = 40.25 + random.nextDouble() * 0.4;
+            double longitud = -3.95 + random.nextDouble() * 0.5;
+            int k = 1 + random.nextInt(10);
+            double radioKm = 0.5 + random.nextDouble() * 5;
+
+            List<Long> esperados = puntos.stream()
+                    .filter(p -> IndiceUbicaciones.distanciaKm(latitud, longitud, p[1], p[2]) <= radioKm)
+                    .sorted(Comparator.comparingDouble(p -> IndiceUbicaciones.distanciaKm(latitud, longitud, p[1], p[2])))
+                    .limit(k)
+                    .map(p -> (long) p[0])
+                    .toList();
+
+            assertThat(ids(latitud, longitud, k, radioKm)).containsExactlyElementsOf(esperados);
+        }
+    }
+}
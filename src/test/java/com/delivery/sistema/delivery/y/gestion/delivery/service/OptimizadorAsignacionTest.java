@@ -0,0 +1,219 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class OptimizadorAsignacionTest {
+
+    private static final double X = Double.POSITIVE_INFINITY;
+
+    // Cada columna a lo sumo una vez y ningún par imposible
+    private static void assertValida(double[][] costos, OptimizadorAsignacion.Solucion solucion) {
+        Set<Integer> columnas = new HashSet<>();
+        int asignados = 0;
+        double total = 0;
+        for (int i = 0; i < solucion.columnaPorFila().length; i++) {
+            int j = solucion.columnaPorFila()[i];
+            if (j >= 0) {
+                assertThat(columnas.add(j)).isTrue();
+                assertThat(costos[i][j]).isNotEqualTo(X);
+                asignados++;
+                total += costos[i][j];
+            }
+        }
+        assertThat(solucion.asignados()).isEqualTo(asignados);
+        assertThat(solucion.costoTotal()).isCloseTo(total, offset(1e-9));
+    }
+
+    // Recorre todas las asignaciones: la mejor es la de más pares y, entre ellas, la de menor costo
+    private static double[] fuerzaBruta(double[][] costos, int columnas) {
+        double[] mejor = {0, 0};
+        fuerzaBruta(costos, columnas, 0, new boolean[columnas], 0, 0, mejor);
+        return mejor;
+    }
+
+    private static void fuerzaBruta(double[][] costos, int columnas, int fila, boolean[] usadas, int pares,
+                                    double costo, double[] mejor) {
+        if (fila == costos.length) {
+            if (pares > mejor[0] || (pares == mejor[0] && costo < mejor[1])) {
+                mejor[0] = pares;
+                mejor[1] = costo;
+            }
+            return;
+        }
+        fuerzaBruta(costos, columnas, fila + 1, usadas, pares, costo, mejor);
+        for (int j = 0; j < columnas; j++) {
+            if (!usadas[j] && costos[fila][j] != X) {
+                usadas[j] = true;
+                fuerzaBruta(costos, columnas, fila + 1, usadas, pares + 1, costo + costos[fila][j], mejor);
+                usadas[j] = false;
+            }
+        }
+    }
+
+    @Test
+    void hungaroEncuentraElOptimoCuadrado() {
+        double[][] costos = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2}};
+
+        OptimizadorAsignacion.Solucion solucion = OptimizadorAsignacion.hungaro(costos, 3);
+
+        assertThat(solucion.columnaPorFila()).containsExactly(1, 0, 2);
+        assertThat(solucion.costoTotal()).isEqualTo(5);
+    }
+
+    @Test
+    void greedyTomaElParMasBaratoAunqueNoSeaOptimo() {
+        double[][] costos = {
+                {1, 2},
+                {2, 100}};
+
+        OptimizadorAsignacion.Solucion greedy = OptimizadorAsignacion.greedy(costos, 2);
+        OptimizadorAsignacion.Solucion hungaro = OptimizadorAsignacion.hungaro(costos, 2);
+
+        assertThat(greedy.columnaPorFila()).containsExactly(0, 1);
+        assertThat(greedy.costoTotal()).isEqualTo(101);
+        assertThat(hungaro.columnaPorFila()).containsExactly(1, 0);
+        assertThat(hungaro.costoTotal()).isEqualTo(4);
+    }
+
+    @Test
+    void masPedidosQueRepartidoresDejaSinAsignarLosMasCaros() {
+        double[][] costos = {
+                {5, 1, 9, 4},
+                {2, 3, 8, 7}};
+
+        OptimizadorAsignacion.Solucion solucion = OptimizadorAsignacion.hungaro(costos, 4);
+
+        assertThat(solucion.columnaPorFila()).containsExactly(1, 0);
+        assertThat(solucion.asignados()).isEqualTo(2);
+        assertThat(solucion.costoTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void masRepartidoresQuePedidosResuelveLaTraspuesta() {
+        double[][] costos = {
+                {5, 2},
+                {1, 3},
+                {9, 8},
+                {4, 7}};
+
+        OptimizadorAsignacion.Solucion solucion = OptimizadorAsignacion.hungaro(costos, 2);
+
+        assertThat(solucion.columnaPorFila()).containsExactly(1, 0, -1, -1);
+        assertThat(solucion.costoTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void prefiereMasParesAunqueCuestenMas() {
+        // Con el par barato (0,0) solo entra uno; sin él entran dos
+        double[][] costos = {
+                {1, 50},
+                {40, X}};
+
+        OptimizadorAsignacion.Solucion solucion = OptimizadorAsignacion.hungaro(costos, 2);
+
+        assertThat(solucion.columnaPorFila()).containsExactly(1, 0);
+        assertThat(solucion.asignados()).isEqualTo(2);
+        assertThat(solucion.costoTotal()).isEqualTo(90);
+    }
+
+    @Test
+    void nuncaDevuelveParesImposibles() {
+        double[][] costos = {
+                {X, X, 3},
+                {X, X, 1},
+                {X, X, X}};
+
+        OptimizadorAsignacion.Solucion hungaro = OptimizadorAsignacion.hungaro(costos, 3);
+        OptimizadorAsignacion.Solucion greedy = OptimizadorAsignacion.greedy(costos, 3);
+
+        assertThat(hungaro.columnaPorFila()).containsExactly(-1, 2, -1);
+        assertThat(hungaro.costoTotal()).isEqualTo(1);
+        assertThat(greedy.columnaPorFila()).containsExactly(-1, 2, -1);
+    }
+
+    @Test
+    void todoImposibleNoAsignaNada() {
+        double[][] costos = {
+                {X, X},
+                {X, X}};
+
+        assertThat(OptimizadorAsignacion.hungaro(costos, 2).columnaPorFila()).containsExactly(-1, -1);
+        assertThat(OptimizadorAsignacion.hungaro(costos, 2).asignados()).isZero();
+        assertThat(OptimizadorAsignacion.greedy(costos, 2).asignados()).isZero();
+    }
+
+    @Test
+    void matricesVacias() {
+        assertThat(OptimizadorAsignacion.hungaro(new double[0][0], 0).columnaPorFila()).isEmpty();
+        assertThat(OptimizadorAsignacion.hungaro(new double[2][0], 0).columnaPorFila()).containsExactly(-1, -1);
+        assertThat(OptimizadorAsignacion.greedy(new double[2][0], 0).columnaPorFila()).containsExactly(-1, -1);
+    }
+
+    @Test
+    void conEmpatesDevuelveUnaAsignacionCompletaDeCostoMinimo() {
+        double[][] costos = {
+                {2, 2, 2},
+                {2, 2, 2},
+                {2, 2, 2}};
+
+        OptimizadorAsignacion.Solucion hungaro = OptimizadorAsignacion.hungaro(costos, 3);
+        OptimizadorAsignacion.Solucion greedy = OptimizadorAsignacion.greedy(costos, 3);
+
+        assertValida(costos, hungaro);
+        assertValida(costos, greedy);
+        assertThat(hungaro.asignados()).isEqualTo(3);
+        assertThat(hungaro.costoTotal()).isEqualTo(6);
+        assertThat(greedy.asignados()).isEqualTo(3);
+        assertThat(greedy.costoTotal()).isEqualTo(6);
+    }
+
+    @Test
+    void costosNegativosPorElBonusDeEspera() {
+        double[][] costos = {
+                {-3, 1},
+                {-1, -2}};
+
+        OptimizadorAsignacion.Solucion hungaro = OptimizadorAsignacion.hungaro(costos, 2);
+        OptimizadorAsignacion.Solucion greedy = OptimizadorAsignacion.greedy(costos, 2);
+
+        assertThat(hungaro.columnaPorFila()).containsExactly(0, 1);
+        assertThat(hungaro.costoTotal()).isEqualTo(-5);
+        assertThat(greedy.columnaPorFila()).containsExactly(0, 1);
+    }
+
+    @Test
+    void hungaroCoincideConFuerzaBrutaEnMatricesAleatorias() {
+        Random random = new Random(7);
+        for (int caso = 0; caso < 500; caso++) {
+            int filas = 1 + random.nextInt(6);
+            int columnas = 1 + random.nextInt(6);
+            double[][] costos = new double[filas][columnas];
+            for (int i = 0; i < filas; i++) {
+                for (int j = 0; j < columnas; j++) {
+                    // Enteros pequeños para forzar empates, algunos negativos y algunos imposibles
+                    costos[i][j] = random.nextInt(4) == 0 ? X : random.nextInt(10) - 3;
+                }
+            }
+
+            OptimizadorAsignacion.Solucion hungaro = OptimizadorAsignacion.hungaro(costos, columnas);
+            OptimizadorAsignacion.Solucion greedy = OptimizadorAsignacion.greedy(costos, columnas);
+            double[] mejor = fuerzaBruta(costos, columnas);
+
+            assertValida(costos, hungaro);
+            assertValida(costos, greedy);
+            assertThat(hungaro.asignados()).isEqualTo((int) mejor[0]);
+            assertThat(hungaro.costoTotal()).isCloseTo(mejor[1], offset(1e-9));
+            assertThat(greedy.asignados()).isLessThanOrEqualTo(hungaro.asignados());
+        }
+    }
+}
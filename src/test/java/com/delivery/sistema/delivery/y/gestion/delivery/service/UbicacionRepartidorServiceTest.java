@@ -0,0 +1,97 @@
+package com.delivery.sistema.delivery.y.gestion.delivery.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.dto.RepartidorCercanoDto;
+import com.delivery.sistema.delivery.y.gestion.delivery.event.RepartidorEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoRepartidor;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.RepartidorRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UbicacionRepartidorServiceTest {
+
+    private final RepartidorRepository repartidorRepository = mock(RepartidorRepository.class);
+    private final UbicacionRepartidorService servicio = new UbicacionRepartidorService(repartidorRepository);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "tamanoCelda", 0.01);
+        ReflectionTestUtils.setField(servicio, "vigenciaSegundos", 120L);
+    }
+
+    private static List<Object[]> filas(Object[]... filas) {
+        return new ArrayList<>(List.of(filas));
+    }
+
+    private static RepartidorEstadoCambiadoEvent cambio(long id, EstadoRepartidor anterior, EstadoRepartidor nuevo) {
+        return new RepartidorEstadoCambiadoEvent(id, anterior, nuevo, true, true);
+    }
+
+    private List<Long> cercanos() {
+        return servicio.cercanos(-12.05, -77.04, 5, 10).stream().map(RepartidorCercanoDto::repartidorId).toList();
+    }
+
+    @Test
+    void soloSugiereLosDisponiblesConUbicacion() {
+        when(repartidorRepository.findDisponibilidades())
+                .thenReturn(filas(new Object[]{1L, true}, new Object[]{2L, false}, new Object[]{3L, true}));
+        servicio.inicializar();
+
+        servicio.actualizar(1L, -12.05, -77.04);
+        servicio.actualizar(2L, -12.05, -77.04);
+
+        assertThat(cercanos()).containsExactly(1L);
+    }
+
+    @Test
+    void unCambioLlegadoDuranteLaLecturaNoSePierde() {
+        when(repartidorRepository.findDisponibilidades()).thenReturn(filas(new Object[]{1L, true}));
+        servicio.inicializar();
+        servicio.actualizar(1L, -12.05, -77.04);
+
+        // La lectura ve al repartidor libre, pero se ocupa antes de que se aplique
+        when(repartidorRepository.findDisponibilidades()).thenAnswer(invocacion -> {
+            servicio.onRepartidorEstadoCambiado(cambio(1L, EstadoRepartidor.LIBRE, EstadoRepartidor.OCUPADO));
+            return filas(new Object[]{1L, true});
+        });
+        servicio.reconciliar();
+
+        assertThat(cercanos()).isEmpty();
+    }
+
+    @Test
+    void unRepartidorCreadoDuranteLaLecturaSeConserva() {
+        when(repartidorRepository.findDisponibilidades()).thenReturn(filas());
+        servicio.inicializar();
+
+        when(repartidorRepository.findDisponibilidades()).thenAnswer(invocacion -> {
+            servicio.onRepartidorEstadoCambiado(cambio(4L, null, EstadoRepartidor.LIBRE));
+            return filas();
+        });
+        servicio.reconciliar();
+        servicio.actualizar(4L, -12.05, -77.04);
+
+        assertThat(cercanos()).containsExactly(4L);
+    }
+
+    @Test
+    void laReconciliacionQuitaALosRepartidoresEliminados() {
+        when(repartidorRepository.findDisponibilidades()).thenReturn(filas(new Object[]{1L, true}));
+        servicio.inicializar();
+
+        when(repartidorRepository.findDisponibilidades()).thenReturn(filas());
+        servicio.reconciliar();
+
+        assertThatThrownBy(() -> servicio.actualizar(1L, -12.05, -77.04))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+}
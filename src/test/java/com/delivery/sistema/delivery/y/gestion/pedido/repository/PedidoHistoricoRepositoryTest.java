@@ -0,0 +1,188 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.repository;
+
+import com.delivery.sistema.delivery.y.gestion.cliente.model.Cliente;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.Entrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.Repartidor;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.DetallePedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.Pedido;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Categoria;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Menu;
+import com.delivery.sistema.delivery.y.gestion.restaurante.model.Restaurante;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Calificacion;
+import com.delivery.sistema.delivery.y.gestion.shared.util.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class PedidoHistoricoRepositoryTest {
+
+    private static final LocalDateTime LIMITE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private PedidoHistoricoRepository pedidoHistoricoRepository;
+
+    private Cliente cliente;
+    private Restaurante restaurante;
+    private Menu menu;
+    private Repartidor repartidor;
+
+    @BeforeEach
+    void configurar() {
+        cliente = cliente("cliente@archivo.com");
+        restaurante = new Restaurante();
+        restaurante.setCliente(cliente);
+        restaurante.setNombre("Restaurante");
+        restaurante.setDireccion("Calle 1");
+        restaurante.setHoraApertura(LocalTime.of(0, 0));
+        restaurante.setHoraCierre(LocalTime.of(23, 59));
+        entityManager.persist(restaurante);
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Categoria");
+        entityManager.persist(categoria);
+        menu = new Menu();
+        menu.setNombre("Menu");
+        menu.setPrecio(new BigDecimal("10.00"));
+        menu.setCategoria(categoria);
+        menu.setRestaurante(restaurante);
+        entityManager.persist(menu);
+        repartidor = new Repartidor();
+        repartidor.setCliente(cliente("repartidor@archivo.com"));
+        repartidor.setTelefono("123");
+        entityManager.persist(repartidor);
+    }
+
+    private Cliente cliente(String email) {
+        Cliente nuevo = new Cliente();
+        nuevo.setNombre("Nombre");
+        nuevo.setEmail(email);
+        nuevo.setPassword("secreto1");
+        return entityManager.persist(nuevo);
+    }
+
+    // fecha_pedido la fija Hibernate al insertar; se corrige por SQL para simular pedidos antiguos
+    private Pedido pedido(EstadoPedido estado, LocalDateTime fechaPedido) {
+        Pedido pedido = new Pedido();
+        pedido.setCliente(cliente);
+        pedido.setRestaurante(restaurante);
+        pedido.setDireccionEntrega("Calle 2");
+        pedido.setMetodoPago("EFECTIVO");
+        pedido.setCostoDelivery(new BigDecimal("5.00"));
+        pedido.setTotal(new BigDecimal("25.00"));
+        pedido.setEstado(estado);
+        entityManager.persist(pedido);
+        DetallePedido detalle = new DetallePedido();
+        detalle.setPedido(pedido);
+        detalle.setMenu(menu);
+        detalle.setCantidad(2);
+        detalle.setPrecioUnitario(new BigDecimal("10.00"));
+        detalle.setSubtotal(new BigDecimal("20.00"));
+        entityManager.persist(detalle);
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE pedido SET fecha_pedido = ? WHERE id = ?", fechaPedido, pedido.getId());
+        return pedido;
+    }
+
+    private Entrega entrega(Pedido pedido) {
+        Entrega entrega = new Entrega();
+        entrega.setPedido(pedido);
+        entrega.setRepartidor(repartidor);
+        entrega.setEstadoEntrega(EstadoEntrega.ENTREGADO);
+        return entityManager.persistAndFlush(entrega);
+    }
+
+    private int contar(String tabla, String columna, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla + " WHERE " + columna + " = ?", Integer.class, id);
+    }
+
+    @Test
+    void archivarCopiaElPedidoConSusDetallesYEntregaYLosBorraDeLasTablasActivas() {
+        Pedido pedido = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(10));
+        Entrega entrega = entrega(pedido);
+        Pedido otro = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(5));
+        LocalDateTime ahora = LocalDateTime.of(2026, 6, 1, 3, 0);
+
+        pedidoHistoricoRepository.archivar(List.of(pedido.getId()), ahora);
+        entityManager.clear();
+
+        assertThat(pedidoRepository.existsById(pedido.getId())).isFalse();
+        assertThat(contar("detalle_pedido", "pedido_id", pedido.getId())).isZero();
+        assertThat(contar("entrega", "pedido_id", pedido.getId())).isZero();
+        assertThat(pedidoHistoricoRepository.findById(pedido.getId())).hasValueSatisfying(historico -> {
+            assertThat(historico.getFechaPedido()).isEqualTo(LIMITE.minusDays(10));
+            assertThat(historico.getFechaArchivado()).isEqualTo(ahora);
+            assertThat(historico.getTotal()).isEqualByComparingTo("25.00");
+        });
+        assertThat(contar("detalle_pedido_historico", "pedido_id", pedido.getId())).isEqualTo(1);
+        // La entrega conserva su id: los puntos de entrega_track la siguen encontrando
+        assertThat(contar("entrega_historico", "id", entrega.getId())).isEqualTo(1);
+        assertThat(pedidoRepository.existsById(otro.getId())).isTrue();
+        assertThat(contar("detalle_pedido", "pedido_id", otro.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void soloSonArchivablesLosFinalizadosAntiguosSinCalificacion() {
+        Pedido entregado = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(3));
+        Pedido cancelado = pedido(EstadoPedido.CANCELADO, LIMITE.minusDays(2));
+        pedido(EstadoPedido.EN_PREPARACION, LIMITE.minusDays(3));
+        pedido(EstadoPedido.ENTREGADO, LIMITE.plusDays(1));
+        Pedido calificado = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(3));
+        Calificacion calificacion = new Calificacion();
+        calificacion.setPuntuacion(5);
+        calificacion.setCliente(cliente);
+        calificacion.setRestaurante(restaurante);
+        calificacion.setPedido(calificado);
+        entityManager.persistAndFlush(calificacion);
+
+        assertThat(pedidoRepository.bloquearArchivables(LIMITE, Limit.of(10)))
+                .containsExactly(entregado.getId(), cancelado.getId());
+        assertThat(pedidoRepository.bloquearArchivables(LIMITE, Limit.of(1))).containsExactly(entregado.getId());
+    }
+
+    @Test
+    void losArchivadosDelClienteSeRecorrenPorFechaEIdDescendente() {
+        Pedido antiguo = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(9));
+        Pedido mismaFecha1 = pedido(EstadoPedido.CANCELADO, LIMITE.minusDays(4));
+        Pedido mismaFecha2 = pedido(EstadoPedido.ENTREGADO, LIMITE.minusDays(4));
+        pedidoHistoricoRepository.archivar(List.of(antiguo.getId(), mismaFecha1.getId(), mismaFecha2.getId()), LIMITE);
+        entityManager.clear();
+
+        Cursor inicio = Cursor.desdeToken(null);
+        List<PedidoDto> primeros = pedidoHistoricoRepository.buscarDelClienteDespuesDe(cliente.getId(), null, null,
+                inicio.fecha(), inicio.id(), PageRequest.of(0, 2));
+        PedidoDto ultimo = primeros.get(1);
+        List<PedidoDto> siguientes = pedidoHistoricoRepository.buscarDelClienteDespuesDe(cliente.getId(), null, null,
+                ultimo.getFechaPedido(), ultimo.getId(), PageRequest.of(0, 2));
+
+        assertThat(primeros).extracting(PedidoDto::getId).containsExactly(mismaFecha2.getId(), mismaFecha1.getId());
+        assertThat(siguientes).extracting(PedidoDto::getId).containsExactly(antiguo.getId());
+        assertThat(primeros.get(0).getClienteNombre()).isEqualTo("Nombre");
+        assertThat(pedidoHistoricoRepository.countByClienteId(cliente.getId())).isEqualTo(3);
+    }
+}
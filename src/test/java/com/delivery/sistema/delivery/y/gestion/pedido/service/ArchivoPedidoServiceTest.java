@@ -0,0 +1,61 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArchivoPedidoServiceTest {
+
+    private static final LocalDateTime LIMITE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final PedidoHistoricoRepository pedidoHistoricoRepository = mock(PedidoHistoricoRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ArchivoPedidoService servicio =
+            new ArchivoPedidoService(pedidoRepository, pedidoHistoricoRepository, transactionManager);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "tamanoLote", 2);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void archivaPorLotesHastaQueUnoSaleIncompleto() {
+        when(pedidoRepository.bloquearArchivables(LIMITE, Limit.of(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+        assertThat(servicio.archivar(LIMITE)).isEqualTo(5);
+
+        verify(pedidoHistoricoRepository).archivar(eq(List.of(1L, 2L)), any());
+        verify(pedidoHistoricoRepository).archivar(eq(List.of(3L, 4L)), any());
+        verify(pedidoHistoricoRepository).archivar(eq(List.of(5L)), any());
+        // Cada lote en su propia transacción
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void unUltimoLoteCompletoTerminaConUnaLecturaVacia() {
+        when(pedidoRepository.bloquearArchivables(LIMITE, Limit.of(2))).thenReturn(List.of(1L, 2L), List.of());
+
+        assertThat(servicio.archivar(LIMITE)).isEqualTo(2);
+
+        verify(pedidoRepository, times(2)).bloquearArchivables(LIMITE, Limit.of(2));
+    }
+}
@@ -0,0 +1,155 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ColaCocinaServiceTest {
+
+    private static final Long RESTAURANTE = 3L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final ColaCocinaService servicio = new ColaCocinaService(pedidoRepository);
+
+    private static PedidoDto pedido(long id, EstadoPedido estado, int minuto) {
+        return new PedidoDto(id, 1L, "Cliente", RESTAURANTE, "Restaurante", "Calle 1", null, null, BigDecimal.ONE,
+                "EFECTIVO", estado, BASE.plusMinutes(minuto), null, BigDecimal.TEN, BigDecimal.ZERO, null);
+    }
+
+    private void cargar(PedidoDto... pedidos) {
+        when(pedidoRepository.findDtoByEstadoIn(any())).thenReturn(new ArrayList<>(List.of(pedidos)));
+        servicio.inicializar();
+    }
+
+    private void enBaseDeDatos(PedidoDto pedido) {
+        when(pedidoRepository.findDtoById(pedido.getId())).thenReturn(Optional.of(pedido));
+    }
+
+    private List<String> cola() {
+        return servicio.pedidos(RESTAURANTE).stream().map(p -> p.getId() + ":" + p.getEstado()).toList();
+    }
+
+    @Test
+    void cargaLasColasOrdenadasPorFechaDePedido() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0), pedido(2, EstadoPedido.CONFIRMADO, 5));
+
+        assertThat(cola()).containsExactly("1:PENDIENTE", "2:CONFIRMADO");
+        assertThat(servicio.pedidos(99L)).isEmpty();
+    }
+
+    @Test
+    void unEventoQueCoincideConLaColaSeAplicaSinLeerLaBaseDeDatos() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0), pedido(2, EstadoPedido.PENDIENTE, 5));
+
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+
+        assertThat(cola()).containsExactly("1:CONFIRMADO", "2:PENDIENTE");
+        verify(pedidoRepository, never()).findDtoById(anyLong());
+        verify(pedidoRepository, never()).findRestauranteIdById(anyLong());
+    }
+
+    @Test
+    void unPedidoQueSaleDeLaCocinaSeQuita() {
+        cargar(pedido(1, EstadoPedido.EN_PREPARACION, 0));
+
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO));
+
+        assertThat(cola()).isEmpty();
+        verify(pedidoRepository, never()).findDtoById(anyLong());
+    }
+
+    @Test
+    void unPedidoNuevoSeLeeYSeInsertaEnOrden() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0), pedido(3, EstadoPedido.PENDIENTE, 10));
+        when(pedidoRepository.findRestauranteIdById(2L)).thenReturn(Optional.of(RESTAURANTE));
+        enBaseDeDatos(pedido(2, EstadoPedido.PENDIENTE, 5));
+
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(2L, null, EstadoPedido.PENDIENTE));
+
+        assertThat(cola()).containsExactly("1:PENDIENTE", "2:PENDIENTE", "3:PENDIENTE");
+    }
+
+    @Test
+    void siElEstadoAnteriorNoCoincideSeLeeLaVersionConfirmada() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0));
+        // Llega el evento CONFIRMADO -> EN_PREPARACION antes que PENDIENTE -> CONFIRMADO
+        enBaseDeDatos(pedido(1, EstadoPedido.EN_PREPARACION, 0));
+
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.CONFIRMADO, EstadoPedido.EN_PREPARACION));
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+
+        assertThat(cola()).containsExactly("1:EN_PREPARACION");
+        verify(pedidoRepository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void unCambioFueraDeLaCocinaNoConsultaNada() {
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.LISTO, EstadoPedido.EN_TRANSITO));
+
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    void siLaColaCambiaMientrasSeLeeSeVuelveADecidir() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0), pedido(2, EstadoPedido.PENDIENTE, 5));
+        // Mientras se lee el pedido 1 otro hilo aplica el cambio del pedido 2; la lectura se repite con la cola nueva
+        when(pedidoRepository.findDtoById(1L))
+                .thenAnswer(invocacion -> {
+                    servicio.alCambiarEstadoPedido(
+                            new PedidoEstadoCambiadoEvent(2L, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+                    return Optional.of(pedido(1, EstadoPedido.EN_PREPARACION, 0));
+                })
+                .thenReturn(Optional.of(pedido(1, EstadoPedido.EN_PREPARACION, 0)));
+
+        servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.CONFIRMADO, EstadoPedido.EN_PREPARACION));
+
+        assertThat(cola()).containsExactly("1:EN_PREPARACION", "2:CONFIRMADO");
+        verify(pedidoRepository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void losPedidosQueCambianDuranteLaRecargaSeVuelvenALeer() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0));
+        // La foto ya está leída cuando llega el evento, así que aún trae el pedido como PENDIENTE
+        when(pedidoRepository.findDtoByEstadoIn(any())).thenAnswer(invocacion -> {
+            servicio.alCambiarEstadoPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+            return List.of(pedido(1, EstadoPedido.PENDIENTE, 0));
+        });
+        enBaseDeDatos(pedido(1, EstadoPedido.CONFIRMADO, 0));
+
+        servicio.inicializar();
+
+        assertThat(cola()).containsExactly("1:CONFIRMADO");
+    }
+
+    @Test
+    void paginaFiltraPorEstado() {
+        cargar(pedido(1, EstadoPedido.PENDIENTE, 0), pedido(2, EstadoPedido.CONFIRMADO, 1),
+                pedido(3, EstadoPedido.PENDIENTE, 2), pedido(4, EstadoPedido.PENDIENTE, 3));
+
+        assertThat(servicio.pagina(RESTAURANTE, EstadoPedido.PENDIENTE, PageRequest.of(1, 2)))
+                .extracting(PedidoDto::getId).containsExactly(4L);
+        assertThat(servicio.pagina(RESTAURANTE, EstadoPedido.PENDIENTE, PageRequest.of(0, 2)).getTotalElements())
+                .isEqualTo(3);
+    }
+}
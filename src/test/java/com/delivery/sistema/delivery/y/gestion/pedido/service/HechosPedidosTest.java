@@ -0,0 +1,121 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.HechoPedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HechosPedidosTest {
+
+    private static final LocalDate DIA = LocalDate.of(2026, 3, 10);
+
+    private static HechoPedidoDto hecho(long id, long restauranteId, long clienteId, LocalDate dia, String total,
+                                        EstadoPedido estado) {
+        return new HechoPedidoDto(id, restauranteId, clienteId, dia.atTime(12, 0), new BigDecimal(total), estado);
+    }
+
+    private static HechoPedidoDto entregado(long id, long restauranteId) {
+        return hecho(id, restauranteId, 1, DIA, "10.00", EstadoPedido.ENTREGADO);
+    }
+
+    private static HechosPedidos construir(List<HechoPedidoDto> hechos) {
+        HechosPedidos.Constructor constructor = new HechosPedidos.Constructor();
+        hechos.forEach(constructor::agregar);
+        return constructor.construir();
+    }
+
+    @Test
+    void agregaPedidosYVentasEntregadasDentroDelPeriodo() {
+        HechosPedidos hechos = construir(List.of(
+                hecho(1, 1, 1, DIA, "10.50", EstadoPedido.ENTREGADO),
+                hecho(2, 1, 2, DIA, "99.99", EstadoPedido.CANCELADO),
+                hecho(3, 2, 2, DIA.plusMonths(1), "5.25", EstadoPedido.ENTREGADO),
+                hecho(4, 2, 1, DIA.minusYears(1), "7.00", EstadoPedido.ENTREGADO)));
+
+        HechosPedidos.Agregado porRestaurante = hechos.porRestaurante(DIA.withDayOfMonth(1), DIA.plusMonths(2));
+        assertThat(porRestaurante.pedidos()).containsExactly(0, 2, 1);
+        assertThat(porRestaurante.ventas()).containsExactly(0, 1050, 525);
+
+        HechosPedidos.Agregado porMes = hechos.porMes(DIA.withDayOfMonth(1), DIA.plusMonths(1));
+        assertThat(porMes.pedidos()).containsExactly(2, 1);
+        assertThat(porMes.ventas()).containsExactly(1050, 525);
+    }
+
+    @Test
+    void lasFilasFueraDeOrdenQuedanIgualQueOrdenadas() {
+        // Archivados primero y detrás un pedido antiguo aún activo, repetido con su estado más reciente
+        HechosPedidos desordenados = construir(List.of(
+                entregado(2, 1), entregado(5, 1), entregado(9, 1),
+                hecho(3, 2, 1, DIA, "10.00", EstadoPedido.EN_TRANSITO),
+                entregado(7, 1),
+                entregado(3, 2)));
+        HechosPedidos ordenados = construir(List.of(
+                entregado(2, 1), entregado(3, 2), entregado(5, 1), entregado(7, 1), entregado(9, 1)));
+
+        assertThat(desordenados.filas()).isEqualTo(5);
+        HechosPedidos.Agregado esperado = ordenados.porRestaurante(DIA, DIA);
+        HechosPedidos.Agregado obtenido = desordenados.porRestaurante(DIA, DIA);
+        assertThat(obtenido.pedidos()).containsExactly(esperado.pedidos());
+        assertThat(obtenido.ventas()).containsExactly(esperado.ventas());
+    }
+
+    @Test
+    void losCambiosReemplazanEInsertanSinTocarLaFotoAnterior() {
+        HechosPedidos anterior = construir(List.of(entregado(1, 1), entregado(3, 1)));
+
+        HechosPedidos nueva = anterior.conCambios(List.of(
+                hecho(3, 1, 1, DIA, "10.00", EstadoPedido.CANCELADO), entregado(2, 2), entregado(8, 2)));
+
+        assertThat(nueva.filas()).isEqualTo(4);
+        assertThat(nueva.porRestaurante(DIA, DIA).ventas()).containsExactly(0, 1000, 2000);
+        assertThat(anterior.filas()).isEqualTo(2);
+        assertThat(anterior.porRestaurante(DIA, DIA).ventas()).containsExactly(0, 2000);
+    }
+
+    @Test
+    void unSegmentoLlenoQueRecibeUnaFilaSeParte() {
+        HechosPedidos.Constructor constructor = new HechosPedidos.Constructor();
+        int filas = HechosPedidos.CAPACIDAD_SEGMENTO + 10;
+        for (int i = 0; i < filas; i++) {
+            constructor.agregar(entregado(2L * i, 1));
+        }
+        // Detrás del primer segmento ya cerrado: se aplica como cambio al construir
+        constructor.agregar(entregado(1, 2));
+        HechosPedidos hechos = constructor.construir();
+
+        HechosPedidos conCambio = hechos.conCambios(List.of(entregado(3, 2), entregado(2L * filas + 1, 2)));
+
+        assertThat(hechos.filas()).isEqualTo(filas + 1);
+        assertThat(hechos.porRestaurante(DIA, DIA).pedidos()).containsExactly(0, filas, 1);
+        assertThat(conCambio.filas()).isEqualTo(filas + 3);
+        assertThat(conCambio.porRestaurante(DIA, DIA).pedidos()).containsExactly(0, filas, 3);
+    }
+
+    @Test
+    void agregaPorClienteConMuchasClaves() {
+        HechosPedidos hechos = construir(List.of(
+                hecho(1, 1, 3, DIA, "1.00", EstadoPedido.ENTREGADO),
+                hecho(2, 1, 40000, DIA, "2.00", EstadoPedido.ENTREGADO),
+                hecho(3, 1, 40000, DIA, "4.00", EstadoPedido.ENTREGADO),
+                hecho(4, 1, 20000, DIA.plusDays(1), "8.00", EstadoPedido.ENTREGADO)));
+
+        HechosPedidos.Agregado porCliente = hechos.porCliente(DIA, DIA);
+
+        assertThat(porCliente.pedidos()).hasSize(40001);
+        assertThat(porCliente.pedidos()[3]).isEqualTo(1);
+        assertThat(porCliente.ventas()[40000]).isEqualTo(600);
+        assertThat(porCliente.pedidos()[20000]).isZero();
+        assertThat(porCliente.pedidos()).containsOnly(0, 1, 2);
+    }
+
+    @Test
+    void unaFotoVaciaDevuelveCeros() {
+        assertThat(HechosPedidos.VACIA.porMes(DIA, DIA.plusMonths(2)).pedidos()).containsExactly(0, 0, 0);
+        assertThat(HechosPedidos.VACIA.conCambios(List.of(entregado(4, 1))).filas()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.delivery.sistema.delivery.y.gestion.pedido.service;
+
+import com.delivery.sistema.delivery.y.gestion.cliente.repository.ClienteRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.dto.PedidoDto;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.DetallePedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoHistoricoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.service.CanjePromocionService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.ContadorEstadosService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.MotorPromocionesService;
+import com.delivery.sistema.delivery.y.gestion.shared.service.TiempoEstimadoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PedidoServiceTest {
+
+    private static final Long CLIENTE = 4L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final Sort ORDEN_CLIENTE = Sort.by(Sort.Direction.DESC, "fechaPedido", "id");
+
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final PedidoHistoricoRepository pedidoHistoricoRepository = mock(PedidoHistoricoRepository.class);
+    private final PedidoService servicio = new PedidoService(pedidoRepository, mock(ClienteRepository.class),
+            mock(RestauranteRepository.class), mock(MenuRepository.class), mock(DetallePedidoRepository.class),
+            mock(TransicionPedidoService.class), mock(ContadorEstadosService.class), mock(VentaDiariaService.class),
+            mock(ColaCocinaService.class), pedidoHistoricoRepository, mock(PromocionRepository.class),
+            mock(MotorPromocionesService.class), mock(CanjePromocionService.class), mock(TiempoEstimadoService.class),
+            mock(ApplicationEventPublisher.class));
+
+    private static PedidoDto pedido(long id, int dia) {
+        return new PedidoDto(id, CLIENTE, "Cliente", 3L, "Restaurante", "Calle 1", null, null, BigDecimal.ONE,
+                "EFECTIVO", EstadoPedido.ENTREGADO, BASE.plusDays(dia), null, BigDecimal.TEN, BigDecimal.ZERO, null);
+    }
+
+    @BeforeEach
+    void configurar() {
+        // Los calificados se quedan en la tabla activa, así que un archivado (id 4) es más reciente que un activo (id 2)
+        when(pedidoRepository.buscarDespuesDe(isNull(), eq(CLIENTE), isNull(), any(), anyInt()))
+                .thenReturn(List.of(pedido(5, 5), pedido(2, 2)));
+        when(pedidoHistoricoRepository.buscarDelClienteDespuesDe(eq(CLIENTE), isNull(), isNull(), any(), any(), any()))
+                .thenReturn(List.of(pedido(4, 4), pedido(1, 1)));
+        when(pedidoRepository.countByClienteId(CLIENTE)).thenReturn(2L);
+        when(pedidoHistoricoRepository.countByClienteId(CLIENTE)).thenReturn(2L);
+    }
+
+    private static List<Long> ids(Page<PedidoDto> pagina) {
+        return pagina.getContent().stream().map(PedidoDto::getId).toList();
+    }
+
+    @Test
+    void mezclaActivosYArchivadosPorFechaDescendente() {
+        Page<PedidoDto> primera = servicio.listarPedidosPorCliente(CLIENTE, PageRequest.of(0, 2));
+        Page<PedidoDto> segunda = servicio.listarPedidosPorCliente(CLIENTE, PageRequest.of(1, 2));
+
+        assertThat(ids(primera)).containsExactly(5L, 4L);
+        assertThat(ids(segunda)).containsExactly(2L, 1L);
+        assertThat(segunda.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void sinPaginarDevuelveTodaLaMezcla() {
+        assertThat(ids(servicio.listarPedidosPorCliente(CLIENTE, Pageable.unpaged()))).containsExactly(5L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void unaPaginaMasAllaDelTotalSaleVacia() {
+        Page<PedidoDto> pagina = servicio.listarPedidosPorCliente(CLIENTE, PageRequest.of(3, 2));
+
+        assertThat(pagina.getContent()).isEmpty();
+        assertThat(pagina.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void sinArchivadosUsaLaTablaActivaConElMismoOrden() {
+        when(pedidoHistoricoRepository.countByClienteId(CLIENTE)).thenReturn(0L);
+        when(pedidoRepository.findDtoByClienteId(eq(CLIENTE), any())).thenReturn(new PageImpl<>(List.of()));
+
+        servicio.listarPedidosPorCliente(CLIENTE, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "fechaPedido")));
+
+        verify(pedidoRepository).findDtoByClienteId(CLIENTE, PageRequest.of(0, 10, ORDEN_CLIENTE));
+    }
+
+    @Test
+    void rechazaUnOrdenQueLaMezclaNoPuedeRespetar() {
+        assertThatThrownBy(() -> servicio.listarPedidosPorCliente(CLIENTE, PageRequest.of(0, 10, Sort.by("total"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> servicio.listarPedidosPorCliente(CLIENTE,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "fechaPedido"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(pedidoHistoricoRepository, never()).countByClienteId(any());
+    }
+}
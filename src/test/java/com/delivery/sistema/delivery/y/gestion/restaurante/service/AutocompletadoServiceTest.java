@@ -0,0 +1,106 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.DetallePedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.VentaDiariaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.event.RestauranteCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.CategoriaRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.MenuRepository;
+import com.delivery.sistema.delivery.y.gestion.restaurante.repository.RestauranteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AutocompletadoServiceTest {
+
+    private final RestauranteRepository restauranteRepository = mock(RestauranteRepository.class);
+    private final MenuRepository menuRepository = mock(MenuRepository.class);
+    private final CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+    private final DetallePedidoRepository detallePedidoRepository = mock(DetallePedidoRepository.class);
+    private final VentaDiariaRepository ventaDiariaRepository = mock(VentaDiariaRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AutocompletadoService servicio = new AutocompletadoService(restauranteRepository, menuRepository,
+            categoriaRepository, detallePedidoRepository, ventaDiariaRepository, transactionManager);
+
+    private final List<Object[]> menus = new ArrayList<>();
+    private final List<Object[]> unidades = new ArrayList<>();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "diasPopularidad", 90);
+        ReflectionTestUtils.setField(servicio, "recalculoMs", 600000L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(menuRepository.findNombresSugeribles()).thenAnswer(invocacion -> List.copyOf(menus));
+        when(detallePedidoRepository.sumarCantidadPorMenuDesde(any())).thenAnswer(invocacion -> List.copyOf(unidades));
+    }
+
+    private List<String> sugerir(String consulta) {
+        return servicio.sugerir(consulta, 10).stream().map(SugerenciaDto::texto).toList();
+    }
+
+    @Test
+    void ordenaPorLaPopularidadCalculada() {
+        menus.add(new Object[]{1L, "Pollo a la brasa", 10L});
+        menus.add(new Object[]{2L, "Pollo broaster", 10L});
+        unidades.add(new Object[]{2L, 40L});
+
+        servicio.inicializar();
+
+        assertThat(sugerir("pol")).containsExactly("Pollo broaster", "Pollo a la brasa");
+    }
+
+    @Test
+    void sinCambiosNiRecalculoPendienteNoReconstruye() {
+        servicio.inicializar();
+
+        servicio.revisar();
+
+        verify(menuRepository, times(1)).findNombresSugeribles();
+        verify(detallePedidoRepository, times(1)).sumarCantidadPorMenuDesde(any());
+    }
+
+    @Test
+    void unCambioReleeLosNombresYReutilizaLaPopularidad() {
+        menus.add(new Object[]{1L, "Pollo a la brasa", 10L});
+        unidades.add(new Object[]{1L, 40L});
+        servicio.inicializar();
+
+        menus.add(new Object[]{2L, "Pollo broaster", 10L});
+        unidades.set(0, new Object[]{2L, 500L});
+        servicio.onRestauranteCambiado(new RestauranteCambiadoEvent(5L));
+        servicio.revisar();
+
+        verify(menuRepository, times(2)).findNombresSugeribles();
+        verify(detallePedidoRepository, times(1)).sumarCantidadPorMenuDesde(any());
+        verify(ventaDiariaRepository, times(1)).sumarPedidosPorRestauranteDesde(any());
+        // El menú nuevo aparece, pero con la popularidad del último recálculo
+        assertThat(sugerir("pol")).containsExactly("Pollo a la brasa", "Pollo broaster");
+    }
+
+    @Test
+    void elRecalculoPeriodicoActualizaLaPopularidad() {
+        menus.add(new Object[]{1L, "Pollo a la brasa", 10L});
+        menus.add(new Object[]{2L, "Pollo broaster", 10L});
+        unidades.add(new Object[]{1L, 40L});
+        servicio.inicializar();
+
+        unidades.set(0, new Object[]{2L, 500L});
+        ReflectionTestUtils.setField(servicio, "recalculoMs", 0L);
+        servicio.revisar();
+
+        verify(detallePedidoRepository, times(2)).sumarCantidadPorMenuDesde(any());
+        assertThat(sugerir("pol")).containsExactly("Pollo broaster", "Pollo a la brasa");
+    }
+}
@@ -0,0 +1,136 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.SugerenciaDto.Tipo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IndiceAutocompletadoTest {
+
+    private static List<String> textos(IndiceAutocompletado indice, String consulta) {
+        return indice.sugerir(consulta, IndiceAutocompletado.MAX_SUGERENCIAS).stream().map(SugerenciaDto::texto).toList();
+    }
+
+    @Test
+    void sugierePorPrefijoOrdenadoPorPopularidad() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Pollo a la brasa", 5);
+        constructor.agregar(Tipo.MENU, 2L, "Pollo broaster", 50);
+        constructor.agregar(Tipo.MENU, 3L, "Pasta", 500);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(textos(indice, "pol")).containsExactly("Pollo broaster", "Pollo a la brasa");
+    }
+
+    @Test
+    void elPuntajeCombinaCalidadYPopularidad() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.RESTAURANTE, 1L, "Sushi Go", 9);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(indice.sugerir("sus", 1).get(0).puntaje()).isCloseTo(1 + Math.log(10), within(1e-4));
+    }
+
+    @Test
+    void unNombreQueEmpiezaConLaConsultaVaAntesQueUnaPalabraInterior() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Lomo saltado", 0);
+        constructor.agregar(Tipo.MENU, 2L, "Saltado de verduras", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(textos(indice, "salt")).containsExactly("Saltado de verduras", "Lomo saltado");
+    }
+
+    @Test
+    void ignoraMayusculasYTildes() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.RESTAURANTE, 1L, "Pizzería Ñandú", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(textos(indice, "PIZZERIA NAN")).containsExactly("Pizzería Ñandú");
+    }
+
+    @Test
+    void toleraErroresDeTipeo() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Ceviche mixto", 0);
+        constructor.agregar(Tipo.MENU, 2L, "Lomo saltado", 0);
+        constructor.agregar(Tipo.MENU, 3L, "Arroz chaufa", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        // Sustitución, omisión y transposición de letras
+        assertThat(textos(indice, "sevi")).containsExactly("Ceviche mixto");
+        assertThat(textos(indice, "lomo saltdo")).containsExactly("Lomo saltado");
+        assertThat(textos(indice, "arorz")).containsExactly("Arroz chaufa");
+    }
+
+    @Test
+    void lasCoincidenciasAproximadasPuntuanMenosConMasEdiciones() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Tallarines verdes", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        double unaEdicion = indice.sugerir("tallerines", 1).get(0).puntaje();
+        double dosEdiciones = indice.sugerir("tellerines", 1).get(0).puntaje();
+        assertThat(unaEdicion).isGreaterThan(dosEdiciones);
+        assertThat(indice.sugerir("tellerines", 1).get(0).puntaje()).isLessThan(indice.sugerir("tall", 1).get(0).puntaje());
+    }
+
+    @Test
+    void noAdmiteErroresEnPalabrasDeDosLetrasNiDemasiadasEdiciones() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Sopa", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(textos(indice, "xo")).isEmpty();
+        assertThat(textos(indice, "sxyz")).isEmpty();
+    }
+
+    @Test
+    void todasLasPalabrasDeLaConsultaDebenCoincidir() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Lomo saltado", 0);
+        constructor.agregar(Tipo.MENU, 2L, "Lomo fino", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(textos(indice, "lomo saltdo")).containsExactly("Lomo saltado");
+    }
+
+    @Test
+    void fusionaNombresRepetidosDelMismoTipoConElIdDelMasPopular() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        constructor.agregar(Tipo.MENU, 1L, "Pizza", 3);
+        constructor.agregar(Tipo.MENU, 2L, " pizza ", 5);
+        constructor.agregar(Tipo.CATEGORIA, 7L, "Pizza", 0);
+        IndiceAutocompletado indice = constructor.construir();
+
+        List<SugerenciaDto> sugerencias = indice.sugerir("piz", 10);
+        assertThat(indice.tamano()).isEqualTo(2);
+        assertThat(sugerencias).extracting(SugerenciaDto::tipo).containsExactly(Tipo.MENU, Tipo.CATEGORIA);
+        assertThat(sugerencias.get(0).id()).isEqualTo(2L);
+        assertThat(sugerencias.get(0).puntaje()).isCloseTo(1 + Math.log(9), within(1e-4));
+    }
+
+    @Test
+    void respetaElLimite() {
+        IndiceAutocompletado.Constructor constructor = new IndiceAutocompletado.Constructor();
+        for (int i = 0; i < 30; i++) {
+            constructor.agregar(Tipo.MENU, (long) i, "Empanada " + i, i);
+        }
+        IndiceAutocompletado indice = constructor.construir();
+
+        assertThat(indice.sugerir("empa", 3)).extracting(SugerenciaDto::texto)
+                .containsExactly("Empanada 29", "Empanada 28", "Empanada 27");
+        assertThat(indice.sugerir("empa", IndiceAutocompletado.MAX_SUGERENCIAS)).hasSize(IndiceAutocompletado.MAX_SUGERENCIAS);
+    }
+
+    @Test
+    void elIndiceVacioNoSugiereNada() {
+        assertThat(IndiceAutocompletado.VACIO.sugerir("algo", 5)).isEmpty();
+        assertThat(IndiceAutocompletado.VACIO.sugerir("  ", 5)).isEmpty();
+    }
+}
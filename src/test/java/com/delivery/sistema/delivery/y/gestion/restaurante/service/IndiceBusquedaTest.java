@@ -0,0 +1,116 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.DocumentoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto;
+import com.delivery.sistema.delivery.y.gestion.restaurante.dto.ResultadoBusquedaDto.Tipo;
+import com.delivery.sistema.delivery.y.gestion.shared.util.TextoBusqueda;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceBusquedaTest {
+
+    private final IndiceBusqueda indice = new IndiceBusqueda();
+
+    private void restaurante(long id, String nombre, String descripcion) {
+        indice.guardar(Tipo.RESTAURANTE, new DocumentoBusquedaDto(id, id, nombre, descripcion, "Calle Mayor 1", true));
+    }
+
+    private void menu(long id, long restauranteId, String nombre, String descripcion) {
+        indice.guardar(Tipo.MENU, new DocumentoBusquedaDto(id, restauranteId, nombre, descripcion, true));
+    }
+
+    private List<Long> ids(String consulta, Tipo tipo, int limite) {
+        List<String> terminos = TextoBusqueda.terminos(consulta).stream().distinct().toList();
+        return indice.buscar(terminos, tipo, limite).stream().map(ResultadoBusquedaDto::id).toList();
+    }
+
+    @Test
+    void ordenaPrimeroPorTerminosCoincidentesYLuegoPorPuntaje() {
+        restaurante(1L, "Pizza Pizza Pizza", null);
+        restaurante(2L, "Pizza napolitana", null);
+        restaurante(3L, "Sushi bar", "Pizza de salmón");
+
+        // El 2 coincide con los dos términos aunque el 1 tenga más frecuencia de "pizza"
+        assertThat(ids("pizza napolitana", null, 10)).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        restaurante(1L, "Casa Lola", "Tacos al pastor");
+        restaurante(2L, "Tacos Lola", "Cocina casera");
+
+        List<ResultadoBusquedaDto> resultados = indice.buscar(List.of("taco"), null, 10);
+
+        assertThat(resultados).extracting(ResultadoBusquedaDto::id).containsExactly(2L, 1L);
+        assertThat(resultados.get(0).puntaje()).isGreaterThan(resultados.get(1).puntaje());
+    }
+
+    @Test
+    void normalizaTildesYPlurales() {
+        restaurante(1L, "Dulcería", "Postres caseros");
+
+        assertThat(ids("DULCERIA", null, 10)).containsExactly(1L);
+        assertThat(ids("postre", null, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void respetaElLimiteConservandoLosMejores() {
+        restaurante(1L, "Burger", null);
+        restaurante(2L, "Burger Burger", null);
+        restaurante(3L, "Burger Burger Burger", null);
+
+        assertThat(ids("burger", null, 2)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void filtraPorTipo() {
+        restaurante(1L, "Empanadas Norte", null);
+        menu(10L, 1L, "Empanada de carne", null);
+
+        assertThat(ids("empanada", Tipo.MENU, 10)).containsExactly(10L);
+        assertThat(ids("empanada", Tipo.RESTAURANTE, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void noDevuelveMenusDeRestaurantesFueraDelIndice() {
+        menu(10L, 1L, "Ramen", null);
+        restaurante(2L, "Otro", null);
+
+        assertThat(ids("ramen", null, 10)).isEmpty();
+
+        restaurante(1L, "Casa Tokio", null);
+        assertThat(ids("ramen", null, 10)).containsExactly(10L);
+    }
+
+    @Test
+    void guardarInvisibleEliminaElDocumento() {
+        restaurante(1L, "Parrilla Sur", null);
+        indice.guardar(Tipo.RESTAURANTE, new DocumentoBusquedaDto(1L, 1L, "Parrilla Sur", null, null, false));
+
+        assertThat(indice.tamano()).isZero();
+        assertThat(ids("parrilla", null, 10)).isEmpty();
+    }
+
+    @Test
+    void reemplazarUnDocumentoQuitaSusTerminosAnteriores() {
+        restaurante(1L, "Curry House", null);
+        restaurante(1L, "Wok Express", null);
+
+        assertThat(ids("curry", null, 10)).isEmpty();
+        assertThat(ids("wok", null, 10)).containsExactly(1L);
+        assertThat(indice.tamano()).isEqualTo(1);
+    }
+
+    @Test
+    void restauranteYMenuConElMismoIdNoChocan() {
+        restaurante(5L, "Fonda", null);
+        menu(5L, 5L, "Fonda especial", null);
+
+        assertThat(indice.buscar(List.of("fonda"), null, 10))
+                .extracting(ResultadoBusquedaDto::tipo)
+                .containsExactlyInAnyOrder(Tipo.RESTAURANTE, Tipo.MENU);
+    }
+}
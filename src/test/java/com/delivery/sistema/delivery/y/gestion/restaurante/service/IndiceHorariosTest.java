@@ -0,0 +1,133 @@
+package com.delivery.sistema.delivery.y.gestion.restaurante.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceHorariosTest {
+
+    private final IndiceHorarios indice = new IndiceHorarios();
+
+    private static int minuto(int hora, int minuto) {
+        return IndiceHorarios.minuto(LocalTime.of(hora, minuto));
+    }
+
+    @Test
+    void horarioDiurnoIncluyeAperturaYExcluyeCierre() {
+        indice.guardar(1L, LocalTime.of(9, 0), LocalTime.of(17, 30));
+
+        assertThat(indice.abierto(1L, minuto(8, 59))).isFalse();
+        assertThat(indice.abierto(1L, minuto(9, 0))).isTrue();
+        assertThat(indice.abierto(1L, minuto(17, 29))).isTrue();
+        assertThat(indice.abierto(1L, minuto(17, 30))).isFalse();
+    }
+
+    @Test
+    void ignoraLosSegundosDeLaHora() {
+        indice.guardar(1L, LocalTime.of(9, 0, 45), LocalTime.of(10, 0, 59));
+
+        assertThat(indice.abierto(1L, minuto(9, 0))).isTrue();
+        assertThat(indice.abierto(1L, minuto(10, 0))).isFalse();
+    }
+
+    @Test
+    void horarioQueCruzaMedianocheSigueAbiertoDeMadrugada() {
+        indice.guardar(1L, LocalTime.of(20, 0), LocalTime.of(2, 0));
+
+        assertThat(indice.abierto(1L, minuto(19, 59))).isFalse();
+        assertThat(indice.abierto(1L, minuto(20, 0))).isTrue();
+        assertThat(indice.abierto(1L, minuto(23, 59))).isTrue();
+        assertThat(indice.abierto(1L, minuto(0, 0))).isTrue();
+        assertThat(indice.abierto(1L, minuto(1, 59))).isTrue();
+        assertThat(indice.abierto(1L, minuto(2, 0))).isFalse();
+        assertThat(indice.abierto(1L, minuto(12, 0))).isFalse();
+    }
+
+    @Test
+    void aperturaIgualAlCierreEstaAbiertoTodoElDia() {
+        indice.guardar(1L, LocalTime.of(8, 0), LocalTime.of(8, 0));
+
+        for (int m = 0; m < IndiceHorarios.MINUTOS_DIA; m++) {
+            assertThat(indice.abierto(1L, m)).isTrue();
+        }
+    }
+
+    @Test
+    void listaLosAbiertosDeUnMinuto() {
+        indice.guardar(1L, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        indice.guardar(2L, LocalTime.of(20, 0), LocalTime.of(2, 0));
+        indice.guardar(3L, LocalTime.of(12, 0), LocalTime.of(23, 0));
+
+        assertThat(indice.abiertos(minuto(13, 0))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(indice.abiertos(minuto(22, 0))).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(indice.abiertos(minuto(5, 0))).isEmpty();
+    }
+
+    @Test
+    void guardarDeNuevoReemplazaElHorarioAnterior() {
+        indice.guardar(1L, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        indice.guardar(1L, LocalTime.of(18, 0), LocalTime.of(23, 0));
+
+        assertThat(indice.tamano()).isEqualTo(1);
+        assertThat(indice.abierto(1L, minuto(10, 0))).isFalse();
+        assertThat(indice.abierto(1L, minuto(19, 0))).isTrue();
+        assertThat(indice.abiertos(minuto(10, 0))).isEmpty();
+        assertThat(indice.abiertos(minuto(19, 0))).containsExactly(1L);
+    }
+
+    @Test
+    void quitarLiberaLaPosicionParaOtroRestaurante() {
+        indice.guardar(1L, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        indice.quitar(1L);
+        indice.guardar(2L, LocalTime.of(18, 0), LocalTime.of(23, 0));
+
+        assertThat(indice.tamano()).isEqualTo(1);
+        assertThat(indice.abierto(1L, minuto(10, 0))).isFalse();
+        assertThat(indice.abiertos(minuto(10, 0))).isEmpty();
+        assertThat(indice.abiertos(minuto(19, 0))).containsExactly(2L);
+    }
+
+    @Test
+    void restauranteDesconocidoEstaCerrado() {
+        indice.quitar(99L);
+
+        assertThat(indice.abierto(99L, minuto(12, 0))).isFalse();
+        assertThat(indice.tamano()).isZero();
+    }
+
+    @Test
+    void creceMasAllaDeLaCapacidadInicial() {
+        for (long id = 1; id <= 200; id++) {
+            indice.guardar(id, LocalTime.of(10, 0), LocalTime.of(11, 0));
+        }
+
+        assertThat(indice.tamano()).isEqualTo(200);
+        assertThat(indice.abiertos(minuto(10, 30))).hasSize(200).contains(1L, 64L, 65L, 200L);
+        assertThat(indice.abiertos(minuto(11, 0))).isEmpty();
+    }
+
+    @Test
+    void transicionesEntreDosMinutos() {
+        indice.guardar(1L, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        indice.guardar(2L, LocalTime.of(17, 0), LocalTime.of(23, 0));
+        indice.guardar(3L, LocalTime.of(0, 0), LocalTime.of(0, 0));
+
+        IndiceHorarios.Transiciones cambio = indice.transiciones(minuto(16, 59), minuto(17, 0));
+
+        assertThat(cambio.abren()).containsExactly(2L);
+        assertThat(cambio.cierran()).containsExactly(1L);
+    }
+
+    @Test
+    void transicionesAlCruzarMedianoche() {
+        indice.guardar(1L, LocalTime.of(20, 0), LocalTime.of(0, 0));
+        indice.guardar(2L, LocalTime.of(0, 0), LocalTime.of(6, 0));
+
+        IndiceHorarios.Transiciones cambio = indice.transiciones(minuto(23, 59), minuto(0, 0));
+
+        assertThat(cambio.abren()).containsExactly(2L);
+        assertThat(cambio.cierran()).containsExactly(1L);
+    }
+}
@@ -0,0 +1,257 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.event.PromocionCambiadaEvent;
+import com.delivery.sistema.delivery.y.gestion.shared.model.CupoPromocion;
+import com.delivery.sistema.delivery.y.gestion.shared.model.Promocion;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.CupoPromocionRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.repository.PromocionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CanjePromocionServiceTest {
+
+    private static final Long PROMOCION = 7L;
+
+    private final PromocionRepository promocionRepository = mock(PromocionRepository.class);
+    private final CupoPromocionRepository cupoPromocionRepository = mock(CupoPromocionRepository.class);
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CanjePromocionService servicio = new CanjePromocionService(
+            promocionRepository, cupoPromocionRepository, pedidoRepository, transactionManager);
+
+    private final AtomicLong siguienteCupo = new AtomicLong(100);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "tamanoBloque", 20);
+        ReflectionTestUtils.setField(servicio, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(servicio, "reintentoMs", 60000L);
+        ReflectionTestUtils.setField(servicio, "graciaMs", 30000L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(cupoPromocionRepository.save(any())).thenAnswer(invocacion -> {
+            CupoPromocion cupo = invocacion.getArgument(0);
+            cupo.setId(siguienteCupo.incrementAndGet());
+            return cupo;
+        });
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void promocion(Integer usosMaximos, int actuales, int reservados) {
+        Promocion promocion = new Promocion();
+        promocion.setId(PROMOCION);
+        promocion.setUsosMaximos(usosMaximos);
+        promocion.setUsosActuales(actuales);
+        promocion.setUsosReservados(reservados);
+        when(promocionRepository.bloquearPorId(PROMOCION)).thenReturn(Optional.of(promocion));
+        when(promocionRepository.reservarUsos(eq(PROMOCION), anyInt())).thenAnswer(invocacion -> {
+            promocion.setUsosReservados(promocion.getUsosReservados() + invocacion.<Integer>getArgument(1));
+            return 1;
+        });
+    }
+
+    private void canjear(int veces) {
+        for (int i = 0; i < veces; i++) {
+            assertThat(servicio.canjear(PROMOCION)).isPresent();
+        }
+    }
+
+    @Test
+    void reservaUnBloqueYCuentaLosCanjesEnMemoria() {
+        promocion(null, 0, 0);
+
+        canjear(5);
+
+        verify(promocionRepository, times(1)).reservarUsos(PROMOCION, 20);
+        verify(cupoPromocionRepository, times(1)).save(any());
+        assertThat(servicio.canjear(PROMOCION)).contains(siguienteCupo.get());
+    }
+
+    @Test
+    void elBloqueNoSuperaElCupoLibre() {
+        promocion(100, 85, 10);
+
+        canjear(5);
+
+        verify(promocionRepository).reservarUsos(PROMOCION, 5);
+        assertThat(servicio.canjear(PROMOCION)).isEmpty();
+    }
+
+    @Test
+    void sinCupoNoVuelveAConsultarHastaElReintento() {
+        promocion(10, 10, 0);
+
+        assertThat(servicio.canjear(PROMOCION)).isEmpty();
+        assertThat(servicio.canjear(PROMOCION)).isEmpty();
+
+        verify(promocionRepository, times(1)).bloquearPorId(PROMOCION);
+        verify(promocionRepository, never()).reservarUsos(anyLong(), anyInt());
+    }
+
+    @Test
+    void alAgotarseReservaOtroBloqueYElAnteriorSeCierraAlSincronizar() {
+        promocion(null, 0, 0);
+        ReflectionTestUtils.setField(servicio, "tamanoBloque", 3);
+        when(cupoPromocionRepository.eliminar(anyLong())).thenReturn(1);
+
+        canjear(4);
+        long primero = siguienteCupo.get() - 1;
+        servicio.sincronizar();
+
+        verify(promocionRepository, times(2)).reservarUsos(PROMOCION, 3);
+        verify(cupoPromocionRepository).eliminar(primero);
+        verify(promocionRepository).consolidarUsos(PROMOCION, 3, 0);
+    }
+
+    @Test
+    void sincronizarConsolidaLosNuevosCanjesYRenuevaElBloque() {
+        promocion(null, 0, 0);
+        when(cupoPromocionRepository.sincronizar(anyLong(), anyInt(), any())).thenReturn(1);
+
+        canjear(4);
+        servicio.sincronizar();
+        canjear(2);
+        servicio.sincronizar();
+
+        long cupo = siguienteCupo.get();
+        verify(cupoPromocionRepository).sincronizar(eq(cupo), eq(4), any(LocalDateTime.class));
+        verify(promocionRepository).consolidarUsos(PROMOCION, 4, 0);
+        verify(cupoPromocionRepository).sincronizar(eq(cupo), eq(2), any(LocalDateTime.class));
+        verify(promocionRepository).consolidarUsos(PROMOCION, 2, 0);
+        verify(cupoPromocionRepository, never()).eliminar(anyLong());
+    }
+
+    @Test
+    void unBloqueSinCanjesDesdeLaPasadaAnteriorSeCierraYDevuelveElResto() {
+        promocion(null, 0, 0);
+        when(cupoPromocionRepository.sincronizar(anyLong(), anyInt(), any())).thenReturn(1);
+        when(cupoPromocionRepository.eliminar(anyLong())).thenReturn(1);
+
+        canjear(4);
+        servicio.sincronizar();
+        servicio.sincronizar();
+
+        verify(cupoPromocionRepository).eliminar(siguienteCupo.get());
+        verify(promocionRepository).consolidarUsos(PROMOCION, 0, 16);
+    }
+
+    @Test
+    void siOtroNodoYaRecuperoElBloqueSeDescartaYSeReservaOtro() {
+        promocion(null, 0, 0);
+        when(cupoPromocionRepository.sincronizar(anyLong(), anyInt(), any())).thenReturn(0);
+
+        canjear(2);
+        servicio.sincronizar();
+        canjear(1);
+
+        verify(promocionRepository, never()).consolidarUsos(anyLong(), anyInt(), anyInt());
+        verify(promocionRepository, times(2)).reservarUsos(PROMOCION, 20);
+    }
+
+    @Test
+    void alCambiarLaPromocionElBloqueSeRetiraYSeCierra() {
+        promocion(null, 0, 0);
+        when(cupoPromocionRepository.eliminar(anyLong())).thenReturn(1);
+
+        canjear(3);
+        servicio.alCambiarPromocion(new PromocionCambiadaEvent(PROMOCION));
+        servicio.sincronizar();
+
+        verify(cupoPromocionRepository).eliminar(siguienteCupo.get());
+        verify(promocionRepository).consolidarUsos(PROMOCION, 3, 17);
+    }
+
+    @Test
+    void noConfirmaUnCanjeDeUnBloqueQueDejoDeSerValido() {
+        promocion(null, 0, 0);
+        TransactionSynchronizationManager.initSynchronization();
+
+        canjear(1);
+        Map<?, ?> bloques = (Map<?, ?>) ReflectionTestUtils.getField(servicio, "bloques");
+        ReflectionTestUtils.setField(bloques.get(PROMOCION), "validoHasta", 0L);
+
+        TransactionSynchronization sincronizacion = TransactionSynchronizationManager.getSynchronizations().get(0);
+        assertThatThrownBy(() -> sincronizacion.beforeCommit(false)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void unCanjeRevertidoDevuelveElUsoAlBloque() {
+        promocion(null, 0, 0);
+        when(cupoPromocionRepository.sincronizar(anyLong(), anyInt(), any())).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        canjear(2);
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        sincronizaciones.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        sincronizaciones.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        servicio.sincronizar();
+
+        verify(cupoPromocionRepository).sincronizar(eq(siguienteCupo.get()), eq(1), any(LocalDateTime.class));
+    }
+
+    @Test
+    void recuperaLosBloquesVencidosContandoLosPedidos() {
+        Promocion promocion = new Promocion();
+        promocion.setId(PROMOCION);
+        CupoPromocion cupo = new CupoPromocion();
+        cupo.setId(50L);
+        cupo.setPromocion(promocion);
+        cupo.setCantidad(20);
+        cupo.setUsados(5);
+        when(cupoPromocionRepository.findExpirados(any())).thenReturn(List.of(cupo));
+        when(cupoPromocionRepository.eliminarSiExpirado(eq(50L), any())).thenReturn(1);
+        when(pedidoRepository.countByCupoPromocionId(50L)).thenReturn(7L);
+
+        servicio.recuperarVencidos();
+
+        // Dos pedidos confirmados tras la última sincronización; los trece usos restantes vuelven al cupo
+        verify(promocionRepository).consolidarUsos(PROMOCION, 2, 13);
+    }
+
+    @Test
+    void noRecuperaUnBloqueQueSuNodoRenovoEntretanto() {
+        Promocion promocion = new Promocion();
+        promocion.setId(PROMOCION);
+        CupoPromocion cupo = new CupoPromocion();
+        cupo.setId(51L);
+        cupo.setPromocion(promocion);
+        cupo.setCantidad(20);
+        when(cupoPromocionRepository.findExpirados(any())).thenReturn(List.of(cupo));
+        when(cupoPromocionRepository.eliminarSiExpirado(eq(51L), any())).thenReturn(0);
+
+        servicio.recuperarVencidos();
+
+        verify(pedidoRepository, never()).countByCupoPromocionId(anyLong());
+        verify(promocionRepository, never()).consolidarUsos(anyLong(), anyInt(), anyInt());
+    }
+}
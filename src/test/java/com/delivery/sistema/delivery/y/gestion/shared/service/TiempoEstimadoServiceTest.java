@@ -0,0 +1,242 @@
+package com.delivery.sistema.delivery.y.gestion.shared.service;
+
+import com.delivery.sistema.delivery.y.gestion.delivery.event.EntregaEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.delivery.model.EstadoEntrega;
+import com.delivery.sistema.delivery.y.gestion.delivery.repository.EntregaRepository;
+import com.delivery.sistema.delivery.y.gestion.pedido.event.PedidoEstadoCambiadoEvent;
+import com.delivery.sistema.delivery.y.gestion.pedido.model.EstadoPedido;
+import com.delivery.sistema.delivery.y.gestion.pedido.repository.PedidoRepository;
+import com.delivery.sistema.delivery.y.gestion.shared.dto.MetricasTiempoEstimadoDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TiempoEstimadoServiceTest {
+
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    private final EntregaRepository entregaRepository = mock(EntregaRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TiempoEstimadoService servicio =
+            new TiempoEstimadoService(pedidoRepository, entregaRepository, transactionManager);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "alfa", 0.1);
+        ReflectionTestUtils.setField(servicio, "vidaMediaHoras", 72L);
+        ReflectionTestUtils.setField(servicio, "minMuestras", 5L);
+        ReflectionTestUtils.setField(servicio, "maxDuracionMin", 240L);
+        ReflectionTestUtils.setField(servicio, "preparacionDefectoMin", 20.0);
+        ReflectionTestUtils.setField(servicio, "recogidaDefectoMin", 8.0);
+        ReflectionTestUtils.setField(servicio, "trayectoDefectoMin", 15.0);
+        ReflectionTestUtils.setField(servicio, "diasHistoria", 14);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        servicio.crearEstadisticas();
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Fila de recorrerTiemposEntregadas: preparación hasta la asignación y trayecto desde ahí
+    private static Object[] entregada(long restauranteId, long repartidorId, int preparacionMin, int trayectoMin) {
+        LocalDateTime pedido = LocalDateTime.now().minusDays(1);
+        LocalDateTime asignacion = pedido.plusMinutes(preparacionMin);
+        return new Object[]{restauranteId, pedido, repartidorId, asignacion, asignacion.plusMinutes(trayectoMin)};
+    }
+
+    private void sembrar(Object[]... filas) {
+        when(entregaRepository.recorrerTiemposEntregadas(any())).thenReturn(Stream.of(filas));
+        servicio.inicializar();
+    }
+
+    // Pedido hecho hace `minutos` minutos menos medio, para que el redondeo hacia arriba no dependa de milisegundos
+    private void pedido(long pedidoId, long restauranteId, int minutos) {
+        Object[] fila = {pedidoId, restauranteId, LocalDateTime.now().minusMinutes(minutos).plusSeconds(30)};
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(fila);
+        when(pedidoRepository.findRestauranteYFechaPedidoByIdIn(anyCollection())).thenReturn(filas);
+        when(pedidoRepository.findRestauranteYFechaPedidoById(pedidoId)).thenReturn(List.<Object[]>of(new Object[]{fila[1], fila[2]}));
+    }
+
+    private Map<Long, Integer> escrito() {
+        ArgumentCaptor<Map<Long, Integer>> captor = captor();
+        verify(pedidoRepository).actualizarTiemposEstimados(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void sinMuestrasUsaLosValoresPorDefecto() {
+        assertThat(servicio.estimarAlCrear(1L)).isEqualTo(20 + 8 + 15);
+    }
+
+    @Test
+    void laSiembraAlimentaPreparacionYTrayecto() {
+        sembrar(
+                entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10),
+                entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10));
+
+        // La historia no tiene la recogida: sigue el valor por defecto
+        assertThat(servicio.estimarAlCrear(1L)).isEqualTo(30 + 8 + 10);
+
+        MetricasTiempoEstimadoDto metricas = servicio.metricas();
+        assertThat(metricas.muestrasHistoricas()).isEqualTo(5);
+        assertThat(metricas.preparacion().muestras()).isEqualTo(5);
+        assertThat(metricas.recogida().muestras()).isZero();
+        assertThat(metricas.restaurantes()).isEqualTo(1);
+    }
+
+    @Test
+    void laSiembraDescartaDuracionesImposibles() {
+        sembrar(entregada(1L, 7L, 30, 10), entregada(1L, 7L, -5, 10), entregada(1L, 7L, 300, 10));
+
+        MetricasTiempoEstimadoDto metricas = servicio.metricas();
+        assertThat(metricas.preparacion().muestras()).isEqualTo(1);
+        assertThat(metricas.descartadas()).isEqualTo(2);
+    }
+
+    @Test
+    void sinMuestrasSuficientesElRestauranteUsaLaMediaGlobal() {
+        sembrar(
+                entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10),
+                entregada(1L, 7L, 30, 10), entregada(1L, 7L, 30, 10),
+                entregada(2L, 7L, 60, 10), entregada(2L, 7L, 60, 10));
+
+        // Global: promedio de las 7 muestras, (5·30 + 2·60) / 7 ≈ 38.6 minutos
+        assertThat(servicio.estimarAlCrear(1L)).isEqualTo(30 + 8 + 10);
+        assertThat(servicio.estimarAlCrear(2L)).isEqualTo(57);
+        assertThat(servicio.estimarAlCrear(3L)).isEqualTo(57);
+    }
+
+    @Test
+    void aprendeLaPreparacionDeLosPedidosListos() {
+        for (long pedidoId = 1; pedidoId <= 4; pedidoId++) {
+            pedido(pedidoId, 1L, 40);
+            servicio.aprenderDePedido(new PedidoEstadoCambiadoEvent(pedidoId, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO));
+        }
+        assertThat(servicio.estimarAlCrear(1L)).isEqualTo(20 + 8 + 15);
+
+        pedido(5L, 1L, 40);
+        servicio.aprenderDePedido(new PedidoEstadoCambiadoEvent(5L, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO));
+
+        // Cinco muestras de 39.5 minutos
+        assertThat(servicio.estimarAlCrear(1L)).isEqualTo(40 + 8 + 15);
+    }
+
+    @Test
+    void volverAListoDesdeUnaEntregaFallidaNoEsPreparacion() {
+        pedido(1L, 1L, 40);
+        servicio.aprenderDePedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.EN_TRANSITO, EstadoPedido.LISTO));
+
+        assertThat(servicio.metricas().preparacion().muestras()).isZero();
+    }
+
+    @Test
+    void fueraDeUnaTransaccionEscribeEnElActo() {
+        pedido(1L, 1L, 10);
+
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+
+        // Preparación por defecto (20) por encima de lo transcurrido (9.5), más recogida y trayecto
+        assertThat(escrito()).containsExactly(Map.entry(1L, 20 + 8 + 15));
+    }
+
+    @Test
+    void listoYEntregadoCuentanDesdeLoTranscurrido() {
+        pedido(1L, 1L, 25);
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO));
+        assertThat(escrito()).containsExactly(Map.entry(1L, 25 + 8 + 15));
+
+        pedido(2L, 1L, 50);
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(2L, EstadoPedido.EN_TRANSITO, EstadoPedido.ENTREGADO));
+        ArgumentCaptor<Map<Long, Integer>> captor = captor();
+        verify(pedidoRepository, times(2)).actualizarTiemposEstimados(captor.capture());
+        assertThat(captor.getValue()).containsExactly(Map.entry(2L, 50));
+    }
+
+    @Test
+    void ignoraAltasCancelacionesYEnTransito() {
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(1L, null, EstadoPedido.PENDIENTE));
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.PENDIENTE, EstadoPedido.CANCELADO));
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(1L, EstadoPedido.LISTO, EstadoPedido.EN_TRANSITO));
+        servicio.actualizarEstimacionEntrega(new EntregaEstadoCambiadoEvent(1L, EstadoEntrega.EN_CAMINO, EstadoEntrega.ENTREGADO));
+
+        verify(pedidoRepository, never()).actualizarTiemposEstimados(anyMap());
+    }
+
+    @Test
+    void laEntregaUsaElTrayectoDelRepartidor() {
+        sembrar(
+                entregada(1L, 7L, 30, 25), entregada(1L, 7L, 30, 25), entregada(1L, 7L, 30, 25),
+                entregada(1L, 7L, 30, 25), entregada(1L, 7L, 30, 25));
+        Object[] fila = {10L, 1L, 1L, LocalDateTime.now().minusMinutes(30).plusSeconds(30), 7L};
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(fila);
+        when(entregaRepository.findPedidoYRepartidorByIdIn(anyCollection())).thenReturn(filas);
+
+        servicio.actualizarEstimacionEntrega(new EntregaEstadoCambiadoEvent(10L, null, EstadoEntrega.ASIGNADO));
+
+        // Transcurrido 29.5 + recogida por defecto 8 + trayecto del repartidor 25
+        assertThat(escrito()).containsExactly(Map.entry(1L, 30 + 8 + 25));
+    }
+
+    @Test
+    void dentroDeUnaTransaccionJuntaLasEstimacionesHastaElCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        List<Object[]> filas = new ArrayList<>();
+        LocalDateTime hace10 = LocalDateTime.now().minusMinutes(10).plusSeconds(30);
+        for (long pedidoId = 1; pedidoId <= 3; pedidoId++) {
+            filas.add(new Object[]{pedidoId, 1L, hace10});
+        }
+        when(pedidoRepository.findRestauranteYFechaPedidoByIdIn(anyCollection())).thenReturn(filas);
+
+        for (long pedidoId = 1; pedidoId <= 3; pedidoId++) {
+            servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(pedidoId, EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO));
+        }
+        // El mismo pedido cambia otra vez: queda la última estimación
+        servicio.actualizarEstimacionPedido(new PedidoEstadoCambiadoEvent(2L, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO));
+
+        verify(pedidoRepository, never()).findRestauranteYFechaPedidoByIdIn(anyCollection());
+        verify(pedidoRepository, never()).actualizarTiemposEstimados(anyMap());
+
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        assertThat(sincronizaciones).hasSize(1);
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.beforeCommit(false));
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(pedidoRepository, times(1)).findRestauranteYFechaPedidoByIdIn(anyCollection());
+        assertThat(escrito()).containsExactly(
+                Map.entry(1L, 20 + 8 + 15), Map.entry(2L, 10 + 8 + 15), Map.entry(3L, 20 + 8 + 15));
+        assertThat(TransactionSynchronizationManager.hasResource(servicio)).isFalse();
+        assertThat(servicio.metricas().estimaciones()).isEqualTo(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Map<Long, Integer>> captor() {
+        return ArgumentCaptor.forClass(Map.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class EstadisticaDuracionTest {
+
+    private static final long HORA_MS = 3_600_000L;
+
+    private final EstadisticaDuracion estadistica = new EstadisticaDuracion(0.1, HORA_MS);
+
+    @Test
+    void sinMuestrasNoHayMediaNiCuantiles() {
+        assertThat(estadistica.muestras()).isZero();
+        assertThat(estadistica.media()).isNaN();
+        assertThat(estadistica.cuantil(0.5)).isNaN();
+    }
+
+    @Test
+    void conPocasMuestrasLaMediaEsElPromedioSimple() {
+        estadistica.registrar(100, 0);
+        estadistica.registrar(200, 0);
+        estadistica.registrar(600, 0);
+
+        assertThat(estadistica.muestras()).isEqualTo(3);
+        assertThat(estadistica.media()).isCloseTo(300, offset(1e-9));
+    }
+
+    @Test
+    void pasadoElArranqueLaMediaEsExponencialConAlfa() {
+        for (int i = 0; i < 10; i++) {
+            estadistica.registrar(100, 0);
+        }
+        // Muestra 11: 1/11 < alfa, así que pesa alfa
+        estadistica.registrar(1100, 0);
+
+        assertThat(estadistica.media()).isCloseTo(200, offset(1e-9));
+
+        estadistica.registrar(200, 0);
+        assertThat(estadistica.media()).isCloseTo(200, offset(1e-9));
+    }
+
+    @Test
+    void laMediaOlvidaUnValorAnteriorTrasUnCambioSostenido() {
+        for (int i = 0; i < 100; i++) {
+            estadistica.registrar(600, 0);
+        }
+        for (int i = 0; i < 50; i++) {
+            estadistica.registrar(1200, 0);
+        }
+
+        // 0.9^50 ≈ 0.5%: queda casi todo el peso en el valor nuevo
+        assertThat(estadistica.media()).isCloseTo(1200 - 600 * Math.pow(0.9, 50), offset(1e-6));
+    }
+
+    @Test
+    void losCuantilesDelHistogramaTienenErrorRelativoAcotado() {
+        Random random = new Random(3);
+        double[] valores = new double[20_000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = 600 * Math.exp(0.5 * random.nextGaussian());
+            estadistica.registrar(valores[i], 0);
+        }
+        Arrays.sort(valores);
+
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            double exacto = valores[(int) (q * valores.length)];
+            assertThat(estadistica.cuantil(q)).isCloseTo(exacto, withinPercentage(5));
+        }
+    }
+
+    @Test
+    void losValoresFueraDeRangoVanALasCubetasExtremas() {
+        estadistica.registrar(5, 0);
+        assertThat(estadistica.cuantil(0.5)).isEqualTo(30);
+
+        EstadisticaDuracion larga = new EstadisticaDuracion(0.1, HORA_MS);
+        larga.registrar(24 * 3600, 0);
+        assertThat(larga.cuantil(0.5)).isCloseTo(8 * 3600, withinPercentage(5));
+        // La media no se recorta
+        assertThat(larga.media()).isEqualTo(24 * 3600);
+    }
+
+    @Test
+    void unaMuestraDeHaceUnaVidaMediaPesaLaMitad() {
+        // Tres muestras viejas pesan 3 y una de una vida media después pesa 2: la nueva queda por encima del 60%
+        estadistica.registrar(300, 0);
+        estadistica.registrar(300, 0);
+        estadistica.registrar(300, 0);
+        estadistica.registrar(1200, HORA_MS);
+
+        assertThat(estadistica.cuantil(0.55)).isCloseTo(300, withinPercentage(5));
+        assertThat(estadistica.cuantil(0.65)).isCloseTo(1200, withinPercentage(5));
+    }
+
+    @Test
+    void losCuantilesSiguenALasMuestrasRecientes() {
+        for (int i = 0; i < 1000; i++) {
+            estadistica.registrar(300, 0);
+        }
+        for (int i = 0; i < 100; i++) {
+            estadistica.registrar(1200, 10 * HORA_MS);
+        }
+
+        // Diez vidas medias después las 1000 muestras viejas pesan menos del 1%
+        assertThat(estadistica.cuantil(0.5)).isCloseTo(1200, withinPercentage(5));
+        assertThat(estadistica.cuantil(0.005)).isCloseTo(300, withinPercentage(5));
+        assertThat(estadistica.cuantil(0.02)).isCloseTo(1200, withinPercentage(5));
+    }
+
+    @Test
+    void reescalaLosPesosSinPerderLosCuantiles() {
+        // 200 vidas medias: los pesos sin reescalar desbordarían un double
+        for (int i = 0; i < 200; i++) {
+            estadistica.registrar(i < 190 ? 300 : 900, i * HORA_MS);
+        }
+
+        assertThat(estadistica.cuantil(0.5)).isCloseTo(900, withinPercentage(5));
+        assertThat(estadistica.cuantil(0.0001)).isCloseTo(300, withinPercentage(5));
+        assertThat(Double.isFinite(estadistica.cuantil(0.99))).isTrue();
+    }
+}
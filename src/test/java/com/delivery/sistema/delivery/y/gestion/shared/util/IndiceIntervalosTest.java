@@ -0,0 +1,75 @@
+package com.delivery.sistema.delivery.y.gestion.shared.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceIntervalosTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private record Intervalo(String nombre, LocalDateTime inicio, LocalDateTime fin) {
+    }
+
+    private static Intervalo intervalo(String nombre, int inicio, int fin) {
+        return new Intervalo(nombre, BASE.plusHours(inicio), BASE.plusHours(fin));
+    }
+
+    private static IndiceIntervalos<Intervalo> indice(Intervalo... intervalos) {
+        return new IndiceIntervalos<>(List.of(intervalos), Intervalo::inicio, Intervalo::fin);
+    }
+
+    private static List<String> vigentes(IndiceIntervalos<Intervalo> indice, int hora) {
+        return indice.vigentesEn(BASE.plusHours(hora)).stream().map(Intervalo::nombre).toList();
+    }
+
+    @Test
+    void losExtremosCuentanComoVigentes() {
+        IndiceIntervalos<Intervalo> indice = indice(intervalo("a", 2, 4));
+
+        assertThat(vigentes(indice, 1)).isEmpty();
+        assertThat(vigentes(indice, 2)).containsExactly("a");
+        assertThat(vigentes(indice, 4)).containsExactly("a");
+        assertThat(vigentes(indice, 5)).isEmpty();
+    }
+
+    @Test
+    void unIntervaloLargoSeEncuentraDetrasDeOtrosYaTerminados() {
+        // "largo" empieza primero; los que empiezan después terminan antes de la consulta
+        IndiceIntervalos<Intervalo> indice = indice(
+                intervalo("corto1", 1, 2), intervalo("corto2", 3, 4), intervalo("largo", 0, 100), intervalo("corto3", 5, 6));
+
+        assertThat(vigentes(indice, 50)).containsExactly("largo");
+        assertThat(vigentes(indice, 3)).containsExactlyInAnyOrder("corto2", "largo");
+        assertThat(vigentes(indice, 101)).isEmpty();
+    }
+
+    @Test
+    void coincideConRevisarTodosLosIntervalos() {
+        Random random = new Random(7);
+        List<Intervalo> intervalos = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int inicio = random.nextInt(1000);
+            intervalos.add(intervalo("i" + i, inicio, inicio + random.nextInt(random.nextBoolean() ? 10 : 300)));
+        }
+        IndiceIntervalos<Intervalo> indice = new IndiceIntervalos<>(intervalos, Intervalo::inicio, Intervalo::fin);
+
+        for (int hora = -5; hora < 1400; hora += 7) {
+            LocalDateTime instante = BASE.plusHours(hora);
+            List<Intervalo> esperados = intervalos.stream()
+                    .filter(i -> !i.inicio().isAfter(instante) && !i.fin().isBefore(instante))
+                    .toList();
+            assertThat(indice.vigentesEn(instante)).containsExactlyInAnyOrderElementsOf(esperados);
+        }
+    }
+
+    @Test
+    void sinElementosNoHayVigentes() {
+        assertThat(indice().vigentesEn(BASE)).isEmpty();
+    }
+}